@@ -0,0 +1,4 @@
+package org.pathvisio.benchmark.jmh_generated;
+public class CloneBenchmark_jmhType extends CloneBenchmark_jmhType_B3 {
+}
+
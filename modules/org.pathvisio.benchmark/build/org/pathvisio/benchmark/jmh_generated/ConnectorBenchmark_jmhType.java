@@ -0,0 +1,4 @@
+package org.pathvisio.benchmark.jmh_generated;
+public class ConnectorBenchmark_jmhType extends ConnectorBenchmark_jmhType_B3 {
+}
+
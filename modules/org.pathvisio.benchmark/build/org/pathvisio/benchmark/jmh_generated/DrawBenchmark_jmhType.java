@@ -0,0 +1,4 @@
+package org.pathvisio.benchmark.jmh_generated;
+public class DrawBenchmark_jmhType extends DrawBenchmark_jmhType_B3 {
+}
+
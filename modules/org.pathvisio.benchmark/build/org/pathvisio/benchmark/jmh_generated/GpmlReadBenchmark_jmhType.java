@@ -0,0 +1,4 @@
+package org.pathvisio.benchmark.jmh_generated;
+public class GpmlReadBenchmark_jmhType extends GpmlReadBenchmark_jmhType_B3 {
+}
+
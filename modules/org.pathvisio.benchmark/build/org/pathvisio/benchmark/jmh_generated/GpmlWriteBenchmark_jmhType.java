@@ -0,0 +1,4 @@
+package org.pathvisio.benchmark.jmh_generated;
+public class GpmlWriteBenchmark_jmhType extends GpmlWriteBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.pathvisio.benchmark.jmh_generated;
+public class HitTestBenchmark_jmhType extends HitTestBenchmark_jmhType_B3 {
+}
+
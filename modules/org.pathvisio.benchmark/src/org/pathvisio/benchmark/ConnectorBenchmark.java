@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.pathvisio.libgpml.model.Interaction;
+import org.pathvisio.libgpml.model.LineElement;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.connector.ConnectorShape;
+import org.pathvisio.libgpml.model.connector.ConnectorShapeFactory;
+import org.pathvisio.libgpml.model.connector.CurvedConnectorShape;
+import org.pathvisio.libgpml.model.connector.ElbowConnectorShape;
+import org.pathvisio.libgpml.model.connector.OrthogonalConnectorShape;
+import org.pathvisio.libgpml.model.type.ConnectorType;
+
+/**
+ * Routing of connectors with {@link ElbowConnectorShape#recalculateShape},
+ * {@link CurvedConnectorShape#recalculateShape} and
+ * {@link OrthogonalConnectorShape#recalculateShape}. A single operation routes
+ * all interactions of the given connector type in the pathway, which is a third
+ * of the interactions. The orthogonal connector routes the elbow interactions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConnectorBenchmark {
+
+	@Param({ "100", "1000", "10000", "50000" })
+	public int size;
+
+	@Param({ "Elbow", "Curved", "Orthogonal" })
+	public String connector;
+
+	private LineElement[] lines;
+	private ConnectorShape[] shapes;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		PathwayGenerator.init();
+		PathwayModel pathwayModel = PathwayGenerator.generate(size);
+		ConnectorType type = ConnectorType.fromName(connector);
+		if (type == ConnectorType.ORTHOGONAL) {
+			type = ConnectorType.ELBOW;
+		}
+		List<LineElement> found = new ArrayList<LineElement>();
+		for (Interaction i : pathwayModel.getInteractions()) {
+			if (i.getConnectorType() == type) {
+				found.add(i);
+			}
+		}
+		lines = found.toArray(new LineElement[0]);
+		shapes = new ConnectorShape[lines.length];
+		for (int i = 0; i < lines.length; i++) {
+			shapes[i] = ConnectorShapeFactory.createConnectorShape(connector);
+		}
+	}
+
+	@Benchmark
+	public void recalculateShape(Blackhole bh) {
+		for (int i = 0; i < lines.length; i++) {
+			shapes[i].recalculateShape(lines[i]);
+			bh.consume(shapes[i].getShape());
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pathvisio.core.view.model.VPathwayModel;
+import org.pathvisio.libgpml.model.PathwayModel;
+
+/**
+ * Drawing a whole pathway with {@link VPathwayModel#draw(Graphics2D)} into an
+ * offscreen image. The pathway is zoomed out to fit the image, so that all
+ * elements are drawn. Run with "-prof gc" to see the memory allocated per
+ * paint, e.g. for fonts and text labels.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DrawBenchmark {
+
+	private static final int IMAGE_SIZE = 2048;
+
+	@Param({ "100", "1000", "10000", "50000" })
+	public int size;
+
+	private VPathwayModel vPathwayModel;
+	private BufferedImage image;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		PathwayGenerator.init();
+		PathwayModel pathwayModel = PathwayGenerator.generate(size);
+		vPathwayModel = new VPathwayModel(null);
+		vPathwayModel.fromModel(pathwayModel);
+		int max = Math.max(vPathwayModel.getVWidth(), vPathwayModel.getVHeight());
+		vPathwayModel.setPctZoom(Math.min(100.0, 100.0 * IMAGE_SIZE / max));
+		image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		vPathwayModel.dispose();
+	}
+
+	@Benchmark
+	public void draw() {
+		Graphics2D g = image.createGraphics();
+		g.setClip(0, 0, IMAGE_SIZE, IMAGE_SIZE);
+		vPathwayModel.draw(g);
+		g.dispose();
+	}
+}
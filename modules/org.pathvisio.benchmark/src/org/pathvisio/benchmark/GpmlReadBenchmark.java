@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pathvisio.libgpml.io.ConverterException;
+import org.pathvisio.libgpml.model.GPMLFormat;
+import org.pathvisio.libgpml.model.PathwayModel;
+
+/**
+ * Reading a GPML file with {@link GPMLFormat#readFromXml}, for GPML2013a (read
+ * through a JDOM tree) and GPML2021, streamed and, as "GPML2021-JDOM", through
+ * a JDOM tree. The file is not validated, so that only reading is measured. Run
+ * with "-prof gc" to compare the memory allocated by both readers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GpmlReadBenchmark {
+
+	@Param({ "100", "1000", "10000", "50000" })
+	public int size;
+
+	@Param({ "GPML2013a", "GPML2021", "GPML2021-JDOM" })
+	public String version;
+
+	private File file;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, ConverterException {
+		PathwayGenerator.init();
+		GPMLFormat.setStreamingEnabled(!version.equals("GPML2021-JDOM"));
+		PathwayModel p = PathwayGenerator.generate(size);
+		file = PathwayGenerator.writeTempFile(p,
+				version.equals("GPML2013a") ? GPMLFormat.GPML2013a : GPMLFormat.GPML2021);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Benchmark
+	public PathwayModel read() throws ConverterException {
+		PathwayModel p = new PathwayModel();
+		// collect the warning about the older GPML version instead of logging it
+		GPMLFormat.readFromXml(p, file, false, new ArrayList<String>());
+		return p;
+	}
+}
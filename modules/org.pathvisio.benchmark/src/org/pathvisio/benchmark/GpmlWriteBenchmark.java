@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.benchmark;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pathvisio.libgpml.io.ConverterException;
+import org.pathvisio.libgpml.model.GPML2013aWriter;
+import org.pathvisio.libgpml.model.GPML2021StreamWriter;
+import org.pathvisio.libgpml.model.GPML2021Writer;
+import org.pathvisio.libgpml.model.GPMLFormatWriter;
+import org.pathvisio.libgpml.model.PathwayModel;
+
+/**
+ * Writing a pathway with {@link GPMLFormatWriter#writeToXml}, to a stream which
+ * discards the output. Compares the JDOM based {@link GPML2021Writer} with the
+ * {@link GPML2021StreamWriter} used for saving, and the
+ * {@link GPML2013aWriter}. The output is not validated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GpmlWriteBenchmark {
+
+	@Param({ "100", "1000", "10000", "50000" })
+	public int size;
+
+	@Param({ "GPML2021Writer", "GPML2021StreamWriter", "GPML2013aWriter" })
+	public String writer;
+
+	private PathwayModel pathwayModel;
+	private GPMLFormatWriter gpmlWriter;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		PathwayGenerator.init();
+		pathwayModel = PathwayGenerator.generate(size);
+		if (writer.equals("GPML2021Writer")) {
+			gpmlWriter = GPML2021Writer.GPML2021WRITER;
+		} else if (writer.equals("GPML2021StreamWriter")) {
+			gpmlWriter = GPML2021StreamWriter.GPML2021STREAMWRITER;
+		} else {
+			gpmlWriter = GPML2013aWriter.GPML2013aWRITER;
+		}
+	}
+
+	@Benchmark
+	public void write() throws ConverterException {
+		gpmlWriter.writeToXml(pathwayModel, OutputStream.nullOutputStream(), false);
+	}
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.benchmark;
+
+import java.awt.Dimension;
+import java.awt.geom.Point2D;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.pathvisio.core.view.model.VPathwayModel;
+import org.pathvisio.libgpml.model.PathwayModel;
+
+/**
+ * Hit-testing with {@link VPathwayModel#getObjectAt} and
+ * {@link VPathwayModel#getObjectsAt}, which look up the elements in the spatial
+ * index. A single operation tests a fixed set of random points, spread over the
+ * whole pathway.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HitTestBenchmark {
+
+	private static final int POINTS = 2000;
+
+	@Param({ "100", "1000", "10000", "50000" })
+	public int size;
+
+	private VPathwayModel vPathwayModel;
+	private Point2D[] points;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		PathwayGenerator.init();
+		PathwayModel pathwayModel = PathwayGenerator.generate(size);
+		vPathwayModel = new VPathwayModel(null);
+		vPathwayModel.fromModel(pathwayModel);
+		Dimension d = vPathwayModel.calculateVSize();
+		Random random = new Random(7);
+		points = new Point2D[POINTS];
+		for (int i = 0; i < POINTS; i++) {
+			points[i] = new Point2D.Double(random.nextDouble() * d.width, random.nextDouble() * d.height);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		vPathwayModel.dispose();
+	}
+
+	@Benchmark
+	public void getObjectAt(Blackhole bh) {
+		for (Point2D p : points) {
+			bh.consume(vPathwayModel.getObjectAt(p));
+		}
+	}
+
+	@Benchmark
+	public void getObjectsAt(Blackhole bh) {
+		for (Point2D p : points) {
+			bh.consume(vPathwayModel.getObjectsAt(p));
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.bridgedb.DataSource;
+import org.bridgedb.Xref;
+import org.pathvisio.core.preferences.PreferenceManager;
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.libgpml.io.ConverterException;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.GPMLFormat;
+import org.pathvisio.libgpml.model.GPMLFormatWriter;
+import org.pathvisio.libgpml.model.Group;
+import org.pathvisio.libgpml.model.Interaction;
+import org.pathvisio.libgpml.model.Label;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.Shape;
+import org.pathvisio.libgpml.model.type.AnnotationType;
+import org.pathvisio.libgpml.model.type.ArrowHeadType;
+import org.pathvisio.libgpml.model.type.ConnectorType;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.model.type.GroupType;
+import org.pathvisio.libgpml.model.type.ShapeType;
+
+/**
+ * Generates synthetic pathways of a given size for the benchmarks. A pathway is
+ * made of copies of a small template, laid out in a square grid. The template
+ * has the kinds of elements found in a typical WikiPathways pathway: data nodes
+ * with xrefs, a group, a label, a shape, and interactions with straight, elbow
+ * and curved connectors, with annotations and citations shared between copies.
+ */
+public class PathwayGenerator {
+
+	/** the number of pathway elements in a single template */
+	public static final int TEMPLATE_SIZE = 10;
+
+	private static final double CELL_WIDTH = 400;
+	private static final double CELL_HEIGHT = 300;
+
+	/** the number of distinct annotations and citations */
+	private static final int REFS = 20;
+
+	static {
+		// loading GPMLFormat initializes the data sources
+		GPMLFormat.isStreamingEnabled();
+	}
+
+	/**
+	 * Prepares logging and preferences for a benchmark run. Only errors are
+	 * logged, so that logging does not add to the measured time.
+	 */
+	public static void init() {
+		// debug, trace, info, warn, error, fatal
+		Logger.log.setLogLevel(false, false, false, false, true, true);
+		PreferenceManager.init();
+	}
+
+	/**
+	 * Creates a pathway model with about the given number of pathway elements.
+	 *
+	 * @param size the number of pathway elements, rounded up to a multiple of
+	 *             {@link #TEMPLATE_SIZE}.
+	 * @return the new pathway model.
+	 */
+	public static PathwayModel generate(int size) {
+		DataSource entrez = DataSource.getExistingBySystemCode("L");
+		DataSource chebi = DataSource.getExistingBySystemCode("Ce");
+		DataSource pubmed = DataSource.getExistingBySystemCode("Pbm");
+
+		PathwayModel p = new PathwayModel();
+		p.getPathway().setTitle("Synthetic pathway with " + size + " elements");
+		int copies = (size + TEMPLATE_SIZE - 1) / TEMPLATE_SIZE;
+		int columns = (int) Math.ceil(Math.sqrt(copies));
+		for (int k = 0; k < copies; k++) {
+			double x = (k % columns) * CELL_WIDTH;
+			double y = (k / columns) * CELL_HEIGHT;
+
+			DataNode gene = dataNode(p, "Gene " + k, DataNodeType.GENEPRODUCT, x + 60, y + 40);
+			gene.setXref(new Xref(Integer.toString(1000 + k), entrez));
+			gene.addCitation(new Xref(Integer.toString(10000000 + k % REFS), pubmed), null);
+			DataNode protein = dataNode(p, "Protein " + k, DataNodeType.PROTEIN, x + 260, y + 40);
+			protein.addAnnotation("Term " + (k % REFS), AnnotationType.ONTOLOGY, null, null);
+			DataNode substrate = dataNode(p, "Substrate " + k, DataNodeType.METABOLITE, x + 60, y + 200);
+			substrate.setXref(new Xref(Integer.toString(15000 + k), chebi));
+			DataNode product = dataNode(p, "Product " + k, DataNodeType.METABOLITE, x + 260, y + 200);
+
+			Group group = new Group(GroupType.COMPLEX);
+			p.addGroup(group);
+			group.addPathwayElement(substrate);
+			group.addPathwayElement(product);
+
+			Label label = new Label("Label " + k);
+			label.setCenterX(x + 160);
+			label.setCenterY(y + 120);
+			label.setWidth(80);
+			label.setHeight(20);
+			p.addLabel(label);
+
+			Shape shape = new Shape();
+			shape.setShapeType(ShapeType.OVAL);
+			shape.setCenterX(x + 160);
+			shape.setCenterY(y + 270);
+			shape.setWidth(40);
+			shape.setHeight(20);
+			p.addShape(shape);
+
+			interaction(p, gene, protein, ConnectorType.STRAIGHT, ArrowHeadType.DIRECTED);
+			interaction(p, protein, product, ConnectorType.ELBOW, ArrowHeadType.CONVERSION);
+			interaction(p, gene, substrate, ConnectorType.CURVED, ArrowHeadType.INHIBITION)
+					.addCitation(new Xref(Integer.toString(10000000 + (k + 1) % REFS), pubmed), null);
+		}
+		return p;
+	}
+
+	private static DataNode dataNode(PathwayModel p, String label, DataNodeType type, double x, double y) {
+		DataNode d = new DataNode(label, type);
+		d.setCenterX(x);
+		d.setCenterY(y);
+		d.setWidth(90);
+		d.setHeight(25);
+		p.addDataNode(d);
+		return d;
+	}
+
+	private static Interaction interaction(PathwayModel p, DataNode start, DataNode end, ConnectorType connector,
+			ArrowHeadType arrowHead) {
+		Interaction i = new Interaction();
+		p.addInteraction(i);
+		i.setConnectorType(connector);
+		i.setEndArrowHeadType(arrowHead);
+		if (start.getCenterY() == end.getCenterY()) {
+			i.getStartLinePoint().linkTo(start, 1.0, 0.0);
+			i.getEndLinePoint().linkTo(end, -1.0, 0.0);
+		} else {
+			i.getStartLinePoint().linkTo(start, 0.0, 1.0);
+			i.getEndLinePoint().linkTo(end, 0.0, -1.0);
+		}
+		return i;
+	}
+
+	/**
+	 * Writes a generated pathway to a temporary file, which is deleted on exit.
+	 *
+	 * @param p      the pathway model to write.
+	 * @param writer the writer for the GPML version, e.g.
+	 *               {@link GPMLFormat#GPML2013a}.
+	 * @return the file.
+	 * @throws IOException        if the file could not be created.
+	 * @throws ConverterException if the pathway could not be written.
+	 */
+	public static File writeTempFile(PathwayModel p, GPMLFormatWriter writer) throws IOException, ConverterException {
+		File file = File.createTempFile("benchmark", ".gpml");
+		file.deleteOnExit();
+		writer.writeToXml(p, file, false);
+		return file;
+	}
+}
@@ -62,6 +62,8 @@ public class Engine {
 	 */
 	private VPathwayModelWrapper wrapper;
 
+	private List<String> loadWarnings = new ArrayList<String>();
+
 	public static final String SVG_FILE_EXTENSION = "svg";
 	public static final String SVG_FILTER_NAME = "Scalable Vector Graphics (*." + SVG_FILE_EXTENSION + ")";
 	public static final String PATHWAY_FILE_EXTENSION = "gpml";
@@ -133,6 +135,7 @@ public void importPathwayModel(File file) throws ConverterException {
 		if (set != null && set.size() == 1) {
 			PathwayModelImporter importer = Utils.oneOf(set);
 			PathwayModel pathway = importer.doImport(file);
+			loadWarnings = new ArrayList<String>(importer.getWarnings());
 			pathway.setSourceFile(file);
 			newPathwayModelHelper(pathway);
 		} else
@@ -186,7 +189,9 @@ public void openPathwayModel(File file) throws ConverterException {
 
 		// initialize new JDOM gpml representation and read the file
 		final PathwayModel pathwayModel = new PathwayModel();
-		pathwayModel.readFromXml(new File(pwf), true);
+		List<String> warnings = new ArrayList<String>();
+		pathwayModel.readFromXml(new File(pwf), true, warnings);
+		loadWarnings = warnings;
 		// Only set the pathway field after the data is loaded
 		// (Exception thrown on error, this part will not be reached)
 		newPathwayModelHelper(pathwayModel);
@@ -218,6 +223,16 @@ public File openPathwayModel(URL url) throws ConverterException {
 		return file;
 	}
 
+	/**
+	 * Returns the warnings about the file of the last opened or imported pathway
+	 * model, e.g. when the file was written in an older GPML version.
+	 * 
+	 * @return the list of warnings, or an empty list if there were none.
+	 */
+	public List<String> getLoadWarnings() {
+		return loadWarnings;
+	}
+
 	// ================================================================================
 	// Save and Dispose Methods
 	// ================================================================================
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.bridgedb.DataSource;
+import org.bridgedb.IDMapper;
+import org.bridgedb.IDMapperException;
+import org.bridgedb.IDMapperStack;
+import org.bridgedb.Xref;
+import org.pathvisio.libgpml.model.PathwayModel;
+
+/**
+ * Maps many cross references at once, e.g. all xrefs of a pathway. The xrefs are
+ * split into batches that are each mapped with a single call to
+ * {@link IDMapper#mapID(Collection, DataSource...)}, instead of one call per
+ * xref, and the batches are mapped in parallel.
+ * <p>
+ * When the mapper is an {@link IDMapperStack} that is not transitive, each batch
+ * is mapped by each mapper of the stack separately, so the databases are queried
+ * in parallel as well. A transitive stack needs all of its mappers for each
+ * xref, so its batches are mapped by the stack itself.
+ */
+public class BulkIDMapper {
+
+	public static final int DEFAULT_BATCH_SIZE = 100;
+
+	private final IDMapper mapper;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private int threads = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * @param mapper the mapper to map with, usually
+	 *               {@link GdbManager#getCurrentGdb()}.
+	 */
+	public BulkIDMapper(IDMapper mapper) {
+		if (mapper == null)
+			throw new NullPointerException();
+		this.mapper = mapper;
+	}
+
+	/**
+	 * Sets the number of xrefs mapped in a single call. Default is
+	 * {@link #DEFAULT_BATCH_SIZE}.
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batch size must be positive");
+		}
+		this.batchSize = batchSize;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Sets the maximum number of batches that are mapped at the same time.
+	 * Default is the number of processors, but at most four.
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("number of threads must be positive");
+		}
+		this.threads = threads;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Returns the xrefs of all elements of the given pathway that can be mapped,
+	 * i.e. that have an identifier and a data source: the pathway itself, data
+	 * nodes, states, interactions and groups.
+	 *
+	 * @param pathway the pathway.
+	 * @return the xrefs, without duplicates.
+	 */
+	public static Set<Xref> getXrefs(PathwayModel pathway) {
+		List<Xref> all = new ArrayList<Xref>();
+		all.add(pathway.getPathway().getXref());
+		all.addAll(pathway.getDataNodeXrefs());
+		all.addAll(pathway.getStateXrefs());
+		all.addAll(pathway.getInteractionXrefs());
+		all.addAll(pathway.getGroupXrefs());
+		Set<Xref> result = new LinkedHashSet<Xref>();
+		for (Xref xref : all) {
+			if (isValid(xref)) {
+				result.add(xref);
+			}
+		}
+		return result;
+	}
+
+	private static boolean isValid(Xref xref) {
+		return xref != null && xref.getDataSource() != null && xref.getId() != null && !"".equals(xref.getId());
+	}
+
+	/**
+	 * Maps the given xrefs, like {@link IDMapper#mapID(Collection, DataSource...)}.
+	 * Xrefs without an identifier or data source are left out.
+	 *
+	 * @param xrefs          the xrefs to map.
+	 * @param tgtDataSources the data sources to map to, or none to map to all.
+	 * @return for each valid xref, the set of xrefs it maps to, which is empty if
+	 *         none were found.
+	 * @throws IDMapperException if one of the mappers fails.
+	 */
+	public Map<Xref, Set<Xref>> mapID(Collection<Xref> xrefs, final DataSource... tgtDataSources)
+			throws IDMapperException {
+		Set<Xref> unique = new LinkedHashSet<Xref>();
+		for (Xref xref : xrefs) {
+			if (isValid(xref)) {
+				unique.add(xref);
+			}
+		}
+		Map<Xref, Set<Xref>> result = new HashMap<Xref, Set<Xref>>();
+		for (Xref xref : unique) {
+			result.put(xref, new HashSet<Xref>());
+		}
+		if (unique.isEmpty()) {
+			return result;
+		}
+
+		List<Xref> list = new ArrayList<Xref>(unique);
+		List<Callable<Map<Xref, Set<Xref>>>> tasks = new ArrayList<Callable<Map<Xref, Set<Xref>>>>();
+		for (final IDMapper m : getMappers()) {
+			for (int i = 0; i < list.size(); i += batchSize) {
+				final List<Xref> batch = list.subList(i, Math.min(list.size(), i + batchSize));
+				tasks.add(new Callable<Map<Xref, Set<Xref>>>() {
+					public Map<Xref, Set<Xref>> call() throws IDMapperException {
+						return m.mapID(batch, tgtDataSources);
+					}
+				});
+			}
+		}
+
+		for (Map<Xref, Set<Xref>> mapped : run(tasks)) {
+			for (Map.Entry<Xref, Set<Xref>> e : mapped.entrySet()) {
+				Set<Xref> refs = result.get(e.getKey());
+				if (refs != null && e.getValue() != null) {
+					refs.addAll(e.getValue());
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the mappers that batches are sent to.
+	 */
+	private List<IDMapper> getMappers() {
+		if (mapper instanceof IDMapperStack && !((IDMapperStack) mapper).getTransitive()) {
+			List<IDMapper> result = new ArrayList<IDMapper>();
+			for (IDMapper m : new ArrayList<IDMapper>(((IDMapperStack) mapper).getMappers())) {
+				if (m != null && m.isConnected()) {
+					result.add(m);
+				}
+			}
+			return result;
+		}
+		return Collections.singletonList(mapper);
+	}
+
+	private List<Map<Xref, Set<Xref>>> run(List<Callable<Map<Xref, Set<Xref>>>> tasks) throws IDMapperException {
+		List<Map<Xref, Set<Xref>>> results = new ArrayList<Map<Xref, Set<Xref>>>();
+		if (tasks.size() <= 1 || threads == 1) {
+			for (Callable<Map<Xref, Set<Xref>>> task : tasks) {
+				try {
+					results.add(task.call());
+				} catch (IDMapperException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new IDMapperException(e);
+				}
+			}
+			return results;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+		try {
+			for (Future<Map<Xref, Set<Xref>>> f : executor.invokeAll(tasks)) {
+				results.add(f.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IDMapperException("Interrupted while mapping", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IDMapperException) {
+				throw (IDMapperException) e.getCause();
+			}
+			throw new IDMapperException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		return results;
+	}
+}
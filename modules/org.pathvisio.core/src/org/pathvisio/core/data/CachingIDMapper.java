@@ -0,0 +1,370 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.bridgedb.AttributeMapper;
+import org.bridgedb.DataSource;
+import org.bridgedb.IDMapper;
+import org.bridgedb.IDMapperCapabilities;
+import org.bridgedb.IDMapperException;
+import org.bridgedb.Xref;
+import org.pathvisio.core.data.GdbManager.GdbEventListener;
+
+/**
+ * An {@link IDMapper} and {@link AttributeMapper} that remembers the results of
+ * another mapper, so that looking up the same xref again, e.g. when a data node
+ * is selected a second time, doesn't query the databases again.
+ * <p>
+ * Cross references, attributes and whether an xref exists are cached per xref.
+ * The least recently used results are dropped when the cache is full, and
+ * results can be given a time to live. Empty results are cached too, unless
+ * {@link #setCacheEmptyResults(boolean)} is turned off. Searches are not cached.
+ * <p>
+ * The cache is cleared when a database is added or removed, when it is
+ * registered as a {@link GdbEventListener}, as done by {@link GdbManager} for
+ * {@link GdbManager#getCachedGdb()}.
+ */
+public class CachingIDMapper implements IDMapper, AttributeMapper, GdbEventListener {
+
+	public static final int DEFAULT_MAX_SIZE = 10000;
+
+	/**
+	 * What is cached for an xref: its cross references to some data sources, all
+	 * of its attributes, one of its attributes, or whether it exists.
+	 */
+	private static final class Key {
+		private final String kind;
+		private final Xref xref;
+		private final Object argument;
+
+		Key(String kind, Xref xref, Object argument) {
+			this.kind = kind;
+			this.xref = xref;
+			this.argument = argument;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key k = (Key) o;
+			return kind.equals(k.kind) && xref.equals(k.xref) && Objects.equals(argument, k.argument);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(kind, xref, argument);
+		}
+	}
+
+	private static final class Entry {
+		final Object value;
+		final long time;
+
+		Entry(Object value, long time) {
+			this.value = value;
+			this.time = time;
+		}
+	}
+
+	private final IDMapper mapper;
+	private final AttributeMapper attributeMapper;
+	private final Map<Key, Entry> cache;
+
+	private volatile long timeToLive = 0;
+	private volatile boolean cacheEmptyResults = true;
+	private long hits = 0;
+	private long misses = 0;
+	// incremented when the cache is cleared, so results of queries that were
+	// started before are not added
+	private long generation = 0;
+
+	/**
+	 * @param mapper  the mapper to cache the results of, e.g. an
+	 *                {@link org.bridgedb.IDMapperStack}.
+	 * @param maxSize the maximum number of results to keep.
+	 */
+	public <T extends IDMapper & AttributeMapper> CachingIDMapper(T mapper, final int maxSize) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("size must be positive");
+		}
+		this.mapper = mapper;
+		this.attributeMapper = mapper;
+		// access order, so the eldest entry is the least recently used one
+		cache = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Sets how long results are kept, in milliseconds. Zero, the default, keeps
+	 * results until they are dropped to make room or the cache is cleared.
+	 */
+	public void setTimeToLive(long millis) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("time to live can't be negative");
+		}
+		timeToLive = millis;
+	}
+
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	/**
+	 * Sets whether empty results, e.g. an xref without cross references, are
+	 * cached. Default is true.
+	 */
+	public void setCacheEmptyResults(boolean value) {
+		cacheEmptyResults = value;
+	}
+
+	public boolean getCacheEmptyResults() {
+		return cacheEmptyResults;
+	}
+
+	/**
+	 * @return the number of lookups that were answered from the cache.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of lookups that were passed on to the mapper.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the number of results in the cache.
+	 */
+	public synchronized int getSize() {
+		return cache.size();
+	}
+
+	/**
+	 * Forgets all results. The hit and miss counts are kept.
+	 */
+	public synchronized void clear() {
+		cache.clear();
+		generation++;
+	}
+
+	/**
+	 * Clears the cache when a database is added or removed, because that changes
+	 * the results of the mapper.
+	 */
+	public void gdbEvent(GdbEvent e) {
+		clear();
+	}
+
+	// ================================================================================
+	// Cache
+	// ================================================================================
+
+	/**
+	 * Returns the cached value for the given key and counts a hit, or returns null
+	 * and counts a miss.
+	 */
+	private synchronized Object get(Key key) {
+		Entry entry = cache.get(key);
+		if (entry != null && timeToLive > 0 && System.currentTimeMillis() - entry.time > timeToLive) {
+			cache.remove(key);
+			entry = null;
+		}
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.value;
+	}
+
+	private synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Adds the result of a query that was started in the given generation.
+	 */
+	private synchronized void put(Key key, Object value, boolean empty, long generation) {
+		if (generation == this.generation && (!empty || cacheEmptyResults)) {
+			cache.put(key, new Entry(value, System.currentTimeMillis()));
+		}
+	}
+
+	private static Key mapKey(Xref xref, DataSource... tgtDataSources) {
+		// the order of the data sources doesn't matter
+		Set<DataSource> targets = tgtDataSources == null || tgtDataSources.length == 0 ? null
+				: new HashSet<DataSource>(Arrays.asList(tgtDataSources));
+		return new Key("mapID", xref, targets);
+	}
+
+	// ================================================================================
+	// IDMapper
+	// ================================================================================
+
+	/**
+	 * {@inheritDoc} Only the xrefs that are not in the cache are passed on to the
+	 * mapper, in a single call.
+	 */
+	public Map<Xref, Set<Xref>> mapID(Collection<Xref> srcXrefs, DataSource... tgtDataSources)
+			throws IDMapperException {
+		Map<Xref, Set<Xref>> result = new HashMap<Xref, Set<Xref>>();
+		List<Xref> missing = new ArrayList<Xref>();
+		for (Xref xref : srcXrefs) {
+			@SuppressWarnings("unchecked")
+			Set<Xref> refs = (Set<Xref>) get(mapKey(xref, tgtDataSources));
+			if (refs != null) {
+				if (!refs.isEmpty()) {
+					result.put(xref, new HashSet<Xref>(refs));
+				}
+			} else {
+				missing.add(xref);
+			}
+		}
+		if (!missing.isEmpty()) {
+			long generation = getGeneration();
+			Map<Xref, Set<Xref>> mapped = mapper.mapID(missing, tgtDataSources);
+			for (Xref xref : missing) {
+				Set<Xref> refs = mapped.get(xref);
+				if (refs == null) {
+					refs = new HashSet<Xref>();
+				}
+				put(mapKey(xref, tgtDataSources), new HashSet<Xref>(refs), refs.isEmpty(), generation);
+				if (!refs.isEmpty()) {
+					result.put(xref, refs);
+				}
+			}
+		}
+		return result;
+	}
+
+	public Set<Xref> mapID(Xref ref, DataSource... tgtDataSources) throws IDMapperException {
+		Key key = mapKey(ref, tgtDataSources);
+		@SuppressWarnings("unchecked")
+		Set<Xref> refs = (Set<Xref>) get(key);
+		if (refs == null) {
+			long generation = getGeneration();
+			refs = mapper.mapID(ref, tgtDataSources);
+			put(key, new HashSet<Xref>(refs), refs.isEmpty(), generation);
+		}
+		// callers may change the result
+		return new HashSet<Xref>(refs);
+	}
+
+	public boolean xrefExists(Xref xref) throws IDMapperException {
+		Key key = new Key("xrefExists", xref, null);
+		Boolean exists = (Boolean) get(key);
+		if (exists == null) {
+			long generation = getGeneration();
+			exists = mapper.xrefExists(xref);
+			put(key, exists, !exists, generation);
+		}
+		return exists;
+	}
+
+	public Set<Xref> freeSearch(String text, int limit) throws IDMapperException {
+		return mapper.freeSearch(text, limit);
+	}
+
+	public IDMapperCapabilities getCapabilities() {
+		return mapper.getCapabilities();
+	}
+
+	public void close() throws IDMapperException {
+		clear();
+		mapper.close();
+	}
+
+	public boolean isConnected() {
+		return mapper.isConnected();
+	}
+
+	// ================================================================================
+	// AttributeMapper
+	// ================================================================================
+
+	public Set<String> getAttributes(Xref ref, String attrType) throws IDMapperException {
+		Key key = new Key("attribute", ref, attrType);
+		@SuppressWarnings("unchecked")
+		Set<String> values = (Set<String>) get(key);
+		if (values == null) {
+			long generation = getGeneration();
+			values = attributeMapper.getAttributes(ref, attrType);
+			values = values == null ? new HashSet<String>() : new HashSet<String>(values);
+			put(key, values, values.isEmpty(), generation);
+		}
+		return new HashSet<String>(values);
+	}
+
+	public Map<String, Set<String>> getAttributes(Xref ref) throws IDMapperException {
+		Key key = new Key("attributes", ref, null);
+		@SuppressWarnings("unchecked")
+		Map<String, Set<String>> attributes = (Map<String, Set<String>>) get(key);
+		if (attributes == null) {
+			long generation = getGeneration();
+			attributes = copy(attributeMapper.getAttributes(ref));
+			put(key, attributes, attributes.isEmpty(), generation);
+		}
+		return copy(attributes);
+	}
+
+	private static Map<String, Set<String>> copy(Map<String, Set<String>> attributes) {
+		Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+		if (attributes != null) {
+			for (Map.Entry<String, Set<String>> e : attributes.entrySet()) {
+				result.put(e.getKey(), new HashSet<String>(e.getValue()));
+			}
+		}
+		return result;
+	}
+
+	public boolean isFreeAttributeSearchSupported() {
+		return attributeMapper.isFreeAttributeSearchSupported();
+	}
+
+	public Map<Xref, String> freeAttributeSearch(String query, String attrType, int limit) throws IDMapperException {
+		return attributeMapper.freeAttributeSearch(query, attrType, limit);
+	}
+
+	public Map<Xref, Set<String>> freeAttributeSearchEx(String query, String attrType, int limit)
+			throws IDMapperException {
+		return attributeMapper.freeAttributeSearchEx(query, attrType, limit);
+	}
+
+	public Set<String> getAttributeSet() throws IDMapperException {
+		return attributeMapper.getAttributeSet();
+	}
+}
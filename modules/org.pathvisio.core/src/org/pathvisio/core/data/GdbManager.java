@@ -30,6 +30,8 @@
 import org.pathvisio.core.preferences.GlobalPreference;
 import org.pathvisio.core.preferences.PreferenceManager;
 import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.libgpml.debug.SpanRecorder;
+import org.pathvisio.libgpml.debug.SpanRecorder.Span;
 
 /**
  * GdbManager is responsible for maintaining a single static Gene database for
@@ -42,6 +44,7 @@
  */
 public class GdbManager extends AbstractListModel {
 	private final IDMapperStack currentGdb = new IDMapperStack();
+	private final CachingIDMapper cachedGdb = new CachingIDMapper(currentGdb, CachingIDMapper.DEFAULT_MAX_SIZE);
 	private IDMapper metabolites;
 	private IDMapper genes;
 	private IDMapper interactions;
@@ -56,12 +59,22 @@ public GdbManager() {
 			// TODO: propagate exception???
 		}
 		currentGdb.setTransitive(true);
+		addGdbEventListener(cachedGdb);
 	}
 
 	public IDMapperStack getCurrentGdb() {
 		return currentGdb;
 	}
 
+	/**
+	 * Returns the current Gdb behind a cache, which remembers the results of
+	 * lookups until a database is added or removed. Use this for lookups that are
+	 * repeated, e.g. for the backpage of the selected element.
+	 */
+	public CachingIDMapper getCachedGdb() {
+		return cachedGdb;
+	}
+
 	/**
 	 * Returns true if the current Gdb isConnected()
 	 */
@@ -198,36 +211,38 @@ private void fireGdbEvent(GdbEvent e) {
 	 * standalone)
 	 */
 	public void initPreferred() {
-		PreferenceManager prefs = PreferenceManager.getCurrent();
-		// first do the Gene database
-		String gdbName = prefs.get(GlobalPreference.DB_CONNECTSTRING_GDB);
-		if (!gdbName.equals("") && !prefs.isDefault(GlobalPreference.DB_CONNECTSTRING_GDB)) {
-			try {
-				setGeneDb(gdbName);
-			} catch (IDMapperException e) {
-				Logger.log.error("Setting previous Gdb failed.", e);
+		try (Span span = SpanRecorder.getInstance().begin("GdbManager.initPreferred")) {
+			PreferenceManager prefs = PreferenceManager.getCurrent();
+			// first do the Gene database
+			String gdbName = prefs.get(GlobalPreference.DB_CONNECTSTRING_GDB);
+			if (!gdbName.equals("") && !prefs.isDefault(GlobalPreference.DB_CONNECTSTRING_GDB)) {
+				try {
+					setGeneDb(gdbName);
+				} catch (IDMapperException e) {
+					Logger.log.error("Setting previous Gdb failed.", e);
+				}
 			}
-		}
-		// then do the Metabolite database
-		gdbName = prefs.get(GlobalPreference.DB_CONNECTSTRING_METADB);
-		if (!gdbName.equals("") && !prefs.isDefault(GlobalPreference.DB_CONNECTSTRING_METADB)) {
-			try {
-				setMetaboliteDb(gdbName);
-			} catch (Exception e) {
-				Logger.log.error("Setting previous Metabolite db failed.", e);
+			// then do the Metabolite database
+			gdbName = prefs.get(GlobalPreference.DB_CONNECTSTRING_METADB);
+			if (!gdbName.equals("") && !prefs.isDefault(GlobalPreference.DB_CONNECTSTRING_METADB)) {
+				try {
+					setMetaboliteDb(gdbName);
+				} catch (Exception e) {
+					Logger.log.error("Setting previous Metabolite db failed.", e);
+				}
 			}
-		}
-		/**
-		 * then do the Interaction database
-		 * 
-		 * @author anwesha
-		 */
-		gdbName = prefs.get(GlobalPreference.DB_CONNECTSTRING_IDB);
-		if (!gdbName.equals("") && !prefs.isDefault(GlobalPreference.DB_CONNECTSTRING_IDB)) {
-			try {
-				setInteractionDb(gdbName);
-			} catch (Exception e) {
-				Logger.log.error("Setting previous Interaction db failed.", e);
+			/**
+			 * then do the Interaction database
+			 * 
+			 * @author anwesha
+			 */
+			gdbName = prefs.get(GlobalPreference.DB_CONNECTSTRING_IDB);
+			if (!gdbName.equals("") && !prefs.isDefault(GlobalPreference.DB_CONNECTSTRING_IDB)) {
+				try {
+					setInteractionDb(gdbName);
+				} catch (Exception e) {
+					Logger.log.error("Setting previous Interaction db failed.", e);
+				}
 			}
 		}
 	}
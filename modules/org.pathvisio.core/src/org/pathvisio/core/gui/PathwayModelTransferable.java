@@ -76,22 +76,48 @@ public PathwayModelTransferable(List<CopyElement> elements) {
 		this(null, elements);
 	}
 
+	/**
+	 * Copies the elements into a new pathway model right away, so that the
+	 * clipboard keeps them as they are now. The source pathway model is not read
+	 * again when the clipboard is read, which may happen on another thread.
+	 */
 	public PathwayModelTransferable(PathwayModel source, List<CopyElement> elements) {
 		this.elements = elements;
 		if (source == null) {
 			source = new PathwayModel();
 		}
 		this.pathwayModel = source;
+		copy = copyElements();
 	}
 
 	/**
-	 *
+	 * The copied elements, written as GPML code the first time it is asked for.
 	 */
-	public Object getTransferData(DataFlavor flavor) throws UnsupportedFlavorException, IOException {
-		Object out = null;
+	private final PathwayModel copy;
+	private String gpml = null;
 
-		XMLOutputter xmlout = new XMLOutputter(Format.getPrettyFormat());
+	/**
+	 * Returns the copied elements as GPML code. The code is written once, and the
+	 * same code is returned each time the clipboard is read.
+	 */
+	public synchronized Object getTransferData(DataFlavor flavor) throws UnsupportedFlavorException, IOException {
+		if (gpml == null) {
+			try {
+				Document doc = new GPMLFormat(GPMLFormat.GPML2021).createJdom(copy);
+				gpml = new XMLOutputter(Format.getPrettyFormat()).outputString(doc);
+			} catch (Exception e) {
+				Logger.log.error("Unable to copy to clipboard", e);
+			}
+		}
+		return gpml;
+	}
 
+	/**
+	 * Copies the elements into a new pathway model.
+	 *
+	 * @return the new pathway model.
+	 */
+	private PathwayModel copyElements() {
 		PathwayModel pnew = new PathwayModel();
 
 		boolean infoFound = false;
@@ -184,7 +210,7 @@ else if (newerElement instanceof LineElement && srcElement instanceof LineElemen
 		}
 		// refresh connector shapes
 		for (LineElement o : pnew.getLineElements()) {
-			o.getConnectorShape().recalculateShape(o);
+			o.recalculateConnectorShape();
 		}
 		// If no mappinfo, create a dummy one that we can recognize later on TODO
 		if (!infoFound) {
@@ -193,14 +219,7 @@ else if (newerElement instanceof LineElement && srcElement instanceof LineElemen
 			pnew.add(info);
 		}
 
-		try {
-			Document doc = new GPMLFormat(GPMLFormat.GPML2021).createJdom(pnew);
-			out = xmlout.outputString(doc);
-		} catch (Exception e) {
-			Logger.log.error("Unable to copy to clipboard", e);
-		}
-
-		return out;
+		return pnew;
 	}
 
 	public DataFlavor[] getTransferDataFlavors() {
@@ -17,11 +17,18 @@
 package org.pathvisio.core.model;
 
 import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.FileWriter;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import javax.imageio.ImageIO;
 
 import org.apache.batik.dom.GenericDOMImplementation;
 import org.apache.batik.svggen.SVGGeneratorContext;
@@ -43,18 +50,69 @@
 /**
  * Export Pathway image through Batik, which can handle a number of file formats
  * including SVG, PNG, and PDF.
+ * <p>
+ * SVG is written to the file element by element while the pathway is drawn, and
+ * PNG is drawn directly into an image. Only PDF, and PNG with transcoding hints,
+ * go through an SVG document that is transcoded by Batik.
  */
 public class BatikImageExporter extends ImageExporter {
 
+	private boolean styleClasses = false;
+
 	public BatikImageExporter(String type) {
 		super(type);
 	}
 
+	/**
+	 * Sets whether SVG documents write each distinct style once as a CSS class,
+	 * which makes them smaller, instead of a style attribute on each element.
+	 * 
+	 * @param styleClasses true to use style classes.
+	 */
+	public void setStyleClasses(boolean styleClasses) {
+		this.styleClasses = styleClasses;
+	}
+
+	/**
+	 * @return true if SVG documents use style classes.
+	 */
+	public boolean getStyleClasses() {
+		return styleClasses;
+	}
+
 	public void doExport(File file, VPathwayModel vPathwayModel) throws ConverterException {
 		doExport(file, vPathwayModel, null);
 	}
 
 	public void doExport(File file, VPathwayModel vPathwayModel, TranscodingHints hints) throws ConverterException {
+		if (getType().equals(TYPE_SVG)) {
+			try {
+				Writer out = new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(file)),
+						StandardCharsets.UTF_8);
+				try {
+					exportSVG(vPathwayModel, out);
+				} finally {
+					out.close();
+				}
+			} catch (IOException e) {
+				throw new ConverterException(e);
+			}
+			return;
+		} else if (getType().equals(TYPE_PNG) && hints == null) {
+			Dimension size = vPathwayModel.measure();
+			BufferedImage image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = image.createGraphics();
+			g.setClip(0, 0, size.width, size.height);
+			vPathwayModel.draw(g);
+			g.dispose();
+			try {
+				ImageIO.write(image, "png", file);
+			} catch (IOException e) {
+				throw new ConverterException(e);
+			}
+			return;
+		}
+
 		DOMImplementation domImpl = GenericDOMImplementation.getDOMImplementation();
 		Document svg = domImpl.createDocument("http://www.w3.org/2000/svg", "svg", null);
 
@@ -71,17 +129,7 @@ public void doExport(File file, VPathwayModel vPathwayModel, TranscodingHints hi
 		svgG2d.setSVGCanvasSize(size);
 
 		Transcoder t = null;
-		if (getType().equals(TYPE_SVG)) {
-			try {
-				Writer out = new FileWriter(file);
-				svgG2d.stream(out, true);
-				out.flush();
-				out.close();
-			} catch (Exception e) {
-				throw new ConverterException(e);
-			}
-			return;
-		} else if (getType().equals(TYPE_PNG)) {
+		if (getType().equals(TYPE_PNG)) {
 			t = new PNGTranscoder();
 		} else if (getType().equals(TYPE_PDF)) {
 			try {
@@ -119,6 +167,24 @@ public void doExport(File file, VPathwayModel vPathwayModel, TranscodingHints hi
 		}
 	}
 
+	/**
+	 * Writes the pathway as an SVG document. Each element is written as soon as it
+	 * is drawn, without building a document in memory first.
+	 * 
+	 * @param vPathwayModel the pathway to write.
+	 * @param out           the writer to write the document to, which is not
+	 *                      closed.
+	 * @throws IOException if the document could not be written.
+	 */
+	public void exportSVG(VPathwayModel vPathwayModel, Writer out) throws IOException {
+		Dimension size = vPathwayModel.measure();
+		boolean textAsPath = PreferenceManager.getCurrent().getBoolean(GlobalPreference.SVG_TEXT_AS_PATH);
+		SVGStreamGraphics2D g = new SVGStreamGraphics2D(out, size.width, size.height, textAsPath, styleClasses);
+		g.setClip(0, 0, size.width, size.height);
+		vPathwayModel.draw(g);
+		g.close();
+	}
+
 	public void doExport(File file, PathwayModel pathwayModel) throws ConverterException {
 		VPathwayModel vPathwayModel = new VPathwayModel(null);
 		vPathwayModel.fromModel(pathwayModel);
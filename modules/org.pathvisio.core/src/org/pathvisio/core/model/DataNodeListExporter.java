@@ -22,13 +22,16 @@
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.bridgedb.DataSource;
 import org.bridgedb.IDMapperException;
 import org.bridgedb.Xref;
+import org.pathvisio.core.data.BulkIDMapper;
 import org.pathvisio.core.data.GdbManager;
 import org.pathvisio.libgpml.io.PathwayModelExporter;
 import org.pathvisio.libgpml.io.ConverterException;
@@ -131,6 +134,22 @@ public void doExport(File file, PathwayModel pathwayModel) throws ConverterExcep
 				throw new ConverterException("No gene database loaded");
 			}
 		}
+		// Lookup the cross-references of all datanodes at once
+		Map<Xref, Set<Xref>> mapped = Collections.emptyMap();
+		if (!DB_ORIGINAL.equals(getResultCode())) {
+			List<Xref> xrefs = new ArrayList<Xref>();
+			for (DataNode elm : pathwayModel.getDataNodes()) {
+				DataSource ds = XrefUtils.getDataSource(elm.getXref());
+				if (ds != null && !ds.equals(resultDs)) {
+					xrefs.add(elm.getXref());
+				}
+			}
+			try {
+				mapped = new BulkIDMapper(gdbManager.getCurrentGdb()).mapID(xrefs, resultDs);
+			} catch (IDMapperException ex) {
+				throw new ConverterException(ex);
+			}
+		}
 		PrintStream out = null;
 		try {
 			out = new PrintStream(new BufferedOutputStream(new FileOutputStream(file)));
@@ -148,18 +167,16 @@ public void doExport(File file, PathwayModel pathwayModel) throws ConverterExcep
 			// Use the original id, if code is already the one asked for
 			if (DB_ORIGINAL.equals(getResultCode()) || ds.equals(resultDs)) { // TODO
 				line = id + "\t" + ds.getFullName();
-			} else { // Lookup the cross-references for the wanted database code
-				try {
-					Set<Xref> refs = gdbManager.getCurrentGdb().mapID(elm.getXref(), resultDs);
+			} else { // Use the cross-references for the wanted database code
+				Set<Xref> refs = mapped.get(elm.getXref());
+				if (refs != null) {
 					for (Xref ref : refs) {
 						line += ref.getId() + multiRefSep;
 					}
-					if (line.length() > multiRefSep.length()) { // Remove the last ', '
-						line = line.substring(0, line.length() - multiRefSep.length());
-						line += "\t" + resultDs.getFullName();
-					}
-				} catch (IDMapperException ex) {
-					throw new ConverterException(ex);
+				}
+				if (line.length() > multiRefSep.length()) { // Remove the last ', '
+					line = line.substring(0, line.length() - multiRefSep.length());
+					line += "\t" + resultDs.getFullName();
 				}
 			}
 			out.println(line);
@@ -31,6 +31,10 @@
 
 /**
  * A Pathway exporter for Bitmap formats, based on the javax.imageio library
+ * <p>
+ * {@link #doExport} draws the pathway in tiles, which are written as they are
+ * drawn, so large or high resolution images can be exported without having
+ * the whole image in memory. See {@link #setTileSize} and {@link #setThreads}.
  */
 public class RasterImageExporter extends ImageExporter {
 
@@ -50,6 +54,12 @@ public class RasterImageExporter extends ImageExporter {
 
 	public double zoom;
 
+	/** default width and height of the tiles drawn by {@link #doExport} */
+	public static final int DEFAULT_TILE_SIZE = 512;
+
+	private int tileSize = DEFAULT_TILE_SIZE;
+	private int threads = 1;
+
 	/**
 	 * Use a buffered image for exporting
 	 *
@@ -64,24 +74,55 @@ public RasterImageExporter(String type) {
 			throw new IllegalArgumentException("Unkown Image type " + type);
 	}
 
-	public void doExport(File file, PathwayModel pathway) throws ConverterException {
-		try {
-			BufferedImage image = exportAsImage(pathway);
-			ImageIO.write(image, getType(), file);
-		} catch (IOException ex) {
-			throw new ConverterException(ex);
+	/**
+	 * Sets the width and height of the tiles the image is drawn in. The memory
+	 * used by an export is about the width of the image times the tile size.
+	 *
+	 * @param tileSize the tile size in pixels.
+	 */
+	public void setTileSize(int tileSize) {
+		if (tileSize < 1) {
+			throw new IllegalArgumentException("Tile size must be positive");
 		}
+		this.tileSize = tileSize;
+	}
+
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	/**
+	 * Sets the number of threads that draw tiles at the same time. Each thread
+	 * draws with its own view of the pathway.
+	 *
+	 * @param threads the number of threads, 1 to draw on the calling thread.
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Number of threads must be positive");
+		}
+		this.threads = threads;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void doExport(File file, PathwayModel pathway) throws ConverterException {
+		doExport(file, pathway, 100);
 	}
 
 	@Override
 	public void doExport(File file, PathwayModel pathway, int zoom) throws ConverterException {
-		// TODO Auto-generated method stub
+		TiledRasterImage image = new TiledRasterImage(pathway, zoom / 100.0, tileSize, threads);
 		try {
-
-			BufferedImage image = exportAsImage(pathway, zoom);
+			widthInPixels = image.getWidth();
+			heightInPixels = image.getHeight();
 			ImageIO.write(image, getType(), file);
 		} catch (IOException ex) {
 			throw new ConverterException(ex);
+		} finally {
+			image.dispose();
 		}
 	}
 
@@ -109,9 +150,9 @@ public BufferedImage exportAsImage(PathwayModel pathway, int zoom) {
 			initialHPixel = vPathway.getVHeight();
 
 			// update height
-			heightInPixels = (int) ((zoom / 100) * initialHPixel);
+			heightInPixels = (int) ((zoom / 100.0) * initialHPixel);
 			// update width
-			widthInPixels = (int) ((zoom / 100) * initialWPixel);
+			widthInPixels = (int) ((zoom / 100.0) * initialWPixel);
 
 			final double scale = zoom / 100.0;
 			final BufferedImage image = new BufferedImage(widthInPixels, heightInPixels, BufferedImage.TYPE_INT_RGB);
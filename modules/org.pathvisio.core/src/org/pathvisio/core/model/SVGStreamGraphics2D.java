@@ -0,0 +1,554 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.model;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.font.TextAttribute;
+import java.awt.font.TextLayout;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.image.BufferedImage;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.text.AttributedCharacterIterator;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.apache.batik.ext.awt.g2d.AbstractGraphics2D;
+import org.apache.batik.ext.awt.g2d.GraphicContext;
+
+/**
+ * A graphics object that writes every shape, text and image drawn on it as an
+ * SVG element to a {@link Writer} right away, instead of building a DOM first
+ * like {@link org.apache.batik.svggen.SVGGraphics2D}.
+ * <p>
+ * Clip paths are written once, in a defs element before their first use, and
+ * consecutive elements with the same clip share a group. When style classes are
+ * used, each distinct style is written once as a CSS class in a style element at
+ * the end of the document, which applies to the whole document.
+ * <p>
+ * Graphics made with {@link #create()} write to the same document. Call
+ * {@link #close()} on the first graphics after drawing to end the document.
+ */
+class SVGStreamGraphics2D extends AbstractGraphics2D {
+
+	private static final Graphics2D FONT_METRICS = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB)
+			.createGraphics();
+
+	/**
+	 * The document that all graphics made from the same graphics write to.
+	 */
+	private static class Document {
+		final PrintWriter out;
+		final boolean styleClasses;
+		final Map<String, String> classes = new LinkedHashMap<String, String>();
+		final Map<String, String> clipPaths = new HashMap<String, String>();
+		boolean groupOpen = false;
+		String groupClip = null;
+
+		Document(Writer out, boolean styleClasses) {
+			this.out = new PrintWriter(out);
+			this.styleClasses = styleClasses;
+		}
+	}
+
+	private final Document doc;
+
+	/**
+	 * Starts a new SVG document.
+	 *
+	 * @param out          the writer to write the document to.
+	 * @param width        the width of the document.
+	 * @param height       the height of the document.
+	 * @param textAsShapes true to write text as the outlines of the glyphs, false
+	 *                     to write text elements.
+	 * @param styleClasses true to write each distinct style once as a CSS class,
+	 *                     false to write the style of each element in a style
+	 *                     attribute.
+	 */
+	SVGStreamGraphics2D(Writer out, int width, int height, boolean textAsShapes, boolean styleClasses) {
+		super(textAsShapes);
+		gc = new GraphicContext();
+		doc = new Document(out, styleClasses);
+		doc.out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+		doc.out.println("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\""
+				+ " version=\"1.1\" width=\"" + width + "\" height=\"" + height + "\" xml:space=\"preserve\">");
+	}
+
+	private SVGStreamGraphics2D(SVGStreamGraphics2D g) {
+		super(g);
+		doc = g.doc;
+	}
+
+	/**
+	 * Ends the document and flushes the writer.
+	 *
+	 * @throws IOException if the document could not be written.
+	 */
+	void close() throws IOException {
+		closeGroup();
+		if (!doc.classes.isEmpty()) {
+			doc.out.println("<style type=\"text/css\"><![CDATA[");
+			for (Map.Entry<String, String> e : doc.classes.entrySet()) {
+				doc.out.println("." + e.getValue() + "{" + e.getKey() + "}");
+			}
+			doc.out.println("]]></style>");
+		}
+		doc.out.println("</svg>");
+		doc.out.flush();
+		if (doc.out.checkError()) {
+			throw new IOException("Could not write SVG document");
+		}
+	}
+
+	// ================================================================================
+	// Writing elements
+	// ================================================================================
+
+	private void closeGroup() {
+		if (doc.groupOpen) {
+			doc.out.println("</g>");
+			doc.groupOpen = false;
+			doc.groupClip = null;
+		}
+	}
+
+	/**
+	 * Starts writing an element with the current clip, transform and the given
+	 * style, e.g. "&lt;path".
+	 */
+	private void startElement(String name, String style) {
+		String clip = getClipId();
+		if (clip == null ? doc.groupOpen : !clip.equals(doc.groupClip)) {
+			closeGroup();
+			if (clip != null) {
+				doc.out.println("<g clip-path=\"url(#" + clip + ")\">");
+				doc.groupOpen = true;
+				doc.groupClip = clip;
+			}
+		}
+		PrintWriter out = doc.out;
+		out.print("<");
+		out.print(name);
+		if (style.length() > 0) {
+			if (doc.styleClasses) {
+				String c = doc.classes.get(style);
+				if (c == null) {
+					c = "s" + doc.classes.size();
+					doc.classes.put(style, c);
+				}
+				out.print(" class=\"" + c + "\"");
+			} else {
+				out.print(" style=\"" + style + "\"");
+			}
+		}
+		AffineTransform t = gc.getTransform();
+		if (!t.isIdentity()) {
+			out.print(" transform=\"matrix(" + number(t.getScaleX()) + " " + number(t.getShearY()) + " "
+					+ number(t.getShearX()) + " " + number(t.getScaleY()) + " " + number(t.getTranslateX()) + " "
+					+ number(t.getTranslateY()) + ")\"");
+		}
+	}
+
+	/**
+	 * Returns the id of the clip path of the current clip, and writes the clip
+	 * path first if it hasn't been written yet.
+	 *
+	 * @return the id, or null if there is no clip.
+	 */
+	private String getClipId() {
+		Shape clip = gc.getClip();
+		if (clip == null) {
+			return null;
+		}
+		// clip paths are in the coordinates of the document
+		String d = pathData(gc.getTransform().createTransformedShape(clip));
+		String id = doc.clipPaths.get(d);
+		if (id == null) {
+			id = "clip" + doc.clipPaths.size();
+			doc.clipPaths.put(d, id);
+			closeGroup();
+			doc.out.println("<defs><clipPath id=\"" + id + "\" clipPathUnits=\"userSpaceOnUse\"><path d=\"" + d
+					+ "\"/></clipPath></defs>");
+		}
+		return id;
+	}
+
+	private void writePath(Shape s, String style) {
+		String d = pathData(s);
+		if (d.length() == 0) {
+			return;
+		}
+		startElement("path", style);
+		doc.out.println(" d=\"" + d + "\"/>");
+	}
+
+	private static String pathData(Shape s) {
+		StringBuilder d = new StringBuilder();
+		double[] c = new double[6];
+		for (PathIterator i = s.getPathIterator(null); !i.isDone(); i.next()) {
+			switch (i.currentSegment(c)) {
+			case PathIterator.SEG_MOVETO:
+				d.append('M');
+				appendPoints(d, c, 1);
+				break;
+			case PathIterator.SEG_LINETO:
+				d.append('L');
+				appendPoints(d, c, 1);
+				break;
+			case PathIterator.SEG_QUADTO:
+				d.append('Q');
+				appendPoints(d, c, 2);
+				break;
+			case PathIterator.SEG_CUBICTO:
+				d.append('C');
+				appendPoints(d, c, 3);
+				break;
+			case PathIterator.SEG_CLOSE:
+				d.append('Z');
+				break;
+			}
+		}
+		return d.toString();
+	}
+
+	private static void appendPoints(StringBuilder d, double[] c, int n) {
+		for (int i = 0; i < 2 * n; i++) {
+			if (i > 0) {
+				d.append(' ');
+			}
+			d.append(number(c[i]));
+		}
+	}
+
+	/**
+	 * Formats a number with at most three decimals.
+	 */
+	private static String number(double v) {
+		long l = Math.round(v * 1000);
+		if (l % 1000 == 0) {
+			return Long.toString(l / 1000);
+		}
+		return BigDecimal.valueOf(l, 3).stripTrailingZeros().toPlainString();
+	}
+
+	private static String escape(String s) {
+		StringBuilder b = new StringBuilder(s.length());
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+			case '&':
+				b.append("&amp;");
+				break;
+			case '<':
+				b.append("&lt;");
+				break;
+			case '>':
+				b.append("&gt;");
+				break;
+			case '"':
+				b.append("&quot;");
+				break;
+			default:
+				// characters that are not allowed in XML are left out
+				if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+					b.append(c);
+				}
+			}
+		}
+		return b.toString();
+	}
+
+	// ================================================================================
+	// Styles
+	// ================================================================================
+
+	/**
+	 * Returns the color of the current paint, with the alpha of the current
+	 * composite. Paints other than colors are drawn with the current color.
+	 */
+	private Color getPaintColor() {
+		Paint p = gc.getPaint();
+		Color c = p instanceof Color ? (Color) p : gc.getColor();
+		Composite comp = gc.getComposite();
+		if (comp instanceof AlphaComposite && ((AlphaComposite) comp).getAlpha() < 1) {
+			int alpha = Math.round(c.getAlpha() * ((AlphaComposite) comp).getAlpha());
+			c = new Color(c.getRed(), c.getGreen(), c.getBlue(), alpha);
+		}
+		return c;
+	}
+
+	private static void appendPaint(StringBuilder style, String property, Color c) {
+		style.append(property).append(":#").append(Integer.toHexString(0x1000000 | (c.getRGB() & 0xffffff)).substring(1));
+		if (c.getAlpha() < 255) {
+			style.append(';').append(property).append("-opacity:").append(number(c.getAlpha() / 255.0));
+		}
+	}
+
+	private String fillStyle(Shape s) {
+		StringBuilder style = new StringBuilder();
+		appendPaint(style, "fill", getPaintColor());
+		if (s.getPathIterator(null).getWindingRule() == PathIterator.WIND_EVEN_ODD) {
+			style.append(";fill-rule:evenodd");
+		}
+		style.append(";stroke:none");
+		return style.toString();
+	}
+
+	private String strokeStyle(BasicStroke stroke) {
+		StringBuilder style = new StringBuilder("fill:none;");
+		appendPaint(style, "stroke", getPaintColor());
+		style.append(";stroke-width:").append(number(stroke.getLineWidth()));
+		switch (stroke.getEndCap()) {
+		case BasicStroke.CAP_BUTT:
+			style.append(";stroke-linecap:butt");
+			break;
+		case BasicStroke.CAP_ROUND:
+			style.append(";stroke-linecap:round");
+			break;
+		case BasicStroke.CAP_SQUARE:
+			style.append(";stroke-linecap:square");
+			break;
+		}
+		switch (stroke.getLineJoin()) {
+		case BasicStroke.JOIN_MITER:
+			style.append(";stroke-linejoin:miter;stroke-miterlimit:").append(number(stroke.getMiterLimit()));
+			break;
+		case BasicStroke.JOIN_ROUND:
+			style.append(";stroke-linejoin:round");
+			break;
+		case BasicStroke.JOIN_BEVEL:
+			style.append(";stroke-linejoin:bevel");
+			break;
+		}
+		float[] dash = stroke.getDashArray();
+		if (dash != null && dash.length > 0) {
+			style.append(";stroke-dasharray:");
+			for (int i = 0; i < dash.length; i++) {
+				if (i > 0) {
+					style.append(',');
+				}
+				style.append(number(dash[i]));
+			}
+			if (stroke.getDashPhase() != 0) {
+				style.append(";stroke-dashoffset:").append(number(stroke.getDashPhase()));
+			}
+		}
+		return style.toString();
+	}
+
+	/**
+	 * Returns the font family for CSS. The logical fonts of Java are written as
+	 * the generic families they stand for.
+	 */
+	private static String fontFamily(Font font) {
+		String family = font.getFamily();
+		if (Font.DIALOG.equalsIgnoreCase(family) || Font.SANS_SERIF.equalsIgnoreCase(family)) {
+			return "sans-serif";
+		} else if (Font.SERIF.equalsIgnoreCase(family)) {
+			return "serif";
+		} else if (Font.MONOSPACED.equalsIgnoreCase(family) || Font.DIALOG_INPUT.equalsIgnoreCase(family)) {
+			return "monospace";
+		}
+		return "'" + escape(family).replace("'", "") + "'";
+	}
+
+	private String textStyle(Font font, boolean underline, boolean strikethrough) {
+		StringBuilder style = new StringBuilder();
+		style.append("font-family:").append(fontFamily(font));
+		style.append(";font-size:").append(number(font.getSize2D())).append("px");
+		if (font.isBold()) {
+			style.append(";font-weight:bold");
+		}
+		if (font.isItalic()) {
+			style.append(";font-style:italic");
+		}
+		if (underline || strikethrough) {
+			style.append(";text-decoration:");
+			style.append(underline && strikethrough ? "underline line-through" : underline ? "underline" : "line-through");
+		}
+		style.append(';');
+		appendPaint(style, "fill", getPaintColor());
+		return style.toString();
+	}
+
+	// ================================================================================
+	// Graphics2D
+	// ================================================================================
+
+	@Override
+	public Graphics create() {
+		return new SVGStreamGraphics2D(this);
+	}
+
+	@Override
+	public void dispose() {
+		// the document is ended by close()
+	}
+
+	@Override
+	public void draw(Shape s) {
+		Stroke stroke = gc.getStroke();
+		if (stroke instanceof BasicStroke) {
+			writePath(s, strokeStyle((BasicStroke) stroke));
+		} else {
+			fill(stroke.createStrokedShape(s));
+		}
+	}
+
+	@Override
+	public void fill(Shape s) {
+		writePath(s, fillStyle(s));
+	}
+
+	@Override
+	public void drawString(String s, float x, float y) {
+		if (s.length() == 0) {
+			return;
+		}
+		if (textAsShapes) {
+			drawGlyphVector(getFont().createGlyphVector(getFontRenderContext(), s), x, y);
+			return;
+		}
+		startElement("text", textStyle(getFont(), false, false));
+		doc.out.println(" x=\"" + number(x) + "\" y=\"" + number(y) + "\">" + escape(s) + "</text>");
+	}
+
+	@Override
+	public void drawString(AttributedCharacterIterator iterator, float x, float y) {
+		if (iterator.getEndIndex() <= iterator.getBeginIndex()) {
+			return;
+		}
+		if (textAsShapes) {
+			new TextLayout(iterator, getFontRenderContext()).draw(this, x, y);
+			return;
+		}
+		// the text is written with the attributes of the first character
+		StringBuilder s = new StringBuilder();
+		for (char c = iterator.first(); c != AttributedCharacterIterator.DONE; c = iterator.next()) {
+			s.append(c);
+		}
+		iterator.first();
+		Map<AttributedCharacterIterator.Attribute, Object> attributes = iterator.getAttributes();
+		Font font = attributes.containsKey(TextAttribute.FONT) || attributes.containsKey(TextAttribute.FAMILY)
+				? Font.getFont(attributes)
+				: getFont();
+		boolean underline = TextAttribute.UNDERLINE_ON.equals(attributes.get(TextAttribute.UNDERLINE));
+		boolean strikethrough = TextAttribute.STRIKETHROUGH_ON.equals(attributes.get(TextAttribute.STRIKETHROUGH));
+		startElement("text", textStyle(font, underline, strikethrough));
+		doc.out.println(" x=\"" + number(x) + "\" y=\"" + number(y) + "\">" + escape(s.toString()) + "</text>");
+	}
+
+	@Override
+	public boolean drawImage(Image img, int x, int y, ImageObserver observer) {
+		int width = img.getWidth(observer);
+		int height = img.getHeight(observer);
+		if (width < 0 || height < 0) {
+			return false;
+		}
+		return drawImage(img, x, y, width, height, observer);
+	}
+
+	@Override
+	public boolean drawImage(Image img, int x, int y, int width, int height, ImageObserver observer) {
+		RenderedImage image;
+		if (img instanceof RenderedImage) {
+			image = (RenderedImage) img;
+		} else {
+			int w = img.getWidth(observer);
+			int h = img.getHeight(observer);
+			if (w <= 0 || h <= 0) {
+				return false;
+			}
+			BufferedImage buffered = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = buffered.createGraphics();
+			g.drawImage(img, 0, 0, null);
+			g.dispose();
+			image = buffered;
+		}
+		writeImage(image, x, y, width, height);
+		return true;
+	}
+
+	@Override
+	public void drawRenderedImage(RenderedImage img, AffineTransform xform) {
+		SVGStreamGraphics2D g = new SVGStreamGraphics2D(this);
+		g.transform(xform);
+		g.writeImage(img, 0, 0, img.getWidth(), img.getHeight());
+	}
+
+	@Override
+	public void drawRenderableImage(RenderableImage img, AffineTransform xform) {
+		drawRenderedImage(img.createDefaultRendering(), xform);
+	}
+
+	private void writeImage(RenderedImage image, int x, int y, int width, int height) {
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		try {
+			ImageIO.write(image, "png", png);
+		} catch (IOException e) {
+			// can't happen when writing to memory, the image is left out otherwise
+			return;
+		}
+		startElement("image", "");
+		doc.out.println(" x=\"" + x + "\" y=\"" + y + "\" width=\"" + width + "\" height=\"" + height
+				+ "\" preserveAspectRatio=\"none\" xlink:href=\"data:image/png;base64,"
+				+ Base64.getEncoder().encodeToString(png.toByteArray()) + "\"/>");
+	}
+
+	@Override
+	public GraphicsConfiguration getDeviceConfiguration() {
+		return null;
+	}
+
+	@Override
+	public FontMetrics getFontMetrics(Font f) {
+		return FONT_METRICS.getFontMetrics(f);
+	}
+
+	@Override
+	public void setXORMode(Color c) {
+		// not supported in SVG, keep drawing in paint mode
+	}
+
+	@Override
+	public void copyArea(int x, int y, int width, int height, int dx, int dy) {
+		// not supported in SVG
+	}
+}
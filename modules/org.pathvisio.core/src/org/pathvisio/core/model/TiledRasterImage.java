@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.model;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.pathvisio.core.view.model.VPathwayModel;
+import org.pathvisio.libgpml.model.PathwayModel;
+
+/**
+ * An image of a pathway that is drawn in square tiles when its pixels are
+ * asked for, so it can be written with {@link javax.imageio.ImageIO} without
+ * having the whole image in memory. Image writers such as the PNG writer ask for
+ * the image row by row, so only the tiles of a single row of tiles are kept.
+ * <p>
+ * Each tile is drawn with a clip of the size of the tile, so only the elements
+ * in the tile are drawn. The tiles of a row can be drawn in parallel, each
+ * thread with its own {@link VPathwayModel} of the same pathway. The pathway
+ * must not be modified until {@link #dispose()} has been called.
+ */
+class TiledRasterImage implements RenderedImage {
+
+	private final double scale;
+	private final int width;
+	private final int height;
+	private final int tileSize;
+	private final ColorModel colorModel;
+	private final SampleModel sampleModel;
+
+	private final VPathwayModel[] vPathways;
+	private final ExecutorService executor;
+
+	// the tiles of the row that was drawn last
+	private int tileRow = -1;
+	private BufferedImage[] tiles;
+
+	/**
+	 * @param pathway  the pathway to draw.
+	 * @param scale    the size of the image relative to the pathway at 100%
+	 *                 zoom.
+	 * @param tileSize the width and height of a tile, in pixels.
+	 * @param threads  the number of threads that draw tiles.
+	 */
+	TiledRasterImage(PathwayModel pathway, double scale, int tileSize, int threads) {
+		if (tileSize < 1 || threads < 1) {
+			throw new IllegalArgumentException("tile size and number of threads must be positive");
+		}
+		this.scale = scale;
+		this.tileSize = tileSize;
+		vPathways = new VPathwayModel[threads];
+		BufferedImage pixel = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+		for (int i = 0; i < threads; i++) {
+			vPathways[i] = new VPathwayModel(null);
+			vPathways[i].fromModel(pathway);
+			vPathways[i].measure();
+		}
+		width = Math.max(1, (int) (scale * vPathways[0].getVWidth()));
+		height = Math.max(1, (int) (scale * vPathways[0].getVHeight()));
+		colorModel = pixel.getColorModel();
+		sampleModel = colorModel.createCompatibleSampleModel(tileSize, tileSize);
+		executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+	}
+
+	/**
+	 * Releases the views of the pathway and the threads.
+	 */
+	void dispose() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+		for (VPathwayModel v : vPathways) {
+			v.dispose();
+		}
+		tiles = null;
+	}
+
+	private BufferedImage drawTile(VPathwayModel vPathway, int tileX, int tileY) {
+		BufferedImage tile = new BufferedImage(colorModel,
+				colorModel.createCompatibleWritableRaster(tileSize, tileSize), false, null);
+		Graphics2D g = tile.createGraphics();
+		g.setClip(0, 0, tileSize, tileSize);
+		g.translate(-tileX * tileSize, -tileY * tileSize);
+		g.scale(scale, scale);
+		vPathway.draw(g);
+		g.dispose();
+		return tile;
+	}
+
+	/**
+	 * Draws the tiles of the given row, unless it is the row that was drawn last.
+	 */
+	private synchronized BufferedImage[] getTileRow(final int tileY) {
+		if (tileY == tileRow) {
+			return tiles;
+		}
+		tiles = null; // release the previous row first
+		final BufferedImage[] row = new BufferedImage[getNumXTiles()];
+		if (executor == null) {
+			for (int x = 0; x < row.length; x++) {
+				row[x] = drawTile(vPathways[0], x, tileY);
+			}
+		} else {
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			for (int i = 0; i < vPathways.length; i++) {
+				final int first = i;
+				tasks.add(new Callable<Void>() {
+					public Void call() {
+						for (int x = first; x < row.length; x += vPathways.length) {
+							row[x] = drawTile(vPathways[first], x, tileY);
+						}
+						return null;
+					}
+				});
+			}
+			try {
+				for (Future<Void> f : executor.invokeAll(tasks)) {
+					f.get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while drawing tiles", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Could not draw tile", e.getCause());
+			}
+		}
+		tiles = row;
+		tileRow = tileY;
+		return row;
+	}
+
+	@Override
+	public Raster getTile(int tileX, int tileY) {
+		Raster raster = getTileRow(tileY)[tileX].getRaster();
+		return raster.createTranslatedChild(tileX * tileSize, tileY * tileSize);
+	}
+
+	@Override
+	public Raster getData() {
+		return getData(new Rectangle(0, 0, width, height));
+	}
+
+	@Override
+	public Raster getData(Rectangle rect) {
+		WritableRaster raster = colorModel.createCompatibleWritableRaster(rect.width, rect.height)
+				.createWritableTranslatedChild(rect.x, rect.y);
+		return copyData(raster);
+	}
+
+	@Override
+	public WritableRaster copyData(WritableRaster raster) {
+		if (raster == null) {
+			raster = colorModel.createCompatibleWritableRaster(width, height);
+		}
+		Rectangle rect = raster.getBounds().intersection(new Rectangle(0, 0, width, height));
+		if (rect.isEmpty()) {
+			return raster;
+		}
+		for (int y = rect.y / tileSize; y <= (rect.y + rect.height - 1) / tileSize; y++) {
+			for (int x = rect.x / tileSize; x <= (rect.x + rect.width - 1) / tileSize; x++) {
+				// copies the part of the tile that overlaps the raster
+				raster.setRect(getTile(x, y));
+			}
+		}
+		return raster;
+	}
+
+	@Override
+	public Vector<RenderedImage> getSources() {
+		return null;
+	}
+
+	@Override
+	public Object getProperty(String name) {
+		return Image.UndefinedProperty;
+	}
+
+	@Override
+	public String[] getPropertyNames() {
+		return null;
+	}
+
+	@Override
+	public ColorModel getColorModel() {
+		return colorModel;
+	}
+
+	@Override
+	public SampleModel getSampleModel() {
+		return sampleModel;
+	}
+
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public int getMinX() {
+		return 0;
+	}
+
+	@Override
+	public int getMinY() {
+		return 0;
+	}
+
+	@Override
+	public int getNumXTiles() {
+		return (width + tileSize - 1) / tileSize;
+	}
+
+	@Override
+	public int getNumYTiles() {
+		return (height + tileSize - 1) / tileSize;
+	}
+
+	@Override
+	public int getMinTileX() {
+		return 0;
+	}
+
+	@Override
+	public int getMinTileY() {
+		return 0;
+	}
+
+	@Override
+	public int getTileWidth() {
+		return tileSize;
+	}
+
+	@Override
+	public int getTileHeight() {
+		return tileSize;
+	}
+
+	@Override
+	public int getTileGridXOffset() {
+		return 0;
+	}
+
+	@Override
+	public int getTileGridYOffset() {
+		return 0;
+	}
+}
@@ -58,6 +58,12 @@ public enum GlobalPreference implements Preference {
 
 	SNAP_TO_ANCHOR(Boolean.toString(true)),
 
+	// record undo actions as changes instead of copies of the pathway
+	UNDO_DELTA_MODE(Boolean.toString(false)),
+
+	// cache rendered tiles of the pathway, size in MB
+	ENABLE_TILE_CACHE(Boolean.toString(false)), TILE_CACHE_SIZE("64"),
+
 	GUI_SIDEPANEL_SIZE("33"), // note: make wide enough for Object panel buttons to look nice
 
 	// pathway base dir
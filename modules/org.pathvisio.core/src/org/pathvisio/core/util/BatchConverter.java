@@ -0,0 +1,569 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.pathvisio.core.Engine;
+import org.pathvisio.core.model.BatikImageExporter;
+import org.pathvisio.core.model.ImageExporter;
+import org.pathvisio.core.model.RasterImageExporter;
+import org.pathvisio.core.preferences.GlobalPreference;
+import org.pathvisio.core.preferences.PreferenceManager;
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.libgpml.io.ConverterException;
+import org.pathvisio.libgpml.io.PathwayModelExporter;
+import org.pathvisio.libgpml.io.PathwayModelImporter;
+import org.pathvisio.libgpml.model.GPMLFormat;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.util.FileUtils;
+import org.pathvisio.libgpml.util.Utils;
+
+/**
+ * Headless command line converter for many pathways at once. Input files are
+ * read with the registered {@link PathwayModelImporter}s and written with the
+ * registered {@link PathwayModelExporter}s, on a fixed number of worker
+ * threads. A file that fails to convert is reported, and does not stop the
+ * conversion of the other files.
+ * <p>
+ * Exporters keep state during an export, so each worker thread has its own
+ * {@link Engine} with its own importers and exporters.
+ */
+public class BatchConverter {
+
+	/** the output format name for GPML2021, written with extension gpml */
+	public static final String FORMAT_GPML = "gpml";
+
+	public static void printUsage() {
+		System.out.println("GPML Batch Converter\n" + "Usage:\n"
+				+ "\tjava BatchConverter [options] <file|directory|glob> ...\n" + "\n" + "Options:\n"
+				+ "\t-o <directory>  output directory, by default next to each input file\n"
+				+ "\t-f <formats>    comma separated output formats: png, svg, pdf, gpml (GPML2021); png by default\n"
+				+ "\t-t <threads>    number of worker threads, by default the number of processors\n"
+				+ "\t-z <zoom>       zoom percentage for png, 100 by default\n" + "\n"
+				+ "Directories are searched recursively for files with a known pathway extension.\n"
+				+ "Globs such as 'pathways/**/*.gpml' should be quoted to keep the shell from expanding them.\n"
+				+ "Return codes:\n" + "\t 0: OK\n" + "\t-1: Parameter or file error\n"
+				+ "\t-2: Conversion error in one or more files\n");
+	}
+
+	// ================================================================================
+	// Input and Result Classes
+	// ================================================================================
+	/**
+	 * A file to convert. The path relative to the directory or glob it was found
+	 * with is kept, so that the output directory gets the same layout.
+	 */
+	public static class Input {
+		private final File file;
+		private final String path;
+
+		/**
+		 * @param file the file to convert.
+		 * @param path the relative path of the file, used for the output files.
+		 */
+		public Input(File file, String path) {
+			this.file = file;
+			this.path = path;
+		}
+
+		public File getFile() {
+			return file;
+		}
+
+		public String getPath() {
+			return path;
+		}
+	}
+
+	/**
+	 * The outcome of the conversion of a single input file.
+	 */
+	public static class Result {
+		private final Input input;
+		private final List<File> outputs = new ArrayList<File>();
+		private final List<String> warnings = new ArrayList<String>();
+		private Throwable error = null;
+		private long msec;
+
+		Result(Input input) {
+			this.input = input;
+		}
+
+		public Input getInput() {
+			return input;
+		}
+
+		/**
+		 * Returns the files written, also if a later output failed.
+		 */
+		public List<File> getOutputs() {
+			return outputs;
+		}
+
+		/**
+		 * Returns the warnings of the importer and exporters.
+		 */
+		public List<String> getWarnings() {
+			return warnings;
+		}
+
+		/**
+		 * Returns the error which stopped the conversion of this file, or null if it
+		 * was converted successfully.
+		 */
+		public Throwable getError() {
+			return error;
+		}
+
+		public boolean isOk() {
+			return error == null;
+		}
+
+		/**
+		 * Returns the time used to convert this file, in milliseconds.
+		 */
+		public long getTime() {
+			return msec;
+		}
+	}
+
+	// ================================================================================
+	// Converter
+	// ================================================================================
+	private final List<String> formats;
+	private final File outputDir;
+	private final int threads;
+	private int zoom = 100;
+	private PrintStream progress = null;
+
+	private final ThreadLocal<Engine> engines = new ThreadLocal<Engine>() {
+		@Override
+		protected Engine initialValue() {
+			Engine engine = new Engine();
+			registerFormats(engine);
+			return engine;
+		}
+	};
+
+	/**
+	 * Creates a batch converter.
+	 *
+	 * @param formats   the output formats, e.g. "png" or {@link #FORMAT_GPML}.
+	 * @param outputDir the output directory, or null to write each output next to
+	 *                  its input file.
+	 * @param threads   the number of worker threads.
+	 */
+	public BatchConverter(List<String> formats, File outputDir, int threads) {
+		if (formats.isEmpty()) {
+			throw new IllegalArgumentException("No output formats");
+		}
+		if (threads < 1) {
+			throw new IllegalArgumentException("Need at least one thread");
+		}
+		this.formats = new ArrayList<String>();
+		for (String f : formats) {
+			this.formats.add(f.toLowerCase());
+		}
+		this.outputDir = outputDir;
+		this.threads = threads;
+	}
+
+	/**
+	 * Sets the zoom percentage used for raster images.
+	 *
+	 * @param zoom the zoom percentage, 100 for the original size.
+	 */
+	public void setZoom(int zoom) {
+		this.zoom = zoom;
+	}
+
+	/**
+	 * Sets the stream to print a line to after each converted file.
+	 *
+	 * @param progress the stream, or null to print nothing.
+	 */
+	public void setProgressStream(PrintStream progress) {
+		this.progress = progress;
+	}
+
+	/**
+	 * Registers the importers and exporters used for batch conversion.
+	 *
+	 * @param engine the engine to register the formats with.
+	 */
+	public static void registerFormats(Engine engine) {
+		// separate instances, as warnings are kept per instance
+		engine.addPathwayModelImporter(new GPMLFormat(GPMLFormat.GPML2021));
+		engine.addPathwayModelExporter(new GPMLFormat(GPMLFormat.GPML2021));
+		engine.addPathwayModelExporter(new BatikImageExporter(ImageExporter.TYPE_SVG));
+		engine.addPathwayModelExporter(new BatikImageExporter(ImageExporter.TYPE_PDF));
+		engine.addPathwayModelExporter(new RasterImageExporter(ImageExporter.TYPE_PNG));
+	}
+
+	/**
+	 * Converts the given files. Blocks until all files are done.
+	 *
+	 * @param inputs the files to convert.
+	 * @return the results in the order in which the files were finished.
+	 * @throws InterruptedException if the calling thread is interrupted.
+	 */
+	public List<Result> convert(List<Input> inputs) throws InterruptedException {
+		List<Result> results = new ArrayList<Result>();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			CompletionService<Result> cs = new ExecutorCompletionService<Result>(pool);
+			for (final Input input : inputs) {
+				cs.submit(new Callable<Result>() {
+					public Result call() {
+						return convert(input);
+					}
+				});
+			}
+			for (int i = 0; i < inputs.size(); i++) {
+				Result r;
+				try {
+					r = cs.take().get();
+				} catch (ExecutionException e) {
+					// convert(Input) catches everything but errors
+					throw new IllegalStateException(e.getCause());
+				}
+				results.add(r);
+				if (progress != null) {
+					printProgress(progress, r, i + 1, inputs.size());
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return results;
+	}
+
+	/**
+	 * Converts a single file to all output formats, on the calling thread.
+	 *
+	 * @param input the file to convert.
+	 * @return the result, with the error if the conversion failed.
+	 */
+	public Result convert(Input input) {
+		Result result = new Result(input);
+		long start = System.currentTimeMillis();
+		try {
+			Engine engine = engines.get();
+			File file = input.getFile();
+			Set<PathwayModelImporter> importers = engine.getPathwayModelImporters(file);
+			if (importers.size() != 1) {
+				throw new ConverterException(
+						"Could not determine importer for '" + FileUtils.getExtension(file.toString()) + "' files");
+			}
+			PathwayModelImporter importer = Utils.oneOf(importers);
+			PathwayModel pathwayModel = importer.doImport(file);
+			result.warnings.addAll(importer.getWarnings());
+			for (String format : formats) {
+				File out = getOutputFile(input, format);
+				if (out.getCanonicalFile().equals(file.getCanonicalFile())) {
+					throw new ConverterException("Refusing to overwrite input file " + file);
+				}
+				out.getParentFile().mkdirs();
+				Set<PathwayModelExporter> exporters = engine.getPathwayModelExporters(out);
+				if (exporters != null && exporters.size() == 1
+						&& Utils.oneOf(exporters) instanceof RasterImageExporter) {
+					result.warnings.addAll(engine.exportPathwayModel(out, pathwayModel, zoom));
+				} else {
+					result.warnings.addAll(engine.exportPathwayModel(out, pathwayModel));
+				}
+				result.outputs.add(out);
+			}
+		} catch (Exception e) {
+			result.error = e;
+		} catch (StackOverflowError e) {
+			result.error = e;
+		} catch (LinkageError e) {
+			// e.g. a library of one of the exporters is missing
+			result.error = e;
+		}
+		result.msec = System.currentTimeMillis() - start;
+		return result;
+	}
+
+	/**
+	 * Returns the output file for the given input and format.
+	 */
+	File getOutputFile(Input input, String format) {
+		String path = input.getPath();
+		int dot = path.lastIndexOf('.');
+		if (dot > path.lastIndexOf(File.separatorChar)) {
+			path = path.substring(0, dot);
+		}
+		String name = path + "." + format;
+		if (outputDir == null) {
+			return new File(input.getFile().getParentFile(), new File(name).getName());
+		}
+		return new File(outputDir, name);
+	}
+
+	// ================================================================================
+	// Input Methods
+	// ================================================================================
+	/**
+	 * Finds the files for the given arguments. An argument may be a file, a
+	 * directory which is searched recursively for files of the given importers,
+	 * or a glob such as "pathways/**&#47;*.gpml".
+	 *
+	 * @param args      the files, directories and globs.
+	 * @param importers the importers of which the extensions are searched in
+	 *                  directories.
+	 * @return the files found, in the order of the arguments.
+	 * @throws IOException if a file, directory or glob could not be read.
+	 */
+	public static List<Input> findInputs(List<String> args, Set<PathwayModelImporter> importers)
+			throws IOException {
+		final Set<String> extensions = new HashSet<String>();
+		for (PathwayModelImporter importer : importers) {
+			for (String ext : importer.getExtensions()) {
+				extensions.add(ext.toLowerCase());
+			}
+		}
+		List<Input> inputs = new ArrayList<Input>();
+		for (String arg : args) {
+			int glob = indexOfGlob(arg);
+			if (glob >= 0) {
+				// walk from the directory before the first glob character
+				int sep = Math.max(arg.lastIndexOf('/', glob), arg.lastIndexOf(File.separatorChar, glob));
+				Path base = Paths.get(sep < 0 ? "." : arg.substring(0, sep + 1));
+				String pattern = sep < 0 ? arg : arg.substring(sep + 1);
+				PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+				addFiles(inputs, base, matcher, null);
+			} else {
+				File f = new File(arg);
+				if (f.isDirectory()) {
+					addFiles(inputs, f.toPath(), null, extensions);
+				} else if (f.isFile()) {
+					inputs.add(new Input(f, f.getName()));
+				} else {
+					throw new IOException("Unable to read input: " + arg);
+				}
+			}
+		}
+		return inputs;
+	}
+
+	private static int indexOfGlob(String arg) {
+		for (int i = 0; i < arg.length(); i++) {
+			if ("*?[{".indexOf(arg.charAt(i)) >= 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Adds the files below the given directory which match the glob or have one
+	 * of the extensions, sorted by path.
+	 */
+	private static void addFiles(List<Input> inputs, final Path base, final PathMatcher matcher,
+			final Set<String> extensions) throws IOException {
+		final List<Path> found = new ArrayList<Path>();
+		Files.walkFileTree(base, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				Path rel = base.relativize(file);
+				if (matcher != null ? matcher.matches(rel)
+						: extensions.contains(FileUtils.getExtension(file.toString()).toLowerCase())) {
+					found.add(rel);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		Collections.sort(found);
+		for (Path rel : found) {
+			inputs.add(new Input(base.resolve(rel).toFile(), rel.toString()));
+		}
+	}
+
+	// ================================================================================
+	// Report Methods
+	// ================================================================================
+	private static void printProgress(PrintStream out, Result r, int done, int total) {
+		String status = r.isOk() ? "OK" : "FAILED";
+		out.println("[" + done + "/" + total + "] " + status + " " + r.getInput().getFile() + " (" + r.getTime()
+				+ " msec)");
+		for (String w : r.getWarnings()) {
+			out.println("\tWarning: " + w.replace('\n', ' '));
+		}
+		if (!r.isOk()) {
+			out.println("\tError: " + r.getError());
+		}
+	}
+
+	/**
+	 * Prints the number of converted and failed files and the throughput.
+	 *
+	 * @param out     the stream to print to.
+	 * @param results the results of {@link #convert(List)}.
+	 * @param msec    the total wall clock time in milliseconds.
+	 */
+	public static void printSummary(PrintStream out, List<Result> results, long msec) {
+		int ok = 0;
+		int outputs = 0;
+		long cpu = 0;
+		for (Result r : results) {
+			if (r.isOk()) {
+				ok++;
+			}
+			outputs += r.getOutputs().size();
+			cpu += r.getTime();
+		}
+		int failed = results.size() - ok;
+		out.println("Converted " + ok + " of " + results.size() + " files, " + failed + " failed, " + outputs
+				+ " files written");
+		double seconds = Math.max(msec, 1) / 1000.0;
+		out.printf("Total time %.1f sec, %.1f files/sec, %d msec per file on average%n", seconds,
+				results.size() / seconds, results.isEmpty() ? 0 : cpu / results.size());
+		if (failed > 0) {
+			out.println("Failed files:");
+			for (Result r : results) {
+				if (!r.isOk()) {
+					out.println("\t" + r.getInput().getFile() + ": " + r.getError());
+				}
+			}
+		}
+	}
+
+	// ================================================================================
+	// Main
+	// ================================================================================
+	/**
+	 * Command line arguments: see {@link #printUsage()}.
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		Logger.log.setStream(System.err);
+		// debug, trace, info, warn, error, fatal
+		Logger.log.setLogLevel(false, false, false, true, true, true);
+
+		List<String> formats = Arrays.asList(ImageExporter.TYPE_PNG);
+		File outputDir = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int zoom = 100;
+		List<String> paths = new ArrayList<String>();
+
+		boolean error = false;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				String arg = args[i];
+				if (arg.equals("-o")) {
+					outputDir = new File(args[++i]);
+				} else if (arg.equals("-f")) {
+					formats = Arrays.asList(args[++i].split(","));
+				} else if (arg.equals("-t")) {
+					threads = Integer.parseInt(args[++i]);
+				} else if (arg.equals("-z")) {
+					zoom = Integer.parseInt(args[++i]);
+				} else if (arg.startsWith("-")) {
+					Logger.log.error("Unknown option " + arg);
+					error = true;
+				} else {
+					paths.add(arg);
+				}
+			}
+		} catch (ArrayIndexOutOfBoundsException e) {
+			Logger.log.error("Missing value for last option");
+			error = true;
+		} catch (NumberFormatException e) {
+			Logger.log.error("Not a number: " + e.getMessage());
+			error = true;
+		}
+		if (!error && paths.isEmpty()) {
+			Logger.log.error("Need at least one file, directory or glob");
+			error = true;
+		}
+		if (error) {
+			printUsage();
+			System.exit(-1);
+		}
+
+		// data sources are initialized by GPMLFormat
+		PreferenceManager.init();
+		// Enable MiM support (for export to graphics formats)
+		PreferenceManager.getCurrent().setBoolean(GlobalPreference.MIM_SUPPORT, true);
+
+		Engine engine = new Engine();
+		registerFormats(engine);
+		List<Input> inputs;
+		BatchConverter converter;
+		try {
+			for (String format : formats) {
+				if (engine.getPathwayModelExporters(new File("x." + format.toLowerCase())) == null) {
+					throw new IllegalArgumentException("Unknown output format " + format);
+				}
+			}
+			inputs = findInputs(paths, engine.getPathwayModelImporters());
+			converter = new BatchConverter(formats, outputDir, Math.min(threads, Math.max(inputs.size(), 1)));
+		} catch (IOException e) {
+			Logger.log.error(e.getMessage());
+			System.exit(-1);
+			return;
+		} catch (IllegalArgumentException e) {
+			Logger.log.error(e.getMessage());
+			printUsage();
+			System.exit(-1);
+			return;
+		}
+		converter.setZoom(zoom);
+		converter.setProgressStream(System.out);
+
+		long start = System.currentTimeMillis();
+		List<Result> results;
+		try {
+			results = converter.convert(inputs);
+		} catch (InterruptedException e) {
+			Logger.log.error("Interrupted");
+			System.exit(-2);
+			return;
+		}
+		printSummary(System.out, results, System.currentTimeMillis() - start);
+		for (Result r : results) {
+			if (!r.isOk()) {
+				System.exit(-2);
+			}
+		}
+		System.exit(0); // Everything OK, now force exit
+	}
+}
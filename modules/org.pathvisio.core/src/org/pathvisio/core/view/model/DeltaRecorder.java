@@ -0,0 +1,525 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.view.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.pathvisio.core.view.model.DeltaUndoAction.PropertyDelta;
+import org.pathvisio.core.view.model.DeltaUndoAction.StructureDelta;
+import org.pathvisio.libgpml.model.Annotation;
+import org.pathvisio.libgpml.model.Citation;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.DataNode.State;
+import org.pathvisio.libgpml.model.Evidence;
+import org.pathvisio.libgpml.model.GraphLink.LinkableTo;
+import org.pathvisio.libgpml.model.Group;
+import org.pathvisio.libgpml.model.Groupable;
+import org.pathvisio.libgpml.model.LineElement;
+import org.pathvisio.libgpml.model.LineElement.Anchor;
+import org.pathvisio.libgpml.model.LineElement.LinePoint;
+import org.pathvisio.libgpml.model.Pathway;
+import org.pathvisio.libgpml.model.PathwayElement;
+import org.pathvisio.libgpml.model.PathwayElement.AnnotationRef;
+import org.pathvisio.libgpml.model.PathwayElement.CitationRef;
+import org.pathvisio.libgpml.model.PathwayElement.EvidenceRef;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.PathwayModelEvent;
+import org.pathvisio.libgpml.model.PathwayModelListener;
+import org.pathvisio.libgpml.model.PathwayObject;
+import org.pathvisio.libgpml.model.PathwayObjectEvent;
+import org.pathvisio.libgpml.model.PathwayObjectListener;
+import org.pathvisio.libgpml.prop.StaticProperty;
+
+/**
+ * Records changes to a {@link PathwayModel} as deltas for the
+ * {@link UndoManager}.
+ * <p>
+ * {@link PathwayObjectEvent} does not carry the old value of a property, so
+ * the recorder keeps a shadow copy of the properties of each pathway object.
+ * When an object is modified, its properties are compared with the shadow
+ * copy and each difference is recorded as a {@link PropertyDelta}. Additions
+ * and removals are recorded as {@link StructureDelta}. Links that are cut when
+ * an object is removed (group members, line points, aliases) are recorded as
+ * property deltas of the linked objects, because the model fires events for
+ * those before the object itself is removed.
+ * <p>
+ * Line points are not tracked as separate objects; the points of a line
+ * element are recorded together as the {@link #LINE_POINTS} property of the
+ * line element.
+ */
+class DeltaRecorder implements PathwayModelListener, PathwayObjectListener {
+
+	/**
+	 * Properties which are not stored in static or dynamic properties.
+	 */
+	enum ExtraProperty {
+		/** the points of a line element, see {@link PointsValue} */
+		LINE_POINTS,
+		/** the annotations, citations and evidences of an element, see {@link RefsValue} */
+		REFS
+	}
+
+	static final ExtraProperty LINE_POINTS = ExtraProperty.LINE_POINTS;
+	static final ExtraProperty REFS = ExtraProperty.REFS;
+
+	private final UndoManager undoManager;
+	private PathwayModel pathwayModel;
+	private final Map<PathwayObject, Map<Object, Object>> shadows = new IdentityHashMap<PathwayObject, Map<Object, Object>>();
+	private int suspended = 0;
+
+	DeltaRecorder(UndoManager undoManager) {
+		this.undoManager = undoManager;
+	}
+
+	/**
+	 * Starts recording changes to the given pathway model. Stops recording changes
+	 * to the previous pathway model, if any.
+	 *
+	 * @param p the pathway model, may be null.
+	 */
+	void attach(PathwayModel p) {
+		detach();
+		pathwayModel = p;
+		if (p != null) {
+			p.addListener(this);
+			for (PathwayObject o : p.getPathwayObjects()) {
+				track(o);
+			}
+		}
+	}
+
+	/**
+	 * Stops recording changes and releases all shadow copies.
+	 */
+	void detach() {
+		if (pathwayModel != null) {
+			pathwayModel.removeListener(this);
+		}
+		for (PathwayObject o : shadows.keySet()) {
+			o.removeListener(this);
+		}
+		shadows.clear();
+		pathwayModel = null;
+	}
+
+	PathwayModel getPathwayModel() {
+		return pathwayModel;
+	}
+
+	/**
+	 * While suspended, only the shadow copies are updated. Used while applying
+	 * deltas for undo and redo. Calls must be balanced with {@link #resume}.
+	 */
+	void suspend() {
+		suspended++;
+	}
+
+	void resume() {
+		suspended--;
+	}
+
+	// ================================================================================
+	// Listener Methods
+	// ================================================================================
+	@Override
+	public void pathwayModified(PathwayModelEvent e) {
+		PathwayObject o = e.getAffectedData();
+		if (o == null || o instanceof LinePoint) {
+			return;
+		}
+		switch (e.getType()) {
+		case PathwayModelEvent.ADDED:
+			track(o);
+			if (!(o instanceof Pathway)) {
+				record(new StructureDelta(o, true, null));
+			}
+			break;
+		case PathwayModelEvent.DELETED:
+			Map<Object, Object> shadow = untrack(o);
+			if (!(o instanceof Pathway)) {
+				record(new StructureDelta(o, false, shadow));
+			}
+			break;
+		default:
+			compare(o);
+		}
+	}
+
+	@Override
+	public void gmmlObjectModified(PathwayObjectEvent e) {
+		compare(e.getModifiedPathwayObject());
+	}
+
+	private void record(Object delta) {
+		if (suspended == 0) {
+			undoManager.deltaRecorded(delta);
+		}
+	}
+
+	// ================================================================================
+	// Shadow Methods
+	// ================================================================================
+	private void track(PathwayObject o) {
+		if (o instanceof LinePoint || shadows.containsKey(o)) {
+			return;
+		}
+		shadows.put(o, snapshot(o));
+		o.addListener(this);
+	}
+
+	private Map<Object, Object> untrack(PathwayObject o) {
+		o.removeListener(this);
+		return shadows.remove(o);
+	}
+
+	/**
+	 * Compares the properties of the given object with its shadow copy, and
+	 * records the differences.
+	 */
+	private void compare(PathwayObject o) {
+		Map<Object, Object> before = shadows.get(o);
+		if (before == null) {
+			return;
+		}
+		Map<Object, Object> after = snapshot(o);
+		shadows.put(o, after);
+		for (Map.Entry<Object, Object> entry : after.entrySet()) {
+			Object key = entry.getKey();
+			if (!Objects.equals(before.get(key), entry.getValue())) {
+				record(new PropertyDelta(o, key, before.get(key), entry.getValue()));
+			}
+		}
+		for (Map.Entry<Object, Object> entry : before.entrySet()) {
+			if (!after.containsKey(entry.getKey())) { // removed dynamic property
+				record(new PropertyDelta(o, entry.getKey(), entry.getValue(), null));
+			}
+		}
+	}
+
+	/**
+	 * Copies all properties of the given object which can be restored.
+	 */
+	static Map<Object, Object> snapshot(PathwayObject o) {
+		Map<Object, Object> result = new LinkedHashMap<Object, Object>();
+		for (StaticProperty key : o.getStaticPropertyKeys()) {
+			if (isRecorded(o, key)) {
+				Object value = o.getStaticProperty(key);
+				if (value instanceof List<?>) { // e.g. comments, authors
+					value = new ArrayList<Object>((List<?>) value);
+				}
+				result.put(key, value);
+			}
+		}
+		if (o instanceof PathwayElement) {
+			PathwayElement e = (PathwayElement) o;
+			for (String key : e.getDynamicPropertyKeys()) {
+				result.put(key, e.getDynamicProperty(key));
+			}
+			if (o instanceof LineElement) {
+				result.put(LINE_POINTS, new PointsValue((LineElement) o));
+			}
+			result.put(REFS, new RefsValue(e));
+		}
+		return result;
+	}
+
+	private static boolean isRecorded(PathwayObject o, StaticProperty key) {
+		switch (key) {
+		case ELEMENTID:
+		case ANNOTATIONREF:
+		case CITATIONREF:
+		case EVIDENCEREF:
+			return false;
+		case STARTX:
+		case STARTY:
+		case ENDX:
+		case ENDY:
+		case STARTELEMENTREF:
+		case ENDELEMENTREF:
+			return !(o instanceof LineElement); // part of LINE_POINTS
+		default:
+			return true;
+		}
+	}
+
+	// ================================================================================
+	// Apply Methods
+	// ================================================================================
+	/**
+	 * Sets a recorded property of the given object.
+	 *
+	 * @param o     the pathway object.
+	 * @param key   a {@link StaticProperty}, a dynamic property key or an
+	 *              {@link ExtraProperty}.
+	 * @param value the recorded value.
+	 */
+	static void setValue(PathwayObject o, Object key, Object value) {
+		if (key == LINE_POINTS) {
+			((PointsValue) value).restore((LineElement) o);
+		} else if (key == REFS) {
+			((RefsValue) value).restore((PathwayElement) o);
+		} else if (key == StaticProperty.GROUPREF && o instanceof Groupable) {
+			Groupable g = (Groupable) o;
+			if (value == null) {
+				g.unsetGroupRef();
+			} else if (g.getGroupRef() != value && isAlive((Group) value, o.getPathwayModel())) {
+				g.setGroupRefTo((Group) value);
+			}
+		} else if (key == StaticProperty.ALIASREF && o instanceof DataNode) {
+			if (value == null) {
+				((DataNode) o).unsetAliasRef();
+			} else if (isAlive((Group) value, o.getPathwayModel())) {
+				((DataNode) o).setAliasRef((Group) value);
+			}
+		} else if (key instanceof StaticProperty) {
+			if (value instanceof List<?>) {
+				value = new ArrayList<Object>((List<?>) value);
+			}
+			o.setStaticProperty((StaticProperty) key, value);
+		} else {
+			((PathwayElement) o).setDynamicProperty((String) key, (String) value);
+		}
+	}
+
+	/**
+	 * Adds the given object to the pathway model.
+	 *
+	 * @param p      the pathway model.
+	 * @param o      the object to add.
+	 * @param points the points of a line element which was removed, or null.
+	 */
+	static void addObject(PathwayModel p, PathwayObject o, PointsValue points) {
+		if (o.getPathwayModel() == p) {
+			return;
+		}
+		if (o instanceof State) {
+			((State) o).getDataNode().addState((State) o);
+		} else if (o instanceof Anchor) {
+			((Anchor) o).getLineElement().addAnchor((Anchor) o);
+		} else if (o instanceof LineElement) {
+			LineElement l = (LineElement) o;
+			if (points != null && l.getLinePoints().isEmpty()) {
+				points.createPoints(l);
+			}
+			p.add(l);
+			if (points != null) {
+				points.restore(l);
+			}
+		} else {
+			p.add(o);
+		}
+	}
+
+	/**
+	 * Removes the given object from the pathway model.
+	 *
+	 * @param p the pathway model.
+	 * @param o the object to remove.
+	 */
+	static void removeObject(PathwayModel p, PathwayObject o) {
+		if (o.getPathwayModel() != p) {
+			return;
+		}
+		if (o instanceof State) {
+			((State) o).getDataNode().removeState((State) o);
+		} else if (o instanceof Anchor) {
+			((Anchor) o).getLineElement().removeAnchor((Anchor) o);
+		} else {
+			p.remove(o);
+		}
+	}
+
+	private static boolean isAlive(PathwayObject o, PathwayModel p) {
+		return o.getPathwayModel() != null && o.getPathwayModel() == p;
+	}
+
+	// ================================================================================
+	// Value Classes
+	// ================================================================================
+	/**
+	 * Immutable copy of the coordinates and links of the points of a line element.
+	 */
+	static class PointsValue {
+		private final double[] coords; // x, y, relX, relY for each point
+		private final LinkableTo[] refs;
+
+		PointsValue(LineElement l) {
+			List<LinePoint> points = l.getLinePoints();
+			coords = new double[points.size() * 4];
+			refs = new LinkableTo[points.size()];
+			for (int i = 0; i < points.size(); i++) {
+				LinePoint p = points.get(i);
+				coords[i * 4] = p.getX();
+				coords[i * 4 + 1] = p.getY();
+				coords[i * 4 + 2] = p.getRelX();
+				coords[i * 4 + 3] = p.getRelY();
+				refs[i] = p.getElementRef();
+			}
+		}
+
+		int size() {
+			return refs.length;
+		}
+
+		/**
+		 * Gives a line element without points a new set of unlinked points.
+		 */
+		void createPoints(LineElement l) {
+			List<LinePoint> points = new ArrayList<LinePoint>();
+			for (int i = 0; i < refs.length; i++) {
+				points.add(l.new LinePoint(coords[i * 4], coords[i * 4 + 1]));
+			}
+			l.setLinePoints(points);
+		}
+
+		/**
+		 * Moves and links the points of the given line element. Keeps the start
+		 * and end point objects, and replaces the waypoints if their number
+		 * differs.
+		 */
+		void restore(LineElement l) {
+			List<LinePoint> points = l.getLinePoints();
+			if (points.size() != refs.length) {
+				List<LinePoint> result = new ArrayList<LinePoint>();
+				result.add(points.get(0));
+				for (int i = 1; i < refs.length - 1; i++) {
+					result.add(l.new LinePoint(coords[i * 4], coords[i * 4 + 1]));
+				}
+				result.add(points.get(points.size() - 1));
+				l.setLinePoints(result);
+				points = l.getLinePoints();
+			}
+			for (int i = 0; i < refs.length; i++) {
+				LinePoint p = points.get(i);
+				if (refs[i] != null && isAlive((PathwayObject) refs[i], l.getPathwayModel())) {
+					p.linkTo(refs[i], coords[i * 4 + 2], coords[i * 4 + 3]);
+				} else {
+					p.unlink();
+					p.moveTo(coords[i * 4], coords[i * 4 + 1]);
+				}
+			}
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof PointsValue)) {
+				return false;
+			}
+			PointsValue other = (PointsValue) obj;
+			if (refs.length != other.refs.length) {
+				return false;
+			}
+			for (int i = 0; i < refs.length; i++) {
+				if (refs[i] != other.refs[i]) {
+					return false;
+				}
+			}
+			return Arrays.equals(coords, other.coords);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(coords);
+		}
+	}
+
+	/**
+	 * Immutable copy of the annotations, citations and evidences referred to by a
+	 * pathway element. Citations and evidences of an annotation reference are not
+	 * included.
+	 */
+	static class RefsValue {
+		private final List<Annotation> annotations = new ArrayList<Annotation>();
+		private final List<Citation> citations = new ArrayList<Citation>();
+		private final List<Evidence> evidences = new ArrayList<Evidence>();
+
+		RefsValue(PathwayElement e) {
+			for (AnnotationRef r : e.getAnnotationRefs()) {
+				annotations.add(r.getAnnotation());
+			}
+			for (CitationRef r : e.getCitationRefs()) {
+				citations.add(r.getCitation());
+			}
+			for (EvidenceRef r : e.getEvidenceRefs()) {
+				evidences.add(r.getEvidence());
+			}
+		}
+
+		int size() {
+			return annotations.size() + citations.size() + evidences.size();
+		}
+
+		/**
+		 * Adds and removes references of the given element, so that it refers to
+		 * the same annotations, citations and evidences as this copy.
+		 */
+		void restore(PathwayElement e) {
+			RefsValue current = new RefsValue(e);
+			for (AnnotationRef r : new ArrayList<AnnotationRef>(e.getAnnotationRefs())) {
+				if (!annotations.contains(r.getAnnotation())) {
+					e.removeAnnotationRef(r);
+				}
+			}
+			for (Annotation a : annotations) {
+				if (!current.annotations.contains(a)) {
+					e.addAnnotation(a);
+				}
+			}
+			for (CitationRef r : new ArrayList<CitationRef>(e.getCitationRefs())) {
+				if (!citations.contains(r.getCitation())) {
+					e.removeCitationRef(r);
+				}
+			}
+			for (Citation c : citations) {
+				if (!current.citations.contains(c)) {
+					e.addCitation(c);
+				}
+			}
+			for (EvidenceRef r : new ArrayList<EvidenceRef>(e.getEvidenceRefs())) {
+				if (!evidences.contains(r.getEvidence())) {
+					e.removeEvidenceRef(r);
+				}
+			}
+			for (Evidence v : evidences) {
+				if (!current.evidences.contains(v)) {
+					e.addEvidence(v);
+				}
+			}
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof RefsValue)) {
+				return false;
+			}
+			RefsValue other = (RefsValue) obj;
+			return annotations.equals(other.annotations) && citations.equals(other.citations)
+					&& evidences.equals(other.evidences);
+		}
+
+		@Override
+		public int hashCode() {
+			return annotations.hashCode() ^ citations.hashCode() ^ evidences.hashCode();
+		}
+	}
+}
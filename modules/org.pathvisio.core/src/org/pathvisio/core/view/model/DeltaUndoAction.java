@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.view.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.pathvisio.core.view.model.DeltaRecorder.PointsValue;
+import org.pathvisio.core.view.model.DeltaRecorder.RefsValue;
+import org.pathvisio.libgpml.model.LineElement;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.PathwayObject;
+
+/**
+ * An item on the undo stack which stores the changes made by the user, instead
+ * of a complete copy of the pathway. The changes are recorded by
+ * {@link DeltaRecorder} while the action is the current action of the
+ * {@link UndoManager}. Undo applies the changes in reverse, redo applies them
+ * again.
+ * <p>
+ * Consecutive changes of the same property are merged, so that dragging an
+ * object results in a single change per property.
+ */
+public class DeltaUndoAction extends UndoAction {
+
+	private final List<Object> deltas = new ArrayList<Object>();
+	// property deltas which may be merged, cleared by each structure delta
+	private final Map<PathwayObject, Map<Object, PropertyDelta>> mergeable = new IdentityHashMap<PathwayObject, Map<Object, PropertyDelta>>();
+	private long size = 0;
+
+	public DeltaUndoAction(String aMessage) {
+		super(aMessage, null);
+	}
+
+	/**
+	 * Adds a delta recorded by {@link DeltaRecorder}.
+	 *
+	 * @param delta a {@link PropertyDelta} or {@link StructureDelta}.
+	 * @return the change of the estimated size of this action in bytes.
+	 */
+	long add(Object delta) {
+		long before = size;
+		if (delta instanceof PropertyDelta) {
+			PropertyDelta d = (PropertyDelta) delta;
+			Map<Object, PropertyDelta> props = mergeable.get(d.object);
+			if (props == null) {
+				props = new HashMap<Object, PropertyDelta>();
+				mergeable.put(d.object, props);
+			}
+			PropertyDelta prev = props.get(d.key);
+			if (prev == null) {
+				props.put(d.key, d);
+				deltas.add(d);
+				size += d.getSize();
+			} else {
+				size -= prev.getSize();
+				prev.newValue = d.newValue;
+				if (Objects.equals(prev.oldValue, prev.newValue)) {
+					props.remove(d.key);
+					deltas.remove(prev);
+				} else {
+					size += prev.getSize();
+				}
+			}
+		} else {
+			mergeable.clear();
+			deltas.add(delta);
+			size += ((StructureDelta) delta).getSize();
+		}
+		return size - before;
+	}
+
+	/**
+	 * Returns true if this action does not change anything.
+	 *
+	 * @return true if there are no changes.
+	 */
+	public boolean isEmpty() {
+		return deltas.isEmpty();
+	}
+
+	/**
+	 * Returns the number of recorded changes.
+	 *
+	 * @return the number of changes.
+	 */
+	public int getDeltaCount() {
+		return deltas.size();
+	}
+
+	@Override
+	long getSize() {
+		return size;
+	}
+
+	/**
+	 * Closes this action for merging, so that later changes are not merged into
+	 * changes that were undone.
+	 */
+	void close() {
+		mergeable.clear();
+	}
+
+	@Override
+	public void undo() {
+		close();
+		PathwayModel p = getUndoManager().getPathwayModel();
+		for (int i = deltas.size() - 1; i >= 0; i--) {
+			Object delta = deltas.get(i);
+			if (delta instanceof PropertyDelta) {
+				((PropertyDelta) delta).apply(false);
+			} else {
+				((StructureDelta) delta).apply(p, false);
+			}
+		}
+	}
+
+	@Override
+	public void redo() {
+		close();
+		PathwayModel p = getUndoManager().getPathwayModel();
+		for (Object delta : deltas) {
+			if (delta instanceof PropertyDelta) {
+				((PropertyDelta) delta).apply(true);
+			} else {
+				((StructureDelta) delta).apply(p, true);
+			}
+		}
+	}
+
+	@Override
+	void printSummary() {
+		System.out.printf("'%20s' %d changes, %d bytes\n", getMessage(), deltas.size(), size);
+	}
+
+	/**
+	 * Returns a rough estimate of the memory used by a recorded value.
+	 */
+	static long sizeOf(Object value) {
+		if (value instanceof String) {
+			return 40 + 2 * ((String) value).length();
+		} else if (value instanceof PointsValue) {
+			return 32 + 40 * ((PointsValue) value).size();
+		} else if (value instanceof RefsValue) {
+			return 64 + 8 * ((RefsValue) value).size();
+		} else if (value instanceof List<?>) {
+			return 32 + 32 * ((List<?>) value).size();
+		}
+		return 16;
+	}
+
+	// ================================================================================
+	// Delta Classes
+	// ================================================================================
+	/**
+	 * Change of a single property of a pathway object.
+	 */
+	static class PropertyDelta {
+		final PathwayObject object;
+		final Object key;
+		final Object oldValue;
+		Object newValue;
+
+		PropertyDelta(PathwayObject object, Object key, Object oldValue, Object newValue) {
+			this.object = object;
+			this.key = key;
+			this.oldValue = oldValue;
+			this.newValue = newValue;
+		}
+
+		void apply(boolean redo) {
+			DeltaRecorder.setValue(object, key, redo ? newValue : oldValue);
+		}
+
+		long getSize() {
+			return 32 + sizeOf(oldValue) + sizeOf(newValue);
+		}
+	}
+
+	/**
+	 * Addition or removal of a pathway object. The model discards the points of a
+	 * line element when it is removed, so these are kept to add the same line
+	 * element again.
+	 */
+	static class StructureDelta {
+		final PathwayObject object;
+		final boolean added;
+		private PointsValue points;
+
+		StructureDelta(PathwayObject object, boolean added, Map<Object, Object> shadow) {
+			this.object = object;
+			this.added = added;
+			if (shadow != null) {
+				points = (PointsValue) shadow.get(DeltaRecorder.LINE_POINTS);
+			}
+		}
+
+		void apply(PathwayModel p, boolean redo) {
+			if (added == redo) {
+				DeltaRecorder.addObject(p, object, points);
+			} else {
+				if (object instanceof LineElement) {
+					points = new PointsValue((LineElement) object);
+				}
+				DeltaRecorder.removeObject(p, object);
+			}
+		}
+
+		long getSize() {
+			return 48 + (points == null ? 0 : sizeOf(points));
+		}
+	}
+}
@@ -296,6 +296,11 @@ private static void mouseoverElementId(Graphics2D g, Rectangle2D rect, boolean m
 	private static void setGroupStyle(VGroup vgroup, Color borderColor, LineStyleType borderStyle, Color fillColor,
 			ShapeType shapeType) {
 		Group group = vgroup.getPathwayObject();
+		// a snapshot can't be modified, its style was set by the view it was taken of
+		PathwayModel p = group.getPathwayModel();
+		if (p != null && p.isReadOnly()) {
+			return;
+		}
 		group.setBorderColor(borderColor);
 		group.setBorderStyle(borderStyle);
 		group.setFillColor(fillColor);
@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.view.model;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Spatial index over the {@link VElement#getVBounds()} of the elements of a
+ * {@link VPathwayModel}, used for hit-testing and for culling elements outside
+ * the clipping area.
+ * <p>
+ * The view is divided into square cells, and each element is listed in every
+ * cell its bounds overlap. Elements which overlap many cells, such as large
+ * groups, are kept in a separate list which is checked for every query.
+ * <p>
+ * An element is indexed with the bounds it had when it was added. When the
+ * cached bounds of an element are reset, the element is marked with
+ * {@link #invalidate(VElement)}, and moved to its new cells before the next
+ * query. This keeps the index in sync with moves, resizes and zooming, without
+ * calculating bounds more often than the view already does.
+ */
+class SpatialIndex {
+
+	/** width and height of a cell, in view coordinates */
+	static final double CELL_SIZE = 128;
+
+	/** elements which overlap more cells are kept in {@link #large} */
+	static final int MAX_CELLS = 64;
+
+	private final Map<Long, List<VElement>> cells = new HashMap<Long, List<VElement>>();
+	private final List<VElement> large = new ArrayList<VElement>();
+	// cell range (x0, y0, x1, y1) of each element, or null for large elements
+	private final Map<VElement, int[]> ranges = new IdentityHashMap<VElement, int[]>();
+	private final Set<VElement> dirty = Collections.newSetFromMap(new IdentityHashMap<VElement, Boolean>());
+
+	/**
+	 * Adds an element to this index.
+	 *
+	 * @param e the element to add.
+	 */
+	void add(VElement e) {
+		if (!ranges.containsKey(e)) {
+			insert(e);
+		}
+	}
+
+	/**
+	 * Removes an element from this index.
+	 *
+	 * @param e the element to remove.
+	 */
+	void remove(VElement e) {
+		if (ranges.containsKey(e)) {
+			delete(e);
+			ranges.remove(e);
+			dirty.remove(e);
+		}
+	}
+
+	/**
+	 * Returns true if the given element is in this index.
+	 *
+	 * @param e the element.
+	 * @return true if the element has been added.
+	 */
+	boolean contains(VElement e) {
+		return ranges.containsKey(e);
+	}
+
+	/**
+	 * Returns the number of elements in this index.
+	 *
+	 * @return the number of elements.
+	 */
+	int size() {
+		return ranges.size();
+	}
+
+	/**
+	 * Marks the bounds of the given element as changed. The element is moved to
+	 * its new cells before the next query.
+	 *
+	 * @param e the element of which the bounds have changed.
+	 */
+	void invalidate(VElement e) {
+		if (ranges.containsKey(e)) {
+			dirty.add(e);
+		}
+	}
+
+	/**
+	 * Removes all elements from this index.
+	 */
+	void clear() {
+		cells.clear();
+		large.clear();
+		ranges.clear();
+		dirty.clear();
+	}
+
+	/**
+	 * Returns the elements of which the bounds may contain the given point, in
+	 * drawing order.
+	 *
+	 * @param p the point in view coordinates.
+	 * @return the candidate elements, the caller still has to test each element.
+	 */
+	List<VElement> query(Point2D p) {
+		flush();
+		List<VElement> result = new ArrayList<VElement>(large);
+		List<VElement> cell = cells.get(key(cell(p.getX()), cell(p.getY())));
+		if (cell != null) {
+			result.addAll(cell);
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	/**
+	 * Returns the elements of which the bounds may intersect the given rectangle,
+	 * in drawing order.
+	 *
+	 * @param r the rectangle in view coordinates.
+	 * @return the candidate elements, the caller still has to test each element.
+	 */
+	List<VElement> query(Rectangle2D r) {
+		List<VElement> result = find(r);
+		if (result == null) {
+			result = new ArrayList<VElement>(ranges.keySet());
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	/**
+	 * Returns the elements of which the bounds may intersect the given rectangle,
+	 * in no particular order. Returns null if the rectangle overlaps more cells
+	 * than are in use, e.g. when the whole view is painted, as it is then cheaper
+	 * to check all elements.
+	 *
+	 * @param r the rectangle in view coordinates.
+	 * @return the candidate elements, or null.
+	 */
+	List<VElement> find(Rectangle2D r) {
+		flush();
+		int[] range = range(r);
+		if (range == null || (long) (range[2] - range[0] + 1) * (range[3] - range[1] + 1) > cells.size()) {
+			return null;
+		}
+		Set<VElement> found = Collections.newSetFromMap(new IdentityHashMap<VElement, Boolean>());
+		found.addAll(large);
+		for (int x = range[0]; x <= range[2]; x++) {
+			for (int y = range[1]; y <= range[3]; y++) {
+				List<VElement> cell = cells.get(key(x, y));
+				if (cell != null) {
+					found.addAll(cell);
+				}
+			}
+		}
+		return new ArrayList<VElement>(found);
+	}
+
+	/**
+	 * Moves all elements with changed bounds to their new cells.
+	 */
+	private void flush() {
+		// calculating bounds may invalidate other elements
+		while (!dirty.isEmpty()) {
+			List<VElement> changed = new ArrayList<VElement>(dirty);
+			dirty.clear();
+			for (VElement e : changed) {
+				delete(e);
+				insert(e);
+			}
+		}
+	}
+
+	/**
+	 * Adds the element to the cells overlapped by its current bounds.
+	 */
+	private void insert(VElement e) {
+		int[] range = range(e.getVBounds());
+		if (range == null || (long) (range[2] - range[0] + 1) * (range[3] - range[1] + 1) > MAX_CELLS) {
+			large.add(e);
+			ranges.put(e, null);
+			return;
+		}
+		for (int x = range[0]; x <= range[2]; x++) {
+			for (int y = range[1]; y <= range[3]; y++) {
+				Long k = key(x, y);
+				List<VElement> cell = cells.get(k);
+				if (cell == null) {
+					cell = new ArrayList<VElement>(4);
+					cells.put(k, cell);
+				}
+				cell.add(e);
+			}
+		}
+		ranges.put(e, range);
+	}
+
+	/**
+	 * Removes the element from the cells it was added to.
+	 */
+	private void delete(VElement e) {
+		int[] range = ranges.get(e);
+		if (range == null) {
+			large.remove(e);
+			return;
+		}
+		for (int x = range[0]; x <= range[2]; x++) {
+			for (int y = range[1]; y <= range[3]; y++) {
+				Long k = key(x, y);
+				List<VElement> cell = cells.get(k);
+				if (cell != null) {
+					cell.remove(e);
+					if (cell.isEmpty()) {
+						cells.remove(k);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the cells overlapped by the given rectangle, or null if the
+	 * rectangle is not finite.
+	 */
+	private static int[] range(Rectangle2D r) {
+		double minX = r.getMinX();
+		double minY = r.getMinY();
+		double maxX = r.getMaxX();
+		double maxY = r.getMaxY();
+		if (!isFinite(minX) || !isFinite(minY) || !isFinite(maxX) || !isFinite(maxY)) {
+			return null;
+		}
+		return new int[] { cell(minX), cell(minY), cell(maxX), cell(maxY) };
+	}
+
+	private static boolean isFinite(double d) {
+		return !Double.isNaN(d) && Math.abs(d) < Integer.MAX_VALUE * CELL_SIZE;
+	}
+
+	private static int cell(double v) {
+		return (int) Math.floor(v / CELL_SIZE);
+	}
+
+	private static Long key(int x, int y) {
+		return ((long) x << 32) | (y & 0xffffffffL);
+	}
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.view.model;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextAttribute;
+import java.awt.geom.Rectangle2D;
+import java.text.AttributedCharacterIterator;
+import java.text.AttributedString;
+
+/**
+ * The lines of a text label, split and measured for drawing. Splitting the
+ * label and measuring the lines is expensive, so {@link VShapedElement} keeps
+ * the layout between paints, and only makes a new one when the text, font,
+ * zoom factor or font render context of the graphics differ, see
+ * {@link #matches}.
+ */
+class TextLabelLayout {
+
+	private final String text;
+	private final Font font;
+	private final boolean strikethrough;
+	private final boolean underline;
+	private final FontRenderContext frc;
+
+	private final AttributedString[] lines;
+	private final Rectangle2D[] bounds;
+	private final int lineHeight;
+	private final int ascent;
+
+	/**
+	 * @param text          the text label, may contain newlines.
+	 * @param font          the font in view coordinates.
+	 * @param strikethrough true to strike through the text.
+	 * @param underline     true to underline the text.
+	 * @param g             the graphics the label will be drawn on.
+	 */
+	TextLabelLayout(String text, Font font, boolean strikethrough, boolean underline, Graphics2D g) {
+		this.text = text;
+		this.font = font;
+		this.strikethrough = strikethrough;
+		this.underline = underline;
+		this.frc = g.getFontRenderContext();
+		FontMetrics fm = g.getFontMetrics(font);
+		lineHeight = fm.getHeight();
+		ascent = fm.getAscent();
+
+		// Split by newline, to enable multi-line labels
+		String[] split = text.split("\n");
+		lines = new AttributedString[split.length];
+		bounds = new Rectangle2D[split.length];
+		for (int i = 0; i < split.length; i++) {
+			if (split[i].length() == 0) {
+				continue; // Can't have attributed string with 0 length
+			}
+			AttributedString ats = new AttributedString(split[i]);
+			if (strikethrough) {
+				ats.addAttribute(TextAttribute.STRIKETHROUGH, TextAttribute.STRIKETHROUGH_ON);
+			}
+			if (underline) {
+				ats.addAttribute(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_ON);
+			}
+			ats.addAttribute(TextAttribute.FONT, font);
+			lines[i] = ats;
+			bounds[i] = fm.getStringBounds(ats.getIterator(), 0, split[i].length(), g);
+		}
+	}
+
+	/**
+	 * Checks if this layout can be used to draw the given text with the given font
+	 * and graphics.
+	 *
+	 * @return true if the layout was made for the same text, font, decorations and
+	 *         font render context.
+	 */
+	boolean matches(String text, Font font, boolean strikethrough, boolean underline, Graphics2D g) {
+		return this.text.equals(text) && this.font.equals(font) && this.strikethrough == strikethrough
+				&& this.underline == underline && frc.equals(g.getFontRenderContext());
+	}
+
+	int getLineCount() {
+		return lines.length;
+	}
+
+	/**
+	 * @return true if the line at the given index is empty, and should not be
+	 *         drawn.
+	 */
+	boolean isEmpty(int i) {
+		return lines[i] == null;
+	}
+
+	AttributedCharacterIterator getIterator(int i) {
+		return lines[i].getIterator();
+	}
+
+	Rectangle2D getBounds(int i) {
+		return bounds[i];
+	}
+
+	int getLineHeight() {
+		return lineHeight;
+	}
+
+	int getAscent() {
+		return ascent;
+	}
+}
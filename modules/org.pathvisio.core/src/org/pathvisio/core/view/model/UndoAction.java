@@ -20,9 +20,12 @@
 
 /**
  * a single item on the undo stack. Stores a complete copy of the Pathway as it
- * was before the user modified it, so it can be restored.
+ * was before the user modified it, so it can be restored. When the action is
+ * undone, the replaced pathway is kept so the action can be redone.
  *
  * TODO: remember selection state as well.
+ *
+ * @see DeltaUndoAction
  */
 public class UndoAction {
 
@@ -31,9 +34,18 @@ public UndoAction(String aMessage, PathwayModel current) {
 		originalState = current;
 	}
 
+	/**
+	 * Rough estimate of the memory used by a single pathway object in a copy of
+	 * the pathway, used to weigh snapshots against the memory budget of the
+	 * {@link UndoManager}.
+	 */
+	static final long SNAPSHOT_OBJECT_SIZE = 1024;
+
 	private String message;
 	private PathwayModel originalState;
+	private PathwayModel redoState;
 	private UndoManager undoMgr;
+	private long size = -1;
 
 	/**
 	 * Set the undo manager that will be used to perform the undo. This will be set
@@ -45,6 +57,15 @@ protected void setUndoManager(UndoManager undoMgr) {
 		this.undoMgr = undoMgr;
 	}
 
+	/**
+	 * Returns the undo manager that will be used to perform the undo.
+	 *
+	 * @return the undo manager, or null if not set.
+	 */
+	protected UndoManager getUndoManager() {
+		return undoMgr;
+	}
+
 	public String getMessage() {
 		return message;
 	}
@@ -61,7 +82,33 @@ public void undo() {
 //		Engine.getCurrent().getActiveVPathway().setUndoManager(um);
 
 		if (undoMgr != null) {
-			undoMgr.getEngine().replacePathwayModel(originalState);
+			redoState = undoMgr.getPathwayModel();
+			// the original state is a shared snapshot, so it is copied before it is
+			// edited again
+			undoMgr.getEngine().replacePathwayModel(originalState.clone());
+		}
+	}
+
+	/**
+	 * Restores the pathway as it was before this action was undone.
+	 */
+	public void redo() {
+		if (undoMgr != null && redoState != null) {
+			PathwayModel p = redoState;
+			redoState = null;
+			undoMgr.getEngine().replacePathwayModel(p);
+		}
+	}
+
+	/**
+	 * Returns an estimate of the memory used by this action in bytes.
+	 *
+	 * @return the estimated size in bytes.
+	 */
+	long getSize() {
+		if (size < 0) {
+			size = originalState == null ? 0 : originalState.getPathwayObjects().size() * SNAPSHOT_OBJECT_SIZE;
 		}
+		return size;
 	}
 }
@@ -17,23 +17,47 @@
 package org.pathvisio.core.view.model;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import org.pathvisio.core.Engine;
 import org.pathvisio.libgpml.model.PathwayModel;
 
-/** Manages a stack of undo actions */
+/**
+ * Manages a stack of undo actions, and a stack of redo actions for the actions
+ * that were undone.
+ * <p>
+ * By default each action stores a complete copy of the pathway, and at most
+ * {@link #MAX_UNDO_SIZE} actions are kept. In delta mode (see
+ * {@link #setDeltaMode}) the changes to the pathway are recorded as they
+ * happen, see {@link DeltaUndoAction}. In that case the number of actions is
+ * only limited by the memory budget (see {@link #setMemoryBudget}).
+ */
 public class UndoManager {
 	public static final String CANT_UNDO = "Can't undo";
+	public static final String CANT_REDO = "Can't redo";
 
 	private List<UndoAction> undoList = new ArrayList<UndoAction>();
+	private List<UndoAction> redoList = new ArrayList<UndoAction>();
 
 	private PathwayModel pathwayModel;
 
 	public void setPathwayModel(PathwayModel pathway) {
+		if (recorder != null && pathway != recorder.getPathwayModel()) {
+			// recorded changes refer to objects of the replaced pathway
+			if (recorder.getPathwayModel() != null) {
+				removeDeltaActions(undoList);
+				removeDeltaActions(redoList);
+			}
+			recorder.attach(pathway);
+		}
 		this.pathwayModel = pathway;
 	}
 
+	PathwayModel getPathwayModel() {
+		return pathwayModel;
+	}
+
 	private Engine engine;
 
 	/**
@@ -68,6 +92,75 @@ protected Engine getEngine() {
 
 	static final int MAX_UNDO_SIZE = 25;
 
+	/**
+	 * Default memory budget for the undo and redo history in delta mode.
+	 */
+	public static final long DEFAULT_MEMORY_BUDGET = 16L << 20;
+
+	private DeltaRecorder recorder = null;
+	private DeltaUndoAction currentAction = null;
+	private long memoryBudget = DEFAULT_MEMORY_BUDGET;
+	private long memoryUsed = 0;
+
+	/**
+	 * Switches between recording changes as deltas, and storing a copy of the
+	 * pathway for each action. Switching clears the undo history.
+	 *
+	 * @param deltaMode true to record changes as deltas.
+	 */
+	public void setDeltaMode(boolean deltaMode) {
+		if (deltaMode == isDeltaMode()) {
+			return;
+		}
+		undoList.clear();
+		redoList.clear();
+		memoryUsed = 0;
+		currentAction = null;
+		if (deltaMode) {
+			recorder = new DeltaRecorder(this);
+			recorder.attach(pathwayModel);
+		} else {
+			recorder.detach();
+			recorder = null;
+		}
+		fireUndoManagerEvent();
+	}
+
+	/**
+	 * Returns true if changes are recorded as deltas.
+	 * 
+	 * @return true if in delta mode.
+	 */
+	public boolean isDeltaMode() {
+		return recorder != null;
+	}
+
+	/**
+	 * Sets the maximum estimated memory for the undo and redo history in delta
+	 * mode. The oldest actions are dropped when the budget is exceeded, but the
+	 * most recent action is always kept.
+	 *
+	 * @param bytes the memory budget in bytes.
+	 */
+	public void setMemoryBudget(long bytes) {
+		memoryBudget = bytes;
+		trim();
+	}
+
+	public long getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	/**
+	 * Returns the estimated memory used by the undo and redo history in delta
+	 * mode.
+	 * 
+	 * @return the estimated memory in bytes.
+	 */
+	public long getMemoryUsed() {
+		return memoryUsed;
+	}
+
 	/**
 	 * Insert a new action into the Undo Queue based on an UndoAction object that
 	 * already contains a copy of the original state of the pathway. This way you
@@ -81,18 +174,27 @@ public void newAction(UndoAction act) {
 		if (!isActive())
 			return; // Don' record event if inactive
 
+		closeCurrentAction();
+		clearRedo();
 		act.setUndoManager(this);
 		undoList.add(act);
-		if (undoList.size() > MAX_UNDO_SIZE) {
+		if (isDeltaMode()) {
+			memoryUsed += act.getSize();
+			trim();
+		} else if (undoList.size() > MAX_UNDO_SIZE) {
 			undoList.remove(0);
 		}
-		fireUndoManagerEvent(new UndoManagerEvent(getTopMessage()));
+		fireUndoManagerEvent();
 	}
 
 	/**
-	 * Insert a new action into the Undo Queue. This method will make a copy of the
-	 * current state of the pathway, so call this method before the action actually
-	 * takes place.
+	 * Insert a new action into the Undo Queue. This method will take a snapshot of
+	 * the current state of the pathway, see {@link PathwayModel#snapshot()}, so call
+	 * this method before the action actually takes place.
+	 * <p>
+	 * In delta mode, no copy is made. Instead, all changes until the next call of
+	 * this method are recorded as part of this action. The action is added to the
+	 * queue when the first change is recorded.
 	 * 
 	 * @param desc: description of the change, for display in the edit menu.
 	 */
@@ -100,13 +202,94 @@ public void newAction(String desc) {
 		if (!isActive())
 			return; // Don' record event if inactive
 
-		if (pathwayModel != null) {
-			UndoAction x = new UndoAction(desc, (PathwayModel) pathwayModel.clone());
+		if (isDeltaMode()) {
+			closeCurrentAction();
+			currentAction = new DeltaUndoAction(desc);
+			currentAction.setUndoManager(this);
+		} else if (pathwayModel != null) {
+			UndoAction x = new UndoAction(desc, pathwayModel.snapshot());
 			x.setUndoManager(this);
 			newAction(x);
 		}
 	}
 
+	/**
+	 * Called by {@link DeltaRecorder} for each change of the pathway in delta mode.
+	 * Changes made without a preceding {@link #newAction(String)} are added to the
+	 * last action, which matches the copy mode where undoing that action also
+	 * reverts these changes.
+	 */
+	void deltaRecorded(Object delta) {
+		if (!isActive())
+			return;
+
+		DeltaUndoAction act = currentAction;
+		if (act == null) {
+			UndoAction top = undoList.isEmpty() ? null : undoList.get(undoList.size() - 1);
+			if (!(top instanceof DeltaUndoAction)) {
+				return; // nothing to add to
+			}
+			act = (DeltaUndoAction) top;
+		}
+		clearRedo();
+		memoryUsed += act.add(delta);
+		boolean listed = !undoList.isEmpty() && undoList.get(undoList.size() - 1) == act;
+		if (!listed && !act.isEmpty()) {
+			undoList.add(act);
+			trim();
+			fireUndoManagerEvent();
+		} else if (listed && act.isEmpty()) {
+			// the changes cancelled each other out
+			undoList.remove(undoList.size() - 1);
+			fireUndoManagerEvent();
+		} else {
+			trim();
+		}
+	}
+
+	private void closeCurrentAction() {
+		if (currentAction != null) {
+			currentAction.close();
+			currentAction = null;
+		}
+	}
+
+	private void clearRedo() {
+		for (UndoAction a : redoList) {
+			memoryUsed -= a.getSize();
+		}
+		redoList.clear();
+	}
+
+	private void removeDeltaActions(List<UndoAction> list) {
+		for (Iterator<UndoAction> it = list.iterator(); it.hasNext();) {
+			UndoAction a = it.next();
+			if (a instanceof DeltaUndoAction) {
+				memoryUsed -= a.getSize();
+				it.remove();
+			}
+		}
+		currentAction = null;
+	}
+
+	/**
+	 * Drops the oldest actions, and then the actions furthest in the redo history,
+	 * until the history fits in the memory budget.
+	 */
+	private void trim() {
+		if (!isDeltaMode()) {
+			return;
+		}
+		while (memoryUsed > memoryBudget && undoList.size() + redoList.size() > 1) {
+			List<UndoAction> list = undoList.size() > 1 || redoList.isEmpty() ? undoList : redoList;
+			UndoAction a = list.remove(0);
+			memoryUsed -= a.getSize();
+			if (a == currentAction) {
+				currentAction = null;
+			}
+		}
+	}
+
 	public String getTopMessage() {
 		String result;
 		if (undoList.size() == 0) {
@@ -117,12 +300,63 @@ public String getTopMessage() {
 		return result;
 	}
 
+	UndoAction getTopAction() {
+		return undoList.isEmpty() ? null : undoList.get(undoList.size() - 1);
+	}
+
+	int getActionCount() {
+		return undoList.size() + redoList.size();
+	}
+
+	/**
+	 * Returns the message of the action that will be redone, or {@link #CANT_REDO}.
+	 * 
+	 * @return the message of the action to redo.
+	 */
+	public String getRedoMessage() {
+		String result;
+		if (redoList.size() == 0) {
+			result = CANT_REDO;
+		} else {
+			result = redoList.get(redoList.size() - 1).getMessage();
+		}
+		return result;
+	}
+
 	void undo() {
 		if (undoList.size() > 0 && isActive()) {
-			UndoAction a = undoList.get(undoList.size() - 1);
-			a.undo();
-			undoList.remove(a);
-			fireUndoManagerEvent(new UndoManagerEvent(getTopMessage()));
+			closeCurrentAction();
+			UndoAction a = undoList.remove(undoList.size() - 1);
+			redoList.add(a);
+			apply(a, false);
+			fireUndoManagerEvent();
+		}
+	}
+
+	void redo() {
+		if (redoList.size() > 0 && isActive()) {
+			closeCurrentAction();
+			UndoAction a = redoList.remove(redoList.size() - 1);
+			undoList.add(a);
+			apply(a, true);
+			fireUndoManagerEvent();
+		}
+	}
+
+	private void apply(UndoAction a, boolean redo) {
+		if (recorder != null) {
+			recorder.suspend();
+		}
+		try {
+			if (redo) {
+				a.redo();
+			} else {
+				a.undo();
+			}
+		} finally {
+			if (recorder != null) {
+				recorder.resume();
+			}
 		}
 	}
 
@@ -140,6 +374,10 @@ public void removeListener(UndoManagerListener v) {
 	 * This is called whenever a new item is added to the Undo Manager, or when an
 	 * undo action takes place. mainly intended for the menu item to update itself.
 	 */
+	void fireUndoManagerEvent() {
+		fireUndoManagerEvent(new UndoManagerEvent(getTopMessage(), getRedoMessage()));
+	}
+
 	void fireUndoManagerEvent(UndoManagerEvent e) {
 		// printSummary();
 		for (UndoManagerListener g : listeners) {
@@ -151,7 +389,11 @@ void fireUndoManagerEvent(UndoManagerEvent e) {
 
 	public void dispose() {
 		assert (!disposed);
+		if (recorder != null) {
+			recorder.detach();
+		}
 		undoList.clear();
+		redoList.clear();
 		listeners.clear();
 		disposed = true;
 	}
@@ -19,12 +19,22 @@
 /** signals that an action was added or removed from the undo stack. */
 public class UndoManagerEvent {
 	public UndoManagerEvent(String msg) {
+		this(msg, UndoManager.CANT_REDO);
+	}
+
+	public UndoManagerEvent(String msg, String redoMsg) {
 		undoMessage = msg;
+		redoMessage = redoMsg;
 	}
 
 	public String getMessage() {
 		return undoMessage;
 	}
 
+	public String getRedoMessage() {
+		return redoMessage;
+	}
+
 	private String undoMessage;
+	private String redoMessage;
 }
@@ -22,6 +22,7 @@
 import java.awt.Shape;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.pathvisio.core.preferences.GlobalPreference;
 import org.pathvisio.core.preferences.PreferenceManager;
@@ -40,6 +41,13 @@ public abstract class VElement implements Comparable<VElement> {
 
 	protected VPathwayModel canvas;
 
+	// creation order, breaks ties in the drawing order, see compareTo
+	private static final AtomicLong sequence = new AtomicLong();
+	private final long creationOrder = sequence.getAndIncrement();
+
+	// position in the drawing objects of the canvas, see VPathwayModel#getDrawingObjectsIn
+	int drawingIndex = -1;
+
 	protected VElement(VPathwayModel canvas) {
 		this.canvas = canvas;
 		canvas.addObject(this);
@@ -70,6 +78,7 @@ void zoomChanged() {
 	protected void resetShapeCache() {
 		vOutlineCache = null;
 		vBoundsCache = null;
+		canvas.boundsChanged(this);
 	}
 
 	public final void draw(Graphics2D g2d) {
@@ -178,6 +187,18 @@ protected boolean vIntersects(Rectangle2D r) {
 		}
 	}
 
+	/**
+	 * Determines whether this object must be drawn when the given area is
+	 * painted. Unlike {@link #vIntersects(Rectangle2D)}, this is not used for
+	 * hit-testing or selection.
+	 * 
+	 * @param area - the area that is painted
+	 * @return True if drawing this object may change the area
+	 */
+	protected boolean isDrawnIn(Rectangle2D area) {
+		return vIntersects(area);
+	}
+
 	/**
 	 * Determines whether a Graphics object contains the point specified
 	 * 
@@ -325,9 +346,10 @@ public int compareTo(VElement d) {
 		a = getZOrder();
 		b = d.getZOrder();
 
-		// if sorting order is equal, use hash code
+		// if sorting order is equal, use creation order, which is the same for
+		// all views of a pathway
 		if (b == a) {
-			return hashCode() - d.hashCode();
+			return Long.compare(creationOrder, d.creationOrder);
 		} else
 			// not simply "a - b" because of the risk of integer overflows
 			return a < b ? -1 : 1;
@@ -363,6 +385,7 @@ boolean toBeRemoved() {
 	protected void destroy() {
 		// Remove from canvas
 		removeMe = true;
+		canvas.elementDestroyed();
 		markDirty();
 		destroyHandles();
 	}
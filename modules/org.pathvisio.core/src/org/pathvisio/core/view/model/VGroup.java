@@ -30,6 +30,7 @@
 import org.pathvisio.core.view.VElementMouseListener;
 import org.pathvisio.libgpml.model.Group;
 import org.pathvisio.libgpml.model.Groupable;
+import org.pathvisio.libgpml.model.PathwayModel;
 
 /**
  * This represents the view of a {@link Group} PathwayElement. This can be drawn
@@ -128,7 +129,7 @@ public Group getPathwayObject() {
 	@Override
 	protected boolean vContains(Point2D point) {
 		// return false if point falls on any individual element
-		for (VElement vpe : canvas.getDrawingObjects()) {
+		for (VElement vpe : canvas.getCandidatesAt(point)) {
 			if (vpe instanceof VPathwayObject && !(vpe instanceof VGroup) && vpe.vContains(point)) {
 				return false;
 
@@ -212,8 +213,11 @@ protected void doDraw(Graphics2D g2d) {
 		if (anchorsShowing) {
 			flags += FLAG_ANCHORSVISIBLE;
 		}
-		// Refresh dimensions before drawing
-		getPathwayObject().updateDimensions();
+		// Refresh dimensions before drawing, those of a snapshot are up to date
+		PathwayModel pathwayModel = getPathwayObject().getPathwayModel();
+		if (pathwayModel == null || !pathwayModel.isReadOnly()) {
+			getPathwayObject().updateDimensions();
+		}
 
 		// Draw the group style appearance
 		GroupPainter p = GroupPainterRegistry.getPainter(getPathwayObject().getType().toString());
@@ -23,6 +23,7 @@
 import java.awt.font.TextLayout;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
 
 import org.pathvisio.libgpml.model.Pathway;
 
@@ -52,6 +53,15 @@ public class VInfoBox extends VPathwayElement {
 	String fontWeight = "regular";
 	static final double M_INITIAL_FONTSIZE = 12.0;
 
+	// fonts and layouts of the text, see getTextLayouts
+	private String[][] layoutText = null;
+	private int layoutFontSize;
+	private FontRenderContext layoutFrc;
+	private Font font;
+	private Font boldFont;
+	private TextLayout[][] textLayouts;
+	private Rectangle2D[][] textBounds;
+
 	// initialize, real size is calculated on first call to draw()
 	int sizeX = 1;
 	int sizeY = 1;
@@ -87,9 +97,6 @@ int getVFontSize() {
 	 */
 	@Override 
 	public void doDraw(Graphics2D g) {
-		Font f = new Font(fontName, Font.PLAIN, getVFontSize());
-		Font fb = new Font(f.getFontName(), Font.BOLD, f.getSize());
-
 		if (isSelected()) {
 			g.setColor(selectColor);
 		}
@@ -104,21 +111,19 @@ public void doDraw(Graphics2D g) {
 		int newSizeX = sizeX;
 		int newSizeY = sizeY;
 
-		FontRenderContext frc = g.getFontRenderContext();
-		for (String[] s : text) {
-			if (s[1] == null || s[1].equals("")) {
+		TextLayout[][] tl = getTextLayouts(text, g);
+		for (int i = 0; i < text.length; i++) {
+			if (tl[i] == null) {
 				continue; // Skip empty labels
 			}
-			TextLayout tl0 = new TextLayout(s[0], fb, frc);
-			TextLayout tl1 = new TextLayout(s[1], f, frc);
-			Rectangle2D b0 = tl0.getBounds();
-			Rectangle2D b1 = tl1.getBounds();
+			Rectangle2D b0 = textBounds[i][0];
+			Rectangle2D b1 = textBounds[i][1];
 			shift += (int) Math.max(b0.getHeight(), b1.getHeight()) + V_SPACING;
-			g.setFont(fb);
-			tl0.draw(g, vLeft, vTop + shift);
-			g.setFont(f);
+			g.setFont(boldFont);
+			tl[i][0].draw(g, vLeft, vTop + shift);
+			g.setFont(font);
 
-			tl1.draw(g, vLeft + (int) b0.getWidth() + H_SPACING, vTop + shift);
+			tl[i][1].draw(g, vLeft + (int) b0.getWidth() + H_SPACING, vTop + shift);
 
 			// add 10 for safety
 			newSizeX = Math.max(newSizeX, (int) b0.getWidth() + (int) b1.getWidth() + H_SPACING + 10);
@@ -138,6 +143,40 @@ public void doDraw(Graphics2D g) {
 		}
 	}
 
+	/**
+	 * Returns the layouts of the given text, made again only if the text, zoom
+	 * factor or font render context have changed since the last time.
+	 * 
+	 * @param text pairs of a heading and a value.
+	 * @param g    the graphics to draw on.
+	 * @return a pair of layouts for every pair of text, or null for pairs without
+	 *         a value.
+	 */
+	private TextLayout[][] getTextLayouts(String[][] text, Graphics2D g) {
+		int fontSize = getVFontSize();
+		FontRenderContext frc = g.getFontRenderContext();
+		if (textLayouts == null || fontSize != layoutFontSize || !frc.equals(layoutFrc)
+				|| !Arrays.deepEquals(text, layoutText)) {
+			font = new Font(fontName, Font.PLAIN, fontSize);
+			boldFont = new Font(font.getFontName(), Font.BOLD, font.getSize());
+			textLayouts = new TextLayout[text.length][];
+			textBounds = new Rectangle2D[text.length][];
+			for (int i = 0; i < text.length; i++) {
+				if (text[i][1] == null || text[i][1].equals("")) {
+					continue;
+				}
+				TextLayout tl0 = new TextLayout(text[i][0], boldFont, frc);
+				TextLayout tl1 = new TextLayout(text[i][1], font, frc);
+				textLayouts[i] = new TextLayout[] { tl0, tl1 };
+				textBounds[i] = new Rectangle2D[] { tl0.getBounds(), tl1.getBounds() };
+			}
+			layoutText = text;
+			layoutFontSize = fontSize;
+			layoutFrc = frc;
+		}
+		return textLayouts;
+	}
+
 	/**
 	 * TODO is this used?
 	 */
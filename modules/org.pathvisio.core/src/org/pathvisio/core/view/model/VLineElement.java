@@ -40,6 +40,7 @@
 import org.pathvisio.libgpml.model.LineElement;
 import org.pathvisio.libgpml.model.LineElement.Anchor;
 import org.pathvisio.libgpml.model.LineElement.LinePoint;
+import org.pathvisio.libgpml.model.PathwayModel;
 import org.pathvisio.libgpml.model.PathwayObjectEvent;
 import org.pathvisio.core.preferences.GlobalPreference;
 import org.pathvisio.core.preferences.PreferenceManager;
@@ -73,6 +74,9 @@ public class VLineElement extends VPathwayElement implements VGroupable, Adjusta
 
 	ConnectorShape shape;
 
+	// version of the connector shape for which the waypoints and handles were updated
+	private int shapeVersion = -1;
+
 	/**
 	 * Constructor for this class
 	 * 
@@ -84,7 +88,7 @@ public VLineElement(VPathwayModel canvas, LineElement o) {
 		addPoint(o.getStartLinePoint());
 		addPoint(o.getEndLinePoint());
 		setAnchors();
-		getConnectorShape().recalculateShape(getPathwayObject());
+		getPathwayObject().recalculateConnectorShape();
 //		updateSegmentHandles();
 		updateCitationPosition();
 	}
@@ -407,7 +411,11 @@ public void markDirty() {
 
 	void removeVAnchor(VAnchor va) {
 		anchors.remove(va.getAnchor());
-		getPathwayObject().removeAnchor(va.getAnchor());
+		// the view of a snapshot is only disposed, its anchors are kept
+		PathwayModel pathwayModel = getPathwayObject().getPathwayModel();
+		if (pathwayModel == null || !pathwayModel.isReadOnly()) {
+			getPathwayObject().removeAnchor(va.getAnchor());
+		}
 	}
 
 	private void updateAnchorPositions() {
@@ -631,7 +639,7 @@ private void setHandleLocation(VPoint vp) {
 	}
 
 	public void recalculateConnector() {
-		getConnectorShape().recalculateShape(getPathwayObject());
+		getPathwayObject().recalculateConnectorShape();
 		updateAnchorPositions();
 		updateCitationPosition();
 		for (VPoint vp : points)
@@ -645,18 +653,9 @@ public void recalculateConnector() {
 	@Override
 	public void gmmlObjectModified(PathwayObjectEvent e) {
 
-		getConnectorShape().recalculateShape(getPathwayObject());
-
-		WayPoint[] wps = getConnectorShape().getWayPoints();
-		List<LinePoint> mps = getPathwayObject().getLinePoints();
-		if (wps.length == mps.size() - 2 && getConnectorShape().hasValidWaypoints(getPathwayObject())) {
-			getPathwayObject().adjustWayPointPreferences(wps);
-		} else {
-			getPathwayObject().resetWayPointPreferences();
-		}
-
-		updateSegmentHandles();
+		updateShape();
 		markDirty();
+		checkZOrder(e);
 		for (VPoint p : points) {
 			setHandleLocation(p);
 		}
@@ -668,6 +667,45 @@ public void gmmlObjectModified(PathwayObjectEvent e) {
 		updateCitationPosition();
 	}
 
+	/**
+	 * Called by the drawing when a data node or label has been moved, resized,
+	 * added or removed, so that an orthogonal line goes around it again.
+	 */
+	void obstaclesChanged() {
+		if (updateShape()) {
+			markDirty();
+			updateAnchorPositions();
+			updateCitationPosition();
+		}
+	}
+
+	/**
+	 * Routes the line again if needed, and updates the waypoints and segment
+	 * handles if the shape has changed since they were last updated.
+	 *
+	 * @return true if the shape has changed.
+	 */
+	private boolean updateShape() {
+		// only route again if the start, end, sides, waypoints or obstacles have
+		// changed. The shape may also have been routed since the last event, e.g. for
+		// painting
+		getPathwayObject().updateConnectorShape();
+		int version = getPathwayObject().getConnectorShapeVersion();
+		if (version == shapeVersion) {
+			return false;
+		}
+		shapeVersion = version;
+		WayPoint[] wps = getConnectorShape().getWayPoints();
+		List<LinePoint> mps = getPathwayObject().getLinePoints();
+		if (wps.length == mps.size() - 2 && getConnectorShape().hasValidWaypoints(getPathwayObject())) {
+			getPathwayObject().adjustWayPointPreferences(wps);
+		} else {
+			getPathwayObject().resetWayPointPreferences();
+		}
+		updateSegmentHandles();
+		return true;
+	}
+
 	protected void destroyHandles() {
 		// Point handles will be destroyed by VPoints
 
@@ -105,6 +105,7 @@ else if (citationRefs.size() == 0 && vCitation != null) {
 	public void gmmlObjectModified(PathwayObjectEvent e) {
 		if (listen) {
 			markDirty(); // mark everything dirty
+			checkZOrder(e);
 			checkCitation();
 		}
 	}
@@ -26,6 +26,7 @@
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -47,6 +48,7 @@
 import org.apache.commons.collections4.bidimap.DualHashBidiMap;
 import org.pathvisio.core.Engine;
 import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.libgpml.model.type.ConnectorType;
 import org.pathvisio.libgpml.model.type.DataNodeType;
 import org.pathvisio.libgpml.model.type.GroupType;
 import org.pathvisio.libgpml.model.type.HAlignType;
@@ -109,6 +111,10 @@ public class VPathwayModel implements PathwayModelListener {
 	private VPathwayModelWrapper parent; // may be null, optional gui-specific wrapper for this VPathwayModel.
 	private VInfoBox vInfoBox;
 	private List<VElement> drawingObjects;// All visible objects (incl. handles; excl. selectionBox objects)
+	private SpatialIndex spatialIndex = new SpatialIndex(); // bounds of drawingObjects
+	private boolean zOrderChanged = false; // drawingObjects needs to be sorted again
+	private boolean elementsDestroyed = false; // drawingObjects contains destroyed elements
+	private boolean drawingIndexChanged = true; // drawingIndex of drawingObjects needs to be set again
 	SelectionBox selection;
 	private List<VElement> toAdd = new ArrayList<VElement>();
 	private VElement lastEnteredElement = null;
@@ -269,6 +275,22 @@ public Dimension calculateVSize() {
 		return new Dimension((int) bounds.getWidth() + 10, (int) bounds.getHeight() + 10);
 	}
 
+	/**
+	 * Draws the pathway once into a single pixel and returns its size. Some
+	 * elements, e.g. the info box, only know their size after they have been
+	 * drawn, so call this before sizing an image or document for the pathway.
+	 * 
+	 * @return the board size, see {@link #calculateVSize()}.
+	 */
+	public Dimension measure() {
+		BufferedImage pixel = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = pixel.createGraphics();
+		g.setClip(0, 0, getVWidth(), getVHeight());
+		draw(g);
+		g.dispose();
+		return calculateVSize();
+	}
+
 	/**
 	 * Returns true if snap to anchors is enabled.
 	 * 
@@ -475,6 +497,10 @@ public void replacePathwayModel(PathwayModel originalState) {
 
 		clearSelection();
 		drawingObjects = new ArrayList<VElement>();
+		spatialIndex.clear();
+		zOrderChanged = false;
+		elementsDestroyed = false;
+		drawingIndexChanged = true;
 		// transfer selectionBox with corresponding listeners
 		SelectionBox newSelection = new SelectionBox(this);
 		for (Iterator<SelectionListener> i = selection.getListeners().iterator(); i.hasNext();) {
@@ -545,10 +571,8 @@ public void draw(Graphics2D g2d) {
 
 			g2d.clip(area);
 			g2d.setColor(java.awt.Color.BLACK);
-			Collections.sort(drawingObjects);
-			cleanUp();
-			for (VElement o : drawingObjects) {
-				if (o.vIntersects(area)) {
+			for (VElement o : getDrawingObjectsIn(area)) {
+				if (o.isDrawnIn(area)) {
 					if (checkDrawAllowed(o)) {
 						o.draw((Graphics2D) g2d.create());
 						fireVPathwayEvent(new VPathwayModelEvent(this, o, (Graphics2D) g2dFull.create(),
@@ -822,12 +846,14 @@ public void pathwayModified(PathwayModelEvent e) {
 				deleted.markDirty();
 				removeDrawingObject(deleted, false);
 			}
+			obstacleChanged(e.getAffectedData());
 			break;
 		case PathwayModelEvent.ADDED:
 			lastAdded = fromModelElement(e.getAffectedData());
 			if (lastAdded != null) {
 				lastAdded.markDirty();
 			}
+			obstacleChanged(e.getAffectedData());
 			break;
 		case PathwayModelEvent.RESIZED:
 			if (parent != null) {
@@ -858,11 +884,20 @@ public void addObject(VElement o) {
 	 * When adding elements to a pathway, they are not added immediately but placed
 	 * in a temporary array. This to prevent concurrent modification of the main
 	 * elements array. This method adds the elements that are scheduled to be added.
+	 * While the elements are in drawing order, new elements are inserted at their
+	 * place in that order.
 	 */
 	void addScheduled() {
 		for (VElement elt : toAdd) {
-			if (!drawingObjects.contains(elt)) { // Don't add duplicates!
-				drawingObjects.add(elt);
+			if (!spatialIndex.contains(elt) && !elt.toBeRemoved()) { // Don't add duplicates or destroyed elements
+				if (zOrderChanged) {
+					drawingObjects.add(elt);
+				} else {
+					int i = Collections.binarySearch(drawingObjects, elt);
+					drawingObjects.add(i < 0 ? -i - 1 : i, elt);
+				}
+				spatialIndex.add(elt);
+				drawingIndexChanged = true;
 			}
 		}
 		toAdd.clear();
@@ -1073,7 +1108,7 @@ public double getFitZoomFactor() {
 	 */
 	private void linkPointToObject(Point2D p2d, Handle g) {
 		if (dragUndoState == DRAG_UNDO_CHANGE_START) {
-			dragUndoState = DRAG_UNDO_CHANGED;
+			startDragUndo();
 		}
 		hideLinkAnchors();
 		VPoint vPoint = (VPoint) g.getAdjustable();
@@ -1134,7 +1169,7 @@ private void linkPointToObject(Point2D p2d, Handle g) {
 	 */
 	private List<LinkProvider> getLinkProvidersAt(Point2D p2d) {
 		List<LinkProvider> result = new ArrayList<LinkProvider>();
-		for (VElement o : drawingObjects) {
+		for (VElement o : spatialIndex.query(p2d)) {
 			if (o instanceof LinkProvider && o.getVBounds().contains(p2d)) {
 				result.add((LinkProvider) o);
 			}
@@ -1192,7 +1227,7 @@ public void mouseMove(MouseEvent e) {
 		// And only when the right button isn't clicked
 		if (pressedObject != null && isDragging && !e.isKeyDown(java.awt.event.MouseEvent.BUTTON3_DOWN_MASK)) {
 			if (dragUndoState == DRAG_UNDO_CHANGE_START) {
-				dragUndoState = DRAG_UNDO_CHANGED;
+				startDragUndo();
 			}
 			double vdx = e.getX() - vPreviousX;
 			double vdy = e.getY() - vPreviousY;
@@ -1341,7 +1376,9 @@ public void mouseDown(MouseEvent e) {
 		if (!openHref(e, vpe)) {
 			// setFocus();
 			vDragStart = new Point(e.getX(), e.getY());
-			temporaryCopy = (PathwayModel) data.clone();
+			if (!undoManager.isDeltaMode()) {
+				temporaryCopy = (PathwayModel) data.clone();
+			}
 			if (editMode) {
 				if (newTemplate != null) {
 					newObject(e.getLocation());
@@ -1367,19 +1404,9 @@ public void mouseDown(MouseEvent e) {
 	 */
 	public void mouseUp(MouseEvent e) {
 		if (isDragging) {
-			if (dragUndoState == DRAG_UNDO_CHANGED) {
+			if (dragUndoState == DRAG_UNDO_CHANGED && !undoManager.isDeltaMode()) {
 				assert (temporaryCopy != null);
-				// further specify the type of undo event,
-				// depending on the type of object being dragged
-				String message = "Drag Object";
-				if (pressedObject instanceof Handle) {
-					if (((Handle) pressedObject).getFreedom() == Handle.Freedom.ROTATION) {
-						message = "Rotate Object";
-					} else {
-						message = "Resize Object";
-					}
-				}
-				undoManager.newAction(new UndoAction(message, temporaryCopy));
+				undoManager.newAction(new UndoAction(getDragUndoMessage(), temporaryCopy));
 				temporaryCopy = null;
 			}
 			resetHighlight();
@@ -1518,7 +1545,7 @@ private void editObject(MouseEvent e) {
 	public VElement getObjectAt(Point2D p2d) {
 		int zmax = Integer.MIN_VALUE;
 		VElement probj = null;
-		for (VElement o : drawingObjects) {
+		for (VElement o : spatialIndex.query(p2d)) {
 			// first we use vContains, which is good for detecting (non-transparent) shapes
 			if (o.vContains(p2d) && o.getZOrder() > zmax) {
 				probj = o;
@@ -1530,7 +1557,7 @@ public VElement getObjectAt(Point2D p2d) {
 			// which is good for detecting lines and transparent shapes.
 			Rectangle2D fuzz = new Rectangle2D.Double(p2d.getX() - FUZZY_SIZE, p2d.getY() - FUZZY_SIZE, FUZZY_SIZE * 2,
 					FUZZY_SIZE * 2);
-			for (VElement o : drawingObjects) {
+			for (VElement o : spatialIndex.query(fuzz)) {
 				if (o.vIntersects(fuzz) && o.getZOrder() > zmax) {
 					probj = o;
 					zmax = o.getZOrder();
@@ -1550,7 +1577,7 @@ public VElement getObjectAt(Point2D p2d) {
 	 */
 	public List<VElement> getObjectsAt(Point2D p2d) {
 		List<VElement> result = new ArrayList<VElement>();
-		for (VElement o : drawingObjects) {
+		for (VElement o : spatialIndex.query(p2d)) {
 			if (o.vContains(p2d)) {
 				result.add(o);
 			}
@@ -1634,6 +1661,35 @@ void doClickSelect(Point2D p2d, boolean modifierPressed) {
 
 	private int dragUndoState = DRAG_UNDO_NOT_RECORDING;
 
+	/**
+	 * Called when the first change of a drag takes place. In delta mode, the undo
+	 * action is started here, so that the changes of the drag are recorded as part
+	 * of it.
+	 */
+	private void startDragUndo() {
+		dragUndoState = DRAG_UNDO_CHANGED;
+		if (undoManager.isDeltaMode()) {
+			undoManager.newAction(getDragUndoMessage());
+		}
+	}
+
+	/**
+	 * Returns the description of the undo action for dragging the pressed object.
+	 */
+	private String getDragUndoMessage() {
+		// further specify the type of undo event,
+		// depending on the type of object being dragged
+		String message = "Drag Object";
+		if (pressedObject instanceof Handle) {
+			if (((Handle) pressedObject).getFreedom() == Handle.Freedom.ROTATION) {
+				message = "Rotate Object";
+			} else {
+				message = "Resize Object";
+			}
+		}
+		return message;
+	}
+
 	/** minimum drag length for it to be considered a drag and not a click */
 	private static final int MIN_DRAG_LENGTH = 3;
 
@@ -1738,6 +1794,7 @@ public void registerKeyboardActions(Engine engine) {
 			registerKeyboardAction(viewActions.delete1);
 			registerKeyboardAction(viewActions.delete2);
 			registerKeyboardAction(viewActions.undo);
+			registerKeyboardAction(viewActions.redo);
 			registerKeyboardAction(viewActions.addAnchor);
 			registerKeyboardAction(viewActions.orderBringToFront);
 			registerKeyboardAction(viewActions.orderSendToBack);
@@ -1827,31 +1884,36 @@ public void moveByKey(KeyStroke ks, int increment) {
 	 * @param vdy
 	 */
 	public void moveMultipleElements(Collection<? extends VElement> toMove, double vdx, double vdy) {
-		// collect all elementIds in selection
-		Set<PathwayObject> elts = new HashSet<PathwayObject>();
-		for (VElement o : toMove) {
-			if (o instanceof VPathwayObject) {
-				PathwayObject elt = ((VPathwayObject) o).getPathwayObject();
-				if (elt != null) {
-					elts.add(elt);
+		data.beginTransaction();
+		try {
+			// collect all elementIds in selection
+			Set<PathwayObject> elts = new HashSet<PathwayObject>();
+			for (VElement o : toMove) {
+				if (o instanceof VPathwayObject) {
+					PathwayObject elt = ((VPathwayObject) o).getPathwayObject();
+					if (elt != null) {
+						elts.add(elt);
+					}
 				}
 			}
-		}
-		for (VElement o : toMove) {
-			// skip if parent of state is also in selection.
-			if (o instanceof VState) {
-				if (elts.contains(((VState) o).getPathwayObject().getDataNode()))
-					continue;
-			}
-			if (o instanceof VPathwayElement) {
-				if (o instanceof VGroupable) {
-					// skip if parent group is also in selection
-					if (elts.contains(((VGroupable) o).getPathwayObject().getGroupRef())) {
+			for (VElement o : toMove) {
+				// skip if parent of state is also in selection.
+				if (o instanceof VState) {
+					if (elts.contains(((VState) o).getPathwayObject().getDataNode()))
 						continue;
+				}
+				if (o instanceof VPathwayElement) {
+					if (o instanceof VGroupable) {
+						// skip if parent group is also in selection
+						if (elts.contains(((VGroupable) o).getPathwayObject().getGroupRef())) {
+							continue;
+						}
 					}
+					o.vMoveBy(vdx, vdy);
 				}
-				o.vMoveBy(vdx, vdy);
 			}
+		} finally {
+			data.commitTransaction();
 		}
 	}
 
@@ -1997,29 +2059,34 @@ public void layoutSelected(LayoutType layoutType) {
 
 		if (selectedGraphics.size() > 0) {
 			undoManager.newAction(layoutType.getDescription());
-			switch (layoutType) {
-			case COMMON_WIDTH:
-				scaleWidth(selectedGraphics);
-				break;
-			case COMMON_HEIGHT:
-				scaleHeight(selectedGraphics);
-				break;
-			case ALIGN_CENTERX:
-			case ALIGN_CENTERY:
-			case ALIGN_TOP:
-			case ALIGN_LEFT:
-			case ALIGN_RIGHT:
-			case ALIGN_BOTTOM:
-				alignGraphics(layoutType, selectedGraphics);
-				break;
-			case STACK_BOTTOM:
-			case STACK_TOP:
-			case STACK_LEFT:
-			case STACK_RIGHT:
-			case STACK_CENTERX:
-			case STACK_CENTERY:
-				stackGraphics(layoutType, selectedGraphics);
-				break;
+			data.beginTransaction();
+			try {
+				switch (layoutType) {
+				case COMMON_WIDTH:
+					scaleWidth(selectedGraphics);
+					break;
+				case COMMON_HEIGHT:
+					scaleHeight(selectedGraphics);
+					break;
+				case ALIGN_CENTERX:
+				case ALIGN_CENTERY:
+				case ALIGN_TOP:
+				case ALIGN_LEFT:
+				case ALIGN_RIGHT:
+				case ALIGN_BOTTOM:
+					alignGraphics(layoutType, selectedGraphics);
+					break;
+				case STACK_BOTTOM:
+				case STACK_TOP:
+				case STACK_LEFT:
+				case STACK_RIGHT:
+				case STACK_CENTERX:
+				case STACK_CENTERY:
+					stackGraphics(layoutType, selectedGraphics);
+					break;
+				}
+			} finally {
+				data.commitTransaction();
 			}
 
 			selection.fitToSelection();
@@ -2265,6 +2332,8 @@ public void moveGraphicsUp(List<VDrawable> gs) {
 	 * elements, so that we can freely move items in between.
 	 */
 	private void autoRenumberZOrder() {
+		addScheduled();
+		sortDrawingObjects(); // elts will be in z-order
 		List<VGroupable> elts = new ArrayList<VGroupable>();
 		for (VElement vp : drawingObjects) {
 			if (vp instanceof VGroupable) {
@@ -2273,7 +2342,6 @@ private void autoRenumberZOrder() {
 		}
 		if (elts.size() < 2)
 			return; // nothing to renumber
-		Collections.sort(elts, new ZComparator());
 
 		final int spacing = 2;
 
@@ -2327,7 +2395,7 @@ public List<VDrawable> getOverlappingGraphics(VDrawable g) {
 		List<VDrawable> result = new ArrayList<VDrawable>();
 		Rectangle2D r1 = ((VElement) g).getVBounds();
 
-		for (VElement ve : drawingObjects) {
+		for (VElement ve : spatialIndex.query(r1)) {
 			if (ve instanceof VDrawable && ve != g) {
 				VDrawable i = (VDrawable) ve;
 				if (r1.intersects(ve.getVBounds())) {
@@ -2373,128 +2441,133 @@ public void paste(List<CopyElement> elements) {
 	public void paste(List<CopyElement> elements, double xShift, double yShift) {
 		undoManager.newAction("Paste");
 		clearSelection();
-		/*
-		 * This map provides PathwayObject "relationship" reference information. For
-		 * example, if both a LineElement and the DataNode it is pointing to are copied,
-		 * then they need to be reconnected.
-		 */
-		BidiMap<PathwayObject, PathwayObject> newerToSource = new DualHashBidiMap<>();
-		boolean showWarning = true;
-		// Copy pathway objects of given list
-		for (CopyElement copyElement : elements) {
-			PathwayElement newElement = copyElement.getNewElement();
-			PathwayElement srcElement = copyElement.getSourceElement();
-			lastAdded = null;
-			// shift location of pathway element for pasting
-			if (newElement instanceof LineElement) {
-				// if line element, shift position of its points
-				for (LinePoint mp : ((LineElement) newElement).getLinePoints()) {
-					mp.setX(mp.getX() + xShift);
-					mp.setY(mp.getY() + yShift);
-				}
-			} else if (newElement instanceof ShapedElement) {
-				((ShapedElement) newElement).setLeft(((ShapedElement) newElement).getLeft() + xShift);
-				((ShapedElement) newElement).setTop(((ShapedElement) newElement).getTop() + yShift);
-				// if datanode, also shift position of its states
-				if (newElement.getObjectType() == ObjectType.DATANODE) {
-					for (State state : ((DataNode) newElement).getStates()) {
-						state.setLeft(state.getLeft() + xShift);
-						state.setTop(state.getTop() + xShift);
+		data.beginTransaction();
+		try {
+			/*
+			 * This map provides PathwayObject "relationship" reference information. For
+			 * example, if both a LineElement and the DataNode it is pointing to are copied,
+			 * then they need to be reconnected.
+			 */
+			BidiMap<PathwayObject, PathwayObject> newerToSource = new DualHashBidiMap<>();
+			boolean showWarning = true;
+			// Copy pathway objects of given list
+			for (CopyElement copyElement : elements) {
+				PathwayElement newElement = copyElement.getNewElement();
+				PathwayElement srcElement = copyElement.getSourceElement();
+				lastAdded = null;
+				// shift location of pathway element for pasting
+				if (newElement instanceof LineElement) {
+					// if line element, shift position of its points
+					for (LinePoint mp : ((LineElement) newElement).getLinePoints()) {
+						mp.setX(mp.getX() + xShift);
+						mp.setY(mp.getY() + yShift);
+					}
+				} else if (newElement instanceof ShapedElement) {
+					((ShapedElement) newElement).setLeft(((ShapedElement) newElement).getLeft() + xShift);
+					((ShapedElement) newElement).setTop(((ShapedElement) newElement).getTop() + yShift);
+					// if datanode, also shift position of its states
+					if (newElement.getObjectType() == ObjectType.DATANODE) {
+						for (State state : ((DataNode) newElement).getStates()) {
+							state.setLeft(state.getLeft() + xShift);
+							state.setTop(state.getTop() + xShift);
+						}
 					}
 				}
-			}
-			// prepare for paste
-			CopyElement copyOfCopyElement = newElement.copy();
-			PathwayElement newerElement = copyOfCopyElement.getNewElement();
-			data.add(newerElement); // causes lastAdded to be set
-			// load references
-			newerElement.copyReferencesFrom(srcElement);
-			// print message if references copied
-			if (showWarning) {
-				showWarning = pasteReferencesMessage(newerElement);
-			}
-			// skip these steps if pathway
-			if (newerElement.getObjectType() != ObjectType.PATHWAY) {
-				// store information
-				newerToSource.put(newerElement, srcElement);
-				// specially store anchor information
-				if (newerElement instanceof LineElement) {
-					Iterator<Anchor> it1 = ((LineElement) newerElement).getAnchors().iterator();
-					Iterator<Anchor> it2 = ((LineElement) srcElement).getAnchors().iterator();
-					while (it1.hasNext() && it2.hasNext()) {
-						Anchor na = it1.next();
-						Anchor sa = it2.next();
-						if (na != null && sa != null) {
-							newerToSource.put(na, sa);
+				// prepare for paste
+				CopyElement copyOfCopyElement = newElement.copy();
+				PathwayElement newerElement = copyOfCopyElement.getNewElement();
+				data.add(newerElement); // causes lastAdded to be set
+				// load references
+				newerElement.copyReferencesFrom(srcElement);
+				// print message if references copied
+				if (showWarning) {
+					showWarning = pasteReferencesMessage(newerElement);
+				}
+				// skip these steps if pathway
+				if (newerElement.getObjectType() != ObjectType.PATHWAY) {
+					// store information
+					newerToSource.put(newerElement, srcElement);
+					// specially store anchor information
+					if (newerElement instanceof LineElement) {
+						Iterator<Anchor> it1 = ((LineElement) newerElement).getAnchors().iterator();
+						Iterator<Anchor> it2 = ((LineElement) srcElement).getAnchors().iterator();
+						while (it1.hasNext() && it2.hasNext()) {
+							Anchor na = it1.next();
+							Anchor sa = it2.next();
+							if (na != null && sa != null) {
+								newerToSource.put(na, sa);
+							}
 						}
 					}
+					lastAdded.select();
+					selection.addToSelection(lastAdded);
 				}
-				lastAdded.select();
-				selection.addToSelection(lastAdded);
-			}
-		}
-		for (PathwayObject newerElement : newerToSource.keySet()) {
-			PathwayObject srcElement = newerToSource.get(newerElement);
-			// add group members in new Group
-			if (newerElement.getObjectType() == ObjectType.GROUP && srcElement.getObjectType() == ObjectType.GROUP) {
-				for (Groupable srcMember : ((Group) srcElement).getPathwayElements()) {
-					Groupable newerMember = (Groupable) newerToSource.getKey(srcMember);
-					if (newerMember != null) {
-						((Group) newerElement).addPathwayElement(newerMember);
+			}
+			for (PathwayObject newerElement : newerToSource.keySet()) {
+				PathwayObject srcElement = newerToSource.get(newerElement);
+				// add group members in new Group
+				if (newerElement.getObjectType() == ObjectType.GROUP && srcElement.getObjectType() == ObjectType.GROUP) {
+					for (Groupable srcMember : ((Group) srcElement).getPathwayElements()) {
+						Groupable newerMember = (Groupable) newerToSource.getKey(srcMember);
+						if (newerMember != null) {
+							((Group) newerElement).addPathwayElement(newerMember);
+						}
 					}
+					((Group) newerElement).updateDimensions();
 				}
-				((Group) newerElement).updateDimensions();
-			}
-			// set aliasRef if any, and link to group if group also copied
-			else if (newerElement.getObjectType() == ObjectType.DATANODE
-					&& srcElement.getObjectType() == ObjectType.DATANODE) {
-				if (((DataNode) newerElement).getType() == DataNodeType.ALIAS
-						&& ((DataNode) srcElement).getType() == DataNodeType.ALIAS) {
-					Group srcAliasRef = ((DataNode) srcElement).getAliasRef();
-					// if group aliasRef was also copied
-					if (srcAliasRef != null) {
-						Group newerAliasRef = (Group) newerToSource.getKey(srcAliasRef);
-						if (newerAliasRef != null) {
-							((DataNode) newerElement).setAliasRef(newerAliasRef);
-							JOptionPane.showConfirmDialog(null,
-									"Copy of alias data node linked to Group " + newerElement.getElementId() + ".",
+				// set aliasRef if any, and link to group if group also copied
+				else if (newerElement.getObjectType() == ObjectType.DATANODE
+						&& srcElement.getObjectType() == ObjectType.DATANODE) {
+					if (((DataNode) newerElement).getType() == DataNodeType.ALIAS
+							&& ((DataNode) srcElement).getType() == DataNodeType.ALIAS) {
+						Group srcAliasRef = ((DataNode) srcElement).getAliasRef();
+						// if group aliasRef was also copied
+						if (srcAliasRef != null) {
+							Group newerAliasRef = (Group) newerToSource.getKey(srcAliasRef);
+							if (newerAliasRef != null) {
+								((DataNode) newerElement).setAliasRef(newerAliasRef);
+								JOptionPane.showConfirmDialog(null,
+										"Copy of alias data node linked to Group " + newerElement.getElementId() + ".",
+										"Warning", JOptionPane.PLAIN_MESSAGE);
+							}
+						}
+						// otherwise aliasRef is not linked to any group
+						else {
+							JOptionPane.showConfirmDialog(null, "Copy of alias data node not linked to any group.",
 									"Warning", JOptionPane.PLAIN_MESSAGE);
 						}
 					}
-					// otherwise aliasRef is not linked to any group
-					else {
-						JOptionPane.showConfirmDialog(null, "Copy of alias data node not linked to any group.",
-								"Warning", JOptionPane.PLAIN_MESSAGE);
-					}
 				}
-			}
-			// link LineElement linePoint elementRefs
-			else if (newerElement instanceof LineElement && srcElement instanceof LineElement) {
-				// set start elementRef
-				LinkableTo srcStartElementRef = ((LineElement) srcElement).getStartElementRef();
-				if (srcStartElementRef != null) {
-					LinkableTo newerStartElementRef = (LinkableTo) newerToSource.getKey(srcStartElementRef);
-					if (newerStartElementRef != null) {
-						LinePoint startPoint = ((LineElement) newerElement).getStartLinePoint();
-						LinePoint srcPoint = ((LineElement) srcElement).getStartLinePoint();
-						startPoint.linkTo(newerStartElementRef, srcPoint.getRelX(), srcPoint.getRelY());
+				// link LineElement linePoint elementRefs
+				else if (newerElement instanceof LineElement && srcElement instanceof LineElement) {
+					// set start elementRef
+					LinkableTo srcStartElementRef = ((LineElement) srcElement).getStartElementRef();
+					if (srcStartElementRef != null) {
+						LinkableTo newerStartElementRef = (LinkableTo) newerToSource.getKey(srcStartElementRef);
+						if (newerStartElementRef != null) {
+							LinePoint startPoint = ((LineElement) newerElement).getStartLinePoint();
+							LinePoint srcPoint = ((LineElement) srcElement).getStartLinePoint();
+							startPoint.linkTo(newerStartElementRef, srcPoint.getRelX(), srcPoint.getRelY());
+						}
 					}
-				}
-				// set end elementRef
-				LinkableTo srcEndElementRef = ((LineElement) srcElement).getEndElementRef();
-				if (srcEndElementRef != null) {
-					LinkableTo newerEndElementRef = (LinkableTo) newerToSource.getKey(srcEndElementRef);
-					if (newerEndElementRef != null) {
-						LinePoint endPoint = ((LineElement) newerElement).getEndLinePoint();
-						LinePoint srcPoint = ((LineElement) srcElement).getEndLinePoint();
-						endPoint.linkTo(newerEndElementRef, srcPoint.getRelX(), srcPoint.getRelY());
+					// set end elementRef
+					LinkableTo srcEndElementRef = ((LineElement) srcElement).getEndElementRef();
+					if (srcEndElementRef != null) {
+						LinkableTo newerEndElementRef = (LinkableTo) newerToSource.getKey(srcEndElementRef);
+						if (newerEndElementRef != null) {
+							LinePoint endPoint = ((LineElement) newerElement).getEndLinePoint();
+							LinePoint srcPoint = ((LineElement) srcElement).getEndLinePoint();
+							endPoint.linkTo(newerEndElementRef, srcPoint.getRelX(), srcPoint.getRelY());
+						}
 					}
 				}
 			}
-		}
-		// refresh connector shapes
-		for (LineElement o : data.getLineElements()) {
-			o.getConnectorShape().recalculateShape(o);
+			// refresh connector shapes
+			for (LineElement o : data.getLineElements()) {
+				o.recalculateConnectorShape();
+			}
+		} finally {
+			data.commitTransaction();
 		}
 		moveGraphicsTop(getSelectedGraphics());
 		redraw();
@@ -2721,6 +2794,7 @@ public int compare(VDrawable g1, VDrawable g2) {
 	 */
 	public void activateUndoManager(Engine engine) {
 		undoManager.activate(engine);
+		undoManager.setDeltaMode(PreferenceManager.getCurrent().getBoolean(GlobalPreference.UNDO_DELTA_MODE));
 	}
 
 	/**
@@ -2740,6 +2814,13 @@ public void undo() {
 		undoManager.undo();
 	}
 
+	/**
+	 * Redoes the last undone action.
+	 */
+	public void redo() {
+		undoManager.redo();
+	}
+
 	// ================================================================================
 	// Clean-Up and Dispose Methods
 	// ================================================================================
@@ -2775,11 +2856,126 @@ public void dispose() {
 		disposed = true;
 	}
 
+	/**
+	 * Called by {@link VElement#resetShapeCache()}, so that the element is moved
+	 * to its new bounds in the spatial index.
+	 *
+	 * @param e the element of which the bounds have changed.
+	 */
+	void boundsChanged(VElement e) {
+		spatialIndex.invalidate(e);
+	}
+
+	/**
+	 * Returns the elements of which the bounds may contain the given point. Used
+	 * instead of a scan of all drawing objects.
+	 *
+	 * @param p2d the point in view coordinates.
+	 * @return the candidate elements in drawing order.
+	 */
+	List<VElement> getCandidatesAt(Point2D p2d) {
+		return spatialIndex.query(p2d);
+	}
+
+	/**
+	 * Called when a pathway object has been moved, resized, added or removed. If
+	 * it is a data node or label, the orthogonal lines are routed again, so that
+	 * they go around it, see
+	 * {@link org.pathvisio.libgpml.model.connector.OrthogonalConnectorShape}.
+	 *
+	 * @param o the pathway object.
+	 */
+	void obstacleChanged(PathwayObject o) {
+		if (!(o instanceof DataNode || o instanceof Label)) {
+			return;
+		}
+		List<VLineElement> lines = new ArrayList<VLineElement>();
+		for (VElement e : drawingObjects) {
+			if (e instanceof VLineElement
+					&& ((VLineElement) e).getPathwayObject().getConnectorType() == ConnectorType.ORTHOGONAL) {
+				lines.add((VLineElement) e);
+			}
+		}
+		for (VLineElement line : lines) {
+			line.obstaclesChanged();
+		}
+	}
+
+	/**
+	 * Called by {@link VPathwayObject} when the z-order of a pathway object may
+	 * have changed, so that the drawing objects are sorted again before they are
+	 * painted.
+	 */
+	void zOrderChanged() {
+		zOrderChanged = true;
+	}
+
+	/**
+	 * Called by {@link VElement#destroy()}, so that the element is removed by the
+	 * next {@link #cleanUp()}.
+	 */
+	void elementDestroyed() {
+		elementsDestroyed = true;
+	}
+
+	/**
+	 * Sorts the drawing objects in drawing order, if the z-order has changed since
+	 * they were last sorted.
+	 */
+	private void sortDrawingObjects() {
+		if (zOrderChanged) {
+			cleanUp();
+			Collections.sort(drawingObjects);
+			zOrderChanged = false;
+			drawingIndexChanged = true;
+		}
+	}
+
+	/**
+	 * Returns the drawing objects of which the bounds may intersect the given
+	 * area, in drawing order. When the area covers most of the pathway, the drawing
+	 * objects are returned as they are, as they are kept in drawing order.
+	 * Otherwise, the candidates of the spatial index are put in drawing order by
+	 * their position in the drawing objects, which is cheaper than comparing their
+	 * z-order.
+	 *
+	 * @param area the area in view coordinates.
+	 * @return the candidate elements, the caller still has to test each element.
+	 */
+	List<VElement> getDrawingObjectsIn(Rectangle2D area) {
+		sortDrawingObjects();
+		cleanUp();
+		List<VElement> result = spatialIndex.find(area);
+		if (result == null) {
+			return drawingObjects;
+		}
+		if (drawingIndexChanged) {
+			for (int i = 0; i < drawingObjects.size(); i++) {
+				drawingObjects.get(i).drawingIndex = i;
+			}
+			drawingIndexChanged = false;
+		}
+		Collections.sort(result, DRAWING_INDEX_COMPARATOR);
+		return result;
+	}
+
+	private static final Comparator<VElement> DRAWING_INDEX_COMPARATOR = new Comparator<VElement>() {
+		public int compare(VElement a, VElement b) {
+			return Integer.compare(a.drawingIndex, b.drawingIndex);
+		}
+	};
+
 	private void cleanUp() {
+		if (!elementsDestroyed) {
+			return;
+		}
+		elementsDestroyed = false;
 		for (Iterator<VElement> i = drawingObjects.iterator(); i.hasNext();) {
 			VElement elt = i.next();
 			if (elt.toBeRemoved()) {
 				i.remove();
+				spatialIndex.remove(elt);
+				drawingIndexChanged = true;
 			}
 		}
 	}
@@ -26,6 +26,7 @@
 import org.pathvisio.libgpml.model.PathwayObject;
 import org.pathvisio.libgpml.model.PathwayObjectEvent;
 import org.pathvisio.libgpml.model.PathwayObjectListener;
+import org.pathvisio.libgpml.prop.StaticProperty;
 
 /**
  * This class is a parent class for all graphics that can be added to a
@@ -78,6 +79,19 @@ public void markDirty() {
 	public void gmmlObjectModified(PathwayObjectEvent e) {
 		if (listen) {
 			markDirty(); // mark everything dirty
+			checkZOrder(e);
+		}
+	}
+
+	/**
+	 * Notifies the canvas if the event may have changed the z-order, so that the
+	 * drawing objects are sorted again before the next paint.
+	 *
+	 * @param e the event received from the pathway object.
+	 */
+	protected void checkZOrder(PathwayObjectEvent e) {
+		if (!e.isCoordinateChange() && e.affectsProperty(StaticProperty.ZORDER)) {
+			canvas.zOrderChanged();
 		}
 	}
 
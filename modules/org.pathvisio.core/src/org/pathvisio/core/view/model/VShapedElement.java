@@ -19,17 +19,14 @@
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Font;
-import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.Shape;
 import java.awt.Stroke;
-import java.awt.font.TextAttribute;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
-import java.text.AttributedString;
 
 import org.pathvisio.libgpml.model.type.LineStyleType;
 import org.pathvisio.libgpml.model.type.ObjectType;
@@ -76,6 +73,13 @@ public abstract class VShapedElement extends VPathwayElement implements VLinkabl
 
 	Handle[] handles = new Handle[] {};
 
+	// font and layout of the text label, see getVFont and getTextLabelLayout
+	private Font vFont = null;
+	private String vFontName;
+	private int vFontStyle;
+	private double vFontSize;
+	private TextLabelLayout textLabelLayout = null;
+
 	/**
 	 * @param canvas
 	 * @param o
@@ -509,9 +513,13 @@ protected java.awt.Shape getShape(boolean rotate, float sw) {
 
 	public void gmmlObjectModified(PathwayObjectEvent e) {
 		markDirty(); // mark everything dirty
+		checkZOrder(e);
 		checkCitation();
 		if (handles.length > 0)
 			setHandleLocation();
+		if (e.isCoordinateChange()) {
+			canvas.obstacleChanged(getPathwayObject());
+		}
 	}
 
 	LinkProvider linkAnchorDelegate = new DefaultLinkAnchorDelegate(this);
@@ -594,35 +602,27 @@ protected void drawTextLabel(Graphics2D g) {
 		Rectangle area = getVShape(true).getBounds();
 		String label = gdata.getTextLabel();
 		if (label != null && !"".equals(label)) {
-			// Split by newline, to enable multi-line labels
-			String[] lines = label.split("\n");
+			TextLabelLayout layout = getTextLabelLayout(label, g);
 
-			FontMetrics fm = g.getFontMetrics();
-			int lh = fm.getHeight();
-			int yoffset = area.y + fm.getAscent();
+			int lh = layout.getLineHeight();
+			int nrLines = layout.getLineCount();
+			int yoffset = area.y + layout.getAscent();
 			switch (gdata.getVAlign()) {
 			case MIDDLE:
-				yoffset += (area.height - (lines.length * lh)) / 2;
+				yoffset += (area.height - (nrLines * lh)) / 2;
 				break;
 			case TOP:
 				yoffset += margin;
 				break;
 			case BOTTOM:
-				yoffset += area.height - margin - (lines.length * lh);
+				yoffset += area.height - margin - (nrLines * lh);
 			}
 
-			for (int i = 0; i < lines.length; i++) {
-				if (lines[i].equals(""))
-					continue; // Can't have attributed string with 0 length
-				AttributedString ats = getVAttributedString(lines[i]);
-				if (gdata.getObjectType() == ObjectType.LABEL) {
-					// TODO hopefully also accepts nulls
-					String href = ((Label) gdata).getHref();
-					if (href != null && !Utils.stringEquals(href, "")) {
-						ats.addAttribute(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_ON);
-					}
-				}
-				Rectangle2D tb = fm.getStringBounds(ats.getIterator(), 0, lines[i].length(), g);
+			g.setColor(getTextColor());
+			for (int i = 0; i < nrLines; i++) {
+				if (layout.isEmpty(i))
+					continue;
+				Rectangle2D tb = layout.getBounds(i);
 
 				int xoffset = area.x;
 				switch (gdata.getHAlign()) {
@@ -636,37 +636,54 @@ protected void drawTextLabel(Graphics2D g) {
 					xoffset += area.width - margin - tb.getWidth();
 					break;
 				}
-				g.setColor(getTextColor());
-				g.drawString(ats.getIterator(), xoffset, yoffset + (int) (i * tb.getHeight()));
+				g.drawString(layout.getIterator(i), xoffset, yoffset + (int) (i * tb.getHeight()));
 			}
 
 		}
 	}
 
 	/**
-	 * @param text
-	 * @return
+	 * Returns the layout of the text label, made again only if the label, font or
+	 * zoom factor have changed since the last time.
+	 * 
+	 * @param label the text label.
+	 * @param g     the graphics to draw on.
+	 * @return the layout.
 	 */
-	private AttributedString getVAttributedString(String text) {
-		AttributedString ats = new AttributedString(text);
-		if (getPathwayObject().getFontStrikethru()) {
-			ats.addAttribute(TextAttribute.STRIKETHROUGH, TextAttribute.STRIKETHROUGH_ON);
+	TextLabelLayout getTextLabelLayout(String label, Graphics2D g) {
+		ShapedElement gdata = getPathwayObject();
+		boolean strikethrough = gdata.getFontStrikethru();
+		boolean underline = gdata.getFontDecoration();
+		if (gdata.getObjectType() == ObjectType.LABEL) {
+			String href = ((Label) gdata).getHref();
+			if (href != null && !Utils.stringEquals(href, "")) {
+				underline = true;
+			}
 		}
-		if (getPathwayObject().getFontDecoration()) {
-			ats.addAttribute(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_ON);
+		Font font = getVFont();
+		if (textLabelLayout == null || !textLabelLayout.matches(label, font, strikethrough, underline, g)) {
+			textLabelLayout = new TextLabelLayout(label, font, strikethrough, underline, g);
 		}
-
-		ats.addAttribute(TextAttribute.FONT, getVFont());
-		return ats;
+		return textLabelLayout;
 	}
 
 	/**
-	 * @return
+	 * Returns the font of the text label, adjusted to the current zoom factor. The
+	 * font is kept until the font properties or the zoom factor change.
+	 * 
+	 * @return the font.
 	 */
 	protected Font getVFont() {
 		String name = getPathwayObject().getFontName();
 		int style = getVFontStyle();
-		return new Font(name, style, 12).deriveFont((float) vFromM(getPathwayObject().getFontSize()));
+		double size = vFromM(getPathwayObject().getFontSize());
+		if (vFont == null || !Utils.stringEquals(name, vFontName) || style != vFontStyle || size != vFontSize) {
+			vFont = new Font(name, style, 12).deriveFont((float) size);
+			vFontName = name;
+			vFontStyle = style;
+			vFontSize = size;
+		}
+		return vFont;
 	}
 
 	/**
@@ -702,6 +719,20 @@ protected void drawHighlight(Graphics2D g) {
 		}
 	}
 
+	/**
+	 * {@inheritDoc} The text label is drawn inside the bounds of the shape, which
+	 * may be outside the outline of shapes such as a cell, so an area inside such a
+	 * shape must still draw it.
+	 */
+	@Override
+	protected boolean isDrawnIn(Rectangle2D r) {
+		if (super.isDrawnIn(r)) {
+			return true;
+		}
+		String label = getPathwayObject().getTextLabel();
+		return label != null && !"".equals(label) && getVShape(true).getBounds2D().intersects(r);
+	}
+
 	/**
 	 * {@inheritDoc} GraphicsShape overrides vContains, because the base
 	 * implementation only considers a hit with the outline, which makes it hard to
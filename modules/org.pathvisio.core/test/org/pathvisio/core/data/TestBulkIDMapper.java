@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bridgedb.DataSource;
+import org.bridgedb.IDMapper;
+import org.bridgedb.IDMapperCapabilities;
+import org.bridgedb.IDMapperException;
+import org.bridgedb.IDMapperStack;
+import org.bridgedb.Xref;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that xrefs are mapped in batches, by all mappers of a stack.
+ */
+public class TestBulkIDMapper extends TestCase {
+
+	private static final DataSource SOURCE = DataSource.register("TestBulkSource", "TestBulkSource")
+			.asDataSource();
+
+	/**
+	 * Maps each xref to an xref with the same id and a suffix, and keeps the size
+	 * of each batch it was asked to map.
+	 */
+	private static class SuffixMapper implements IDMapper {
+		private final String suffix;
+		final List<Integer> batches = Collections.synchronizedList(new ArrayList<Integer>());
+
+		SuffixMapper(String suffix) {
+			this.suffix = suffix;
+		}
+
+		public Map<Xref, Set<Xref>> mapID(Collection<Xref> srcXrefs, DataSource... tgtDataSources) {
+			batches.add(srcXrefs.size());
+			Map<Xref, Set<Xref>> result = new HashMap<Xref, Set<Xref>>();
+			for (Xref xref : srcXrefs) {
+				result.put(xref, mapID(xref));
+			}
+			return result;
+		}
+
+		public Set<Xref> mapID(Xref ref, DataSource... tgtDataSources) {
+			return new HashSet<Xref>(Arrays.asList(new Xref(ref.getId() + suffix, SOURCE)));
+		}
+
+		public boolean xrefExists(Xref xref) {
+			return true;
+		}
+
+		public Set<Xref> freeSearch(String text, int limit) {
+			return Collections.emptySet();
+		}
+
+		public IDMapperCapabilities getCapabilities() {
+			return null;
+		}
+
+		public void close() {
+		}
+
+		public boolean isConnected() {
+			return true;
+		}
+	}
+
+	private List<Xref> xrefs(int n) {
+		List<Xref> result = new ArrayList<Xref>();
+		for (int i = 0; i < n; i++) {
+			result.add(new Xref("id" + i, SOURCE));
+		}
+		return result;
+	}
+
+	public void testBatches() throws IDMapperException {
+		SuffixMapper mapper = new SuffixMapper("-a");
+		BulkIDMapper bulk = new BulkIDMapper(mapper);
+		bulk.setBatchSize(10);
+		List<Xref> xrefs = xrefs(25);
+		xrefs.add(new Xref("id3", SOURCE)); // duplicate
+		xrefs.add(new Xref("", SOURCE)); // invalid
+		xrefs.add(null);
+
+		Map<Xref, Set<Xref>> result = bulk.mapID(xrefs);
+		assertEquals(25, result.size());
+		assertEquals(Collections.singleton(new Xref("id7-a", SOURCE)), result.get(new Xref("id7", SOURCE)));
+		List<Integer> batches = new ArrayList<Integer>(mapper.batches);
+		Collections.sort(batches);
+		assertEquals(Arrays.asList(5, 10, 10), batches);
+	}
+
+	public void testStack() throws IDMapperException {
+		SuffixMapper a = new SuffixMapper("-a");
+		SuffixMapper b = new SuffixMapper("-b");
+		IDMapperStack stack = new IDMapperStack();
+		stack.addIDMapper(a);
+		stack.addIDMapper(b);
+		stack.setTransitive(false);
+
+		BulkIDMapper bulk = new BulkIDMapper(stack);
+		bulk.setBatchSize(4);
+		Map<Xref, Set<Xref>> result = bulk.mapID(xrefs(8));
+		assertEquals(8, result.size());
+		Set<Xref> expected = new HashSet<Xref>(
+				Arrays.asList(new Xref("id2-a", SOURCE), new Xref("id2-b", SOURCE)));
+		assertEquals(expected, result.get(new Xref("id2", SOURCE)));
+		// each mapper of the stack maps each batch
+		assertEquals(2, a.batches.size());
+		assertEquals(2, b.batches.size());
+	}
+
+	public void testPathwayXrefs() {
+		PathwayModel pathway = new PathwayModel();
+		DataNode first = new DataNode("first", DataNodeType.GENEPRODUCT);
+		first.setXref(new Xref("1", SOURCE));
+		DataNode second = new DataNode("second", DataNodeType.GENEPRODUCT);
+		second.setXref(new Xref("1", SOURCE));
+		DataNode empty = new DataNode("empty", DataNodeType.GENEPRODUCT);
+		pathway.add(first);
+		pathway.add(second);
+		pathway.add(empty);
+		assertEquals(Collections.singleton(new Xref("1", SOURCE)), BulkIDMapper.getXrefs(pathway));
+	}
+}
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bridgedb.AttributeMapper;
+import org.bridgedb.DataSource;
+import org.bridgedb.IDMapper;
+import org.bridgedb.IDMapperCapabilities;
+import org.bridgedb.Xref;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that the results of a mapper are cached, dropped and counted.
+ */
+public class TestCachingIDMapper extends TestCase {
+
+	private static final DataSource SOURCE = DataSource.register("TestCacheSource", "TestCacheSource")
+			.asDataSource();
+
+	/**
+	 * Maps each xref to an xref with a suffix, except xrefs with the id "none",
+	 * and counts the xrefs it was asked about.
+	 */
+	private static class CountingMapper implements IDMapper, AttributeMapper {
+		final List<Xref> asked = new ArrayList<Xref>();
+
+		public Map<Xref, Set<Xref>> mapID(Collection<Xref> srcXrefs, DataSource... tgtDataSources) {
+			Map<Xref, Set<Xref>> result = new HashMap<Xref, Set<Xref>>();
+			for (Xref xref : srcXrefs) {
+				Set<Xref> refs = mapID(xref);
+				if (!refs.isEmpty()) {
+					result.put(xref, refs);
+				}
+			}
+			return result;
+		}
+
+		public Set<Xref> mapID(Xref ref, DataSource... tgtDataSources) {
+			asked.add(ref);
+			if ("none".equals(ref.getId())) {
+				return new HashSet<Xref>();
+			}
+			return new HashSet<Xref>(Arrays.asList(new Xref(ref.getId() + "-mapped", SOURCE)));
+		}
+
+		public boolean xrefExists(Xref xref) {
+			asked.add(xref);
+			return true;
+		}
+
+		public Set<Xref> freeSearch(String text, int limit) {
+			return Collections.emptySet();
+		}
+
+		public IDMapperCapabilities getCapabilities() {
+			return null;
+		}
+
+		public void close() {
+		}
+
+		public boolean isConnected() {
+			return true;
+		}
+
+		public Set<String> getAttributes(Xref ref, String attrType) {
+			asked.add(ref);
+			return new HashSet<String>(Arrays.asList(ref.getId() + "-" + attrType));
+		}
+
+		public Map<String, Set<String>> getAttributes(Xref ref) {
+			Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+			result.put("Symbol", getAttributes(ref, "Symbol"));
+			return result;
+		}
+
+		public boolean isFreeAttributeSearchSupported() {
+			return false;
+		}
+
+		public Map<Xref, String> freeAttributeSearch(String query, String attrType, int limit) {
+			return Collections.emptyMap();
+		}
+
+		public Map<Xref, Set<String>> freeAttributeSearchEx(String query, String attrType, int limit) {
+			return Collections.emptyMap();
+		}
+
+		public Set<String> getAttributeSet() {
+			return Collections.singleton("Symbol");
+		}
+	}
+
+	private CountingMapper mapper;
+	private CachingIDMapper cache;
+
+	public void setUp() {
+		mapper = new CountingMapper();
+		cache = new CachingIDMapper(mapper, 3);
+	}
+
+	private static Xref xref(String id) {
+		return new Xref(id, SOURCE);
+	}
+
+	public void testHit() throws Exception {
+		Set<Xref> refs = cache.mapID(xref("a"));
+		assertEquals(Collections.singleton(xref("a-mapped")), refs);
+		refs.add(xref("changed")); // callers may change results
+		assertEquals(Collections.singleton(xref("a-mapped")), cache.mapID(xref("a")));
+		assertEquals(1, mapper.asked.size());
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+
+		// other targets are cached separately
+		cache.mapID(xref("a"), SOURCE);
+		assertEquals(2, mapper.asked.size());
+
+		assertEquals(Collections.singleton("a-Symbol"), cache.getAttributes(xref("a")).get("Symbol"));
+		cache.getAttributes(xref("a"));
+		assertEquals(3, mapper.asked.size());
+	}
+
+	public void testLeastRecentlyUsed() throws Exception {
+		cache.mapID(xref("a"));
+		cache.mapID(xref("b"));
+		cache.mapID(xref("c"));
+		cache.mapID(xref("a"));
+		cache.mapID(xref("d")); // drops b, which was used least recently
+		assertEquals(3, cache.getSize());
+		mapper.asked.clear();
+		cache.mapID(xref("a"));
+		cache.mapID(xref("b"));
+		assertEquals(Arrays.asList(xref("b")), mapper.asked);
+	}
+
+	public void testTimeToLive() throws Exception {
+		cache.setTimeToLive(1);
+		cache.mapID(xref("a"));
+		Thread.sleep(10);
+		cache.mapID(xref("a"));
+		assertEquals(2, mapper.asked.size());
+	}
+
+	public void testEmptyResults() throws Exception {
+		assertTrue(cache.mapID(xref("none")).isEmpty());
+		assertTrue(cache.mapID(xref("none")).isEmpty());
+		assertEquals(1, mapper.asked.size());
+
+		cache.clear();
+		cache.setCacheEmptyResults(false);
+		cache.mapID(xref("none"));
+		cache.mapID(xref("none"));
+		assertEquals(3, mapper.asked.size());
+	}
+
+	public void testBulk() throws Exception {
+		cache.mapID(xref("a"));
+		mapper.asked.clear();
+		Map<Xref, Set<Xref>> result = cache.mapID(Arrays.asList(xref("a"), xref("b"), xref("none")));
+		// only the xrefs that were not cached are passed on
+		assertEquals(Arrays.asList(xref("b"), xref("none")), mapper.asked);
+		assertEquals(2, result.size());
+		assertEquals(Collections.singleton(xref("b-mapped")), result.get(xref("b")));
+		assertFalse(result.containsKey(xref("none")));
+
+		cache.mapID(xref("none"));
+		assertEquals(2, mapper.asked.size());
+	}
+
+	public void testGdbEvent() throws Exception {
+		GdbManager gdbManager = new GdbManager();
+		gdbManager.addGdbEventListener(cache);
+		cache.mapID(xref("a"));
+		gdbManager.addMapper(new CountingMapper(), "test");
+		assertEquals(0, cache.getSize());
+		cache.mapID(xref("a"));
+		assertEquals(2, mapper.asked.size());
+	}
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.model;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.imageio.ImageIO;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.pathvisio.core.preferences.PreferenceManager;
+import org.pathvisio.core.view.model.VPathwayModel;
+import org.pathvisio.libgpml.io.ConverterException;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the SVG documents written while drawing, and PNG images drawn without
+ * SVG.
+ */
+public class TestBatikImageExporter extends TestCase {
+
+	private PathwayModel pathway;
+	private VPathwayModel vPathway;
+
+	public void setUp() throws IOException, ConverterException {
+		PreferenceManager.init();
+		pathway = new PathwayModel();
+		InputStream in = getClass().getClassLoader().getResourceAsStream("example-v2013a.xml");
+		assertNotNull(in);
+		try {
+			pathway.readFromXml(in, false);
+		} finally {
+			in.close();
+		}
+		vPathway = new VPathwayModel(null);
+		vPathway.fromModel(pathway);
+	}
+
+	public void tearDown() {
+		vPathway.dispose();
+	}
+
+	private Document exportSVG(boolean styleClasses) throws Exception {
+		BatikImageExporter exporter = new BatikImageExporter(ImageExporter.TYPE_SVG);
+		exporter.setStyleClasses(styleClasses);
+		StringWriter out = new StringWriter();
+		exporter.exportSVG(vPathway, out);
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		return factory.newDocumentBuilder()
+				.parse(new ByteArrayInputStream(out.toString().getBytes(StandardCharsets.UTF_8)));
+	}
+
+	public void testSVG() throws Exception {
+		Document svg = exportSVG(false);
+		Element root = svg.getDocumentElement();
+		assertEquals("svg", root.getLocalName());
+		assertEquals(Integer.toString(vPathway.calculateVSize().width), root.getAttribute("width"));
+		assertTrue(svg.getElementsByTagName("path").getLength() > 0);
+		assertEquals(0, svg.getElementsByTagName("style").getLength());
+
+		// each clip path is written once
+		NodeList clipPaths = svg.getElementsByTagName("clipPath");
+		Set<String> shapes = new HashSet<String>();
+		for (int i = 0; i < clipPaths.getLength(); i++) {
+			shapes.add(((Element) clipPaths.item(i).getFirstChild()).getAttribute("d"));
+		}
+		assertTrue(clipPaths.getLength() > 0);
+		assertEquals(clipPaths.getLength(), shapes.size());
+
+		boolean found = false;
+		NodeList texts = svg.getElementsByTagName("text");
+		for (int i = 0; i < texts.getLength(); i++) {
+			found |= "cis-aconitate".equals(texts.item(i).getTextContent());
+		}
+		assertTrue(found);
+	}
+
+	public void testStyleClasses() throws Exception {
+		Document svg = exportSVG(true);
+		NodeList styles = svg.getElementsByTagName("style");
+		assertEquals(1, styles.getLength());
+		NodeList paths = svg.getElementsByTagName("path");
+		int classes = 0;
+		for (int i = 0; i < paths.getLength(); i++) {
+			Element path = (Element) paths.item(i);
+			if (path.getParentNode().getLocalName().equals("clipPath")) {
+				continue;
+			}
+			assertFalse(path.hasAttribute("style"));
+			String c = path.getAttribute("class");
+			assertTrue(styles.item(0).getTextContent().contains("." + c + "{"));
+			classes++;
+		}
+		assertTrue(classes > 0);
+	}
+
+	public void testPNG() throws ConverterException, IOException {
+		File file = File.createTempFile("export", ".png");
+		try {
+			new BatikImageExporter(ImageExporter.TYPE_PNG).doExport(file, vPathway);
+			BufferedImage image = ImageIO.read(file);
+			assertEquals(vPathway.calculateVSize().width, image.getWidth());
+			assertEquals(vPathway.calculateVSize().height, image.getHeight());
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.model;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+import org.pathvisio.core.preferences.PreferenceManager;
+import org.pathvisio.libgpml.io.ConverterException;
+import org.pathvisio.libgpml.model.PathwayModel;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that an image drawn in tiles is the same as an image drawn at once.
+ */
+public class TestRasterImageExporter extends TestCase {
+
+	private static final int MAX_DIFF = 16;
+
+	private PathwayModel pathway;
+	private File file;
+
+	public void setUp() throws IOException, ConverterException {
+		PreferenceManager.init();
+		pathway = new PathwayModel();
+		InputStream in = getClass().getClassLoader().getResourceAsStream("example-v2013a.xml");
+		assertNotNull(in);
+		try {
+			pathway.readFromXml(in, false);
+		} finally {
+			in.close();
+		}
+		file = File.createTempFile("export", ".png");
+	}
+
+	public void tearDown() {
+		file.delete();
+	}
+
+	private void assertTiledExport(int zoom, int tileSize, int threads) throws ConverterException, IOException {
+		RasterImageExporter exporter = new RasterImageExporter(ImageExporter.TYPE_PNG);
+		BufferedImage expected = exporter.exportAsImage(pathway, zoom);
+		exporter.setTileSize(tileSize);
+		exporter.setThreads(threads);
+		exporter.doExport(file, pathway, zoom);
+		BufferedImage actual = ImageIO.read(file);
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				int a = expected.getRGB(x, y);
+				int b = actual.getRGB(x, y);
+				for (int shift = 0; shift < 24; shift += 8) {
+					int diff = Math.abs(((a >> shift) & 0xff) - ((b >> shift) & 0xff));
+					// anti-aliasing of curves cut by the edge of a tile differs slightly
+					assertTrue("pixel " + x + ", " + y + " differs", diff <= MAX_DIFF);
+				}
+			}
+		}
+	}
+
+	public void testTiles() throws ConverterException, IOException {
+		assertTiledExport(100, 100, 1);
+	}
+
+	public void testParallelTiles() throws ConverterException, IOException {
+		assertTiledExport(150, 64, 3);
+	}
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.pathvisio.core.Engine;
+import org.pathvisio.core.preferences.PreferenceManager;
+import org.pathvisio.libgpml.io.ConverterException;
+import org.pathvisio.libgpml.model.GPMLFormat;
+import org.pathvisio.libgpml.model.PathwayModel;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that a shared snapshot of a pathway model can be written and exported
+ * on several threads at once, while it is copied for undo, and is not changed
+ * by it.
+ */
+public class TestSnapshotExport extends TestCase {
+
+	private static final int THREADS = 4;
+
+	private Engine engine;
+	private PathwayModel pathway;
+	private File dir;
+
+	public void setUp() throws IOException, ConverterException {
+		PreferenceManager.init();
+		engine = new Engine();
+		engine.addPathwayModelExporter(new GPMLFormat(GPMLFormat.GPML2021));
+		engine.addPathwayModelExporter(new BatikImageExporter(ImageExporter.TYPE_SVG));
+		engine.addPathwayModelExporter(new RasterImageExporter(ImageExporter.TYPE_PNG));
+		pathway = new PathwayModel();
+		InputStream in = getClass().getClassLoader().getResourceAsStream("example-v2013a.xml");
+		assertNotNull(in);
+		try {
+			pathway.readFromXml(in, false);
+		} finally {
+			in.close();
+		}
+		dir = File.createTempFile("snapshot-export", "");
+		dir.delete();
+		dir.mkdir();
+	}
+
+	public void tearDown() {
+		engine.dispose();
+		for (File f : dir.listFiles()) {
+			f.delete();
+		}
+		dir.delete();
+	}
+
+	public void testConcurrentExport() throws Exception {
+		final PathwayModel snapshot = pathway.snapshot();
+		long count = snapshot.getModificationCount();
+		int groups = snapshot.getGroups().size();
+
+		ExecutorService executor = Executors.newFixedThreadPool(3 * THREADS);
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		try {
+			for (int i = 0; i < THREADS; i++) {
+				for (final String ext : new String[] { "gpml", "svg", "png" }) {
+					final File file = new File(dir, i + "." + ext);
+					futures.add(executor.submit(new Callable<Void>() {
+						public Void call() throws ConverterException {
+							engine.exportPathwayModel(file, snapshot);
+							return null;
+						}
+					}));
+				}
+			}
+			// undo copies the snapshot on the GUI thread meanwhile
+			for (int i = 0; i < 10; i++) {
+				assertEquals(groups, snapshot.clone().getGroups().size());
+			}
+			for (Future<?> f : futures) {
+				f.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(count, snapshot.getModificationCount());
+		assertEquals(groups, snapshot.getGroups().size());
+		// the snapshot is written as it is, not a copy of it
+		for (int i = 0; i < THREADS; i++) {
+			PathwayModel written = new PathwayModel();
+			written.readFromXml(new File(dir, i + ".gpml"), true);
+			assertEquals(snapshot.getDataNodes().size(), written.getDataNodes().size());
+			assertEquals(snapshot.getInteractions().size(), written.getInteractions().size());
+			assertEquals(groups, written.getGroups().size());
+			assertEquals(snapshot.getElementIds(), written.getElementIds());
+			assertTrue(new File(dir, i + ".svg").length() > 0);
+			assertTrue(new File(dir, i + ".png").length() > 0);
+		}
+	}
+}
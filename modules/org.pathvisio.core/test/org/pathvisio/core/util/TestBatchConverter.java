@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.pathvisio.core.Engine;
+import org.pathvisio.core.preferences.PreferenceManager;
+import org.pathvisio.core.util.BatchConverter.Input;
+import org.pathvisio.core.util.BatchConverter.Result;
+import org.pathvisio.libgpml.io.ConverterException;
+import org.pathvisio.libgpml.model.PathwayModel;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests batch conversion of a directory with a valid and a broken pathway.
+ */
+public class TestBatchConverter extends TestCase {
+
+	private File dir;
+
+	public void setUp() throws IOException {
+		PreferenceManager.init();
+		dir = Files.createTempDirectory("batch").toFile();
+		File sub = new File(dir, "in/sub");
+		sub.mkdirs();
+		InputStream in = getClass().getClassLoader().getResourceAsStream("example-v2013a.xml");
+		assertNotNull(in);
+		try {
+			Files.copy(in, new File(sub, "example.gpml").toPath());
+		} finally {
+			in.close();
+		}
+		Files.write(new File(dir, "in/broken.gpml").toPath(), "<Pathway".getBytes("UTF-8"));
+	}
+
+	public void tearDown() {
+		delete(dir);
+	}
+
+	private static void delete(File f) {
+		File[] children = f.listFiles();
+		if (children != null) {
+			for (File c : children) {
+				delete(c);
+			}
+		}
+		f.delete();
+	}
+
+	public void testFindInputs() throws IOException {
+		Engine engine = new Engine();
+		BatchConverter.registerFormats(engine);
+		List<Input> inputs = BatchConverter.findInputs(Arrays.asList(new File(dir, "in").toString()),
+				engine.getPathwayModelImporters());
+		assertEquals(2, inputs.size());
+		assertEquals("broken.gpml", inputs.get(0).getPath());
+		assertEquals("sub" + File.separator + "example.gpml", inputs.get(1).getPath());
+
+		inputs = BatchConverter.findInputs(Arrays.asList(dir + File.separator + "in" + File.separator + "**/ex*.gpml"),
+				engine.getPathwayModelImporters());
+		assertEquals(1, inputs.size());
+		assertEquals(new File(dir, "in/sub/example.gpml"), inputs.get(0).getFile());
+	}
+
+	public void testConvert() throws IOException, InterruptedException, ConverterException {
+		Engine engine = new Engine();
+		BatchConverter.registerFormats(engine);
+		List<Input> inputs = BatchConverter.findInputs(Arrays.asList(new File(dir, "in").toString()),
+				engine.getPathwayModelImporters());
+		File out = new File(dir, "out");
+		BatchConverter converter = new BatchConverter(Arrays.asList("png", "svg", BatchConverter.FORMAT_GPML), out, 2);
+		List<Result> results = converter.convert(inputs);
+		assertEquals(2, results.size());
+
+		Result ok = null;
+		Result failed = null;
+		for (Result r : results) {
+			if (r.isOk()) {
+				ok = r;
+			} else {
+				failed = r;
+			}
+		}
+		// the broken file does not stop the conversion of the other file
+		assertNotNull(ok);
+		assertNotNull(failed);
+		assertEquals("broken.gpml", failed.getInput().getPath());
+		assertTrue(failed.getOutputs().isEmpty());
+
+		// the older GPML version is reported as a warning
+		assertEquals(1, ok.getWarnings().size());
+		assertEquals(3, ok.getOutputs().size());
+		for (String ext : new String[] { "png", "svg", "gpml" }) {
+			File f = new File(out, "sub/example." + ext);
+			assertTrue(f.toString(), f.length() > 0);
+		}
+
+		// the GPML2021 output can be read again without warnings
+		PathwayModel pathwayModel = new PathwayModel();
+		List<String> warnings = new ArrayList<String>();
+		pathwayModel.readFromXml(new File(out, "sub/example.gpml"), true, warnings);
+		assertEquals(Collections.emptyList(), warnings);
+	}
+
+	public void testRefuseOverwrite() {
+		File input = new File(dir, "in/sub/example.gpml");
+		BatchConverter converter = new BatchConverter(Arrays.asList(BatchConverter.FORMAT_GPML), null, 1);
+		Result r = converter.convert(new Input(input, input.getName()));
+		assertFalse(r.isOk());
+		assertTrue(input.length() > 0);
+	}
+
+}
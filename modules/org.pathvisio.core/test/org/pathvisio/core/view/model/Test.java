@@ -16,6 +16,8 @@
  ******************************************************************************/
 package org.pathvisio.core.view.model;
 
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -25,6 +27,7 @@
 import org.pathvisio.libgpml.model.PathwayModel;
 import org.pathvisio.libgpml.model.PathwayObject;
 import org.pathvisio.libgpml.model.Shape;
+import org.pathvisio.libgpml.model.type.ConnectorType;
 import org.pathvisio.libgpml.model.type.DataNodeType;
 import org.pathvisio.libgpml.util.XrefUtils;
 import org.pathvisio.libgpml.model.DataNode;
@@ -146,6 +149,30 @@ public void testOrderAction() {
 		assertTrue(eltLi.getZOrder() > eltSh.getZOrder());
 	}
 
+	/**
+	 * Test that the drawing objects are kept in drawing order when the z-order
+	 * changes and when elements are added or removed.
+	 */
+	public void testDrawingOrder() {
+		BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+		vPwy.moveGraphicsTop(Arrays.asList(new VDrawable[] { (VDrawable) vSh }));
+		vDn.select();
+		vPwy.draw(image.createGraphics());
+		List<VElement> sorted = new ArrayList<VElement>(vPwy.getDrawingObjects());
+		Collections.sort(sorted);
+		assertEquals(sorted, vPwy.getDrawingObjects());
+		assertTrue(sorted.indexOf(vSh) > sorted.indexOf(vDn));
+
+		vPwy.moveGraphicsBottom(Arrays.asList(new VDrawable[] { (VDrawable) vSh }));
+		vDn.deselect();
+		vLa.select();
+		vPwy.draw(image.createGraphics());
+		sorted = new ArrayList<VElement>(vPwy.getDrawingObjects());
+		Collections.sort(sorted);
+		assertEquals(sorted, vPwy.getDrawingObjects());
+		assertEquals(0, sorted.indexOf(vSh));
+	}
+
 	/**
 	 * Test sorting of vpathway elements
 	 *
@@ -250,6 +277,26 @@ public void testConnector() {
 		// TODO
 	}
 
+	/**
+	 * An orthogonal line goes around a data node that is moved onto it, without
+	 * the line itself being changed.
+	 */
+	public void testOrthogonalConnector() {
+		Interaction line = new Interaction();
+		line.setConnectorType(ConnectorType.ORTHOGONAL);
+		line.setStartLinePointX(1000);
+		line.setStartLinePointY(8000);
+		line.setEndLinePointX(5000);
+		line.setEndLinePointY(8000);
+		pwy.add(line);
+		VElement vLine = vPwy.getPathwayElementView(line);
+		double half = vDn.getVBounds().getHeight() / 2;
+		assertTrue(vLine.getVBounds().getHeight() < half);
+
+		eltDn.setCenterY(8000);
+		assertTrue(vLine.getVBounds().getHeight() > half);
+	}
+
 	/**
 	 * TODO
 	 * 
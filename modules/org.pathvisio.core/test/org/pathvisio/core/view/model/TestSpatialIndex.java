@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.view.model;
+
+import java.awt.Dimension;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.pathvisio.core.preferences.PreferenceManager;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.Shape;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.model.type.ShapeType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that hit-testing with the {@link SpatialIndex} gives the same results
+ * as a scan of all drawing objects.
+ */
+public class TestSpatialIndex extends TestCase {
+
+	private static final int SIDE = 110; // SIDE * SIDE data nodes
+	private static final int QUERIES = 2000;
+
+	private PathwayModel pwy;
+	private VPathwayModel vPwy;
+	private DataNode[][] nodes;
+
+	public void setUp() {
+		PreferenceManager.init();
+		pwy = new PathwayModel();
+		nodes = new DataNode[SIDE][SIDE];
+		for (int i = 0; i < SIDE; i++) {
+			for (int j = 0; j < SIDE; j++) {
+				DataNode d = new DataNode("n" + i + "_" + j, DataNodeType.GENEPRODUCT);
+				d.setCenterX(50 + i * 100);
+				d.setCenterY(50 + j * 60);
+				d.setWidth(80);
+				d.setHeight(20);
+				pwy.add(d);
+				nodes[i][j] = d;
+			}
+		}
+		vPwy = new VPathwayModel(null);
+		vPwy.fromModel(pwy);
+	}
+
+	public void testHitTesting() {
+		Random random = new Random(42);
+		List<VElement> objects = sortedObjects();
+		for (int k = 0; k < QUERIES; k++) {
+			Point2D p = randomPoint(random);
+			assertSame(linearObjectAt(objects, p), vPwy.getObjectAt(p));
+			assertEquals(linearObjectsAt(objects, p), vPwy.getObjectsAt(p));
+		}
+	}
+
+	/**
+	 * The drawing objects in an area come in drawing order, for small areas from
+	 * the spatial index and for large areas from the sorted drawing objects.
+	 */
+	public void testDrawingObjectsIn() {
+		Random random = new Random(42);
+		nodes[2][2].setZOrder(-5);
+		nodes[2][3].setZOrder(5);
+		nodes[2][3].setCenterY(nodes[2][2].getCenterY() + 10);
+		List<VElement> objects = sortedObjects();
+		Dimension size = vPwy.calculateVSize();
+		for (int k = 0; k < 200; k++) {
+			Point2D p = randomPoint(random);
+			double side = k % 10 == 0 ? size.width : 300;
+			Rectangle2D area = new Rectangle2D.Double(p.getX() - side / 2, p.getY() - side / 2, side, side);
+			assertEquals(linearObjectsIn(objects, area), linearObjectsIn(vPwy.getDrawingObjectsIn(area), area));
+		}
+		VElement v = vPwy.getPathwayElementView(nodes[2][2]);
+		Rectangle2D area = v.getVBounds();
+		List<VElement> found = linearObjectsIn(vPwy.getDrawingObjectsIn(area), area);
+		assertEquals(linearObjectsIn(objects, area), found);
+		assertSame(v, found.get(0));
+	}
+
+	public void testMoveAndRemove() {
+		DataNode d = nodes[3][4];
+		VElement v = vPwy.getPathwayElementView(d);
+		Point2D old = new Point2D.Double(vPwy.vFromM(d.getCenterX()), vPwy.vFromM(d.getCenterY()));
+		assertSame(v, vPwy.getObjectAt(old));
+
+		d.setCenterX(20000);
+		d.setCenterY(20000);
+		Point2D moved = new Point2D.Double(vPwy.vFromM(20000), vPwy.vFromM(20000));
+		assertSame(v, vPwy.getObjectAt(moved));
+		assertFalse(vPwy.getObjectsAt(old).contains(v));
+
+		vPwy.setPctZoom(50);
+		Point2D zoomed = new Point2D.Double(vPwy.vFromM(20000), vPwy.vFromM(20000));
+		assertSame(v, vPwy.getObjectAt(zoomed));
+
+		pwy.remove(d);
+		vPwy.removeDrawingObject(v, false);
+		assertNull(vPwy.getObjectAt(zoomed));
+	}
+
+	public void testOverlapping() {
+		VDrawable v = (VDrawable) vPwy.getPathwayElementView(nodes[5][5]);
+		nodes[5][6].setCenterY(nodes[5][5].getCenterY() + 10);
+		List<VDrawable> overlapping = vPwy.getOverlappingGraphics(v);
+		assertEquals(1, overlapping.size());
+		assertSame(vPwy.getPathwayElementView(nodes[5][6]), overlapping.get(0));
+	}
+
+	/**
+	 * An area inside a labelled shape with a transparent fill must draw the shape,
+	 * for its label, but must not select it.
+	 */
+	public void testLabelledShape() {
+		PathwayModel p = new PathwayModel();
+		Shape cell = new Shape();
+		cell.setShapeType(ShapeType.CELL);
+		cell.setTextLabel("cell");
+		cell.setCenterX(500);
+		cell.setCenterY(500);
+		cell.setWidth(800);
+		cell.setHeight(800);
+		p.add(cell);
+		VPathwayModel v = new VPathwayModel(null);
+		v.fromModel(p);
+		VElement e = v.getPathwayElementView(cell);
+		Rectangle2D inside = new Rectangle2D.Double(v.vFromM(400), v.vFromM(400), v.vFromM(200), v.vFromM(200));
+		assertTrue(e.isDrawnIn(inside));
+		assertFalse(e.vIntersects(inside));
+
+		cell.setTextLabel("");
+		assertFalse(e.isDrawnIn(inside));
+	}
+
+	private Point2D randomPoint(Random random) {
+		Dimension size = vPwy.calculateVSize();
+		return new Point2D.Double(random.nextDouble() * size.width, random.nextDouble() * size.height);
+	}
+
+	private List<VElement> sortedObjects() {
+		List<VElement> objects = new ArrayList<VElement>(vPwy.getDrawingObjects());
+		Collections.sort(objects);
+		return objects;
+	}
+
+	/**
+	 * The scan of all drawing objects which was used before the spatial index.
+	 */
+	private VElement linearObjectAt(List<VElement> objects, Point2D p2d) {
+		int zmax = Integer.MIN_VALUE;
+		VElement probj = null;
+		for (VElement o : objects) {
+			if (o.vContains(p2d) && o.getZOrder() > zmax) {
+				probj = o;
+				zmax = o.getZOrder();
+			}
+		}
+		if (probj == null) {
+			Rectangle2D fuzz = new Rectangle2D.Double(p2d.getX() - 8, p2d.getY() - 8, 16, 16);
+			for (VElement o : objects) {
+				if (o.vIntersects(fuzz) && o.getZOrder() > zmax) {
+					probj = o;
+					zmax = o.getZOrder();
+				}
+			}
+		}
+		return probj;
+	}
+
+	private List<VElement> linearObjectsIn(List<VElement> objects, Rectangle2D area) {
+		List<VElement> result = new ArrayList<VElement>();
+		for (VElement o : objects) {
+			if (o.getVBounds().intersects(area)) {
+				result.add(o);
+			}
+		}
+		return result;
+	}
+
+		private List<VElement> linearObjectsAt(List<VElement> objects, Point2D p2d) {
+		List<VElement> result = new ArrayList<VElement>();
+		for (VElement o : objects) {
+			if (o.vContains(p2d)) {
+				result.add(o);
+			}
+		}
+		return result;
+	}
+
+}
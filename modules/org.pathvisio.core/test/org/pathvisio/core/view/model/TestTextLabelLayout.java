@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.view.model;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.pathvisio.core.preferences.PreferenceManager;
+import org.pathvisio.libgpml.model.Label;
+import org.pathvisio.libgpml.model.PathwayModel;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that the layout of a text label is kept between paints, and made again
+ * when the label, font or zoom factor change.
+ */
+public class TestTextLabelLayout extends TestCase {
+
+	private Label label;
+	private VShapedElement vLabel;
+	private VPathwayModel vPwy;
+	private Graphics2D g;
+
+	public void setUp() {
+		PreferenceManager.init();
+		PathwayModel pwy = new PathwayModel();
+		label = new Label("first line\nsecond line");
+		label.setCenterX(100);
+		label.setCenterY(100);
+		label.setWidth(100);
+		label.setHeight(40);
+		pwy.add(label);
+		vPwy = new VPathwayModel(null);
+		vPwy.fromModel(pwy);
+		vLabel = (VShapedElement) vPwy.getPathwayElementView(label);
+		g = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB).createGraphics();
+	}
+
+	public void tearDown() {
+		g.dispose();
+	}
+
+	private TextLabelLayout layout() {
+		return vLabel.getTextLabelLayout(label.getTextLabel(), g);
+	}
+
+	public void testReuse() {
+		TextLabelLayout layout = layout();
+		assertEquals(2, layout.getLineCount());
+		assertSame(layout, layout());
+		assertSame(vLabel.getVFont(), vLabel.getVFont());
+
+		// color and position don't change the layout
+		label.setTextColor(Color.RED);
+		label.setCenterX(150);
+		assertSame(layout, layout());
+	}
+
+	public void testInvalidate() {
+		TextLabelLayout layout = layout();
+		label.setTextLabel("other");
+		TextLabelLayout changed = layout();
+		assertNotSame(layout, changed);
+		assertEquals(1, changed.getLineCount());
+
+		double width = changed.getBounds(0).getWidth();
+		label.setFontSize(label.getFontSize() * 2);
+		layout = layout();
+		assertNotSame(changed, layout);
+		assertTrue(layout.getBounds(0).getWidth() > width);
+
+		width = layout.getBounds(0).getWidth();
+		vPwy.setPctZoom(50);
+		changed = layout();
+		assertNotSame(layout, changed);
+		assertTrue(changed.getBounds(0).getWidth() < width);
+	}
+}
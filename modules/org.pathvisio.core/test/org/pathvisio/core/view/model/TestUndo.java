@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.view.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.pathvisio.core.Engine;
+import org.pathvisio.core.preferences.PreferenceManager;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.DataNode.State;
+import org.pathvisio.libgpml.model.Group;
+import org.pathvisio.libgpml.model.Interaction;
+import org.pathvisio.libgpml.model.Label;
+import org.pathvisio.libgpml.model.LineElement.LinePoint;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.type.AnnotationType;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.model.type.GroupType;
+import org.pathvisio.libgpml.model.type.StateType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests undo and redo of the {@link UndoManager} in delta mode.
+ */
+public class TestUndo extends TestCase {
+
+	private PathwayModel pwy;
+	private VPathwayModel vPwy;
+	private UndoManager undoManager;
+	private DataNode node;
+	private DataNode other;
+	private Interaction line;
+
+	public void setUp() {
+		PreferenceManager.init();
+		pwy = new PathwayModel();
+		node = createDataNode("node", 100, 100);
+		other = createDataNode("other", 300, 100);
+		line = new Interaction();
+		pwy.add(line);
+		List<LinePoint> points = new ArrayList<LinePoint>();
+		points.add(line.new LinePoint(0, 0));
+		points.add(line.new LinePoint(10, 10));
+		line.setLinePoints(points);
+		line.getStartLinePoint().linkTo(other, -1.0, 0.0);
+		line.getEndLinePoint().linkTo(node, 1.0, 0.0);
+		vPwy = new VPathwayModel(null);
+		vPwy.fromModel(pwy);
+		undoManager = vPwy.getUndoManager();
+		undoManager.activate(new Engine());
+		undoManager.setDeltaMode(true);
+	}
+
+	private DataNode createDataNode(String label, double x, double y) {
+		DataNode d = new DataNode(label, DataNodeType.GENEPRODUCT);
+		d.setCenterX(x);
+		d.setCenterY(y);
+		d.setWidth(80);
+		d.setHeight(20);
+		pwy.add(d);
+		return d;
+	}
+
+	public void testProperty() {
+		undoManager.newAction("Move");
+		for (int i = 1; i <= 10; i++) {
+			node.setCenterX(100 + i * 10);
+		}
+		node.setDynamicProperty("key", "value");
+		assertEquals("Move", undoManager.getTopMessage());
+		double endX = line.getEndLinePointX();
+
+		vPwy.undo();
+		assertEquals(100.0, node.getCenterX());
+		assertNull(node.getDynamicProperty("key"));
+		assertEquals(UndoManager.CANT_UNDO, undoManager.getTopMessage());
+		assertEquals("Move", undoManager.getRedoMessage());
+
+		vPwy.redo();
+		assertEquals(200.0, node.getCenterX());
+		assertEquals("value", node.getDynamicProperty("key"));
+		assertEquals(endX, line.getEndLinePointX());
+		assertEquals(UndoManager.CANT_REDO, undoManager.getRedoMessage());
+	}
+
+	public void testMerge() {
+		undoManager.newAction("Move");
+		for (int i = 1; i <= 100; i++) {
+			node.setCenterY(100 + i);
+		}
+		DeltaUndoAction act = (DeltaUndoAction) undoManager.getTopAction();
+		int count = act.getDeltaCount();
+		node.setCenterY(100);
+		node.setCenterY(150);
+		assertEquals(count, act.getDeltaCount());
+		assertTrue(count < 10);
+	}
+
+	public void testRemove() {
+		Group group = new Group(GroupType.GROUP);
+		pwy.add(group);
+		group.addPathwayElement(node);
+		group.addPathwayElement(other);
+		State state = node.addState("P", StateType.PROTEIN_MODIFICATION, 1.0, 1.0);
+		node.addAnnotation("annotation", AnnotationType.ONTOLOGY, null, null);
+
+		undoManager.newAction("Delete");
+		pwy.remove(node);
+		assertFalse(pwy.getDataNodes().contains(node));
+		assertNull(line.getEndElementRef());
+
+		for (int i = 0; i < 2; i++) {
+			vPwy.undo();
+			assertTrue(pwy.getDataNodes().contains(node));
+			assertSame(pwy, node.getPathwayModel());
+			assertSame(group, node.getGroupRef());
+			assertTrue(group.hasPathwayElement(node));
+			assertSame(node, line.getEndElementRef());
+			assertTrue(node.hasState(state));
+			assertSame(pwy, state.getPathwayModel());
+			assertEquals(1, node.getAnnotationRefs().size());
+
+			vPwy.redo();
+			assertFalse(pwy.getDataNodes().contains(node));
+			assertNull(line.getEndElementRef());
+		}
+	}
+
+	public void testAdd() {
+		undoManager.newAction("New Object");
+		Label label = new Label("label");
+		pwy.add(label);
+		label.setCenterX(50);
+		vPwy.undo();
+		assertFalse(pwy.getLabels().contains(label));
+		vPwy.redo();
+		assertTrue(pwy.getLabels().contains(label));
+		assertEquals(50.0, label.getCenterX());
+	}
+
+	public void testNewChangeClearsRedo() {
+		undoManager.newAction("Move");
+		node.setCenterX(500);
+		vPwy.undo();
+		undoManager.newAction("Move again");
+		node.setCenterX(600);
+		assertEquals(UndoManager.CANT_REDO, undoManager.getRedoMessage());
+	}
+
+	public void testMemoryBudget() {
+		for (int i = 0; i < 100; i++) {
+			undoManager.newAction("Move " + i);
+			node.setCenterX(i);
+		}
+		// not limited to MAX_UNDO_SIZE
+		for (int i = 0; i < 50; i++) {
+			vPwy.undo();
+		}
+		assertEquals("Move 49", undoManager.getTopMessage());
+
+		undoManager.setMemoryBudget(undoManager.getMemoryUsed() / 10);
+		assertTrue(undoManager.getMemoryUsed() <= undoManager.getMemoryBudget());
+		undoManager.setMemoryBudget(0);
+		assertEquals(1, undoManager.getActionCount());
+	}
+
+}
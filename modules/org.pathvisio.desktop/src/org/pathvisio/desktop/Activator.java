@@ -21,6 +21,8 @@
 import org.pathvisio.core.Engine;
 import org.pathvisio.core.preferences.PreferenceManager;
 import org.pathvisio.gui.SwingEngine;
+import org.pathvisio.libgpml.debug.SpanRecorder;
+import org.pathvisio.libgpml.debug.SpanRecorder.Span;
 
 /**
  * 
@@ -29,21 +31,39 @@
 public class Activator implements BundleActivator {
 
 	public void start(BundleContext context) throws Exception {
-		// PreferenceManager needs to be initialized before
-		PreferenceManager.init();
+		// prints the startup profile on exit, if asked for on the command line
+		SpanRecorder.dumpOnExitIfRequested();
 
-		// Engine object is created
-		Engine engine = new Engine();
-		SwingEngine swingEngine = new SwingEngine(engine);
+		final PvDesktop pvDesktop;
+		try (Span span = SpanRecorder.getInstance().begin("desktop activator")) {
+			// PreferenceManager needs to be initialized before
+			PreferenceManager.init();
 
-		final PvDesktop pvDesktop = new PvDesktop(swingEngine, context);
-		context.registerService(PvDesktop.class.getName(), pvDesktop, null);
+			// Engine object is created
+			Engine engine = new Engine();
+			SwingEngine swingEngine = new SwingEngine(engine);
+
+			pvDesktop = new PvDesktop(swingEngine, context);
+			context.registerService(PvDesktop.class.getName(), pvDesktop, null);
+		}
 
 		final GuiMain gui = new GuiMain();
 
 		javax.swing.SwingUtilities.invokeLater(new Runnable() {
 			public void run() {
-				gui.init(pvDesktop);
+				if (!Boolean.getBoolean(GuiMain.ARG_PROPERTY_SMOKETEST)) {
+					gui.init(pvDesktop);
+					return;
+				}
+				// smoke test: exit once the main window, databases and plugins have been
+				// initialized, so that the startup profile covers the whole startup
+				try {
+					gui.init(pvDesktop);
+				} catch (Throwable ex) {
+					ex.printStackTrace();
+					System.exit(-1);
+				}
+				System.exit(0);
 			}
 		});
 	}
@@ -17,7 +17,11 @@
 package org.pathvisio.desktop;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Timer;
 import java.util.TimerTask;
 
@@ -32,7 +36,12 @@
 import org.pathvisio.libgpml.model.PathwayModel;
 
 /**
- * Collection of methods for autosave and recovery of PathVisio files
+ * Collection of methods for autosave and recovery of PathVisio files.
+ * <p>
+ * Autosave takes a copy of the active pathway on the GUI thread, and writes the
+ * copy on the timer thread, so the GUI does not freeze while the pathway is
+ * written. The copy is first written to a temporary file, which then replaces
+ * the autosave file, so a crash during autosave does not leave a broken file.
  */
 public class AutoSave {
 	private Timer timer;
@@ -40,6 +49,15 @@ public class AutoSave {
 	private final Engine engine;
 	private final File autoSaveFile = autoSaveFileLocation();
 
+	// guards autoSaveFile, so stopTimer can't race with a running autosave
+	private final Object lock = new Object();
+	private boolean stopped = false;
+
+	// the pathway and modification count of the last autosave, only used on the
+	// GUI thread
+	private PathwayModel lastSaved = null;
+	private long lastSavedCount = -1;
+
 	public AutoSave(SwingEngine se) {
 		engine = se.getEngine();
 		swingEngine = se;
@@ -51,33 +69,82 @@ private File autoSaveFileLocation() {
 		return autoSaveFile;
 	}
 
-	private void autoSaveFile() throws ConverterException {
+	/**
+	 * Takes a snapshot of the active pathway, see {@link PathwayModel#snapshot()},
+	 * if it has changed since it was opened, saved or last autosaved. Must be
+	 * called on the GUI thread.
+	 *
+	 * @return the snapshot, or null if there is nothing to save.
+	 */
+	private PathwayModel takeSnapshot() {
 		PathwayModel p = engine.getActivePathwayModel();
-		if (p != null) {
+		if (p == null || !p.hasChanged()) {
+			return null;
+		}
+		if (p == lastSaved && p.getModificationCount() == lastSavedCount) {
+			return null;
+		}
+		lastSaved = p;
+		lastSavedCount = p.getModificationCount();
+		return p.snapshot();
+	}
+
+	/**
+	 * Writes the snapshot to a temporary file next to the autosave file, and then
+	 * moves it in place.
+	 */
+	private void autoSaveFile(PathwayModel snapshot) throws ConverterException, IOException {
+		File tmp = File.createTempFile("PathVisioAutoSave", ".tmp", autoSaveFile.getParentFile());
+		try {
 			GPMLFormat g = new GPMLFormat(GPMLFormat.GPML2021);
-			g.writeToXml(p, autoSaveFile, true);
-			Logger.log.info("Autosaved");
+			g.writeToXml(snapshot, tmp, true);
+			synchronized (lock) {
+				if (stopped) {
+					return;
+				}
+				try {
+					Files.move(tmp.toPath(), autoSaveFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+							StandardCopyOption.REPLACE_EXISTING);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(tmp.toPath(), autoSaveFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+		} finally {
+			// no-op if the file has been moved
+			tmp.delete();
 		}
 	}
 
 	private class DoSave extends TimerTask {
+		private PathwayModel snapshot;
+
 		public void run() {
 			try {
-				// For reasons of thread-safety, autoSaveFile()
-				// must be called on the GUI thread.
+				long start = System.currentTimeMillis();
+				// For reasons of thread-safety, the pathway
+				// must be copied on the GUI thread.
 				SwingUtilities.invokeAndWait(new Runnable() {
 					public void run() {
-						try {
-							autoSaveFile();
-						} catch (ConverterException e) {
-							Logger.log.error("Autosave failed", e);
-						}
+						snapshot = takeSnapshot();
 					}
 				});
+				if (snapshot == null) {
+					return;
+				}
+				long copied = System.currentTimeMillis();
+				autoSaveFile(snapshot);
+				Logger.log.info("Autosaved in " + (System.currentTimeMillis() - start) + " msec (snapshot on GUI thread "
+						+ (copied - start) + " msec)");
 			} catch (InterruptedException e) {
 				Logger.log.error("Autosave failed", e);
 			} catch (InvocationTargetException e) {
 				Logger.log.error("Autosave failed", e);
+			} catch (ConverterException e) {
+				Logger.log.error("Autosave failed", e);
+			} catch (IOException e) {
+				Logger.log.error("Autosave failed", e);
+			} finally {
+				snapshot = null;
 			}
 		}
 	}
@@ -89,13 +156,19 @@ public void startTimer(int period) {
 		if (autoSaveFile.exists()) {
 			autoRecoveryDlg();
 		}
-		timer = new Timer();
+		synchronized (lock) {
+			stopped = false;
+		}
+		timer = new Timer("AutoSave", true);
 		timer.schedule(new DoSave(), period * 1000, period * 1000);
 	}
 
 	public void stopTimer() {
 		timer.cancel();
-		autoSaveFile.delete();
+		synchronized (lock) {
+			stopped = true;
+			autoSaveFile.delete();
+		}
 	}
 
 	private void autoRecoveryDlg() {
@@ -55,6 +55,8 @@
 import org.pathvisio.gui.SwingEngine;
 import org.pathvisio.gui.SwingEngine.Browser;
 import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.libgpml.debug.SpanRecorder;
+import org.pathvisio.libgpml.debug.SpanRecorder.Span;
 import org.pathvisio.libgpml.model.GPMLFormat;
 
 /**
@@ -87,18 +89,20 @@ private static void initLog(Engine engine) {
 	}
 
 	private void openPathwayFile(String pathwayFile) {
-		File f = new File(pathwayFile);
-		URL url;
-		// Assume the argument is a file
-		if (f.exists()) {
-			swingEngine.openPathwayModel(f);
-		} else {
-			// If it doesn't exist, assume it's an url
-			try {
-				url = new URL(pathwayFile);
-				swingEngine.openPathwayModel(url);
-			} catch (MalformedURLException e) {
-				Logger.log.error("Couldn't open pathway url " + pathwayFile);
+		try (Span span = SpanRecorder.getInstance().begin("open pathway")) {
+			File f = new File(pathwayFile);
+			URL url;
+			// Assume the argument is a file
+			if (f.exists()) {
+				swingEngine.openPathwayModel(f);
+			} else {
+				// If it doesn't exist, assume it's an url
+				try {
+					url = new URL(pathwayFile);
+					swingEngine.openPathwayModel(url);
+				} catch (MalformedURLException e) {
+					Logger.log.error("Couldn't open pathway url " + pathwayFile);
+				}
 			}
 		}
 	}
@@ -108,6 +112,7 @@ private void openPathwayFile(String pathwayFile) {
 	// TODO: find better solution
 	public static final String ARG_PROPERTY_PGEX = "pathvisio.pgex";
 	public static final String ARG_PROPERTY_PATHWAYFILE = "pathvisio.pathwayfile";
+	public static final String ARG_PROPERTY_SMOKETEST = "pathvisio.smoketest";
 
 	/**
 	 * Act upon the command line arguments
@@ -317,51 +322,56 @@ public MainPanel getMainPanel() {
 	}
 
 	public void init(PvDesktop pvDesktop) {
-		this.pvDesktop = pvDesktop;
-
-		Engine engine = pvDesktop.getSwingEngine().getEngine();
-		initLog(engine);
-		engine.setApplicationName("PathVisio " + Engine.getVersion());
-		if (PreferenceManager.getCurrent().getBoolean(GlobalPreference.USE_SYSTEM_LOOK_AND_FEEL)) {
-			try {
-				UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-			} catch (Exception ex) {
-				Logger.log.error("Unable to load native look and feel", ex);
-			}
-		}
+		try (Span span = SpanRecorder.getInstance().begin("GuiMain.init")) {
+			this.pvDesktop = pvDesktop;
 
-		swingEngine = pvDesktop.getSwingEngine();
-		swingEngine.setUrlBrowser(new Browser() {
-			public void openUrl(URL url) {
+			Engine engine = pvDesktop.getSwingEngine().getEngine();
+			initLog(engine);
+			engine.setApplicationName("PathVisio " + Engine.getVersion());
+			if (PreferenceManager.getCurrent().getBoolean(GlobalPreference.USE_SYSTEM_LOOK_AND_FEEL)) {
 				try {
-					if (Desktop.isDesktopSupported()) {
-						Desktop.getDesktop().browse(url.toURI());
-					} else {
-						new JOptionPane("Could not open default browser.\n Please go to\n" + url + "\nin your browser.",
-								JOptionPane.WARNING_MESSAGE);
-					}
+					UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
 				} catch (Exception ex) {
-					Logger.log.error("Couldn't open url '" + url + "'", ex);
+					Logger.log.error("Unable to load native look and feel", ex);
 				}
 			}
-		});
 
-		swingEngine.getGdbManager().initPreferred();
+			swingEngine = pvDesktop.getSwingEngine();
+			swingEngine.setUrlBrowser(new Browser() {
+				public void openUrl(URL url) {
+					try {
+						if (Desktop.isDesktopSupported()) {
+							Desktop.getDesktop().browse(url.toURI());
+						} else {
+							new JOptionPane("Could not open default browser.\n Please go to\n" + url + "\nin your browser.",
+									JOptionPane.WARNING_MESSAGE);
+						}
+					} catch (Exception ex) {
+						Logger.log.error("Couldn't open url '" + url + "'", ex);
+					}
+				}
+			});
+
+			swingEngine.getGdbManager().initPreferred();
 
-		mainPanel = new MainPanelStandalone(pvDesktop);
-		mainPanel.createAndShowGUI();
+			JFrame frame;
+			try (Span window = SpanRecorder.getInstance().begin("create main window")) {
+				mainPanel = new MainPanelStandalone(pvDesktop);
+				mainPanel.createAndShowGUI();
 
-		JFrame frame = createAndShowGUI(mainPanel, swingEngine);
-		initImporters(engine);
-		initExporters(engine, swingEngine.getGdbManager());
-		swingEngine.setFrame(frame);
-		swingEngine.setApplicationPanel(mainPanel);
+				frame = createAndShowGUI(mainPanel, swingEngine);
+			}
+			initImporters(engine);
+			initExporters(engine, swingEngine.getGdbManager());
+			swingEngine.setFrame(frame);
+			swingEngine.setApplicationPanel(mainPanel);
 
-		// start the autosave timer
-		auto = new AutoSave(swingEngine);
-		auto.startTimer(300);
+			// start the autosave timer
+			auto = new AutoSave(swingEngine);
+			auto.startTimer(300);
 
-		processOptions();
+			processOptions();
+		}
 	}
 
 	/**
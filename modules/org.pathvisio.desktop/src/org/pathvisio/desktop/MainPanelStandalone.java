@@ -94,6 +94,7 @@ protected void addMenuActions(JMenuBar mb) {
 		// ========================================
 		JMenu editMenu = new JMenu("Edit");
 		addToMenu(actions.undoAction, editMenu);
+		addToMenu(actions.redoAction, editMenu);
 		addToMenu(actions.copyAction, editMenu);
 		addToMenu(actions.pasteAction, editMenu);
 		addToMenu(standaloneActions.searchAction, editMenu);
@@ -175,7 +176,7 @@ public void createAndShowGUI() {
 		dpt = new DataPaneTextProvider();
 
 		// data hook for showing basic annotation and expression data on the data panel
-		dpt.addDataHook(new BackpageAttributes(swingEngine.getGdbManager().getCurrentGdb()));
+		dpt.addDataHook(new BackpageAttributes(swingEngine.getGdbManager().getCachedGdb()));
 		DataPane dataPane = new DataPane(dpt, swingEngine.getEngine());
 		dataPane.addHyperlinkListener(swingEngine);
 		sidebarTabbedPane.addTab("Data", new JScrollPane(dataPane));
@@ -103,6 +103,11 @@ public void initPanels() {
 						"Use Java System look-and-feel at program start")
 				.booleanField(GlobalPreference.ENABLE_DOUBLE_BUFFERING,
 						"Enable double-buffering (pathway is drawn slower, but flickerless)")
+				.booleanField(GlobalPreference.UNDO_DELTA_MODE,
+						"Record changes for undo instead of copying the pathway (for newly opened pathways)")
+				.booleanField(GlobalPreference.ENABLE_TILE_CACHE,
+						"Cache the rendered pathway in tiles, for faster scrolling (for newly opened pathways)")
+				.integerField(GlobalPreference.TILE_CACHE_SIZE, "Memory for cached tiles (MB)", 1, 4096)
 				.build());
 
 		preferencesDlg.addPanel("Display.Colors",
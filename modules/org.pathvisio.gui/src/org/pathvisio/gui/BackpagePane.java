@@ -52,6 +52,8 @@
  * It uses a BackpageTextProvider to generate the html content, which has to be
  * inserted at construction time. Backpage generation may take a noticable
  * amount of time, therefore this task is always done in a background thread.
+ * When a pathway is opened, the backpages of all of its elements are looked up
+ * in advance by a {@link BackpagePrefetcher}.
  * <p>
  * It is the responsibility of the instantiator to also call the dispose()
  * method, otherwise the background thread is not killed.
@@ -63,6 +65,7 @@ public class BackpagePane extends JEditorPane
 	private final BackpageTextProvider bpt;
 	private Engine engine;
 	private ExecutorService executor;
+	private final BackpagePrefetcher prefetcher;
 
 	public BackpagePane(BackpageTextProvider bpt, Engine engine) {
 		super();
@@ -79,6 +82,9 @@ public BackpagePane(BackpageTextProvider bpt, Engine engine) {
 		this.bpt = bpt;
 
 		executor = Executors.newSingleThreadExecutor();
+		prefetcher = new BackpagePrefetcher(bpt, BackpagePrefetcher.DEFAULT_THREADS);
+		if (vp != null)
+			prefetcher.prefetch(vp.getPathwayModel());
 
 		// Workaround for #1313
 		// Cause is java bug: http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=6993691
@@ -122,12 +128,19 @@ private void doQuery() {
 			currRef = ((Xrefable) input).getXref();
 		}
 		// TODO do the rest if not Xrefable???
+		// the prefetcher waits until the query is done
+		prefetcher.beginQuery();
 		executor.execute(new Runnable() {
 			public void run() {
-				if (input == null) {
-					return;
+				final String txt;
+				try {
+					if (input == null) {
+						return;
+					}
+					txt = bpt.getBackpageHTML(input);
+				} finally {
+					prefetcher.endQuery();
 				}
-				final String txt = bpt.getBackpageHTML(input);
 				SwingUtilities.invokeLater(new Runnable() {
 					public void run() {
 						setText(txt);
@@ -167,9 +180,11 @@ public void applicationEvent(ApplicationEvent e) {
 		switch (e.getType()) {
 		case VPATHWAY_CREATED:
 			((VPathwayModel) e.getSource()).addSelectionListener(this);
+			prefetcher.prefetch(((VPathwayModel) e.getSource()).getPathwayModel());
 			break;
 		case VPATHWAY_DISPOSED:
 			((VPathwayModel) e.getSource()).removeSelectionListener(this);
+			prefetcher.cancel(((VPathwayModel) e.getSource()).getPathwayModel());
 			// remove content of backpage when pathway is closed
 			input = null;
 			setText(bpt.getBackpageHTML(null));
@@ -202,6 +217,7 @@ public void dispose() {
 		if (vpwy != null)
 			vpwy.removeSelectionListener(this);
 		executor.shutdown();
+		prefetcher.dispose();
 		disposed = true;
 	}
 }
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.gui;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.bridgedb.Xref;
+import org.pathvisio.core.data.BulkIDMapper;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.PathwayObject;
+import org.pathvisio.libgpml.model.Xrefable;
+import org.pathvisio.libgpml.util.XrefUtils;
+
+/**
+ * Looks up the backpages of all elements of a pathway in the background when the
+ * pathway is opened, so that the first click on an element doesn't wait for the
+ * databases. This only helps when the hooks of the {@link BackpageTextProvider}
+ * remember their results, like the hooks that use
+ * {@link org.pathvisio.core.data.GdbManager#getCachedGdb()}.
+ * <p>
+ * The backpages are looked up on a small pool of low priority threads. Lookups
+ * wait while an interactive query is running, see {@link #beginQuery()}, and are
+ * cancelled when the pathway is closed.
+ */
+public class BackpagePrefetcher {
+
+	public static final int DEFAULT_THREADS = 2;
+
+	private final BackpageTextProvider bpt;
+	private final ExecutorService executor;
+
+	// guarded by this
+	private final Map<PathwayModel, AtomicBoolean> running = new HashMap<PathwayModel, AtomicBoolean>();
+	private int queries = 0;
+
+	/**
+	 * @param bpt     the text provider to look up backpages with.
+	 * @param threads the number of threads.
+	 */
+	public BackpagePrefetcher(BackpageTextProvider bpt, int threads) {
+		this.bpt = bpt;
+		executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "Backpage prefetch");
+						t.setDaemon(true);
+						t.setPriority(Thread.MIN_PRIORITY);
+						return t;
+					}
+				});
+	}
+
+	/**
+	 * Starts looking up the backpages of all elements of the given pathway that
+	 * have an xref. The cross references of all elements are looked up at once
+	 * first, see {@link BackpageTextProvider#prefetch(Collection)}. The elements
+	 * and xrefs are collected on the calling thread, the pathway is not read in the
+	 * background.
+	 *
+	 * @param pathway the pathway that was opened.
+	 */
+	public void prefetch(final PathwayModel pathway) {
+		final AtomicBoolean cancelled = new AtomicBoolean(false);
+		synchronized (this) {
+			AtomicBoolean old = running.put(pathway, cancelled);
+			if (old != null) {
+				old.set(true);
+			}
+		}
+		// collect the elements now, the pathway may change later
+		final List<PathwayObject> elements = new ArrayList<PathwayObject>();
+		for (PathwayObject o : pathway.getPathwayObjects()) {
+			if (o instanceof Xrefable && XrefUtils.getDataSource(((Xrefable) o).getXref()) != null) {
+				elements.add(o);
+			}
+		}
+		if (elements.isEmpty()) {
+			return;
+		}
+		final Set<Xref> xrefs = BulkIDMapper.getXrefs(pathway);
+		executor.execute(new Runnable() {
+			public void run() {
+				if (!waitForQueries(cancelled)) {
+					return;
+				}
+				bpt.prefetch(xrefs);
+				for (final PathwayObject o : elements) {
+					executor.execute(new Runnable() {
+						public void run() {
+							if (waitForQueries(cancelled)) {
+								bpt.getBackpageHTML(o);
+							}
+						}
+					});
+				}
+			}
+		});
+	}
+
+	/**
+	 * Stops looking up the backpages of the given pathway, e.g. because it was
+	 * closed.
+	 */
+	public synchronized void cancel(PathwayModel pathway) {
+		AtomicBoolean cancelled = running.remove(pathway);
+		if (cancelled != null) {
+			cancelled.set(true);
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Call this before an interactive query, e.g. for the selected element. The
+	 * background lookups wait until {@link #endQuery()} has been called.
+	 */
+	public synchronized void beginQuery() {
+		queries++;
+	}
+
+	/**
+	 * Call this after an interactive query.
+	 */
+	public synchronized void endQuery() {
+		queries--;
+		notifyAll();
+	}
+
+	/**
+	 * Waits until no interactive queries are running.
+	 *
+	 * @return false if the lookup was cancelled in the meantime.
+	 */
+	private synchronized boolean waitForQueries(AtomicBoolean cancelled) {
+		try {
+			while (queries > 0 && !cancelled.get()) {
+				wait();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		return !cancelled.get();
+	}
+
+	/**
+	 * Cancels all lookups and stops the threads.
+	 */
+	public void dispose() {
+		synchronized (this) {
+			for (AtomicBoolean cancelled : running.values()) {
+				cancelled.set(true);
+			}
+			running.clear();
+			notifyAll();
+		}
+		executor.shutdownNow();
+	}
+}
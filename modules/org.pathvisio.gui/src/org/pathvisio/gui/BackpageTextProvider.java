@@ -19,6 +19,7 @@
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -30,6 +31,7 @@
 import org.bridgedb.IDMapper;
 import org.bridgedb.IDMapperException;
 import org.bridgedb.Xref;
+import org.pathvisio.core.data.BulkIDMapper;
 import org.pathvisio.core.util.Resources;
 import org.pathvisio.gui.DataPaneTextProvider.DataHook;
 import org.pathvisio.libgpml.debug.Logger;
@@ -38,6 +40,7 @@
 import org.pathvisio.libgpml.model.DataNode;
 import org.pathvisio.libgpml.model.DataNode.State;
 import org.pathvisio.libgpml.model.Group;
+import org.pathvisio.libgpml.model.PathwayModel;
 import org.pathvisio.libgpml.model.Xrefable;
 import org.pathvisio.libgpml.model.type.ObjectType;
 import org.pathvisio.libgpml.util.Utils;
@@ -163,6 +166,20 @@ public BackpageXrefs(IDMapper mapper) {
 			gdb = mapper;
 		}
 
+		/**
+		 * Maps the xrefs of all elements of a pathway at once with a
+		 * {@link BulkIDMapper}. This only helps when the mapper remembers the results,
+		 * like {@link org.pathvisio.core.data.GdbManager#getCachedGdb()}, so that the
+		 * backpages of these elements don't need a query each.
+		 *
+		 * @param xrefs the xrefs of the pathway, see
+		 *              {@link BulkIDMapper#getXrefs(PathwayModel)}.
+		 */
+		@WorkerThreadOnly
+		public void mapAll(Collection<Xref> xrefs) throws IDMapperException {
+			new BulkIDMapper(gdb).mapID(xrefs);
+		}
+
 		public String getHtml(PathwayObject e) {
 			try {
 				Xref xref = ((Xrefable) e).getXref();
@@ -248,6 +265,27 @@ public String getBackpageHTML(PathwayObject e) {
 		return builder.toString();
 	}
 
+	/**
+	 * Maps the xrefs of all elements of a pathway at once, for each registered
+	 * {@link BackpageXrefs} hook. Used by {@link BackpagePrefetcher} before the
+	 * backpages of the elements are generated one by one.
+	 *
+	 * @param xrefs the xrefs of the pathway, collected on the thread that owns the
+	 *              pathway.
+	 */
+	@WorkerThreadOnly
+	public void prefetch(Collection<Xref> xrefs) {
+		for (BackpageHook h : hooks) {
+			if (h instanceof BackpageXrefs) {
+				try {
+					((BackpageXrefs) h).mapAll(xrefs);
+				} catch (IDMapperException ex) {
+					Logger.log.error("Unable to map the xrefs of the pathway", ex);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Header file, containing style information
 	 */
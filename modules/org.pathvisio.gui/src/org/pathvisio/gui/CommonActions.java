@@ -106,6 +106,7 @@ public void applicationEvent(ApplicationEvent e) {
 	public final Action exportAction;
 
 	public final ViewActions.UndoAction undoAction;
+	public final ViewActions.RedoAction redoAction;
 	public final Action copyAction;
 	public final Action pasteAction;
 	public final Action[] applyThemeActions; // TODO
@@ -146,6 +147,7 @@ public CommonActions(SwingEngine se) {
 		standaloneSaveAsAction = new SaveAction(se, false, true);
 
 		undoAction = new ViewActions.UndoAction(se.getEngine());
+		redoAction = new ViewActions.RedoAction(se.getEngine());
 		copyAction = new ViewActions.CopyAction(se.getEngine());
 		pasteAction = new ViewActions.PasteAction(se.getEngine());
 		applyThemeActions = new Action[] { new ApplyThemeAction(se.getEngine(), Theme.WIKIPATHWAYS) }; // TODO
@@ -137,6 +137,7 @@ protected void addMenuActions(JMenuBar mb) {
 
 		JMenu editMenu = new JMenu("Edit");
 		addToMenu(actions.undoAction, editMenu);
+		addToMenu(actions.redoAction, editMenu);
 		addToMenu(actions.copyAction, editMenu);
 		addToMenu(actions.pasteAction, editMenu);
 		editMenu.addSeparator();
@@ -234,8 +235,8 @@ public TableCellEditor getCellEditor(int row, int column) {
 		propertiesScrollPane = new JScrollPane(propertyTable);
 
 		bpt = new BackpageTextProvider();
-		bpt.addBackpageHook(new BackpageAttributes(swingEngine.getGdbManager().getCurrentGdb()));
-		bpt.addBackpageHook(new BackpageXrefs(swingEngine.getGdbManager().getCurrentGdb()));
+		bpt.addBackpageHook(new BackpageAttributes(swingEngine.getGdbManager().getCachedGdb()));
+		bpt.addBackpageHook(new BackpageXrefs(swingEngine.getGdbManager().getCachedGdb()));
 
 		backpagePane = new BackpagePane(bpt, swingEngine.getEngine());
 		backpagePane.addHyperlinkListener(swingEngine);
@@ -331,6 +332,7 @@ protected void addCommonToolbarActions(final SwingEngine swingEngine, JToolBar t
 		addToToolbar(actions.pasteAction);
 		tb.addSeparator();
 		addToToolbar(actions.undoAction);
+		addToToolbar(actions.redoAction);
 		tb.addSeparator();
 
 		// zoom drop-down
@@ -173,6 +173,25 @@ public boolean processTask(ProgressKeeper pk, ProgressDialog d, SwingWorker<Bool
 		}
 	}
 
+	/**
+	 * Shows the warnings about the file of the pathway that was just opened or
+	 * imported, if any.
+	 * 
+	 * @param opened true if the pathway was opened successfully.
+	 * @return opened.
+	 */
+	private boolean showLoadWarnings(boolean opened) {
+		if (opened && !engine.getLoadWarnings().isEmpty()) {
+			StringBuilder msg = new StringBuilder();
+			for (String w : engine.getLoadWarnings()) {
+				msg.append(w).append("\n");
+			}
+			JOptionPane.showMessageDialog(getApplicationPanel(), msg.toString().trim(), "Warning",
+					JOptionPane.WARNING_MESSAGE);
+		}
+		return opened;
+	}
+
 	public boolean openPathwayModel(final URL url) {
 		final ProgressKeeper pk = new ProgressKeeper();
 		final ProgressDialog d = new ProgressDialog(JOptionPane.getFrameForComponent(getApplicationPanel()), "", pk,
@@ -194,7 +213,7 @@ protected Boolean doInBackground() {
 			}
 		};
 
-		return processTask(pk, d, sw);
+		return showLoadWarnings(processTask(pk, d, sw));
 	}
 
 	public boolean openPathwayModel(final File f) {
@@ -218,7 +237,7 @@ protected Boolean doInBackground() {
 			}
 		};
 
-		return processTask(pk, d, sw);
+		return showLoadWarnings(processTask(pk, d, sw));
 	}
 
 	public boolean importPathwayModel(final File f) {
@@ -244,7 +263,7 @@ protected Boolean doInBackground() {
 			}
 		};
 
-		return processTask(pk, d, sw);
+		return showLoadWarnings(processTask(pk, d, sw));
 
 	}
 
@@ -341,8 +360,8 @@ public boolean exportPathwayModel(final File f, final String exporterName) {
 			final ProgressKeeper pk = new ProgressKeeper();
 			final ProgressDialog d = new ProgressDialog(JOptionPane.getFrameForComponent(getApplicationPanel()), "", pk,
 					false, true);
-			// create a clone so we can safely act on it in a worker thread.
-			final PathwayModel clone = engine.getActivePathwayModel().clone();
+			// take a snapshot so we can safely act on it in a worker thread.
+			final PathwayModel snapshot = engine.getActivePathwayModel().snapshot();
 
 			SwingWorker<Boolean, Boolean> sw = new SwingWorker<Boolean, Boolean>() {
 				private List<String> warnings;
@@ -351,7 +370,7 @@ public boolean exportPathwayModel(final File f, final String exporterName) {
 				protected Boolean doInBackground() {
 					try {
 						pk.setTaskName("Exporting pathway");
-						warnings = engine.exportPathwayModel(f, clone, exporterName);
+						warnings = engine.exportPathwayModel(f, snapshot, exporterName);
 						return true;
 					} catch (Exception e) {
 						handleConverterException(e.getMessage(), frame, e);
@@ -386,8 +405,8 @@ public boolean exportPathwayModel(final File f) {
 			final ProgressDialog d = new ProgressDialog(JOptionPane.getFrameForComponent(getApplicationPanel()), "", pk,
 					false, true);
 
-			// create a clone so we can safely act on it in a worker thread.
-			final PathwayModel clone = engine.getActivePathwayModel().clone();
+			// take a snapshot so we can safely act on it in a worker thread.
+			final PathwayModel snapshot = engine.getActivePathwayModel().snapshot();
 
 			SwingWorker<Boolean, Boolean> sw = new SwingWorker<Boolean, Boolean>() {
 				private List<String> warnings;
@@ -396,7 +415,7 @@ public boolean exportPathwayModel(final File f) {
 				protected Boolean doInBackground() {
 					try {
 						pk.setTaskName("Exporting pathway");
-						warnings = engine.exportPathwayModel(f, clone);
+						warnings = engine.exportPathwayModel(f, snapshot);
 						return true;
 					} catch (ConverterException e) {
 						handleConverterException(e.getMessage(), frame, e);
@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.gui.completer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.pathvisio.libgpml.debug.Logger;
+
+/**
+ * Queries an {@link OptionProvider} for the text that is being typed, in the
+ * background. A query is only started when the text hasn't changed for a short
+ * delay, so typing a word doesn't query the database for each letter, and a
+ * query that is superseded by a newer one is dropped: if it was still waiting
+ * it is cancelled, otherwise its result is ignored.
+ * <p>
+ * The options are cached per text, for a limited number of texts. When the
+ * provider is {@link OptionProvider#isPrefixFilterable() prefix filterable},
+ * the options for a text are found by filtering the cached options of the
+ * longest cached prefix of the text, without querying the provider.
+ */
+public class CompleterQueryExecutor {
+
+	/**
+	 * Receives the options for a text.
+	 */
+	public interface OptionListener {
+		/**
+		 * Called with the options for the latest text. This is called from a
+		 * background thread when the provider was queried, or from the thread that
+		 * called {@link CompleterQueryExecutor#query(String)} when the options were
+		 * cached.
+		 */
+		void optionsFound(String text, List<String> options);
+	}
+
+	public static final long DEFAULT_DELAY = 200;
+	public static final int DEFAULT_CACHE_SIZE = 50;
+
+	/** one thread for all completers, only one of them is typed in at a time */
+	private static final ScheduledExecutorService SCHEDULER = Executors
+			.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "Completer query");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+
+	private final OptionProvider provider;
+	private final OptionListener listener;
+	private final Map<String, List<String>> cache;
+
+	private volatile long delay = DEFAULT_DELAY;
+	private volatile boolean caseSensitive = false;
+
+	// guarded by this
+	private long generation = 0;
+	private Future<?> pending;
+	private int queries = 0;
+
+	/**
+	 * @param provider  the provider to query.
+	 * @param listener  the listener that receives the options.
+	 * @param cacheSize the maximum number of texts to cache the options for.
+	 */
+	public CompleterQueryExecutor(OptionProvider provider, OptionListener listener, final int cacheSize) {
+		this.provider = provider;
+		this.listener = listener;
+		// access order, so the eldest entry is the least recently used one
+		cache = new LinkedHashMap<String, List<String>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * Sets how long the text must be unchanged before the provider is queried, in
+	 * milliseconds. Default is {@link #DEFAULT_DELAY}.
+	 */
+	public void setDelay(long millis) {
+		delay = millis;
+	}
+
+	public long getDelay() {
+		return delay;
+	}
+
+	/**
+	 * Sets whether cached options are filtered case sensitively. Default is false.
+	 */
+	public void setCaseSensitive(boolean caseSensitive) {
+		this.caseSensitive = caseSensitive;
+	}
+
+	/**
+	 * @return the number of times the provider was queried.
+	 */
+	public synchronized int getQueryCount() {
+		return queries;
+	}
+
+	/**
+	 * Finds the options for the given text, from the cache if possible, otherwise
+	 * by querying the provider after the delay. Supersedes all earlier queries.
+	 */
+	public void query(final String text) {
+		final long current;
+		List<String> options;
+		synchronized (this) {
+			current = ++generation;
+			if (pending != null) {
+				pending.cancel(false);
+				pending = null;
+			}
+			options = getCached(text);
+			if (options == null) {
+				pending = SCHEDULER.schedule(new Runnable() {
+					public void run() {
+						runQuery(text, current);
+					}
+				}, delay, TimeUnit.MILLISECONDS);
+			}
+		}
+		if (options != null) {
+			listener.optionsFound(text, options);
+		}
+	}
+
+	/**
+	 * Cancels the latest query, e.g. when the text field is no longer used.
+	 */
+	public synchronized void cancel() {
+		generation++;
+		if (pending != null) {
+			pending.cancel(false);
+			pending = null;
+		}
+	}
+
+	/**
+	 * Forgets all cached options.
+	 */
+	public synchronized void clear() {
+		cache.clear();
+	}
+
+	private synchronized boolean isCurrent(long g) {
+		return g == generation;
+	}
+
+	private void runQuery(String text, long g) {
+		if (!isCurrent(g)) {
+			return;
+		}
+		List<String> options;
+		try {
+			synchronized (this) {
+				queries++;
+			}
+			options = sort(provider.provideOptions(text));
+		} catch (RuntimeException e) {
+			Logger.log.error("Unable to query completion options for " + text, e);
+			return;
+		}
+		synchronized (this) {
+			cache.put(text, options);
+			if (g != generation) {
+				return;
+			}
+			pending = null;
+		}
+		listener.optionsFound(text, options);
+	}
+
+	/**
+	 * Returns the cached options for the given text, or filters those of a
+	 * shorter prefix if the provider allows it. Returns null if the provider must
+	 * be queried.
+	 */
+	private synchronized List<String> getCached(String text) {
+		List<String> options = cache.get(text);
+		if (options != null || !provider.isPrefixFilterable()) {
+			return options;
+		}
+		for (int i = text.length() - 1; i >= 0; i--) {
+			List<String> shorter = cache.get(text.substring(0, i));
+			if (shorter != null) {
+				options = new ArrayList<String>();
+				for (String o : shorter) {
+					if (o.regionMatches(!caseSensitive, 0, text, 0, text.length())) {
+						options.add(o);
+					}
+				}
+				options = Collections.unmodifiableList(options);
+				cache.put(text, options);
+				return options;
+			}
+		}
+		return null;
+	}
+
+	private static List<String> sort(List<String> options) {
+		if (options == null) {
+			return Collections.emptyList();
+		}
+		List<String> result = new ArrayList<String>();
+		for (String o : options) {
+			if (o != null) {
+				result.add(o);
+			}
+		}
+		return Collections.unmodifiableList(new ArrayList<String>(new TreeSet<String>(result)));
+	}
+}
@@ -18,86 +18,69 @@
 
 import com.jroller.completer.CompleterFilterWithWindow;
 
-import java.util.HashSet;
-import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.List;
 
+import javax.swing.SwingUtilities;
 import javax.swing.text.AttributeSet;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.JTextComponent;
 
+import org.pathvisio.gui.completer.CompleterQueryExecutor.OptionListener;
+
 /**
  * A completer filter that queries the completion options via
- * an {@link OptionProvider}.
+ * an {@link OptionProvider}. The queries are done by a
+ * {@link CompleterQueryExecutor}, so they wait until the user stops typing
+ * and the options of recent texts are cached.
  * @see CompleterFilterWithWindow
  * @author thomas
  *
  */
 public class CompleterQueryFilter extends CompleterFilterWithWindow {
 	OptionProvider optionProvider;
-	SortedSet<Object> options = new TreeSet<Object>();
-	Set<String> history = new HashSet<String>();
-
-	QueryThread t = new QueryThread();
+	CompleterQueryExecutor executor;
 
 	public CompleterQueryFilter(JTextComponent textField) {
 		super(new Object[0], textField);
 	}
 	public CompleterQueryFilter(JTextComponent textField, OptionProvider optionProvider) {
 		this(textField);
-		this.optionProvider = optionProvider;
+		setOptionProvider(optionProvider);
 	}
 
 	public void setOptionProvider(OptionProvider optionProvider) {
 		this.optionProvider = optionProvider;
+		if(executor != null) executor.cancel();
+		executor = null;
+		if(optionProvider != null) {
+			executor = new CompleterQueryExecutor(optionProvider, new OptionListener() {
+				public void optionsFound(final String text, final List<String> options) {
+					SwingUtilities.invokeLater(new Runnable() {
+						public void run() {
+							// ignore options for text that was changed in the meantime
+							if(text.equals(_preText)) {
+								setCompleterMatches(options.toArray());
+								if(_list != null) _list.validate();
+							}
+						}
+					});
+				}
+			}, CompleterQueryExecutor.DEFAULT_CACHE_SIZE);
+			executor.setCaseSensitive(isCaseSensitive());
+		}
+	}
+
+	public void setCaseSensitive(boolean caseSensitive) {
+		super.setCaseSensitive(caseSensitive);
+		if(executor != null) executor.setCaseSensitive(caseSensitive);
 	}
 
 	public void replace(FilterBypass filterBypass, int offset, int length,
 			String string, AttributeSet attributeSet)
 	throws BadLocationException {
 		super.replace(filterBypass, offset, length, string, attributeSet);
-		if(!history.contains(_preText)) {
-			if(t.isAlive()) {
-				t.symbolChanged();
-			} else {
-				t = new QueryThread();
-				t.start();
-			}
-		}
-		history.add(_preText);
-	}
-
-	/**
-	 * Thread to process the queries to provide the options
-	 * for the auto completion
-	 * @author thomas
-	 *
-	 */
-	class QueryThread extends Thread {
-		volatile boolean dirty = true;
-
-		public void run() {
-			while(dirty) {
-				dirty = false;
-				doRun();
-			}
-			dirty = true;
-		}
-
-		void doRun() {
-			int size = options.size();
-			for(Object o : optionProvider.provideOptions(_preText)) {
-				options.add(o);
-			}
-			if(options.size() > size) {
-				setCompleterMatches(options.toArray());
-				if(_list != null) _list.validate();
-			}
-		}
-
-		public void symbolChanged() {
-			dirty = true;
+		if(executor != null && _preText != null) {
+			executor.query(_preText);
 		}
 	}
 }
@@ -24,4 +24,16 @@
  */
 public interface OptionProvider {
 	List<String> provideOptions(String text);
+
+	/**
+	 * Returns true if the options for a text are all options that start with
+	 * that text, and no more. The options for a longer text can then be found by
+	 * filtering the options of a shorter one, instead of calling
+	 * {@link #provideOptions(String)} again. This is not the case for a provider
+	 * that returns a limited number of options, or options that only contain the
+	 * text. Default is false.
+	 */
+	default boolean isPrefixFilterable() {
+		return false;
+	}
 }
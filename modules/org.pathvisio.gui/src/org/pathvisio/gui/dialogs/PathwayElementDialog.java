@@ -116,7 +116,13 @@ protected void refresh() {
 	 */
 	protected void storeState() {
 		PathwayElement e = getInput();
-		originalPathway = (PathwayModel) e.getPathwayModel().clone();
+		VPathwayModel p = swingEngine.getEngine().getActiveVPathwayModel();
+		if (p != null && p.getUndoManager().isDeltaMode()) {
+			// changes made in the dialog are recorded as they happen
+			p.getUndoManager().newAction("Modified element properties");
+		} else {
+			originalPathway = (PathwayModel) e.getPathwayModel().clone();
+		}
 		for (StaticProperty t : e.getStaticPropertyKeys()) {
 			state.put(t, e.getStaticProperty(t));
 		}
@@ -184,7 +190,9 @@ protected void addCustomTabs(JTabbedPane parent) {
 	 */
 	protected void okPressed() {
 		VPathwayModel p = swingEngine.getEngine().getActiveVPathwayModel();
-		p.getUndoManager().newAction(new UndoAction("Modified element properties", originalPathway));
+		if (originalPathway != null) {
+			p.getUndoManager().newAction(new UndoAction("Modified element properties", originalPathway));
+		}
 		if (p != null) {
 			p.redraw();
 		}
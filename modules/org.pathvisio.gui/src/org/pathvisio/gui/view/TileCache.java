@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.gui.view;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.pathvisio.core.view.model.VPathwayModel;
+
+/**
+ * Off-screen back-buffer for a {@link VPathwayModel}, made of square tiles
+ * which are rendered once and then copied to the screen. Scrolling only copies
+ * tiles, and a change only re-renders the tiles under the area passed to
+ * {@link #invalidate(Rectangle2D, double)}.
+ * <p>
+ * Tiles are kept per zoom level, so zooming back to a previous zoom level is
+ * fast as well. When the tiles use more memory than the cap, the least recently
+ * used tiles are discarded.
+ */
+public class TileCache {
+
+	/** width and height of a tile, in view coordinates */
+	public static final int TILE_SIZE = 256;
+
+	private final LinkedHashMap<Key, BufferedImage> tiles = new LinkedHashMap<Key, BufferedImage>(64, 0.75f, true);
+	private long maxBytes;
+	private long bytes = 0;
+
+	/**
+	 * Creates a tile cache.
+	 *
+	 * @param maxBytes the maximum memory used by tiles, in bytes.
+	 */
+	public TileCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Paints the area within the clip of the given graphics. Missing tiles are
+	 * rendered with {@link VPathwayModel#draw(Graphics2D)}.
+	 *
+	 * @param g2d    the graphics to paint on.
+	 * @param vPwy   the pathway to render.
+	 * @param bounds the area to paint when the graphics has no clip.
+	 */
+	public void paint(Graphics2D g2d, VPathwayModel vPwy, Rectangle bounds) {
+		Rectangle area = g2d.getClipBounds();
+		if (area == null) {
+			area = bounds;
+		}
+		double zoom = vPwy.getZoomFactor();
+		// render tiles at the resolution of the screen, e.g. for HiDPI displays
+		AffineTransform t = g2d.getTransform();
+		double scale = Math.max(1.0, Math.max(Math.abs(t.getScaleX()), Math.abs(t.getScaleY())));
+
+		int x0 = Math.floorDiv(area.x, TILE_SIZE);
+		int y0 = Math.floorDiv(area.y, TILE_SIZE);
+		int x1 = Math.floorDiv(area.x + area.width - 1, TILE_SIZE);
+		int y1 = Math.floorDiv(area.y + area.height - 1, TILE_SIZE);
+		for (int x = x0; x <= x1; x++) {
+			for (int y = y0; y <= y1; y++) {
+				Key key = new Key(zoom, scale, x, y);
+				BufferedImage tile = tiles.get(key);
+				if (tile == null) {
+					tile = render(vPwy, x, y, scale);
+					tiles.put(key, tile);
+					bytes += sizeOf(tile);
+					trim();
+				}
+				g2d.drawImage(tile, x * TILE_SIZE, y * TILE_SIZE, TILE_SIZE, TILE_SIZE, null);
+			}
+		}
+	}
+
+	/**
+	 * Renders a single tile.
+	 */
+	private BufferedImage render(VPathwayModel vPwy, int x, int y, double scale) {
+		int size = (int) Math.ceil(TILE_SIZE * scale);
+		BufferedImage tile = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = tile.createGraphics();
+		g.scale(scale, scale);
+		g.translate(-x * TILE_SIZE, -y * TILE_SIZE);
+		g.setClip(x * TILE_SIZE, y * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+		vPwy.draw(g);
+		g.dispose();
+		return tile;
+	}
+
+	/**
+	 * Discards the tiles under the given area, at all zoom levels.
+	 *
+	 * @param r    the area that has changed, in view coordinates.
+	 * @param zoom the zoom factor for the view coordinates of the area.
+	 */
+	public void invalidate(Rectangle2D r, double zoom) {
+		// compare in model coordinates, to include other zoom levels
+		double mx0 = r.getMinX() / zoom;
+		double my0 = r.getMinY() / zoom;
+		double mx1 = r.getMaxX() / zoom;
+		double my1 = r.getMaxY() / zoom;
+		for (Iterator<Map.Entry<Key, BufferedImage>> i = tiles.entrySet().iterator(); i.hasNext();) {
+			Map.Entry<Key, BufferedImage> entry = i.next();
+			Key k = entry.getKey();
+			double tx0 = k.x * TILE_SIZE / k.zoom;
+			double ty0 = k.y * TILE_SIZE / k.zoom;
+			double tx1 = (k.x + 1) * TILE_SIZE / k.zoom;
+			double ty1 = (k.y + 1) * TILE_SIZE / k.zoom;
+			// the edges are included, as antialiasing may touch the neighbouring pixel
+			if (tx0 <= mx1 && mx0 <= tx1 && ty0 <= my1 && my0 <= ty1) {
+				bytes -= sizeOf(entry.getValue());
+				i.remove();
+			}
+		}
+	}
+
+	/**
+	 * Discards all tiles.
+	 */
+	public void clear() {
+		tiles.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * Sets the maximum memory used by tiles. Least recently used tiles are
+	 * discarded if needed.
+	 *
+	 * @param maxBytes the maximum memory in bytes.
+	 */
+	public void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+		trim();
+	}
+
+	/**
+	 * Returns the memory used by the tiles.
+	 *
+	 * @return the memory in bytes.
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Returns the number of cached tiles.
+	 *
+	 * @return the number of tiles.
+	 */
+	public int getTileCount() {
+		return tiles.size();
+	}
+
+	/**
+	 * Discards the least recently used tiles until the memory cap is met.
+	 */
+	private void trim() {
+		for (Iterator<BufferedImage> i = tiles.values().iterator(); i.hasNext() && bytes > maxBytes;) {
+			bytes -= sizeOf(i.next());
+			i.remove();
+		}
+	}
+
+	private static long sizeOf(BufferedImage tile) {
+		return 4L * tile.getWidth() * tile.getHeight();
+	}
+
+	/**
+	 * Identifies a tile by zoom level, device scale and position.
+	 */
+	private static final class Key {
+		final double zoom;
+		final double scale;
+		final int x;
+		final int y;
+
+		Key(double zoom, double scale, int x, int y) {
+			this.zoom = zoom;
+			this.scale = scale;
+			this.x = x;
+			this.y = y;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key k = (Key) o;
+			return zoom == k.zoom && scale == k.scale && x == k.x && y == k.y;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(zoom, scale, x, y);
+		}
+	}
+}
@@ -85,6 +85,8 @@ public class VPathwayModelSwing extends JPanel implements VPathwayModelWrapper,
 
 	protected JScrollPane container;
 
+	private TileCache tileCache; // null if disabled
+
 	public VPathwayModelSwing(JScrollPane parent) {
 		super();
 		if (parent == null) {
@@ -101,10 +103,16 @@ public VPathwayModelSwing(JScrollPane parent) {
 		setTransferHandler(new PathwayImportHandler());
 
 		setDoubleBuffered(PreferenceManager.getCurrent().getBoolean(GlobalPreference.ENABLE_DOUBLE_BUFFERING));
+		if (PreferenceManager.getCurrent().getBoolean(GlobalPreference.ENABLE_TILE_CACHE)) {
+			tileCache = new TileCache(PreferenceManager.getCurrent().getInt(GlobalPreference.TILE_CACHE_SIZE) * 1024L * 1024L);
+		}
 	}
 
 	public void setChild(VPathwayModel c) {
 		child = c;
+		if (tileCache != null) {
+			tileCache.clear();
+		}
 		child.addVPathwayListener(this);
 		child.addVElementMouseListener(this);
 	}
@@ -124,15 +132,22 @@ public Dimension getViewportSize() {
 	 * Schedule redraw of the entire visible area
 	 */
 	public void redraw() {
+		if (tileCache != null) {
+			tileCache.clear();
+		}
 		repaint();
 	}
 
 	/**
-	 * Draw immediately
+	 * Draw immediately, using cached tiles if enabled
 	 */
 	protected void paintComponent(Graphics g) {
 		if (child != null) {
-			child.draw((Graphics2D) g);
+			if (tileCache != null) {
+				tileCache.paint((Graphics2D) g, child, getViewRect());
+			} else {
+				child.draw((Graphics2D) g);
+			}
 		}
 	}
 
@@ -140,9 +155,21 @@ protected void paintComponent(Graphics g) {
 	 * Schedule redraw of a certain part of the pathway
 	 */
 	public void redraw(Rectangle r) {
+		if (tileCache != null && child != null) {
+			tileCache.invalidate(r, child.getZoomFactor());
+		}
 		repaint(r);
 	}
 
+	/**
+	 * Returns the cache of rendered tiles.
+	 *
+	 * @return the tile cache, or null if tile caching is disabled.
+	 */
+	public TileCache getTileCache() {
+		return tileCache;
+	}
+
 	public void mouseClicked(MouseEvent e) {
 		if (e.getClickCount() == 2) {
 			child.mouseDoubleClick(new SwingMouseEvent(e));
@@ -476,6 +503,9 @@ public void dispose() {
 		getInputMap(JComponent.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT).clear();
 
 		child = null; // free VPathway for GC
+		if (tileCache != null) {
+			tileCache.clear();
+		}
 		disposed = true;
 	}
 
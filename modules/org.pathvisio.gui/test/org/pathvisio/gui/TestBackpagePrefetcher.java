@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.gui;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bridgedb.DataSource;
+import org.bridgedb.Xref;
+import org.pathvisio.gui.BackpageTextProvider.BackpageHook;
+import org.pathvisio.gui.BackpageTextProvider.BackpageXrefs;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.PathwayObject;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that backpages are prefetched in the background, after interactive
+ * queries, until the pathway is closed.
+ */
+public class TestBackpagePrefetcher extends TestCase {
+
+	private static final DataSource SOURCE = DataSource.register("TestPrefetchSource", "TestPrefetchSource")
+			.asDataSource();
+
+	private final AtomicInteger count = new AtomicInteger();
+	private final Set<Xref> mapped = new HashSet<Xref>(); // guarded by itself
+	private BackpagePrefetcher prefetcher;
+	private PathwayModel pathway;
+
+	public void setUp() {
+		BackpageTextProvider bpt = new BackpageTextProvider();
+		bpt.addBackpageHook(new BackpageHook() {
+			public String getHtml(PathwayObject e) {
+				count.incrementAndGet();
+				return "";
+			}
+		});
+		bpt.addBackpageHook(new BackpageXrefs(null) {
+			@Override
+			public void mapAll(Collection<Xref> xrefs) {
+				synchronized (mapped) {
+					mapped.addAll(xrefs);
+				}
+			}
+
+			@Override
+			public String getHtml(PathwayObject e) {
+				return "";
+			}
+		});
+		prefetcher = new BackpagePrefetcher(bpt, 2);
+		pathway = new PathwayModel();
+		for (int i = 0; i < 10; i++) {
+			DataNode node = new DataNode("node" + i, DataNodeType.GENEPRODUCT);
+			node.setXref(new Xref("" + i, SOURCE));
+			pathway.add(node);
+		}
+		// no xref, so no backpage
+		pathway.add(new DataNode("empty", DataNodeType.GENEPRODUCT));
+	}
+
+	public void tearDown() {
+		prefetcher.dispose();
+	}
+
+	private void waitForCount(int expected) throws InterruptedException {
+		for (int i = 0; i < 500 && count.get() < expected; i++) {
+			Thread.sleep(10);
+		}
+	}
+
+	public void testPrefetch() throws InterruptedException {
+		prefetcher.prefetch(pathway);
+		waitForCount(10);
+		Thread.sleep(50);
+		assertEquals(10, count.get());
+	}
+
+	public void testQueriesFirst() throws InterruptedException {
+		prefetcher.beginQuery();
+		prefetcher.prefetch(pathway);
+		Thread.sleep(100);
+		assertEquals(0, count.get());
+		prefetcher.endQuery();
+		waitForCount(10);
+		assertEquals(10, count.get());
+	}
+
+	public void testCancel() throws InterruptedException {
+		prefetcher.beginQuery();
+		prefetcher.prefetch(pathway);
+		prefetcher.cancel(pathway);
+		prefetcher.endQuery();
+		Thread.sleep(100);
+		assertEquals(0, count.get());
+	}
+
+	public void testXrefsCollected() throws InterruptedException {
+		prefetcher.beginQuery();
+		prefetcher.prefetch(pathway);
+		// changes after the prefetch has started are not seen by the lookups
+		DataNode added = new DataNode("added", DataNodeType.GENEPRODUCT);
+		added.setXref(new Xref("added", SOURCE));
+		pathway.add(added);
+		prefetcher.endQuery();
+		waitForCount(10);
+		synchronized (mapped) {
+			assertEquals(10, mapped.size());
+			assertFalse(mapped.contains(added.getXref()));
+		}
+	}
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.gui.completer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.pathvisio.gui.completer.CompleterQueryExecutor.OptionListener;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that completion queries are debounced, cached and filtered.
+ */
+public class TestCompleterQueryExecutor extends TestCase {
+
+	private static final List<String> WORDS = Arrays.asList("Apple", "apricot", "banana", "Avocado");
+
+	/**
+	 * Provides the words that start with the text, and keeps the texts it was
+	 * asked about.
+	 */
+	private static class WordProvider implements OptionProvider {
+		final List<String> asked = Collections.synchronizedList(new ArrayList<String>());
+		final boolean filterable;
+
+		WordProvider(boolean filterable) {
+			this.filterable = filterable;
+		}
+
+		public List<String> provideOptions(String text) {
+			asked.add(text);
+			List<String> result = new ArrayList<String>();
+			for (String w : WORDS) {
+				if (w.toLowerCase().startsWith(text.toLowerCase())) {
+					result.add(w);
+				}
+			}
+			return result;
+		}
+
+		public boolean isPrefixFilterable() {
+			return filterable;
+		}
+	}
+
+	/**
+	 * Keeps the last options found.
+	 */
+	private static class LastOptions implements OptionListener {
+		String text;
+		List<String> options;
+
+		public synchronized void optionsFound(String text, List<String> options) {
+			this.text = text;
+			this.options = options;
+			notifyAll();
+		}
+
+		synchronized void waitFor(String expected) throws InterruptedException {
+			long end = System.currentTimeMillis() + 5000;
+			while (!expected.equals(text) && System.currentTimeMillis() < end) {
+				wait(100);
+			}
+			assertEquals(expected, text);
+		}
+	}
+
+	private LastOptions listener;
+
+	public void setUp() {
+		listener = new LastOptions();
+	}
+
+	private CompleterQueryExecutor create(WordProvider provider) {
+		CompleterQueryExecutor executor = new CompleterQueryExecutor(provider, listener, 10);
+		executor.setDelay(50);
+		return executor;
+	}
+
+	public void testDebounce() throws InterruptedException {
+		WordProvider provider = new WordProvider(false);
+		CompleterQueryExecutor executor = create(provider);
+		executor.query("a");
+		executor.query("ap");
+		executor.query("apr");
+		listener.waitFor("apr");
+		Thread.sleep(100);
+		// the superseded queries were never started
+		assertEquals(Arrays.asList("apr"), provider.asked);
+		assertEquals(Arrays.asList("apricot"), listener.options);
+	}
+
+	public void testCache() throws InterruptedException {
+		WordProvider provider = new WordProvider(false);
+		CompleterQueryExecutor executor = create(provider);
+		executor.query("a");
+		listener.waitFor("a");
+		executor.query("b");
+		listener.waitFor("b");
+		executor.query("a");
+		// cached options are found at once
+		assertEquals("a", listener.text);
+		assertEquals(Arrays.asList("Apple", "Avocado", "apricot"), listener.options);
+		assertEquals(2, executor.getQueryCount());
+
+		// a longer text is queried again if the provider isn't prefix filterable
+		executor.query("av");
+		listener.waitFor("av");
+		assertEquals(3, executor.getQueryCount());
+	}
+
+	public void testPrefixFilter() throws InterruptedException {
+		WordProvider provider = new WordProvider(true);
+		CompleterQueryExecutor executor = create(provider);
+		executor.query("a");
+		listener.waitFor("a");
+		executor.query("ap");
+		assertEquals("ap", listener.text);
+		assertEquals(Arrays.asList("Apple", "apricot"), listener.options);
+		executor.query("apr");
+		assertEquals(Arrays.asList("apricot"), listener.options);
+		assertEquals(Arrays.asList("a"), provider.asked);
+
+		executor.setCaseSensitive(true);
+		executor.query("av");
+		assertEquals(Collections.emptyList(), listener.options);
+		assertEquals(Arrays.asList("a"), provider.asked);
+	}
+
+	public void testCancel() throws InterruptedException {
+		WordProvider provider = new WordProvider(false);
+		CompleterQueryExecutor executor = create(provider);
+		executor.query("a");
+		executor.cancel();
+		Thread.sleep(150);
+		assertTrue(provider.asked.isEmpty());
+		assertNull(listener.text);
+	}
+}
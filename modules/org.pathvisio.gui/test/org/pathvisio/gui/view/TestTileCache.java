@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.gui.view;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import org.pathvisio.core.preferences.PreferenceManager;
+import org.pathvisio.core.view.model.VPathwayModel;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests rendering, invalidation and the memory cap of the {@link TileCache}.
+ */
+public class TestTileCache extends TestCase {
+
+	private static final int T = TileCache.TILE_SIZE;
+
+	private PathwayModel pwy;
+	private VPathwayModel vPwy;
+	private DataNode node;
+
+	public void setUp() {
+		PreferenceManager.init();
+		pwy = new PathwayModel();
+		node = new DataNode("node", DataNodeType.GENEPRODUCT);
+		node.setCenterX(T / 2);
+		node.setCenterY(T / 2);
+		node.setWidth(80);
+		node.setHeight(20);
+		pwy.add(node);
+		vPwy = new VPathwayModel(null);
+		vPwy.fromModel(pwy);
+	}
+
+	private BufferedImage paint(TileCache cache, Rectangle area) {
+		BufferedImage image = new BufferedImage(area.width, area.height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.translate(-area.x, -area.y);
+		g.setClip(area);
+		cache.paint(g, vPwy, area);
+		g.dispose();
+		return image;
+	}
+
+	public void testPaintAndInvalidate() {
+		TileCache cache = new TileCache(Long.MAX_VALUE);
+		BufferedImage before = paint(cache, new Rectangle(0, 0, 2 * T, 2 * T));
+		assertEquals(4, cache.getTileCount());
+		assertEquals(4L * 4 * T * T, cache.getBytes());
+
+		// painting again uses the same tiles
+		paint(cache, new Rectangle(10, 10, T, T));
+		assertEquals(4, cache.getTileCount());
+
+		// only the tile under the node is rendered again
+		cache.invalidate(vPwy.getPathwayElementView(node).getVBounds(), vPwy.getZoomFactor());
+		assertEquals(3, cache.getTileCount());
+		BufferedImage after = paint(cache, new Rectangle(0, 0, 2 * T, 2 * T));
+		assertEquals(4, cache.getTileCount());
+		assertEquals(before.getRGB(T / 2, T / 2), after.getRGB(T / 2, T / 2));
+
+		// tiles of another zoom level are invalidated as well
+		vPwy.setPctZoom(200);
+		paint(cache, new Rectangle(0, 0, T, T));
+		assertEquals(5, cache.getTileCount());
+		cache.invalidate(new Rectangle(0, 0, 1, 1), vPwy.getZoomFactor());
+		assertEquals(3, cache.getTileCount());
+	}
+
+	public void testMemoryCap() {
+		TileCache cache = new TileCache(2L * 4 * T * T);
+		paint(cache, new Rectangle(0, 0, 3 * T, T));
+		assertEquals(2, cache.getTileCount());
+		cache.setMaxBytes(0);
+		assertEquals(0, cache.getTileCount());
+		assertEquals(0, cache.getBytes());
+	}
+
+}
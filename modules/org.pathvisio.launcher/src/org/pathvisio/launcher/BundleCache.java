@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.launcher;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Decides whether the bundles installed in the bundle cache by the previous run
+ * can be reused. The cache is only reused (a warm start) when the bundles
+ * embedded in the launcher jar and the plugins from the command line are the
+ * same as in the run that filled the cache, otherwise the cache is cleaned and
+ * all bundles are installed again (a cold start).
+ * <p>
+ * The bundles are compared by a fingerprint of the name, size and checksum of
+ * the embedded jars, which is read from the directory of the launcher jar
+ * without unpacking them, and of the name, size and modification time of the
+ * plugin jars.
+ */
+class BundleCache {
+
+	private static final String FINGERPRINT_FILE = "bundles.fingerprint";
+
+	private final File file;
+	private final String fingerprint;
+
+	/**
+	 * @param cacheDir        the root dir of the bundle cache.
+	 * @param pluginLocations the plugin files and dirs from the command line.
+	 */
+	BundleCache(File cacheDir, List<String> pluginLocations) {
+		file = new File(cacheDir, FINGERPRINT_FILE);
+		String result = null;
+		try {
+			result = computeFingerprint(pluginLocations);
+		} catch (IOException | URISyntaxException | NoSuchAlgorithmException ex) {
+			System.out.println("Could not compute fingerprint of the bundles: " + ex.getMessage());
+		}
+		fingerprint = result;
+	}
+
+	/**
+	 * @return true if the bundles in the cache were installed from the same jars
+	 *         as the current ones.
+	 */
+	boolean isUnchanged() {
+		if (fingerprint == null || !file.exists()) {
+			return false;
+		}
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+			return fingerprint.equals(reader.readLine());
+		} catch (IOException ex) {
+			System.out.println("Could not read " + file + ": " + ex.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Forgets the fingerprint of the previous run, before the cache is cleaned. If
+	 * the startup fails halfway, the next run is a cold start again.
+	 */
+	void invalidate() {
+		if (file.exists() && !file.delete()) {
+			System.out.println("Could not delete " + file);
+		}
+	}
+
+	/**
+	 * Remembers the fingerprint of the current bundles, after all of them were
+	 * installed and started.
+	 */
+	void save() {
+		if (fingerprint == null) {
+			return;
+		}
+		file.getParentFile().mkdirs();
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+			writer.write(fingerprint);
+			writer.write('\n');
+		} catch (IOException ex) {
+			System.out.println("Could not write " + file + ": " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Returns null if we're not running from a jar file, e.g. when running from
+	 * java web start, so the embedded bundles can't be compared.
+	 */
+	private static String computeFingerprint(List<String> pluginLocations)
+			throws IOException, URISyntaxException, NoSuchAlgorithmException {
+		CodeSource source = PathVisioMain.class.getProtectionDomain().getCodeSource();
+		URL location = (source == null) ? null : source.getLocation();
+		if (location == null || !"file".equals(location.getProtocol())) {
+			return null;
+		}
+		File launcher = new File(location.toURI());
+		if (!launcher.isFile()) {
+			return null;
+		}
+		MessageDigest digest = MessageDigest.getInstance("SHA-1");
+		// the locations of the embedded bundles include the path of the launcher jar
+		update(digest, launcher.getAbsolutePath());
+		try (JarFile jar = new JarFile(launcher)) {
+			List<String> entries = new ArrayList<String>();
+			Enumeration<JarEntry> e = jar.entries();
+			while (e.hasMoreElements()) {
+				JarEntry entry = e.nextElement();
+				if (entry.getName().endsWith(".jar") && entry.getName().indexOf('/') < 0) {
+					entries.add(entry.getName() + " " + entry.getSize() + " " + entry.getCrc());
+				}
+			}
+			Collections.sort(entries);
+			for (String entry : entries) {
+				update(digest, entry);
+			}
+		}
+		for (String pluginLocation : pluginLocations) {
+			File plugin = new File(pluginLocation);
+			update(digest, plugin.getAbsolutePath());
+			File[] files = plugin.isDirectory() ? plugin.listFiles() : new File[] { plugin };
+			if (files == null) {
+				continue;
+			}
+			List<String> entries = new ArrayList<String>();
+			for (File f : files) {
+				if (f.getName().endsWith(".jar")) {
+					entries.add(f.getName() + " " + f.length() + " " + f.lastModified());
+				}
+			}
+			Collections.sort(entries);
+			for (String entry : entries) {
+				update(digest, entry);
+			}
+		}
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hex.append(String.format("%02x", b & 0xff));
+		}
+		return hex.toString();
+	}
+
+	private static void update(MessageDigest digest, String s) {
+		digest.update(s.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) '\n');
+	}
+}
@@ -49,9 +49,10 @@ public class BundleLoader {
 	
 	private final BundleContext context;
 
-	private final List<Bundle> plugins = new ArrayList<Bundle>();
+	private final List<Bundle> plugins = Collections.synchronizedList(new ArrayList<Bundle>());
 
-	private final Map<Bundle, String> bundles = new HashMap<Bundle, String>();
+	/** synchronized, because the embedded bundles are installed concurrently */
+	private final Map<Bundle, String> bundles = Collections.synchronizedMap(new HashMap<Bundle, String>());
 
 	public BundleLoader(BundleContext context) {
 		this.context = context;
@@ -110,6 +111,9 @@ void installFromFile(File file) {
 	/**
 	 * Install bundles that are embedded in the jar that we are currently running.
 	 * If we're not running from jar, this step is simply skipped.
+	 * <p>
+	 * This may be called from several threads at once. If the bundle was already
+	 * installed from the bundle cache, the installed bundle is reused.
 	 */
 	void installEmbeddedBundle(String s) throws URISyntaxException, IOException {
 		if (s.endsWith(".jar")) { // skip non-jar resources.
@@ -23,32 +23,48 @@
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.JOptionPane;
 import javax.swing.SwingWorker;
 
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
-import org.osgi.framework.BundleException;
 import org.osgi.framework.launch.Framework;
 import org.osgi.framework.launch.FrameworkFactory;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
+import org.osgi.framework.wiring.FrameworkWiring;
 
 public class PathVisioMain {
 
 	/** The smoke-test option is for automated testing purposes.
 	 * When set, PathVisio just tries loading plugins, and quits with exit code 0 on success or non-zero on error. */
 	private static boolean isSmokeTest = false;
+
+	/** When set, the bundle cache of the previous run is cleaned even if the bundles are unchanged. */
+	private static boolean isColdStart = false;
+
+	/** The number of threads that install and start bundles. */
+	private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
 	
 	/**
 	 * @param args
 	 */
 	public static void main(String[] args) throws Exception {
+		launchTime = System.currentTimeMillis();
 		parseArguments(args);
 		setProgramOptions();
 		new PathVisioMain().start();
@@ -84,9 +100,7 @@ public static void main(String[] args) throws Exception {
 		
         {"org.osgi.framework.system.packages.extra", "javax.xml.parsers,org.xml.sax,org.xml.sax.ext,org.xml.sax.helpers"},
         
-        {"org.osgi.framework.storage.clean", "onFirstInit"},
-        
-//        {"org.osgi.framework.storage.clean", "none"},
+        /* org.osgi.framework.storage.clean is onFirstInit, or none on a warm start, see getLaunchProperties */
         
         /* following property is necessary for Felix: to prevent complaints 
          * about missing requirements ee=JSE2-1.2 on the javax.xml bundle. */
@@ -111,12 +125,18 @@ private String getFactoryClass() throws IOException
 	
 	private BundleContext context;
 		
-	private Map<String, String> getLaunchProperties()
+	private final StartupTimeline timeline = new StartupTimeline(launchTime);
+		
+	/**
+	 * @param warm if true, the bundles installed in the bundle cache by the previous run are reused.
+	 */
+	private Map<String, String> getLaunchProperties(boolean warm)
 	{	
 		Map<String, String> launchProperties = new HashMap<String, String>();
 		for (int i = 0; i < frameworkProperties.length; i++) {
 			launchProperties.put(frameworkProperties[i][0], frameworkProperties[i][1]);
 		}
+		launchProperties.put("org.osgi.framework.storage.clean", warm ? "none" : "onFirstInit");
 		// hides the felix cache in .PathVisio/bundle-cache
 		launchProperties.put("felix.cache.rootdir", getBundleCacheFile().getAbsolutePath());
 		return launchProperties;
@@ -134,37 +154,81 @@ protected Void doInBackground() throws Exception {
 					String factoryClass = getFactoryClass();
 					FrameworkFactory factory = (FrameworkFactory) Class.forName(factoryClass).newInstance();
 					
-					Framework framework = factory.newFramework(getLaunchProperties());
+					/* reuse the bundles installed by the previous run, if they are unchanged */
+					BundleCache cache = new BundleCache(getBundleCacheFile(), pluginLocations);
+					boolean warm = !isColdStart && cache.isUnchanged();
+					System.out.println(warm ? "Warm start, reusing the bundle cache." : "Cold start, cleaning the bundle cache.");
+					if (!warm) cache.invalidate();
+					
+					long begin = timeline.now();
+					Framework framework = factory.newFramework(getLaunchProperties(warm));
 					framework.start();
+					timeline.record("start", "framework", begin);
 					
 					context = framework.getBundleContext();
-					BundleLoader loader = new BundleLoader(context);
+					final BundleLoader loader = new BundleLoader(context);
 					
 				 	/* load embedded bundles, i.e. all bundles that are inside pathvisio.jar */ 
 			    	System.out.println("Installing bundles that are embedded in the jar.");
 			    	
-					Set<String> jarNames = loader.getResourceListing(PathVisioMain.class);
-					int cnt = 0;
-					int total = jarNames.size() + pluginLocations.size();
+					List<String> jarNames = new ArrayList<String>();
+					for (String s : loader.getResourceListing(PathVisioMain.class)) {
+						if (s.endsWith(".jar")) jarNames.add(s);
+					}
+					final AtomicInteger cnt = new AtomicInteger();
+					final int total = jarNames.size() + pluginLocations.size();
 					
-					for (String s : jarNames) 
-					{
-						String text = (s.length() > 50) ? s.substring(0, 50) : s;
-						frame.getTextLabel().setText("<html>Install " + text + ".</html>");
+					ExecutorService pool = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+						private final AtomicInteger threads = new AtomicInteger();
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(r, "Bundle loader " + threads.incrementAndGet());
+							t.setDaemon(true);
+							return t;
+						}
+					});
+					try {
+						/* the bundles are installed independently, so all at once */
+						List<Callable<Void>> installs = new ArrayList<Callable<Void>>();
+						for (final String s : jarNames) 
+						{
+							installs.add(new Callable<Void>() {
+								public Void call() throws Exception {
+									String text = (s.length() > 50) ? s.substring(0, 50) : s;
+									frame.getTextLabel().setText("<html>Install " + text + ".</html>");
+									frame.repaint();
+									long begin = timeline.now();
+									loader.installEmbeddedBundle(s);
+									timeline.record("install", s, begin);
+									publish(100 * cnt.incrementAndGet() / total);
+									return null;
+								}
+							});
+						}
+						for (Future<Void> f : pool.invokeAll(installs)) {
+							f.get();
+						}
+	
+						frame.getTextLabel().setText("<html>Install active plugins.</html>");
 						frame.repaint();
-						publish(100 * (++cnt) / total);
-						loader.installEmbeddedBundle(s);
-					}
-
-					frame.getTextLabel().setText("<html>Install active plugins.</html>");
-					frame.repaint();
-			    	System.out.println("Installing bundles from directories specified on the command-line.");
-			    	for(String location : pluginLocations) {
-			    		publish(100 * (++cnt) / total);
-			    		loader.loadFromParameter(location);
+				    	System.out.println("Installing bundles from directories specified on the command-line.");
+				    	for(String location : pluginLocations) {
+				    		publish(100 * cnt.incrementAndGet() / total);
+				    		begin = timeline.now();
+				    		loader.loadFromParameter(location);
+				    		timeline.record("install", location, begin);
+						}
+				    
+						startBundles(context, loader.getBundles(), pool);
+					} finally {
+						pool.shutdown();
 					}
-			    
-					startBundles(context, loader.getBundles());
+					timeline.print(System.out);
+					System.setProperty(ARG_PROPERTY_LAUNCH_STEPS, timeline.toLines());
+					cache.save();
+					
+					// if we're doing a smoke test, the desktop bundle exits with error code 0 once
+					// the main window has been initialized, so that the startup profile covers
+					// the whole startup, see org.pathvisio.desktop.Activator.
 					
 					frame.getTextLabel().setText("Start application.");
 					frame.repaint();
@@ -192,24 +256,53 @@ protected void done() {
 		worker.execute();
 	}
 
-	private void startBundles(BundleContext context, Map<Bundle, String> bundles) throws BundleException 
+	/**
+	 * Starts all bundles, org.pathvisio.desktop last. The other bundles are started
+	 * in waves on the pool: each wave starts all bundles whose dependencies were
+	 * started by earlier waves, concurrently.
+	 */
+	private void startBundles(BundleContext context, Map<Bundle, String> bundles, ExecutorService pool) throws InterruptedException 
 	{
-    	Set<String> mustActivateLeft = new HashSet<String>();
+    	final Set<String> mustActivateLeft = Collections.synchronizedSet(new HashSet<String>());
     	mustActivateLeft.addAll(mustActivate);
     	
     	Bundle activateLast = null;    	
-		for (Map.Entry<Bundle, String> e : bundles.entrySet()) 
+    	Set<Bundle> pending = new HashSet<Bundle>();
+		for (Bundle b : bundles.keySet()) 
     	{
-			Bundle b = e.getKey();
 			if ("org.pathvisio.desktop".equals (b.getSymbolicName()))
 			{
 				// must be activated last
 				activateLast = b;
 				continue;
 			}
-    		startBundle(b, mustActivateLeft);
+			pending.add(b);
     	}
 		
+		Map<Bundle, Set<Bundle>> dependencies = getDependencies(context, pending);
+		while (!pending.isEmpty())
+		{
+			List<Bundle> ready = new ArrayList<Bundle>();
+			for (Bundle b : pending)
+			{
+				if (Collections.disjoint(dependencies.get(b), pending)) ready.add(b);
+			}
+			// bundles that depend on each other are started one by one
+			if (ready.isEmpty()) ready.add(pending.iterator().next());
+			pending.removeAll(ready);
+			List<Callable<Void>> wave = new ArrayList<Callable<Void>>();
+			for (final Bundle b : ready)
+			{
+				wave.add(new Callable<Void>() {
+					public Void call() {
+						startBundle(b, mustActivateLeft);
+						return null;
+					}
+				});
+			}
+			pool.invokeAll(wave);
+		}
+		
 		System.out.println ("Saved org.pathvisio.desktop for last");
 		
 		startBundle(activateLast, mustActivateLeft);
@@ -217,22 +310,53 @@ private void startBundles(BundleContext context, Map<Bundle, String> bundles) th
 		if (mustActivateLeft.size() > 0)
 		{
 			StringBuilder missing = new StringBuilder();
-			for (String s : mustActivateLeft) missing.append (" " + s);
+			synchronized (mustActivateLeft) {
+				for (String s : mustActivateLeft) missing.append (" " + s);
+			}
 			JOptionPane.showMessageDialog(null, "Fatal: some essential bundles were missing: " + missing);
 			System.exit (1);
 		}
-		
-		// if we're doing a smoke test, and we got to this point, we've completed succesfully.
-		// exit with error code 0 to indicate success.
-		if (isSmokeTest) System.exit(0);
     }
 
-	/** Start a single bundle, record any exceptions and update the mustActivateLeft set */
+	/**
+	 * Resolves the bundles, and returns for each bundle the bundles it imports
+	 * packages from or requires. Bundles that can't be resolved have no
+	 * dependencies, they fail when they are started.
+	 */
+	private static Map<Bundle, Set<Bundle>> getDependencies(BundleContext context, Set<Bundle> bundles)
+	{
+		FrameworkWiring frameworkWiring = context.getBundle(0).adapt(FrameworkWiring.class);
+		frameworkWiring.resolveBundles(bundles);
+		Map<Bundle, Set<Bundle>> result = new HashMap<Bundle, Set<Bundle>>();
+		for (Bundle b : bundles)
+		{
+			Set<Bundle> providers = new HashSet<Bundle>();
+			BundleWiring wiring = b.adapt(BundleWiring.class);
+			if (wiring != null)
+			{
+				for (BundleWire wire : wiring.getRequiredWires(null))
+				{
+					Bundle provider = wire.getProviderWiring().getBundle();
+					if (provider != b) providers.add(provider);
+				}
+			}
+			result.put(b, providers);
+		}
+		return result;
+	}
+
+	/**
+	 * Start a single bundle, record any exceptions and update the mustActivateLeft set.
+	 * The bundle is started transiently, so it isn't started automatically from the bundle cache
+	 * on a warm start, before the bundles it depends on.
+	 */
 	public void startBundle(Bundle b, Set<String> mustActivateLeft)
 	{
 		String symbolicName = b.getSymbolicName();
 		try {
-			b.start();
+			long begin = timeline.now();
+			b.start(Bundle.START_TRANSIENT);
+			timeline.record("start", symbolicName, begin);
 			
 			if (mustActivateLeft.contains (symbolicName))
 			{
@@ -267,11 +391,23 @@ public void startBundle(Bundle b, Set<String> mustActivateLeft)
 	
 	// if WP plugin is loaded this pathway will be loaded when PV starts
 	public static final String ARG_PROPERTY_WPID = "wp.id";
+
+	// profiling of the startup, see org.pathvisio.libgpml.debug.SpanRecorder
+	public static final String ARG_PROPERTY_PROFILE = "pathvisio.profile";
+	public static final String ARG_PROPERTY_PROFILE_JSON = "pathvisio.profile.json";
+	public static final String ARG_PROPERTY_LAUNCH_TIME = "pathvisio.launch.time";
+	public static final String ARG_PROPERTY_LAUNCH_STEPS = "pathvisio.launch.steps";
+
+	// the desktop bundle exits when it has started, see org.pathvisio.desktop.Activator
+	public static final String ARG_PROPERTY_SMOKETEST = "pathvisio.smoketest";
 	
 	public static List<String> pluginLocations;
 	public static String pgexFile;
 	public static String pathwayFile;
 	public static String wpId;
+	public static boolean profile = false;
+	public static String profileJson;
+	private static long launchTime = System.currentTimeMillis();
 	
 	// this is only a workaround to hand over the pathway and pgex file
 	// from the command line when using the launcher
@@ -285,6 +421,16 @@ private static void setProgramOptions() {
 		}
 		if(wpId != null) {
 			System.setProperty(ARG_PROPERTY_WPID, wpId);
+		}
+		System.setProperty(ARG_PROPERTY_LAUNCH_TIME, Long.toString(launchTime));
+		if(profile) {
+			System.setProperty(ARG_PROPERTY_PROFILE, "true");
+		}
+		if(profileJson != null) {
+			System.setProperty(ARG_PROPERTY_PROFILE_JSON, profileJson);
+		}
+		if(isSmokeTest) {
+			System.setProperty(ARG_PROPERTY_SMOKETEST, "true");
 		}		
 	}
 
@@ -330,6 +476,19 @@ public static void parseArguments(String [] args) {
 			} else if ("--smoketest".equals(args[i]))
 			{
 				isSmokeTest = true;
+			} else if ("--coldstart".equals(args[i])) {
+				isColdStart = true;
+			} else if ("--profile".equals(args[i])) {
+				profile = true;
+			} else if ("--profile-json".equals(args[i])) {
+				if(i+1 < args.length && !isArgument(args[i+1])) {
+					profileJson = args[i+1];
+					i++;
+				} else {
+					System.out.println ("Missing file after --profile-json option");
+					printHelp();
+					System.exit(-1);
+				}
 			} else if("-wpid".equals(args[i])) {
 				if(i+1 < args.length && !isArgument(args[i+1])) {
 					wpId = args[i+1];
@@ -357,7 +516,8 @@ private static File getBundleCacheFile() {
 	}
 		
 	private static boolean isArgument(String string) {
-		if(string.equals("-p") || string.equals("-v") || string.equals("-h") || string.equals("-d") || string.equals("--smoketest")) {
+		if(string.equals("-p") || string.equals("-v") || string.equals("-h") || string.equals("-d") || string.equals("--smoketest") || string.equals("--coldstart")
+				|| string.equals("--profile") || string.equals("--profile-json")) {
 			return true;
 		}
 		return false;
@@ -371,6 +531,9 @@ private static void printHelp() {
 				"-d: A pgex data file to load\n" +
 				"-v: displays PathVisio version\n" +
 				"-h: displays this help message\n" +
+				"--coldstart: installs all bundles again instead of reusing them from the bundle cache\n" +
+				"--profile: prints how long each phase of the startup took when PathVisio exits\n" +
+				"--profile-json: A file to write the startup phases to as JSON when PathVisio exits\n" +
 				"-wpid: opens pathway from WikiPathways through plugin"				
 				/* NOTE: the --smoketest option is not documented on purpose
 				 * It's not for use by end-users. */
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.launcher;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Records when each bundle was installed and started, and by which thread, so
+ * that the bundles that slow down the startup can be found in the log. Times
+ * are in milliseconds since the launch.
+ */
+class StartupTimeline {
+
+	private static class Step {
+		final String what;
+		final String name;
+		final String thread;
+		final long begin;
+		final long end;
+
+		Step(String what, String name, long begin, long end) {
+			this.what = what;
+			this.name = name;
+			this.thread = Thread.currentThread().getName();
+			this.begin = begin;
+			this.end = end;
+		}
+	}
+
+	private final long origin;
+
+	private final List<Step> steps = new ArrayList<Step>(); // guarded by this
+
+	/**
+	 * @param launched the time of the launch, in milliseconds since the epoch.
+	 */
+	StartupTimeline(long launched) {
+		origin = System.nanoTime() - (System.currentTimeMillis() - launched) * 1000000L;
+	}
+
+	/**
+	 * @return the time to pass as begin of a step to {@link #record}.
+	 */
+	long now() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Records a step that began at the given time and ends now.
+	 *
+	 * @param what e.g. "install" or "start".
+	 * @param name the name of the bundle.
+	 */
+	synchronized void record(String what, String name, long begin) {
+		steps.add(new Step(what, name, begin, System.nanoTime()));
+	}
+
+	/**
+	 * Prints all steps in the order they began.
+	 */
+	synchronized void print(PrintStream out) {
+		List<Step> sorted = new ArrayList<Step>(steps);
+		Collections.sort(sorted, new Comparator<Step>() {
+			public int compare(Step a, Step b) {
+				return Long.compare(a.begin, b.begin);
+			}
+		});
+		out.println("Startup timeline (begin, duration in ms):");
+		for (Step s : sorted) {
+			out.println(String.format("%7d %6d  %-7s %s [%s]", millis(s.begin - origin), millis(s.end - s.begin),
+					s.what, s.name, s.thread));
+		}
+	}
+
+	/**
+	 * Returns all steps, one per line, as tab separated begin and end time, name
+	 * and thread. This is how the steps are handed over to the profile of the
+	 * bundles, see org.pathvisio.libgpml.debug.SpanRecorder.
+	 */
+	synchronized String toLines() {
+		StringBuilder lines = new StringBuilder();
+		for (Step s : steps) {
+			lines.append(millis(s.begin - origin)).append('\t').append(millis(s.end - origin)).append('\t')
+					.append(s.what).append(' ').append(s.name.replace('\t', ' ')).append('\t')
+					.append(s.thread).append('\n');
+		}
+		return lines.toString();
+	}
+
+	private static long millis(long nanos) {
+		return nanos / 1000000;
+	}
+}
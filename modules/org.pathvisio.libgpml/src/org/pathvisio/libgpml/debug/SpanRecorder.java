@@ -0,0 +1,337 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.debug;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records how long the phases of a task take, e.g. the phases of the startup of
+ * PathVisio. A phase is a span that is begun and closed on the same thread:
+ *
+ * <pre>
+ * try (Span span = SpanRecorder.getInstance().begin("load plugins")) {
+ * 	...
+ * }
+ * </pre>
+ *
+ * Spans that are begun while another span of the same thread is open are
+ * recorded as its children, so the spans form a tree per thread. Recording is
+ * cheap and always on, but the number of spans is limited to
+ * {@link #MAX_SPANS}, so don't record spans for each object of a pathway.
+ * <p>
+ * The spans can be printed as an indented breakdown, or written as JSON. All
+ * times are in milliseconds since the launch of PathVisio.
+ */
+public class SpanRecorder {
+
+	/**
+	 * If this system property is "true", the breakdown is printed to stdout when
+	 * PathVisio exits. See {@link #dumpOnExitIfRequested()}.
+	 */
+	public static final String PROPERTY_PROFILE = "pathvisio.profile";
+
+	/**
+	 * If this system property is set, the spans are written as JSON to the file it
+	 * names when PathVisio exits.
+	 */
+	public static final String PROPERTY_PROFILE_JSON = "pathvisio.profile.json";
+
+	/**
+	 * The time the launcher started, in milliseconds since the epoch. When not set,
+	 * times are relative to the creation of the recorder.
+	 */
+	public static final String PROPERTY_LAUNCH_TIME = "pathvisio.launch.time";
+
+	/**
+	 * The steps recorded by the launcher, which runs outside of the OSGi framework
+	 * and can't use this class. One step per line, as tab separated begin and end
+	 * time, name and thread.
+	 */
+	public static final String PROPERTY_LAUNCHER_STEPS = "pathvisio.launch.steps";
+
+	public static final int MAX_SPANS = 10000;
+
+	private static final SpanRecorder INSTANCE = new SpanRecorder();
+
+	/**
+	 * @return the recorder for the phases of PathVisio.
+	 */
+	public static SpanRecorder getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * A phase, from {@link SpanRecorder#begin(String)} until {@link #close()}.
+	 */
+	public class Span implements AutoCloseable {
+		private final String name;
+		private final String thread;
+		private final Span parent;
+		private final long begin; // nanos since origin
+		private long end = -1; // guarded by SpanRecorder.this
+		private final List<Span> children = new ArrayList<Span>(); // guarded by SpanRecorder.this
+
+		private Span(String name, String thread, Span parent, long begin) {
+			this.name = name;
+			this.thread = thread;
+			this.parent = parent;
+			this.begin = begin;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return the duration in milliseconds, or -1 if the span is still open.
+		 */
+		public long getDuration() {
+			synchronized (SpanRecorder.this) {
+				return end < 0 ? -1 : millis(end - begin);
+			}
+		}
+
+		/**
+		 * @return a copy of the spans that were begun while this span was open.
+		 */
+		public List<Span> getChildren() {
+			synchronized (SpanRecorder.this) {
+				return new ArrayList<Span>(children);
+			}
+		}
+
+		/**
+		 * Ends this span. Spans must be closed in the reverse order they were begun,
+		 * on the thread that began them.
+		 */
+		public void close() {
+			synchronized (SpanRecorder.this) {
+				if (end < 0) {
+					end = System.nanoTime() - origin;
+				}
+			}
+			if (current.get() == this) {
+				current.set(parent);
+			}
+		}
+	}
+
+	private final long origin;
+
+	private final ThreadLocal<Span> current = new ThreadLocal<Span>();
+
+	// guarded by this
+	private final List<Span> roots = new ArrayList<Span>();
+	private int count = 0;
+
+	/**
+	 * Creates a recorder with its own spans, e.g. for testing. Normally the shared
+	 * instance of {@link #getInstance()} is used.
+	 */
+	public SpanRecorder() {
+		long launched = Long.getLong(PROPERTY_LAUNCH_TIME, System.currentTimeMillis());
+		origin = System.nanoTime() - (System.currentTimeMillis() - launched) * 1000000L;
+	}
+
+	/**
+	 * Begins a span, as child of the open span of the current thread if there is
+	 * one. Close it in a finally block, or with try-with-resources.
+	 */
+	public Span begin(String name) {
+		Span parent = current.get();
+		Span span = new Span(name, Thread.currentThread().getName(), parent, System.nanoTime() - origin);
+		synchronized (this) {
+			if (count >= MAX_SPANS) {
+				// not recorded, but it can still be used and closed
+				return span;
+			}
+			count++;
+			if (parent == null) {
+				roots.add(span);
+			} else {
+				parent.children.add(span);
+			}
+		}
+		current.set(span);
+		return span;
+	}
+
+	/**
+	 * @return a copy of the spans that were begun without a parent.
+	 */
+	public synchronized List<Span> getRoots() {
+		return new ArrayList<Span>(roots);
+	}
+
+	/**
+	 * Forgets all spans. Spans that are still open are not recorded when they
+	 * are closed.
+	 */
+	public synchronized void clear() {
+		roots.clear();
+		count = 0;
+	}
+
+	/**
+	 * Prints all spans as an indented tree, with their begin and duration.
+	 */
+	public synchronized void print(PrintStream out) {
+		out.println("Profile (begin, duration in ms):");
+		for (Span s : getAllRoots()) {
+			print(out, s, 0);
+		}
+	}
+
+	private void print(PrintStream out, Span s, int depth) {
+		StringBuilder indent = new StringBuilder();
+		for (int i = 0; i < depth; i++) {
+			indent.append("  ");
+		}
+		long duration = s.end < 0 ? -1 : millis(s.end - s.begin);
+		out.println(String.format("%7d %6d  %s%s [%s]", millis(s.begin), duration, indent, s.name, s.thread));
+		for (Span c : s.children) {
+			print(out, c, depth + 1);
+		}
+	}
+
+	/**
+	 * @return all spans as a JSON object, with the spans as a tree of objects with
+	 *         name, thread, begin, duration and children. The duration of an open
+	 *         span is -1.
+	 */
+	public synchronized String toJson() {
+		StringBuilder json = new StringBuilder("{\"spans\":[");
+		List<Span> all = getAllRoots();
+		for (int i = 0; i < all.size(); i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			appendJson(json, all.get(i));
+		}
+		return json.append("]}").toString();
+	}
+
+	private void appendJson(StringBuilder json, Span s) {
+		json.append("{\"name\":");
+		appendString(json, s.name);
+		json.append(",\"thread\":");
+		appendString(json, s.thread);
+		json.append(",\"begin\":").append(millis(s.begin));
+		json.append(",\"duration\":").append(s.end < 0 ? -1 : millis(s.end - s.begin));
+		json.append(",\"children\":[");
+		for (int i = 0; i < s.children.size(); i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			appendJson(json, s.children.get(i));
+		}
+		json.append("]}");
+	}
+
+	private static void appendString(StringBuilder json, String s) {
+		json.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < 0x20) {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+		json.append('"');
+	}
+
+	/**
+	 * Returns the steps of the launcher, see {@link #PROPERTY_LAUNCHER_STEPS},
+	 * followed by the recorded roots.
+	 */
+	private List<Span> getAllRoots() {
+		List<Span> result = new ArrayList<Span>();
+		String steps = System.getProperty(PROPERTY_LAUNCHER_STEPS);
+		if (steps != null) {
+			for (String line : steps.split("\n")) {
+				String[] fields = line.split("\t");
+				if (fields.length == 4) {
+					try {
+						Span s = new Span("launcher: " + fields[2], fields[3], null,
+								Long.parseLong(fields[0]) * 1000000L);
+						s.end = Long.parseLong(fields[1]) * 1000000L;
+						result.add(s);
+					} catch (NumberFormatException ex) {
+						Logger.log.warn("Invalid launcher step " + line);
+					}
+				}
+			}
+		}
+		result.addAll(roots);
+		return result;
+	}
+
+	/**
+	 * Writes {@link #toJson()} to a file.
+	 */
+	public void writeJson(File file) throws IOException {
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+			writer.write(toJson());
+		}
+	}
+
+	private static boolean dumpOnExit = false;
+
+	/**
+	 * Prints the breakdown and writes the JSON file of the shared recorder when
+	 * PathVisio exits, if the system properties {@link #PROPERTY_PROFILE} and
+	 * {@link #PROPERTY_PROFILE_JSON} ask for it. Calling this more than once has
+	 * no effect.
+	 */
+	public static synchronized void dumpOnExitIfRequested() {
+		final boolean print = Boolean.getBoolean(PROPERTY_PROFILE);
+		final String json = System.getProperty(PROPERTY_PROFILE_JSON);
+		if (dumpOnExit || (!print && json == null)) {
+			return;
+		}
+		dumpOnExit = true;
+		Runtime.getRuntime().addShutdownHook(new Thread("Profile dump") {
+			public void run() {
+				if (print) {
+					INSTANCE.print(System.out);
+				}
+				if (json != null) {
+					try {
+						INSTANCE.writeJson(new File(json));
+					} catch (IOException ex) {
+						System.err.println("Could not write profile to " + json + ": " + ex.getMessage());
+					}
+				}
+			}
+		});
+	}
+
+	private static long millis(long nanos) {
+		return nanos / 1000000L;
+	}
+}
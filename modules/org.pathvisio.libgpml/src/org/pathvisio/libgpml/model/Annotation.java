@@ -17,6 +17,7 @@
 package org.pathvisio.libgpml.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -90,6 +91,7 @@ public String getValue() {
 	 * @param v the name, term, or text of this annotation.
 	 */
 	protected void setValue(String v) {
+		checkWritable();
 		if (v == null) {
 			throw new IllegalArgumentException("Value is a required field for Annotation.");
 		}
@@ -114,6 +116,7 @@ public AnnotationType getType() {
 	 * @param v the type to set for this annotation, e.g. ontology term.
 	 */
 	protected void setType(AnnotationType v) {
+		checkWritable();
 		if (type != v && v != null) {
 			type = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.ANNOTATIONTYPE));
@@ -135,6 +138,7 @@ public Xref getXref() {
 	 * @param v the xref to set for this annotation.
 	 */
 	protected void setXref(Xref v) {
+		checkWritable();
 		if (v != null) {
 			xref = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.XREF));
@@ -156,6 +160,7 @@ public String getUrlLink() {
 	 * @param v the url link.
 	 */
 	protected void setUrlLink(String v) {
+		checkWritable();
 		if (v != null && !Utils.stringEquals(urlLink, v)) {
 			urlLink = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.ANNOTATIONREF));
@@ -190,6 +195,7 @@ public boolean hasAnnotationRef(AnnotationRef annotationRef) {
 	 * @param annotationRef the given annotationRef to add.
 	 */
 	protected void addAnnotationRef(AnnotationRef annotationRef) {
+		checkWritable();
 		if (annotationRef == null) {
 			throw new IllegalArgumentException("Cannot add invalid annotationRef to annotation.");
 		}
@@ -209,6 +215,7 @@ protected void addAnnotationRef(AnnotationRef annotationRef) {
 	 * @param annotationRef the given annotationRef to remove.
 	 */
 	protected void removeAnnotationRef(AnnotationRef annotationRef) {
+		checkWritable();
 		if (annotationRef != null) {
 			annotationRefs.remove(annotationRef);
 			annotationRef.terminate();
@@ -271,6 +278,17 @@ public boolean equalsAnnotation(Annotation annotation) {
 		return true;
 	}
 
+	/**
+	 * Returns a key for hashing annotations, consistent with
+	 * {@link #equalsAnnotation}: two annotations have equal keys if and only if
+	 * they have equal properties.
+	 *
+	 * @return the key.
+	 */
+	Object equalityKey() {
+		return Arrays.asList(value, type, XrefUtils.equivalenceKey(xref), urlLink == null ? "" : urlLink);
+	}
+
 	// ================================================================================
 	// Copy Methods
 	// ================================================================================
@@ -287,6 +305,7 @@ public boolean equalsAnnotation(Annotation annotation) {
 	 * @param src the source pathway element.
 	 */
 	public void copyValuesFrom(Annotation src) {
+		checkWritable();
 		value = src.value;
 		type = src.type;
 		xref = src.xref;
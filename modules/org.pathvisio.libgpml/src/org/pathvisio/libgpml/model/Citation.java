@@ -17,6 +17,7 @@
 package org.pathvisio.libgpml.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.bridgedb.Xref;
@@ -92,6 +93,7 @@ public Xref getXref() {
 	 * @param v the xref of this citation.
 	 */
 	protected void setXref(Xref v) {
+		checkWritable();
 		if (v != null) {
 			xref = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.XREF));
@@ -113,8 +115,10 @@ public String getUrlLink() {
 	 * @param v the url link.
 	 */
 	protected void setUrlLink(String v) {
+		checkWritable();
 		if (v != null && !Utils.stringEquals(urlLink, v)) {
 			urlLink = v;
+			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.CITATIONREF));
 		}
 	}
 
@@ -133,6 +137,7 @@ public String getTitle() {
 	 * @param v the title.
 	 */
 	protected void setTitle(String v) {
+		checkWritable();
 		if (v != null && !Utils.stringEquals(title, v)) {
 			title = v;
 		}
@@ -153,6 +158,7 @@ public String getSource() {
 	 * @param v the source.
 	 */
 	protected void setSource(String v) {
+		checkWritable();
 		if (v != null && !Utils.stringEquals(source, v)) {
 			source = v;
 		}
@@ -173,6 +179,7 @@ public String getYear() {
 	 * @param v the year.
 	 */
 	protected void setYear(String v) {
+		checkWritable();
 		if (v != null && !Utils.stringEquals(year, v)) {
 			year = v;
 		}
@@ -193,6 +200,7 @@ public List<String> getAuthors() {
 	 * @param authors the list of authors.
 	 */
 	protected void setAuthors(List<String> authors) {
+		checkWritable();
 		this.authors = authors;
 	}
 
@@ -222,6 +230,7 @@ public boolean hasCitationRef(CitationRef citationRef) {
 	 * @param citationRef the given citationRef to add.
 	 */
 	protected void addCitationRef(CitationRef citationRef) {
+		checkWritable();
 		if (citationRef == null) {
 			throw new IllegalArgumentException("Cannot add invalid citationRef to citation.");
 		}
@@ -239,6 +248,7 @@ protected void addCitationRef(CitationRef citationRef) {
 	 * @param citationRef the given citationRef to remove.
 	 */
 	protected void removeCitationRef(CitationRef citationRef) {
+		checkWritable();
 		if (citationRef != null) {
 			citationRefs.remove(citationRef);
 			citationRef.terminate();
@@ -295,6 +305,17 @@ public boolean equalsCitation(Citation citation) {
 		return true;
 	}
 
+	/**
+	 * Returns a key for hashing citations, consistent with
+	 * {@link #equalsCitation}: two citations have equal keys if and only if they
+	 * have equal xref and url.
+	 *
+	 * @return the key.
+	 */
+	Object equalityKey() {
+		return Arrays.asList(XrefUtils.equivalenceKey(xref), urlLink == null ? "" : urlLink);
+	}
+
 	// ================================================================================
 	// Copy Methods
 	// ================================================================================
@@ -311,6 +332,7 @@ public boolean equalsCitation(Citation citation) {
 	 * @param src the source pathway element.
 	 */
 	public void copyValuesFrom(Citation src) { 
+		checkWritable();
 		xref = src.xref;
 		urlLink = src.urlLink;
 		title = src.title;
@@ -107,6 +107,7 @@ public String getTextLabel() {
 	 */
 	@Override
 	public void setTextLabel(String v) {
+		checkWritable();
 		String value = (v == null) ? "" : v;
 		if (!Utils.stringEquals(textLabel, value)) {
 			textLabel = value;
@@ -131,6 +132,7 @@ public DataNodeType getType() {
 	 * @param v the type to set for this datanode.
 	 */
 	public void setType(DataNodeType v) {
+		checkWritable();
 		if (type != v && v != null) {
 			if (type == DataNodeType.ALIAS && aliasRef != null) {
 				unsetAliasRef();
@@ -163,6 +165,7 @@ public Xref getXref() {
 	 */
 	@Override
 	public void setXref(Xref v) {
+		checkWritable();
 		xref = v;
 		fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.XREF));
 	}
@@ -195,6 +198,7 @@ public boolean hasState(State state) {
 	 * @param state the state to be added.
 	 */
 	public void addState(State state) {
+		checkWritable();
 		if (state == null) {
 			throw new IllegalArgumentException("Cannot add invalid state to data node " + getElementId());
 		}
@@ -225,6 +229,7 @@ public void addState(State state) {
 	 * @return state the instantiated state.
 	 */
 	public State addState(String textLabel, StateType type, double relX, double relY) {
+		checkWritable();
 		State state = new State(textLabel, type, relX, relY);
 		addState(state);
 		return state;
@@ -242,6 +247,7 @@ public State addState(String textLabel, StateType type, double relX, double relY
 	 * @return state the instantiated state.
 	 */
 	public State addState(String elementId, String textLabel, StateType type, double relX, double relY) {
+		checkWritable();
 		State state = new State(textLabel, type, relX, relY);
 		state.setElementId(elementId);
 		addState(state);
@@ -255,6 +261,7 @@ public State addState(String elementId, String textLabel, StateType type, double
 	 * @param state the state to be removed.
 	 */
 	public void removeState(State state) {
+		checkWritable();
 		if (pathwayModel != null)
 			pathwayModel.removePathwayObject(state);
 		states.remove(state);
@@ -303,6 +310,7 @@ public Group getAliasRef() {
 	 * @param v the group to which this data node refers.
 	 */
 	public void setAliasRef(Group v) {
+		checkWritable();
 		if (v != null) {
 			if (type != DataNodeType.ALIAS) {
 				throw new IllegalArgumentException("DataNode type must be Alias before setting aliasRef");
@@ -327,6 +335,7 @@ public void setAliasRef(Group v) {
 	 * </ol>
 	 */
 	public void unsetAliasRef() {
+		checkWritable();
 		if (getAliasRef() != null) {
 			pathwayModel.unlinkAlias(aliasRef, this);
 			aliasRef = null;
@@ -350,6 +359,7 @@ public void unsetAliasRef() {
 	 * @param src the source pathway element.
 	 */
 	public void copyValuesFrom(DataNode src) {
+		checkWritable();
 		super.copyValuesFrom(src);
 		textLabel = src.textLabel;
 		type = src.type;
@@ -456,6 +466,7 @@ public Object getStaticProperty(StaticProperty key) {
 	 */
 	@Override
 	public void setStaticProperty(StaticProperty key, Object value) {
+		checkWritable();
 		super.setStaticProperty(key, value);
 		switch (key) {
 		case TEXTLABEL:
@@ -610,6 +621,7 @@ public String getTextLabel() {
 		 */
 		@Override
 		public void setTextLabel(String v) {
+			checkWritable();
 			String value = (v == null) ? "" : v;
 			if (!Utils.stringEquals(textLabel, value)) {
 				textLabel = value;
@@ -632,6 +644,7 @@ public StateType getType() {
 		 * @param v the type of this state, e.g. complex.
 		 */
 		public void setType(StateType v) {
+			checkWritable();
 			if (type != v && v != null) {
 				type = v;
 				fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.STATETYPE));
@@ -660,6 +673,7 @@ public double getRelX() {
 		 * @throws IllegalArgumentException if relX is not between -1.0 and 1.0. t
 		 */
 		public void setRelX(double v) {
+			checkWritable();
 			if (Math.abs(v) <= 1.0) {
 				if (relX != v) {
 					relX = v;
@@ -692,6 +706,7 @@ public double getRelY() {
 		 * @param v the relative y coordinate.
 		 */
 		public void setRelY(double v) {
+			checkWritable();
 			if (Math.abs(v) <= 1.0) {
 				if (relY != v) {
 					relY = v;
@@ -720,6 +735,7 @@ public Xref getXref() {
 		 */
 		@Override
 		public void setXref(Xref v) {
+			checkWritable();
 			if (v != null) {
 				xref = v;
 				fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.XREF));
@@ -770,6 +786,7 @@ public int getZOrder() {
 		 */
 		@Override
 		public void setZOrder(int v) {
+			checkWritable();
 			// do nothing
 		}
 
@@ -793,6 +810,7 @@ public Group getGroupRef() {
 		 */
 		@Override
 		public void setGroupRefTo(Group v) {
+			checkWritable();
 			// do nothing
 		}
 
@@ -836,6 +854,7 @@ protected void terminate() {
 		 * @param src the source pathway element.
 		 */
 		public void copyValuesFrom(State src) {
+			checkWritable();
 			super.copyValuesFrom(src);
 			textLabel = src.textLabel;
 			type = src.type;
@@ -921,6 +940,7 @@ public Object getStaticProperty(StaticProperty key) {
 		 */
 		@Override
 		public void setStaticProperty(StaticProperty key, Object value) {
+			checkWritable();
 			super.setStaticProperty(key, value);
 			switch (key) {
 			case TEXTLABEL:
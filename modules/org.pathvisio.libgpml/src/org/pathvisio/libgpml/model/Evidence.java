@@ -17,6 +17,7 @@
 package org.pathvisio.libgpml.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -89,8 +90,10 @@ public String getValue() {
 	 * @param v the name, term, or text of this evidence.
 	 */
 	protected void setValue(String v) {
-		if (v != null && Utils.stringEquals(value, v)) {
+		checkWritable();
+		if (v != null && !Utils.stringEquals(value, v)) {
 			value = v;
+			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.EVIDENCEREF));
 		}
 	}
 
@@ -109,6 +112,7 @@ public Xref getXref() {
 	 * @param v the xref of this evidence.
 	 */
 	protected void setXref(Xref v) {
+		checkWritable();
 		if (v == null) {
 			throw new IllegalArgumentException("Evidence must have valid xref.");
 		}
@@ -133,8 +137,10 @@ public String getUrlLink() {
 	 * @param v the url link.
 	 */
 	protected void setUrlLink(String v) {
+		checkWritable();
 		if (v != null && !Utils.stringEquals(urlLink, v)) {
 			urlLink = v;
+			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.EVIDENCEREF));
 		}
 	}
 
@@ -164,6 +170,7 @@ public boolean hasEvidenceRef(EvidenceRef evidenceRef) {
 	 * @param evidenceRef the given evidenceRef to add.
 	 */
 	protected void addEvidenceRef(EvidenceRef evidenceRef) {
+		checkWritable();
 		if (evidenceRef == null) {
 			throw new IllegalArgumentException("Cannot add invalid evidenceRef to evidence.");
 		}
@@ -181,6 +188,7 @@ protected void addEvidenceRef(EvidenceRef evidenceRef) {
 	 * @param evidenceRef the given evidenceRef to remove.
 	 */
 	protected void removeEvidenceRef(EvidenceRef evidenceRef) {
+		checkWritable();
 		if (evidenceRef != null) {
 			evidenceRefs.remove(evidenceRef);
 			evidenceRef.terminate();
@@ -236,6 +244,17 @@ public boolean equalsEvidence(Evidence evidence) {
 		return true;
 	}
 
+	/**
+	 * Returns a key for hashing evidences, consistent with
+	 * {@link #equalsEvidence}: two evidences have equal keys if and only if they
+	 * have equal properties.
+	 *
+	 * @return the key.
+	 */
+	Object equalityKey() {
+		return Arrays.asList(value, XrefUtils.equivalenceKey(xref), urlLink == null ? "" : urlLink);
+	}
+
 	// ================================================================================
 	// Copy Methods
 	// ================================================================================
@@ -252,6 +271,7 @@ public boolean equalsEvidence(Evidence evidence) {
 	 * @param src the source pathway element.
 	 */
 	public void copyValuesFrom(Evidence src) {
+		checkWritable();
 		value = src.value;
 		xref = src.xref;
 		urlLink = src.urlLink;
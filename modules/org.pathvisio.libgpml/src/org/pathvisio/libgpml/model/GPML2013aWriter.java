@@ -124,13 +124,11 @@ public void writeToXml(PathwayModel pathwayModel, OutputStream output, boolean v
 	 */
 	@Override
 	public void writeToXml(PathwayModel pathwayModel, File file, boolean validate) throws ConverterException {
-		OutputStream out;
-		try {
-			out = new FileOutputStream(file);
+		try (OutputStream out = new FileOutputStream(file)) {
+			writeToXml(pathwayModel, out, validate);
 		} catch (IOException ex) {
 			throw new ConverterException(ex);
 		}
-		writeToXml(pathwayModel, out, true);
 	}
 
 	/**
@@ -143,7 +141,7 @@ public void writeToXml(PathwayModel pathwayModel, File file, boolean validate) t
 	@Override
 	public Document createJdom(PathwayModel pathwayModel) throws ConverterException {
 		// removes empty groups and updates group dimensions
-		updateGroups(pathwayModel);
+		pathwayModel = updateGroupsForWriting(pathwayModel);
 
 		Document doc = new Document();
 		Element root = new Element("Pathway", getGpmlNamespace());
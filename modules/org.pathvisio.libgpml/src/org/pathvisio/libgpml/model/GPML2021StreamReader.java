@@ -0,0 +1,995 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.model;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.validation.ValidatorHandler;
+
+import org.bridgedb.Xref;
+import org.jdom2.Namespace;
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.libgpml.io.ConverterException;
+import org.pathvisio.libgpml.model.DataNode.State;
+import org.pathvisio.libgpml.model.GraphLink.LinkableTo;
+import org.pathvisio.libgpml.model.LineElement.LinePoint;
+import org.pathvisio.libgpml.model.Pathway.Author;
+import org.pathvisio.libgpml.model.PathwayElement.AnnotationRef;
+import org.pathvisio.libgpml.model.PathwayElement.CitationRef;
+import org.pathvisio.libgpml.model.Referenceable.Annotatable;
+import org.pathvisio.libgpml.model.Referenceable.Citable;
+import org.pathvisio.libgpml.model.Referenceable.Evidenceable;
+import org.pathvisio.libgpml.model.type.AnchorShapeType;
+import org.pathvisio.libgpml.model.type.AnnotationType;
+import org.pathvisio.libgpml.model.type.ArrowHeadType;
+import org.pathvisio.libgpml.model.type.ConnectorType;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.model.type.GroupType;
+import org.pathvisio.libgpml.model.type.HAlignType;
+import org.pathvisio.libgpml.model.type.LineStyleType;
+import org.pathvisio.libgpml.model.type.ShapeType;
+import org.pathvisio.libgpml.model.type.StateType;
+import org.pathvisio.libgpml.model.type.VAlignType;
+import org.pathvisio.libgpml.util.ColorUtils;
+import org.pathvisio.libgpml.util.XrefUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * This class reads a PathwayModel from an input source (GPML 2021) in a single
+ * pass over SAX events, without building a JDOM tree first.
+ * <p>
+ * NB:
+ * <ol>
+ * <li>Each pathway element is buffered only until its end tag is parsed, and is
+ * then added to the pathway model in the same way as {@link GPML2021Reader}.
+ * <li>References to elements which appear later in the document (groupRef,
+ * aliasRef, point elementRef, annotationRef, citationRef and evidenceRef) are
+ * collected in a deferred fix-up table, and resolved when the root element is
+ * closed. Fix-ups are resolved in the order {@link GPML2021Reader} reads
+ * elements, so both readers produce the same pathway model.
+ * <li>If validation is on, the document is validated while it is parsed. An
+ * invalid document may leave the pathway model partially filled.
+ * <li>{@link #readFromRoot} is inherited from {@link GPML2021Reader} and is the
+ * JDOM fallback.
+ * </ol>
+ */
+public class GPML2021StreamReader extends GPML2021Reader {
+
+	public static final GPML2021StreamReader GPML2021STREAMREADER = new GPML2021StreamReader("GPML2021.xsd",
+			Namespace.getNamespace("http://pathvisio.org/GPML/2021"));
+
+	/**
+	 * Container elements, which only group other elements and have no properties
+	 * of their own. No frame is kept for these.
+	 */
+	private static final Set<String> CONTAINERS = new HashSet<String>(
+			Arrays.asList("Authors", "DataNodes", "States", "Interactions", "GraphicalLines", "Waypoints", "Labels",
+					"Shapes", "Groups", "Annotations", "Citations", "Evidences"));
+
+	/**
+	 * The order in which {@link GPML2021Reader} reads pathway elements. Deferred
+	 * fix-ups are resolved in this order.
+	 */
+	private static final int PHASE_PATHWAY = 0;
+	private static final int PHASE_GROUP = 1;
+	private static final int PHASE_LABEL = 2;
+	private static final int PHASE_SHAPE = 3;
+	private static final int PHASE_DATANODE = 4;
+	private static final int PHASE_INTERACTION = 5;
+	private static final int PHASE_GRAPHICALLINE = 6;
+
+	/**
+	 * Constructor for GPML stream reader.
+	 *
+	 * @param xsdFile the schema file.
+	 * @param nsGPML  the GPML namespace.
+	 */
+	protected GPML2021StreamReader(String xsdFile, Namespace nsGPML) {
+		super(xsdFile, nsGPML);
+	}
+
+	/**
+	 * Reads the pathway model from the given input source.
+	 *
+	 * @param pathwayModel the pathway model.
+	 * @param is           the input source.
+	 * @param validate     if true, validate against the schema while parsing.
+	 * @throws ConverterException
+	 */
+	public void readFromXml(PathwayModel pathwayModel, InputSource is, boolean validate) throws ConverterException {
+		ContentHandler handler = createContentHandler(pathwayModel);
+		if (validate) {
+			ValidatorHandler vh = getSchema().newValidatorHandler();
+			vh.setContentHandler(handler);
+			handler = vh;
+		}
+		try {
+			XMLReader xr = newXMLReader();
+			xr.setContentHandler(handler);
+			xr.parse(is);
+		} catch (SAXException e) {
+			throw toConverterException(e);
+		} catch (IOException e) {
+			throw new ConverterException(e);
+		}
+	}
+
+	/**
+	 * Returns a new SAX content handler which reads GPML2021 events into the
+	 * given pathway model. Can be placed behind a schema {@link ValidatorHandler}.
+	 *
+	 * @param pathwayModel the pathway model to read into.
+	 * @return the content handler.
+	 */
+	public ContentHandler createContentHandler(PathwayModel pathwayModel) {
+		return new StreamHandler(pathwayModel);
+	}
+
+	/**
+	 * Returns a new namespace aware, non validating SAX parser.
+	 *
+	 * @return the xml reader.
+	 * @throws ConverterException
+	 */
+	public static XMLReader newXMLReader() throws ConverterException {
+		try {
+			SAXParserFactory factory = SAXParserFactory.newInstance();
+			factory.setNamespaceAware(true);
+			return factory.newSAXParser().getXMLReader();
+		} catch (ParserConfigurationException | SAXException e) {
+			throw new ConverterException(e);
+		}
+	}
+
+	/**
+	 * Unwraps the {@link ConverterException} thrown from inside a content handler,
+	 * or wraps any other parse error.
+	 *
+	 * @param e the exception thrown by the parser.
+	 * @return the converter exception.
+	 */
+	public static ConverterException toConverterException(SAXException e) {
+		if (e.getException() instanceof ConverterException) {
+			return (ConverterException) e.getException();
+		}
+		if (e instanceof SAXParseException) {
+			Logger.log.error("Document is invalid according to the xml-schema definition!: " + e.getMessage(), e);
+		}
+		return new ConverterException(e);
+	}
+
+	// ================================================================================
+	// Frames and Fix-ups
+	// ================================================================================
+	/**
+	 * Information buffered for an open element until its end tag is parsed.
+	 * Annotation, citation and evidence refs are kept as frames as well, nested
+	 * refs in {@link #refs}.
+	 */
+	private static class Frame {
+		final String name;
+		final Attributes attributes;
+		Attributes graphics;
+		Xref xref;
+		String urlLink;
+		StringBuilder text;
+		List<String[]> comments;
+		Map<String, String> properties;
+		List<Frame> refs;
+		List<Frame> children;
+
+		Frame(String name, Attributes attributes) {
+			this.name = name;
+			this.attributes = new AttributesImpl(attributes);
+			if (name.equals("Comment") || name.equals("Description")) {
+				text = new StringBuilder();
+			}
+		}
+
+		String getAttributeValue(String attName) {
+			return attributes.getValue(attName);
+		}
+
+		String getAttributeValue(String attName, String def) {
+			String value = attributes.getValue(attName);
+			return value == null ? def : value;
+		}
+
+		void addComment(String commentText, String source) {
+			if (comments == null) {
+				comments = new ArrayList<String[]>();
+			}
+			comments.add(new String[] { commentText, source });
+		}
+
+		void setProperty(String key, String value) {
+			if (properties == null) {
+				properties = new LinkedHashMap<String, String>();
+			}
+			properties.put(key, value);
+		}
+
+		void addRef(Frame ref) {
+			if (refs == null) {
+				refs = new ArrayList<Frame>();
+			}
+			refs.add(ref);
+		}
+
+		void addChild(Frame child) {
+			if (children == null) {
+				children = new ArrayList<Frame>();
+			}
+			children.add(child);
+		}
+
+		List<Frame> getChildren(String childName) {
+			return filter(children, childName);
+		}
+
+		List<Frame> getRefs(String refName) {
+			return filter(refs, refName);
+		}
+
+		private static List<Frame> filter(List<Frame> frames, String frameName) {
+			if (frames == null) {
+				return Collections.emptyList();
+			}
+			List<Frame> result = new ArrayList<Frame>();
+			for (Frame frame : frames) {
+				if (frame.name.equals(frameName)) {
+					result.add(frame);
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * A reference which can only be resolved after the whole document is read.
+	 */
+	private static class Fixup {
+		final int phase;
+		final Object target;
+		final Frame frame;
+
+		Fixup(int phase, Object target, Frame frame) {
+			this.phase = phase;
+			this.target = target;
+			this.frame = frame;
+		}
+	}
+
+	private static final Comparator<Fixup> PHASE_ORDER = Comparator.comparingInt(f -> f.phase);
+
+	// ================================================================================
+	// Content Handler
+	// ================================================================================
+	/**
+	 * SAX content handler which fills the pathway model.
+	 */
+	private class StreamHandler extends DefaultHandler {
+
+		private final PathwayModel pathwayModel;
+		private final String nsUri = getGpmlNamespace().getURI();
+		private final Deque<Frame> stack = new ArrayDeque<Frame>();
+		private int skipDepth = 0;
+
+		// deferred fix-up table
+		private final Map<String, Frame> refIdToFrame = new HashMap<String, Frame>();
+		private final List<Fixup> groupRefs = new ArrayList<Fixup>();
+		private final List<Fixup> aliasRefs = new ArrayList<Fixup>();
+		private final List<Fixup> elementRefs = new ArrayList<Fixup>();
+		private final List<Fixup> pointRefs = new ArrayList<Fixup>();
+
+		StreamHandler(PathwayModel pathwayModel) {
+			this.pathwayModel = pathwayModel;
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attributes)
+				throws SAXException {
+			// skips elements outside of the gpml namespace, including their content
+			if (skipDepth > 0 || !nsUri.equals(uri)) {
+				skipDepth++;
+				return;
+			}
+			if (CONTAINERS.contains(localName)) {
+				return;
+			}
+			Frame frame = new Frame(localName, attributes);
+			if (stack.isEmpty()) {
+				if (!localName.equals("Pathway")) {
+					throw new SAXException(new ConverterException("Not a Pathway file"));
+				}
+				readPathway(pathwayModel.getPathway(), frame);
+			}
+			stack.push(frame);
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) throws SAXException {
+			if (skipDepth == 0 && !stack.isEmpty() && stack.peek().text != null) {
+				stack.peek().text.append(ch, start, length);
+			}
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			if (skipDepth > 0) {
+				skipDepth--;
+				return;
+			}
+			if (CONTAINERS.contains(localName)) {
+				return;
+			}
+			Frame frame = stack.pop();
+			Frame parent = stack.peek();
+			try {
+				if (parent == null) {
+					readRoot(frame);
+				} else {
+					readFrame(frame, parent);
+				}
+			} catch (ConverterException e) {
+				throw new SAXException(e);
+			}
+		}
+
+		/**
+		 * Reads a closed element into its parent frame, or into the pathway model.
+		 *
+		 * @param frame  the frame of the closed element.
+		 * @param parent the frame of the parent element.
+		 * @throws ConverterException
+		 */
+		private void readFrame(Frame frame, Frame parent) throws ConverterException {
+			String name = frame.name;
+			boolean isRoot = stack.size() == 1;
+			if (name.equals("Xref")) {
+				String identifier = frame.getAttributeValue("identifier");
+				String dataSource = frame.getAttributeValue("dataSource");
+				parent.xref = XrefUtils.createXref(identifier, dataSource);
+			} else if (name.equals("Url")) {
+				parent.urlLink = frame.getAttributeValue("link");
+			} else if (name.equals("Graphics")) {
+				if (isRoot) {
+					readPathwayGraphics(pathwayModel.getPathway(), frame.attributes);
+				} else {
+					parent.graphics = frame.attributes;
+				}
+			} else if (name.equals("Comment")) {
+				parent.addComment(frame.text.toString(), frame.getAttributeValue("source"));
+			} else if (name.equals("Property")) {
+				parent.setProperty(frame.getAttributeValue("key"), frame.getAttributeValue("value"));
+			} else if (name.equals("AnnotationRef") || name.equals("CitationRef") || name.equals("EvidenceRef")) {
+				parent.addRef(frame);
+			} else if (name.equals("State") || name.equals("Point") || name.equals("Anchor")) {
+				parent.addChild(frame);
+			} else if (isRoot) {
+				if (name.equals("Description")) {
+					pathwayModel.getPathway().setDescription(frame.text.toString());
+				} else if (name.equals("Author")) {
+					readAuthor(pathwayModel.getPathway(), frame);
+				} else if (name.equals("DataNode")) {
+					readDataNode(frame);
+				} else if (name.equals("Interaction")) {
+					readInteraction(frame);
+				} else if (name.equals("GraphicalLine")) {
+					readGraphicalLine(frame);
+				} else if (name.equals("Label")) {
+					readLabel(frame);
+				} else if (name.equals("Shape")) {
+					readShape(frame);
+				} else if (name.equals("Group")) {
+					readGroup(frame);
+				} else if (name.equals("Annotation") || name.equals("Citation") || name.equals("Evidence")) {
+					refIdToFrame.put(frame.getAttributeValue("elementId"), frame);
+				}
+			}
+		}
+
+		/**
+		 * Reads the remaining pathway information when the root element is closed,
+		 * and resolves the deferred fix-up table.
+		 *
+		 * @param root the root frame.
+		 * @throws ConverterException
+		 */
+		private void readRoot(Frame root) throws ConverterException {
+			Pathway pathway = pathwayModel.getPathway();
+			pathway.setXref(root.xref);
+			readCommentGroup(pathway, root, PHASE_PATHWAY);
+			resolveFixups();
+			// removes empty groups and updates group dimensions
+			updateGroups(pathwayModel);
+			// refreshes line elements
+			refreshLineElements(pathwayModel);
+		}
+
+		/**
+		 * Reads a data node {@link DataNode} and its states.
+		 *
+		 * @param dn the data node frame.
+		 * @throws ConverterException
+		 */
+		private void readDataNode(Frame dn) throws ConverterException {
+			String elementId = dn.getAttributeValue("elementId");
+			String textLabel = dn.getAttributeValue("textLabel");
+			DataNodeType type = DataNodeType.register(dn.getAttributeValue("type", DATANODETYPE_DEFAULT));
+			DataNode dataNode = new DataNode(textLabel, type);
+			dataNode.setElementId(elementId);
+			pathwayModel.addDataNode(dataNode);
+			// reads graphics and comment group props
+			readShapedElement(dataNode, dn, PHASE_DATANODE);
+			// reads states
+			for (Frame st : dn.getChildren("State")) {
+				String stElementId = st.getAttributeValue("elementId");
+				String stTextLabel = st.getAttributeValue("textLabel");
+				StateType stType = StateType.register(st.getAttributeValue("type", STATETYPE_DEFAULT));
+				Attributes gfx = getGraphics(st);
+				double relX = Double.parseDouble(gfx.getValue("relX").trim());
+				double relY = Double.parseDouble(gfx.getValue("relY").trim());
+				State state = dataNode.addState(stElementId, stTextLabel, stType, relX, relY);
+				readShapedElement(state, st, PHASE_DATANODE);
+				state.setXref(st.xref);
+				state.setZOrder(dataNode.getZOrder() + 1);
+			}
+			// reads optional properties
+			dataNode.setXref(dn.xref);
+			deferGroupRef(dataNode, dn, PHASE_DATANODE);
+			if (dn.getAttributeValue("aliasRef") != null) {
+				aliasRefs.add(new Fixup(PHASE_DATANODE, dataNode, dn));
+			}
+		}
+
+		/**
+		 * Reads an interaction {@link Interaction}.
+		 *
+		 * @param ia the interaction frame.
+		 * @throws ConverterException
+		 */
+		private void readInteraction(Frame ia) throws ConverterException {
+			Interaction interaction = new Interaction();
+			interaction.setElementId(ia.getAttributeValue("elementId"));
+			readPoints(interaction, ia);
+			pathwayModel.addInteraction(interaction);
+			// reads graphics, comment group, points, and anchors
+			readLineElement(interaction, ia, PHASE_INTERACTION);
+			// sets optional properties
+			interaction.setXref(ia.xref);
+		}
+
+		/**
+		 * Reads a graphical line {@link GraphicalLine}.
+		 *
+		 * @param gln the graphical line frame.
+		 * @throws ConverterException
+		 */
+		private void readGraphicalLine(Frame gln) throws ConverterException {
+			GraphicalLine graphicalLine = new GraphicalLine();
+			graphicalLine.setElementId(gln.getAttributeValue("elementId"));
+			readPoints(graphicalLine, gln);
+			pathwayModel.addGraphicalLine(graphicalLine);
+			// reads graphics, comment group, points, and anchors
+			readLineElement(graphicalLine, gln, PHASE_GRAPHICALLINE);
+		}
+
+		/**
+		 * Reads a label {@link Label}.
+		 *
+		 * @param lb the label frame.
+		 * @throws ConverterException
+		 */
+		private void readLabel(Frame lb) throws ConverterException {
+			Label label = new Label(lb.getAttributeValue("textLabel"));
+			label.setElementId(lb.getAttributeValue("elementId"));
+			pathwayModel.addLabel(label);
+			// reads graphics and comment group props
+			readShapedElement(label, lb, PHASE_LABEL);
+			// sets optional properties
+			label.setHref(lb.getAttributeValue("href"));
+			deferGroupRef(label, lb, PHASE_LABEL);
+		}
+
+		/**
+		 * Reads a shape {@link Shape}.
+		 *
+		 * @param shp the shape frame.
+		 * @throws ConverterException
+		 */
+		private void readShape(Frame shp) throws ConverterException {
+			Shape shape = new Shape();
+			shape.setElementId(shp.getAttributeValue("elementId"));
+			pathwayModel.addShape(shape);
+			// reads graphics and comment group props
+			readShapedElement(shape, shp, PHASE_SHAPE);
+			// sets optional properties
+			shape.setTextLabel(shp.getAttributeValue("textLabel"));
+			deferGroupRef(shape, shp, PHASE_SHAPE);
+		}
+
+		/**
+		 * Reads a group {@link Group}.
+		 *
+		 * @param grp the group frame.
+		 * @throws ConverterException
+		 */
+		private void readGroup(Frame grp) throws ConverterException {
+			GroupType type = GroupType.register(grp.getAttributeValue("type", GROUPTYPE_DEFAULT));
+			Group group = new Group(type);
+			group.setElementId(grp.getAttributeValue("elementId"));
+			pathwayModel.addGroup(group);
+			// reads graphics and comment group props
+			readShapedElement(group, grp, PHASE_GROUP);
+			// sets optional properties
+			group.setXref(grp.xref);
+			group.setTextLabel(grp.getAttributeValue("textLabel"));
+			deferGroupRef(group, grp, PHASE_GROUP);
+		}
+
+		/**
+		 * Reads common properties for shaped pathway elements {@link ShapedElement}.
+		 *
+		 * @param shapedElement the shaped pathway element.
+		 * @param se            the shaped element frame.
+		 * @param phase         the phase in which refs are resolved.
+		 * @throws ConverterException
+		 */
+		private void readShapedElement(ShapedElement shapedElement, Frame se, int phase) throws ConverterException {
+			Attributes gfx = getGraphics(se);
+			readRectProperty(shapedElement, gfx);
+			readFontProperty(shapedElement, gfx);
+			readShapeStyleProperty(shapedElement, gfx);
+			readCommentGroup(shapedElement, se, phase);
+		}
+
+		/**
+		 * Reads common properties for line pathway elements {@link LineElement}.
+		 *
+		 * @param lineElement the line pathway element.
+		 * @param ln          the line element frame.
+		 * @param phase       the phase in which refs are resolved.
+		 * @throws ConverterException
+		 */
+		private void readLineElement(LineElement lineElement, Frame ln, int phase) throws ConverterException {
+			readLineStyleProperty(lineElement, getGraphics(ln));
+			readCommentGroup(lineElement, ln, phase);
+			for (Frame an : ln.getChildren("Anchor")) {
+				String elementId = an.getAttributeValue("elementId");
+				double position = Double.parseDouble(an.getAttributeValue("position"));
+				AnchorShapeType shapeType = AnchorShapeType
+						.register(an.getAttributeValue("shapeType", ANCHORSHAPETYPE_DEFAULT));
+				lineElement.addAnchor(elementId, position, shapeType);
+			}
+			deferGroupRef(lineElement, ln, phase);
+		}
+
+		/**
+		 * Reads points {@link LinePoint} for a line element. Point elementRefs are
+		 * deferred.
+		 *
+		 * @param lineElement the line element.
+		 * @param ln          the line element frame.
+		 * @throws ConverterException
+		 */
+		private void readPoints(LineElement lineElement, Frame ln) throws ConverterException {
+			List<Frame> pts = ln.getChildren("Point");
+			List<LinePoint> ptList = new ArrayList<LinePoint>();
+			for (int i = 0; i < pts.size(); i++) {
+				Frame pt = pts.get(i);
+				// if start or end point, set arrowhead type for parent line element
+				if (i == 0) {
+					lineElement.setStartArrowHeadType(
+							ArrowHeadType.register(pt.getAttributeValue("arrowHead", ARROWHEAD_DEFAULT)));
+				} else if (i == pts.size() - 1) {
+					lineElement.setEndArrowHeadType(
+							ArrowHeadType.register(pt.getAttributeValue("arrowHead", ARROWHEAD_DEFAULT)));
+				}
+				double x = Double.parseDouble(pt.getAttributeValue("x").trim());
+				double y = Double.parseDouble(pt.getAttributeValue("y").trim());
+				LinePoint point = lineElement.new LinePoint(x, y);
+				point.setElementId(pt.getAttributeValue("elementId"));
+				ptList.add(point);
+				String elementRef = pt.getAttributeValue("elementRef");
+				if (elementRef != null && !elementRef.equals("")) {
+					pointRefs.add(new Fixup(0, point, pt));
+				}
+			}
+			// adds points to line
+			lineElement.setLinePoints(ptList);
+		}
+
+		/**
+		 * Reads comments and dynamic properties, and defers annotation, citation and
+		 * evidence refs.
+		 *
+		 * @param pathwayElement the pathway element.
+		 * @param e              the element frame.
+		 * @param phase          the phase in which refs are resolved.
+		 */
+		private void readCommentGroup(PathwayElement pathwayElement, Frame e, int phase) {
+			if (e.comments != null) {
+				for (String[] cmt : e.comments) {
+					// comment must have text
+					if (cmt[0] != null && !cmt[0].equals("")) {
+						pathwayElement.addComment(cmt[0], cmt[1]);
+					}
+				}
+			}
+			if (e.properties != null) {
+				for (Map.Entry<String, String> dp : e.properties.entrySet()) {
+					pathwayElement.setDynamicProperty(dp.getKey(), dp.getValue());
+				}
+			}
+			if (e.refs != null) {
+				elementRefs.add(new Fixup(phase, pathwayElement, e));
+			}
+		}
+
+		/**
+		 * Defers groupRef of the given element if present.
+		 *
+		 * @param groupable the element.
+		 * @param e         the element frame.
+		 * @param phase     the phase in which the groupRef is resolved.
+		 */
+		private void deferGroupRef(Groupable groupable, Frame e, int phase) {
+			String groupRef = e.getAttributeValue("groupRef");
+			if (groupRef != null && !groupRef.equals("")) {
+				groupRefs.add(new Fixup(phase, groupable, e));
+			}
+		}
+
+		/**
+		 * Returns the graphics attributes of the given frame.
+		 *
+		 * @param e the element frame.
+		 * @return the graphics attributes.
+		 * @throws ConverterException if the element has no graphics.
+		 */
+		private Attributes getGraphics(Frame e) throws ConverterException {
+			if (e.graphics == null) {
+				throw new ConverterException(e.name + " " + e.getAttributeValue("elementId") + " has no Graphics");
+			}
+			return e.graphics;
+		}
+
+		// ================================================================================
+		// Fix-up Methods
+		// ================================================================================
+		/**
+		 * Resolves the deferred fix-up table: groupRefs (group to group first),
+		 * aliasRefs, annotation/citation/evidence refs, then point elementRefs.
+		 *
+		 * @throws ConverterException
+		 */
+		private void resolveFixups() throws ConverterException {
+			Collections.sort(groupRefs, PHASE_ORDER);
+			Collections.sort(elementRefs, PHASE_ORDER);
+			for (Fixup f : groupRefs) {
+				String groupRef = f.frame.getAttributeValue("groupRef");
+				((Groupable) f.target).setGroupRefTo((Group) pathwayModel.getPathwayObject(groupRef));
+			}
+			for (Fixup f : aliasRefs) {
+				Group aliasRef = (Group) pathwayModel.getPathwayObject(f.frame.getAttributeValue("aliasRef"));
+				if (aliasRef != null) {
+					((DataNode) f.target).setAliasRef(aliasRef);
+				}
+			}
+			for (Fixup f : elementRefs) {
+				PathwayElement pathwayElement = (PathwayElement) f.target;
+				readAnnotationRefs(pathwayElement, f.frame);
+				readCitationRefs(pathwayElement, f.frame);
+				readEvidenceRefs(pathwayElement, f.frame);
+			}
+			for (Fixup f : pointRefs) {
+				// retrieves referenced pathway element by elementId
+				LinkableTo elementRef = (LinkableTo) pathwayModel
+						.getPathwayObject(f.frame.getAttributeValue("elementRef"));
+				// sets elementRef, relX, and relY for point
+				if (elementRef != null) {
+					double relX = Double.parseDouble(f.frame.getAttributeValue("relX").trim());
+					double relY = Double.parseDouble(f.frame.getAttributeValue("relY").trim());
+					((LinePoint) f.target).linkTo(elementRef, relX, relY);
+				}
+			}
+		}
+
+		/**
+		 * Resolves {@link Annotation} and {@link AnnotationRef} information for an
+		 * {@link Annotatable}.
+		 *
+		 * @param annotatable the pathway object which can have annotation.
+		 * @param e           the frame holding the refs.
+		 * @throws ConverterException
+		 */
+		private void readAnnotationRefs(Annotatable annotatable, Frame e) throws ConverterException {
+			for (Frame anntRef : e.getRefs("AnnotationRef")) {
+				String elementRef = anntRef.getAttributeValue("elementRef");
+				// if annotation already added, create and add annotationRef
+				Annotation annotation = (Annotation) pathwayModel.getPathwayObject(elementRef);
+				if (annotation != null) {
+					AnnotationRef annotationRef = annotatable.addAnnotation(annotation);
+					readCitationRefs(annotationRef, anntRef);
+					readEvidenceRefs(annotationRef, anntRef);
+				}
+				// else if map contains refId, create and add annotation and annotationRef
+				else if (refIdToFrame.containsKey(elementRef)) {
+					Frame annt = refIdToFrame.get(elementRef);
+					String elementId = annt.getAttributeValue("elementId");
+					String value = annt.getAttributeValue("value");
+					AnnotationType type = AnnotationType
+							.register(annt.getAttributeValue("type", ANNOTATIONTYPE_DEFAULT));
+					// annotation must have value and type, xref and urlLink optional
+					if (value != null && type != null) {
+						AnnotationRef annotationRef = annotatable.addAnnotation(elementId, value, type, annt.xref,
+								annt.urlLink);
+						readCitationRefs(annotationRef, anntRef);
+						readEvidenceRefs(annotationRef, anntRef);
+					}
+				}
+				// else invalid annotation and annotationRef
+				else {
+					throw new ConverterException("AnnotationRef refers to non-existent Annotation " + elementRef);
+				}
+			}
+		}
+
+		/**
+		 * Resolves {@link Citation} and {@link CitationRef} information for a
+		 * {@link Citable}.
+		 *
+		 * @param citable the pathway object which can have citation.
+		 * @param e       the frame holding the refs.
+		 * @throws ConverterException
+		 */
+		private void readCitationRefs(Citable citable, Frame e) throws ConverterException {
+			for (Frame citRef : e.getRefs("CitationRef")) {
+				String elementRef = citRef.getAttributeValue("elementRef");
+				// if citation already added, create and add citationRef
+				Citation citation = (Citation) pathwayModel.getPathwayObject(elementRef);
+				if (citation != null) {
+					CitationRef citationRef = citable.addCitation(citation);
+					readAnnotationRefs(citationRef, citRef);
+				}
+				// else if map contains refId, create and add citation and citationRef
+				else if (refIdToFrame.containsKey(elementRef)) {
+					Frame cit = refIdToFrame.get(elementRef);
+					// citation must have xref or urlLink
+					if (cit.xref != null || cit.urlLink != null) {
+						CitationRef citationRef = citable.addCitation(cit.getAttributeValue("elementId"), cit.xref,
+								cit.urlLink);
+						readAnnotationRefs(citationRef, citRef);
+					}
+				}
+				// else invalid citation and citationRef
+				else {
+					throw new ConverterException("CitationRef refers to non-existent Citation " + elementRef);
+				}
+			}
+		}
+
+		/**
+		 * Resolves {@link Evidence} and {@link EvidenceRef} information for an
+		 * {@link Evidenceable}.
+		 *
+		 * @param evidenceable the pathway object which can have evidence.
+		 * @param e            the frame holding the refs.
+		 * @throws ConverterException
+		 */
+		private void readEvidenceRefs(Evidenceable evidenceable, Frame e) throws ConverterException {
+			for (Frame evidRef : e.getRefs("EvidenceRef")) {
+				String elementRef = evidRef.getAttributeValue("elementRef");
+				// if evidence already added, create and add evidenceRef
+				Evidence evidence = (Evidence) pathwayModel.getPathwayObject(elementRef);
+				if (evidence != null) {
+					evidenceable.addEvidence(evidence);
+				}
+				// else if map contains refId, create and add evidence and evidenceRef
+				else if (refIdToFrame.containsKey(elementRef)) {
+					Frame evid = refIdToFrame.get(elementRef);
+					// evidence must have xref, value and urlLink optional
+					if (evid.xref != null || evid.urlLink != null) {
+						evidenceable.addEvidence(evid.getAttributeValue("elementId"), evid.getAttributeValue("value"),
+								evid.xref, evid.urlLink);
+					}
+				}
+				// else invalid evidence and evidenceRef
+				else {
+					throw new ConverterException("EvidenceRef refers to non-existent Evidence " + elementRef);
+				}
+			}
+		}
+	}
+
+	// ================================================================================
+	// Attribute Read Methods
+	// ================================================================================
+	/**
+	 * Reads pathway information from the root element attributes.
+	 *
+	 * @param pathway the pathway.
+	 * @param root    the root frame.
+	 */
+	private void readPathway(Pathway pathway, Frame root) {
+		pathway.setTitle(root.getAttributeValue("title"));
+		pathway.setOrganism(root.getAttributeValue("organism"));
+		pathway.setSource(root.getAttributeValue("source"));
+		pathway.setVersion(root.getAttributeValue("version"));
+		pathway.setLicense(root.getAttributeValue("license"));
+	}
+
+	/**
+	 * Reads pathway graphics information.
+	 *
+	 * @param pathway the pathway.
+	 * @param gfx     the graphics attributes.
+	 */
+	private void readPathwayGraphics(Pathway pathway, Attributes gfx) {
+		pathway.setBoardWidth(Double.parseDouble(gfx.getValue("boardWidth").trim()));
+		pathway.setBoardHeight(Double.parseDouble(gfx.getValue("boardHeight").trim()));
+		pathway.setBackgroundColor(ColorUtils.stringToColor(getValue(gfx, "backgroundColor", BACKGROUNDCOLOR_DEFAULT)));
+	}
+
+	/**
+	 * Reads author {@link Author} information for pathway.
+	 *
+	 * @param pathway the pathway.
+	 * @param au      the author frame.
+	 */
+	private void readAuthor(Pathway pathway, Frame au) {
+		Author author = pathway.addAuthor(au.getAttributeValue("name"));
+		// sets optional properties
+		String order = au.getAttributeValue("order");
+		if (order != null)
+			author.setOrder(Integer.parseInt(order.trim()));
+		author.setUsername(au.getAttributeValue("username"));
+		author.setXref(au.xref);
+	}
+
+	/**
+	 * Reads rect property information.
+	 *
+	 * @param shapedElement the shaped pathway element.
+	 * @param gfx           the graphics attributes.
+	 */
+	protected void readRectProperty(ShapedElement shapedElement, Attributes gfx) {
+		if (shapedElement.getClass() != State.class) {
+			shapedElement.setCenterX(Double.parseDouble(gfx.getValue("centerX").trim()));
+			shapedElement.setCenterY(Double.parseDouble(gfx.getValue("centerY").trim()));
+		}
+		shapedElement.setWidth(Double.parseDouble(gfx.getValue("width").trim()));
+		shapedElement.setHeight(Double.parseDouble(gfx.getValue("height").trim()));
+	}
+
+	/**
+	 * Reads font property information.
+	 *
+	 * @param shapedElement the shaped pathway element.
+	 * @param gfx           the graphics attributes.
+	 */
+	protected void readFontProperty(ShapedElement shapedElement, Attributes gfx) {
+		Color textColor = ColorUtils.stringToColor(getValue(gfx, "textColor", TEXTCOLOR_DEFAULT));
+		String fontName = getValue(gfx, "fontName", FONTNAME_DEFAULT);
+		boolean fontWeight = getValue(gfx, "fontWeight", FONTWEIGHT_DEFAULT).equalsIgnoreCase("Bold");
+		boolean fontStyle = getValue(gfx, "fontStyle", FONTSTYLE_DEFAULT).equals("Italic");
+		boolean fontDecoration = getValue(gfx, "fontDecoration", FONTDECORATION_DEFAULT)
+				.equalsIgnoreCase("Underline");
+		boolean fontStrikethru = getValue(gfx, "fontStrikethru", FONTSTRIKETHRU_DEFAULT)
+				.equalsIgnoreCase("Strikethru");
+		int fontSize = Integer.parseInt(getValue(gfx, "fontSize", FONTSIZE_DEFAULT).trim());
+		HAlignType hAlignType = HAlignType.fromName(getValue(gfx, "hAlign", HALIGN_DEFAULT));
+		VAlignType vAlignType = VAlignType.fromName(getValue(gfx, "vAlign", VALIGN_DEFAULT));
+		// set font props
+		shapedElement.setTextColor(textColor);
+		shapedElement.setFontName(fontName);
+		shapedElement.setFontWeight(fontWeight);
+		shapedElement.setFontStyle(fontStyle);
+		shapedElement.setFontDecoration(fontDecoration);
+		shapedElement.setFontStrikethru(fontStrikethru);
+		shapedElement.setFontSize(fontSize);
+		shapedElement.setHAlign(hAlignType);
+		shapedElement.setVAlign(vAlignType);
+	}
+
+	/**
+	 * Reads shape style property information.
+	 *
+	 * @param shapedElement the shaped pathway element.
+	 * @param gfx           the graphics attributes.
+	 */
+	protected void readShapeStyleProperty(ShapedElement shapedElement, Attributes gfx) {
+		Color borderColor = ColorUtils.stringToColor(getValue(gfx, "borderColor", BORDERCOLOR_DEFAULT));
+		LineStyleType borderStyle = LineStyleType.register(getValue(gfx, "borderStyle", BORDERSTYLE_DEFAULT));
+		double borderWidth = Double.parseDouble(getValue(gfx, "borderWidth", BORDERWIDTH_DEFAULT).trim());
+		Color fillColor = ColorUtils.stringToColor(getValue(gfx, "fillColor", FILLCOLOR_DEFAULT));
+		ShapeType shapeType = ShapeType.register(getValue(gfx, "shapeType", SHAPETYPE_DEFAULT), null);
+		String zOrder = gfx.getValue("zOrder");
+		String rotation = gfx.getValue("rotation");
+		// set shape style props
+		shapedElement.setBorderColor(borderColor);
+		shapedElement.setBorderStyle(borderStyle);
+		shapedElement.setBorderWidth(borderWidth);
+		shapedElement.setFillColor(fillColor);
+		shapedElement.setShapeType(shapeType);
+		if (zOrder != null) {
+			shapedElement.setZOrder(Integer.parseInt(zOrder.trim()));
+		}
+		if (rotation != null) {
+			shapedElement.setRotation(Double.parseDouble(rotation.trim()));
+		}
+	}
+
+	/**
+	 * Reads line style property information.
+	 *
+	 * @param lineElement the line pathway element.
+	 * @param gfx         the graphics attributes.
+	 */
+	protected void readLineStyleProperty(LineElement lineElement, Attributes gfx) {
+		Color lineColor = ColorUtils.stringToColor(getValue(gfx, "lineColor", LINECOLOR_DEFAULT));
+		LineStyleType lineStyle = LineStyleType.register(getValue(gfx, "lineStyle", LINESTYLE_DEFAULT));
+		double lineWidth = Double.parseDouble(getValue(gfx, "lineWidth", LINEWIDTH_DEFAULT).trim());
+		ConnectorType connectorType = ConnectorType.register(getValue(gfx, "connectorType", CONNECTORTYPE_DEFAULT));
+		String zOrder = gfx.getValue("zOrder");
+		// set line style props
+		lineElement.setLineColor(lineColor);
+		lineElement.setLineStyle(lineStyle);
+		lineElement.setLineWidth(lineWidth);
+		lineElement.setConnectorType(connectorType);
+		if (zOrder != null) {
+			lineElement.setZOrder(Integer.parseInt(zOrder.trim()));
+		}
+	}
+
+	/**
+	 * Returns the value of the given attribute, or the default if absent.
+	 *
+	 * @param attributes the attributes.
+	 * @param name       the attribute name.
+	 * @param def        the default value.
+	 * @return the attribute value.
+	 */
+	private static String getValue(Attributes attributes, String name, String def) {
+		String value = attributes.getValue(name);
+		return value == null ? def : value;
+	}
+
+}
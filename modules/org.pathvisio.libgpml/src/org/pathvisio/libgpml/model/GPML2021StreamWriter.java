@@ -0,0 +1,474 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.model;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import javax.xml.validation.ValidatorHandler;
+
+import org.jdom2.Namespace;
+import org.jdom2.output.EscapeStrategy;
+import org.jdom2.output.Format;
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.libgpml.io.ConverterException;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * This class writes a PathwayModel to an output (GPML 2021) without building a
+ * JDOM document first.
+ * <p>
+ * NB:
+ * <ol>
+ * <li>The elements and attributes are given by {@link GPML2021Writer}, which
+ * is the only place that knows their order; this class only adds the sinks that
+ * write them as text or pass them to a validator. The text is written in the
+ * same pretty format as {@link GPML2021Writer}, so the output is byte-identical.
+ * <li>Validation feeds the elements to a schema {@link ValidatorHandler} while
+ * they are written, so the pathway model is only passed over once. An invalid
+ * pathway model may leave an output stream partially written; files are
+ * written to a temporary file first, see {@link #writeToXml(PathwayModel, File,
+ * boolean)}. With {@link #setValidateWhileWriting(boolean)} turned off,
+ * validation is a separate pass which runs before anything is written.
+ * <li>{@link #createJdom} is inherited from {@link GPML2021Writer}.
+ * </ol>
+ */
+public class GPML2021StreamWriter extends GPML2021Writer {
+
+	public static final GPML2021StreamWriter GPML2021STREAMWRITER = new GPML2021StreamWriter("GPML2021.xsd",
+			Namespace.getNamespace("http://pathvisio.org/GPML/2021"));
+
+	/**
+	 * Constructor for GPML stream writer.
+	 *
+	 * @param xsdFile the schema file.
+	 * @param nsGPML  the GPML namespace.
+	 */
+	protected GPML2021StreamWriter(String xsdFile, Namespace nsGPML) {
+		super(xsdFile, nsGPML);
+	}
+
+	private volatile boolean validateWhileWriting = true;
+
+	/**
+	 * Sets whether the pathway model is validated while it is written, or in a
+	 * separate pass before it is written. Default is true.
+	 */
+	public void setValidateWhileWriting(boolean value) {
+		validateWhileWriting = value;
+	}
+
+	public boolean isValidateWhileWriting() {
+		return validateWhileWriting;
+	}
+
+	/**
+	 * Writes the pathway model to the outputstream specified. The outputstream is
+	 * flushed but not closed.
+	 *
+	 * @param pathwayModel the pathway model.
+	 * @param output       the outputstream to which the pathway model should be
+	 *                     written.
+	 * @param validate     if true, validate the pathway model while or before
+	 *                     writing. If there is a validation error, or the xsd is
+	 *                     not in the classpath, an exception will be thrown.
+	 * @throws ConverterException
+	 */
+	@Override
+	public void writeToXml(PathwayModel pathwayModel, OutputStream output, boolean validate) throws ConverterException {
+		// removes empty groups and updates group dimensions
+		pathwayModel = updateGroupsForWriting(pathwayModel);
+		if (validate && !validateWhileWriting) {
+			validatePathwayModel(pathwayModel);
+		}
+		Format format = Format.getPrettyFormat();
+		format.setEncoding("UTF-8");
+		Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+		Sink sink = new PrettySink(out, format);
+		if (validate && validateWhileWriting) {
+			ValidatingSink vs = new ValidatingSink(sink,
+					new SaxSink(getSchema().newValidatorHandler(), getGpmlNamespace().getURI()));
+			try {
+				writePathwayModel(pathwayModel, vs);
+			} catch (ConverterException e) {
+				if (vs.invalid) {
+					Logger.log.error("Document is invalid according to the xml-schema definition!: " + e.getMessage(),
+							e);
+				}
+				throw e;
+			}
+			logValid(vs.nanos / 1000000);
+		} else {
+			writePathwayModel(pathwayModel, sink);
+		}
+		Logger.log.trace("Wrote pathway model successfully to gpml file");
+	}
+
+	/**
+	 * Writes the pathway model to the file specified. The pathway model is written
+	 * to a temporary file next to it first, which is moved in place when it is
+	 * complete, so that an invalid pathway model leaves the file untouched.
+	 *
+	 * @param pathwayModel the pathway model.
+	 * @param file         the file to which the pathway model should be saved.
+	 * @param validate     if true, validate the pathway model while or before
+	 *                     writing to file.
+	 * @throws ConverterException
+	 */
+	@Override
+	public void writeToXml(PathwayModel pathwayModel, File file, boolean validate) throws ConverterException {
+		File tmp = null;
+		try {
+			tmp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+			try (OutputStream out = new FileOutputStream(tmp)) {
+				writeToXml(pathwayModel, out, validate);
+			}
+			try {
+				Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException ex) {
+			throw new ConverterException(ex);
+		} finally {
+			// no-op if the file has been moved
+			if (tmp != null) {
+				tmp.delete();
+			}
+		}
+	}
+
+	/**
+	 * Validates the pathway model against the xml-schema definition specified by
+	 * 'xsdFile', by passing it as SAX events to a {@link ValidatorHandler}.
+	 *
+	 * @param pathwayModel the pathway model to validate.
+	 * @throws ConverterException if the pathway model is invalid.
+	 */
+	public void validatePathwayModel(PathwayModel pathwayModel) throws ConverterException {
+		ValidatorHandler vh = getSchema().newValidatorHandler();
+		try {
+			long start = System.currentTimeMillis();
+			writePathwayModel(pathwayModel, new SaxSink(vh, getGpmlNamespace().getURI()));
+			// if no errors, the file is valid according to the gpml xml schema
+			logValid(System.currentTimeMillis() - start);
+		} catch (ConverterException e) {
+			Logger.log.error("Document is invalid according to the xml-schema definition!: " + e.getMessage(), e);
+			throw e;
+		}
+	}
+
+	// ================================================================================
+	// Sinks
+	// ================================================================================
+	/**
+	 * Writes elements as text, in the same way as {@link org.jdom2.output.XMLOutputter}
+	 * with {@link Format#getPrettyFormat()}.
+	 */
+	private class PrettySink extends Sink {
+
+		private final Writer out;
+		private final String eol;
+		private final String indent;
+		private final EscapeStrategy strategy;
+		private boolean open = false;
+		private String text = null;
+
+		PrettySink(Writer out, Format format) {
+			this.out = out;
+			this.eol = format.getLineSeparator();
+			this.indent = format.getIndent();
+			this.strategy = format.getEscapeStrategy();
+		}
+
+		@Override
+		void startDocument() throws ConverterException {
+			write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+			write(eol);
+		}
+
+		@Override
+		void doStart(String name, int depth) throws ConverterException {
+			if (open) {
+				write(">");
+				open = false;
+			}
+			if (depth > 0) {
+				newLine(depth);
+			}
+			write("<");
+			write(name);
+			if (depth == 0) {
+				write(" xmlns=\"");
+				write(Format.escapeAttribute(strategy, getGpmlNamespace().getURI()));
+				write("\"");
+			}
+			open = true;
+		}
+
+		@Override
+		void doAttribute(String name, String value) throws ConverterException {
+			write(" ");
+			write(name);
+			write("=\"");
+			write(Format.escapeAttribute(strategy, value));
+			write("\"");
+		}
+
+		@Override
+		void doText(String value) throws ConverterException {
+			String trimmed = Format.trimBoth(value);
+			if (!trimmed.isEmpty()) {
+				text = trimmed;
+			}
+		}
+
+		@Override
+		void doEnd(String name, int depth) throws ConverterException {
+			if (open) {
+				if (text == null) {
+					write(" />");
+				} else {
+					write(">");
+					write(Format.escapeText(strategy, eol, text));
+					write("</" + name + ">");
+					text = null;
+				}
+				open = false;
+			} else {
+				newLine(depth);
+				write("</" + name + ">");
+			}
+		}
+
+		@Override
+		void endDocument() throws ConverterException {
+			write(eol);
+			try {
+				out.flush();
+			} catch (IOException e) {
+				throw new ConverterException(e);
+			}
+		}
+
+		private void newLine(int depth) throws ConverterException {
+			write(eol);
+			for (int i = 0; i < depth; i++) {
+				write(indent);
+			}
+		}
+
+		private void write(String s) throws ConverterException {
+			try {
+				out.write(s);
+			} catch (IOException e) {
+				throw new ConverterException(e);
+			}
+		}
+	}
+
+	/**
+	 * Passes elements as SAX events to a content handler, e.g. for validation.
+	 */
+	private static class SaxSink extends Sink {
+
+		private final ContentHandler handler;
+		private final String uri;
+		private final AttributesImpl attributes = new AttributesImpl();
+		private String pending = null;
+
+		SaxSink(ContentHandler handler, String uri) {
+			this.handler = handler;
+			this.uri = uri;
+		}
+
+		@Override
+		void startDocument() throws ConverterException {
+			try {
+				handler.startDocument();
+				handler.startPrefixMapping("", uri);
+			} catch (SAXException e) {
+				throw new ConverterException(e);
+			}
+		}
+
+		@Override
+		void doStart(String name, int depth) throws ConverterException {
+			flush();
+			pending = name;
+		}
+
+		@Override
+		void doAttribute(String name, String value) throws ConverterException {
+			attributes.addAttribute("", name, name, "CDATA", value);
+		}
+
+		@Override
+		void doText(String text) throws ConverterException {
+			flush();
+			try {
+				handler.characters(text.toCharArray(), 0, text.length());
+			} catch (SAXException e) {
+				throw new ConverterException(e);
+			}
+		}
+
+		@Override
+		void doEnd(String name, int depth) throws ConverterException {
+			flush();
+			try {
+				handler.endElement(uri, name, name);
+			} catch (SAXException e) {
+				throw new ConverterException(e);
+			}
+		}
+
+		@Override
+		void endDocument() throws ConverterException {
+			try {
+				handler.endPrefixMapping("");
+				handler.endDocument();
+			} catch (SAXException e) {
+				throw new ConverterException(e);
+			}
+		}
+
+		private void flush() throws ConverterException {
+			if (pending != null) {
+				try {
+					handler.startElement(uri, pending, pending, attributes);
+				} catch (SAXException e) {
+					throw new ConverterException(e);
+				}
+				attributes.clear();
+				pending = null;
+			}
+		}
+	}
+
+	/**
+	 * Passes elements to a validating {@link SaxSink} and then to another sink,
+	 * and keeps the time spent validating.
+	 */
+	private static class ValidatingSink extends Sink {
+
+		private final Sink out;
+		private final SaxSink validator;
+		long nanos = 0;
+		boolean invalid = false;
+
+		ValidatingSink(Sink out, SaxSink validator) {
+			this.out = out;
+			this.validator = validator;
+		}
+
+		@Override
+		void startDocument() throws ConverterException {
+			long start = System.nanoTime();
+			try {
+				validator.startDocument();
+			} catch (ConverterException e) {
+				throw invalid(e);
+			} finally {
+				nanos += System.nanoTime() - start;
+			}
+			out.startDocument();
+		}
+
+		@Override
+		void doStart(String name, int depth) throws ConverterException {
+			long start = System.nanoTime();
+			try {
+				validator.doStart(name, depth);
+			} catch (ConverterException e) {
+				throw invalid(e);
+			} finally {
+				nanos += System.nanoTime() - start;
+			}
+			out.doStart(name, depth);
+		}
+
+		@Override
+		void doAttribute(String name, String value) throws ConverterException {
+			long start = System.nanoTime();
+			try {
+				validator.doAttribute(name, value);
+			} catch (ConverterException e) {
+				throw invalid(e);
+			} finally {
+				nanos += System.nanoTime() - start;
+			}
+			out.doAttribute(name, value);
+		}
+
+		@Override
+		void doText(String text) throws ConverterException {
+			long start = System.nanoTime();
+			try {
+				validator.doText(text);
+			} catch (ConverterException e) {
+				throw invalid(e);
+			} finally {
+				nanos += System.nanoTime() - start;
+			}
+			out.doText(text);
+		}
+
+		@Override
+		void doEnd(String name, int depth) throws ConverterException {
+			long start = System.nanoTime();
+			try {
+				validator.doEnd(name, depth);
+			} catch (ConverterException e) {
+				throw invalid(e);
+			} finally {
+				nanos += System.nanoTime() - start;
+			}
+			out.doEnd(name, depth);
+		}
+
+		@Override
+		void endDocument() throws ConverterException {
+			long start = System.nanoTime();
+			try {
+				validator.endDocument();
+			} catch (ConverterException e) {
+				throw invalid(e);
+			} finally {
+				nanos += System.nanoTime() - start;
+			}
+			out.endDocument();
+		}
+
+		private ConverterException invalid(ConverterException e) {
+			invalid = true;
+			return e;
+		}
+	}
+}
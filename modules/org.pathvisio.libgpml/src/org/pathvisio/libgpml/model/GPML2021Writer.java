@@ -20,15 +20,16 @@
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 
-import org.bridgedb.DataSource;
 import org.bridgedb.Xref;
 import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.Namespace;
+import org.jdom2.Verifier;
 import org.jdom2.output.Format;
 import org.jdom2.output.XMLOutputter;
 import org.pathvisio.libgpml.debug.Logger;
@@ -54,6 +55,10 @@
  * <ol>
  * <li>GPML2021 is the current gpml format.
  * <li>In the GUI, Pathways are saved/written in the GPML2021 format.
+ * <li>The write methods give the elements and attributes, in document order, to
+ * a {@link Sink}. They are the single source of the element and attribute order
+ * for GPML2021: {@link #createJdom} builds a JDOM document from them, and
+ * {@link GPML2021StreamWriter} writes them as text without building a document.
  * </ol>
  *
  * @author finterly
@@ -121,13 +126,11 @@ public void writeToXml(PathwayModel pathwayModel, OutputStream output, boolean v
 	 */
 	@Override
 	public void writeToXml(PathwayModel pathwayModel, File file, boolean validate) throws ConverterException {
-		OutputStream out;
-		try {
-			out = new FileOutputStream(file);
+		try (OutputStream out = new FileOutputStream(file)) {
+			writeToXml(pathwayModel, out, validate);
 		} catch (IOException ex) {
 			throw new ConverterException(ex);
 		}
-		writeToXml(pathwayModel, out, true);
 	}
 
 	/**
@@ -140,115 +143,239 @@ public void writeToXml(PathwayModel pathwayModel, File file, boolean validate) t
 	@Override
 	public Document createJdom(PathwayModel pathwayModel) throws ConverterException {
 		// removes empty groups and updates group dimensions
-		updateGroups(pathwayModel);
+		pathwayModel = updateGroupsForWriting(pathwayModel);
 
-		Document doc = new Document();
-		Element root = new Element("Pathway", getGpmlNamespace());
-		doc.setRootElement(root);
+		JdomSink sink = new JdomSink(getGpmlNamespace());
+		writePathwayModel(pathwayModel, sink);
+		return sink.doc;
+	}
 
-		if (root != null) {
-			writePathwayInfo(pathwayModel, root);
+	/**
+	 * Writes the pathway model to the given sink.
+	 *
+	 * @param pathwayModel the pathway model to be written.
+	 * @param out          the sink.
+	 * @throws ConverterException
+	 */
+	protected void writePathwayModel(PathwayModel pathwayModel, Sink out) throws ConverterException {
+		out.startDocument();
+		out.start("Pathway");
+		writePathwayInfo(pathwayModel, out);
+
+		writeDataNodes(pathwayModel.getDataNodes(), out);
+		writeInteractions(pathwayModel.getInteractions(), out);
+		writeGraphicalLines(pathwayModel.getGraphicalLines(), out);
+		writeLabels(pathwayModel.getLabels(), out);
+		writeShapes(pathwayModel.getShapes(), out);
+		writeGroups(pathwayModel.getGroups(), out);
 
-			writeDataNodes(pathwayModel.getDataNodes(), root);
-			writeInteractions(pathwayModel.getInteractions(), root);
-			writeGraphicalLines(pathwayModel.getGraphicalLines(), root);
-			writeLabels(pathwayModel.getLabels(), root);
-			writeShapes(pathwayModel.getShapes(), root);
-			writeGroups(pathwayModel.getGroups(), root);
+		writeAnnotations(pathwayModel.getAnnotations(), out);
+		writeCitations(pathwayModel.getCitations(), out);
+		writeEvidences(pathwayModel.getEvidences(), out);
+		out.end();
+		out.endDocument();
+	}
+
+	// ================================================================================
+	// Sinks
+	// ================================================================================
+	/**
+	 * Receives elements in document order. Attributes of an element must be given
+	 * directly after {@link #start}, before any text or child element. Subclasses
+	 * of the writer call {@link #start}, {@link #attribute}, {@link #text} and
+	 * {@link #end} from the write methods; the sinks themselves are implemented in
+	 * this package.
+	 */
+	protected static abstract class Sink {
+
+		private final Deque<String> names = new ArrayDeque<String>();
+
+		/**
+		 * Opens element with given name.
+		 */
+		public void start(String name) throws ConverterException {
+			names.push(name);
+			doStart(name, names.size() - 1);
+		}
+
+		/**
+		 * Adds attribute to the element opened last.
+		 */
+		public void attribute(String name, String value) throws ConverterException {
+			String reason = Verifier.checkCharacterData(value);
+			if (reason != null) {
+				throw new ConverterException("Attribute " + name + " of " + names.peek() + ": " + reason);
+			}
+			doAttribute(name, value);
+		}
+
+		/**
+		 * Adds text to the element opened last.
+		 */
+		public void text(String value) throws ConverterException {
+			String reason = Verifier.checkCharacterData(value);
+			if (reason != null) {
+				throw new ConverterException("Text of " + names.peek() + ": " + reason);
+			}
+			doText(value);
+		}
 
-			writeAnnotations(pathwayModel.getAnnotations(), root);
-			writeCitations(pathwayModel.getCitations(), root);
-			writeEvidences(pathwayModel.getEvidences(), root);
+		/**
+		 * Closes the element opened last.
+		 */
+		public void end() throws ConverterException {
+			String name = names.pop();
+			doEnd(name, names.size());
 		}
-		return doc;
+
+		abstract void startDocument() throws ConverterException;
+
+		abstract void doStart(String name, int depth) throws ConverterException;
+
+		abstract void doAttribute(String name, String value) throws ConverterException;
+
+		abstract void doText(String text) throws ConverterException;
+
+		abstract void doEnd(String name, int depth) throws ConverterException;
+
+		abstract void endDocument() throws ConverterException;
 	}
 
 	/**
-	 * Writes pathway object {@link Pathway} information and authors list to root
-	 * element.
+	 * Builds a JDOM document from the elements.
+	 */
+	private static class JdomSink extends Sink {
+
+		private final Namespace ns;
+		private final Document doc = new Document();
+		private Element current = null;
+
+		JdomSink(Namespace ns) {
+			this.ns = ns;
+		}
+
+		@Override
+		void startDocument() throws ConverterException {
+		}
+
+		@Override
+		void doStart(String name, int depth) throws ConverterException {
+			Element e = new Element(name, ns);
+			if (current == null) {
+				doc.setRootElement(e);
+			} else {
+				current.addContent(e);
+			}
+			current = e;
+		}
+
+		@Override
+		void doAttribute(String name, String value) throws ConverterException {
+			current.setAttribute(name, value);
+		}
+
+		@Override
+		void doText(String text) throws ConverterException {
+			current.addContent(text);
+		}
+
+		@Override
+		void doEnd(String name, int depth) throws ConverterException {
+			current = current.getParentElement();
+		}
+
+		@Override
+		void endDocument() throws ConverterException {
+		}
+	}
+
+	// ================================================================================
+	// Write Methods
+	// ================================================================================
+	/**
+	 * Writes pathway object {@link Pathway} information and authors list.
 	 *
 	 * @param pathwayModel the pathway model.
-	 * @param root         the root element.
+	 * @param out          the sink, with the root element open.
 	 * @throws ConverterException
 	 */
-	protected void writePathwayInfo(PathwayModel pathwayModel, Element root) throws ConverterException {
+	protected void writePathwayInfo(PathwayModel pathwayModel, Sink out) throws ConverterException {
 		Pathway pathway = pathwayModel.getPathway();
-		root.setAttribute("title", pathway.getTitle());
+		out.attribute("title", pathway.getTitle());
 		if (pathway.getOrganism() != null) {
-			root.setAttribute("organism", pathway.getOrganism());
+			out.attribute("organism", pathway.getOrganism());
 		}
 		if (pathway.getSource() != null) {
-			root.setAttribute("source", pathway.getSource());
+			out.attribute("source", pathway.getSource());
 		}
 		if (pathway.getVersion() != null) {
-			root.setAttribute("version", pathway.getVersion());
+			out.attribute("version", pathway.getVersion());
 		}
 		if (pathway.getLicense() != null) {
-			root.setAttribute("license", pathway.getLicense());
+			out.attribute("license", pathway.getLicense());
 		}
 		if (pathway.getXref() != null) {
-			writeXref(pathway.getXref(), root, false);
+			writeXref(pathway.getXref(), out, false);
 		}
 		String description = pathway.getDescription();
 		if (description != null) {
-			Element desc = new Element("Description", root.getNamespace());
-			desc.setText(description);
-			root.addContent(desc);
+			out.start("Description");
+			out.text(description);
+			out.end();
 		}
-		writeAuthors(pathway.getAuthors(), root);
-		writeComments(pathway.getComments(), root);
-		writeDynamicProperties(pathway.getDynamicProperties(), root);
-		writeAnnotationRefs(pathway.getAnnotationRefs(), root);
-		writeCitationRefs(pathway.getCitationRefs(), root);
-		writeEvidenceRefs(pathway.getEvidenceRefs(), root);
+		writeAuthors(pathway.getAuthors(), out);
+		writeComments(pathway.getComments(), out);
+		writeDynamicProperties(pathway.getDynamicProperties(), "Pathway", out);
+		writeAnnotationRefs(pathway.getAnnotationRefs(), out);
+		writeCitationRefs(pathway.getCitationRefs(), out);
+		writeEvidenceRefs(pathway.getEvidenceRefs(), out);
 
-		Element gfx = new Element("Graphics", root.getNamespace());
-		root.addContent(gfx);
-		gfx.setAttribute("boardWidth", String.valueOf(pathway.getBoardWidth()));
-		gfx.setAttribute("boardHeight", String.valueOf(pathway.getBoardHeight()));
+		out.start("Graphics");
+		out.attribute("boardWidth", String.valueOf(pathway.getBoardWidth()));
+		out.attribute("boardHeight", String.valueOf(pathway.getBoardHeight()));
+		out.end();
 	}
 
 	/**
-	 * Writes xref {@link Xref} information to new element. Xref is required for
-	 * Evidences. Xref is optional for the Pathway, DataNodes, States, Interactions,
-	 * Groups, and Annotations. For Citations, either Xref and/or Url are required.
+	 * Writes xref {@link Xref} information. Xref is required for Evidences. Xref
+	 * is optional for the Pathway, DataNodes, States, Interactions, Groups, and
+	 * Annotations. For Citations, either Xref and/or Url are required.
 	 *
 	 * @param xref     the xref of the pathway or pathway element.
-	 * @param e        the parent element.
+	 * @param out      the sink.
 	 * @param required if true, xref is a required property.
 	 */
-	protected void writeXref(Xref xref, Element e, boolean required) {
+	protected void writeXref(Xref xref, Sink out, boolean required) throws ConverterException {
 		if (xref == null && required) {
-			Element xrf = new Element("Xref", e.getNamespace());
-			xrf.setAttribute("identifier", "");
-			xrf.setAttribute("dataSource", "");
-			e.addContent(xrf);
+			out.start("Xref");
+			out.attribute("identifier", "");
+			out.attribute("dataSource", "");
+			out.end();
 		}
 		if (xref != null) {
 			String identifier = xref.getId();
-			DataSource dataSource = xref.getDataSource();
-			String dataSourceStr = XrefUtils.getXrefDataSourceStr(dataSource);
+			String dataSourceStr = XrefUtils.getXrefDataSourceStr(xref.getDataSource());
 			if (dataSourceStr != null && !dataSourceStr.equals("")) {
-				Element xrf = new Element("Xref", e.getNamespace());
-				xrf.setAttribute("identifier", identifier == null ? "" : identifier);
-				xrf.setAttribute("dataSource", dataSourceStr);
-				e.addContent(xrf);
+				out.start("Xref");
+				out.attribute("identifier", identifier == null ? "" : identifier);
+				out.attribute("dataSource", dataSourceStr);
+				out.end();
 			}
 		}
 	}
 
 	/**
-	 * Writes url link information to new element. Url is optional for Annotations
-	 * and Evidences. For Citations, either Xref and/or Url are required.
+	 * Writes url link information. Url is optional for Annotations and Evidences.
+	 * For Citations, either Xref and/or Url are required.
 	 *
 	 * @param urlLink the url link.
-	 * @param e       the jdom element.
+	 * @param out     the sink.
 	 */
-	protected void writeUrl(String urlLink, Element e) {
+	protected void writeUrl(String urlLink, Sink out) throws ConverterException {
 		if (urlLink != null && !Utils.stringEquals(urlLink, "")) {
-			Element u = new Element("Url", e.getNamespace());
-			u.setAttribute("link", urlLink);
-			e.addContent(u);
+			out.start("Url");
+			out.attribute("link", urlLink);
+			out.end();
 		}
 	}
 
@@ -256,32 +383,26 @@ protected void writeUrl(String urlLink, Element e) {
 	 * Writes author {@link Author} information.
 	 *
 	 * @param authors the list of authors.
-	 * @param root    the root element.
+	 * @param out     the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeAuthors(List<Author> authors, Element root) throws ConverterException {
+	protected void writeAuthors(List<Author> authors, Sink out) throws ConverterException {
 		if (!authors.isEmpty()) {
-			Element aus = new Element("Authors", root.getNamespace());
-			List<Element> auList = new ArrayList<Element>();
+			out.start("Authors");
 			for (Author author : authors) {
-				Element au = new Element("Author", root.getNamespace());
-				au.setAttribute("name", author.getName());
+				out.start("Author");
+				out.attribute("name", author.getName());
 				// sets optional properties
 				String username = author.getUsername();
 				int order = author.getOrder();
-				writeXref(author.getXref(), au, false);
 				if (username != null)
-					au.setAttribute("username", username);
+					out.attribute("username", username);
 				if (order != 0)
-					au.setAttribute("order", String.valueOf(order));
-				if (au != null) {
-					auList.add(au);
-				}
-			}
-			if (auList != null && auList.isEmpty() == false) {
-				aus.addContent(auList);
-				root.addContent(aus);
+					out.attribute("order", String.valueOf(order));
+				writeXref(author.getXref(), out, false);
+				out.end();
 			}
+			out.end();
 		}
 	}
 
@@ -289,22 +410,21 @@ protected void writeAuthors(List<Author> authors, Element root) throws Converter
 	 * Writes comments {@link Comment} information for pathway or pathway element.
 	 *
 	 * @param comments the list of comments of pathway or pathway element.
-	 * @param e        the parent element.
+	 * @param out      the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeComments(List<Comment> comments, Element e) throws ConverterException {
+	protected void writeComments(List<Comment> comments, Sink out) throws ConverterException {
 		for (Comment comment : comments) {
 			if (comment != null) {
 				// write comment only if comment has text
 				String commentText = comment.getCommentText();
 				if (commentText != null && !commentText.equals("")) {
-					Element cmt = new Element("Comment", e.getNamespace());
-					cmt.setText(commentText);
+					out.start("Comment");
 					String source = comment.getSource();
 					if (source != null && !source.equals(""))
-						cmt.setAttribute("source", source);
-					if (cmt != null)
-						e.addContent(cmt);
+						out.attribute("source", source);
+					out.text(commentText);
+					out.end();
 				}
 			}
 		}
@@ -315,24 +435,24 @@ protected void writeComments(List<Comment> comments, Element e) throws Converter
 	 * {@link PathwayElement#getDynamicProperty}
 	 *
 	 * @param dynamicProperties the list of dynamic properties.
-	 * @param e                 the parent element.
+	 * @param parentName        the name of the parent element, for logging.
+	 * @param out               the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeDynamicProperties(Map<String, String> dynamicProperties, Element e) throws ConverterException {
+	protected void writeDynamicProperties(Map<String, String> dynamicProperties, String parentName, Sink out)
+			throws ConverterException {
 		for (String key : dynamicProperties.keySet()) {
 			String value = dynamicProperties.get(key);
 			// warnings for conversion GPML2021 to GPML2013a
 			if (GPML2013aFormatAbstract.GPML2013A_KEY_SET.contains(key)) {
-				Logger.log.trace("Warning: Conversion GPML2013a to GPML2021: " + e.getName() + " dynamic property \""
+				Logger.log.trace("Warning: Conversion GPML2013a to GPML2021: " + parentName + " dynamic property \""
 						+ key + "\" (key) and \"" + value + "\" (value) info lost.");
 				continue;
 			}
-			Element dp = new Element("Property", e.getNamespace());
-			dp.setAttribute("key", key);
-			dp.setAttribute("value", value);
-			if (dp != null) {
-				e.addContent(dp);
-			}
+			out.start("Property");
+			out.attribute("key", key);
+			out.attribute("value", value);
+			out.end();
 		}
 	}
 
@@ -343,18 +463,16 @@ protected void writeDynamicProperties(Map<String, String> dynamicProperties, Ele
 	 * inside.
 	 *
 	 * @param annotationRefs the list of annotation references.
-	 * @param e              the parent element.
+	 * @param out            the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeAnnotationRefs(List<AnnotationRef> annotationRefs, Element e) throws ConverterException {
+	protected void writeAnnotationRefs(List<AnnotationRef> annotationRefs, Sink out) throws ConverterException {
 		for (AnnotationRef annotationRef : annotationRefs) {
-			Element anntRef = new Element("AnnotationRef", e.getNamespace());
-			anntRef.setAttribute("elementRef", annotationRef.getAnnotation().getElementId());
-			writeCitationRefs(annotationRef.getCitationRefs(), anntRef);
-			writeEvidenceRefs(annotationRef.getEvidenceRefs(), anntRef);
-			if (anntRef != null) {
-				e.addContent(anntRef);
-			}
+			out.start("AnnotationRef");
+			out.attribute("elementRef", annotationRef.getAnnotation().getElementId());
+			writeCitationRefs(annotationRef.getCitationRefs(), out);
+			writeEvidenceRefs(annotationRef.getEvidenceRefs(), out);
+			out.end();
 		}
 	}
 
@@ -363,19 +481,15 @@ protected void writeAnnotationRefs(List<AnnotationRef> annotationRefs, Element e
 	 * {@link Pathway#getCitationRefs , ElementInfo#getCitationRefs}.
 	 *
 	 * @param citationRefs the list of citation references.
-	 * @param e            the parent element.
+	 * @param out          the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeCitationRefs(List<CitationRef> citationRefs, Element e) throws ConverterException {
-		if (e != null) {
-			for (CitationRef citationRef : citationRefs) {
-				Element citRef = new Element("CitationRef", e.getNamespace());
-				citRef.setAttribute("elementRef", citationRef.getCitation().getElementId());
-				writeAnnotationRefs(citationRef.getAnnotationRefs(), citRef);
-				if (citRef != null) {
-					e.addContent(citRef);
-				}
-			}
+	protected void writeCitationRefs(List<CitationRef> citationRefs, Sink out) throws ConverterException {
+		for (CitationRef citationRef : citationRefs) {
+			out.start("CitationRef");
+			out.attribute("elementRef", citationRef.getCitation().getElementId());
+			writeAnnotationRefs(citationRef.getAnnotationRefs(), out);
+			out.end();
 		}
 	}
 
@@ -383,20 +497,15 @@ protected void writeCitationRefs(List<CitationRef> citationRefs, Element e) thro
 	 * Writes evidence reference information for pathway or pathway element
 	 * {@link Pathway#getEvidenceRefs , ElementInfo#getEvidenceRefs}.
 	 *
-	 *
 	 * @param evidenceRefs the list of evidence references.
-	 * @param e            the parent element.
+	 * @param out          the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeEvidenceRefs(List<EvidenceRef> evidenceRefs, Element e) throws ConverterException {
-		if (e != null) {
-			for (EvidenceRef evidenceRef : evidenceRefs) {
-				Element evidRef = new Element("EvidenceRef", e.getNamespace());
-				evidRef.setAttribute("elementRef", evidenceRef.getEvidence().getElementId());
-				if (evidRef != null) {
-					e.addContent(evidRef);
-				}
-			}
+	protected void writeEvidenceRefs(List<EvidenceRef> evidenceRefs, Sink out) throws ConverterException {
+		for (EvidenceRef evidenceRef : evidenceRefs) {
+			out.start("EvidenceRef");
+			out.attribute("elementRef", evidenceRef.getEvidence().getElementId());
+			out.end();
 		}
 	}
 
@@ -404,31 +513,25 @@ protected void writeEvidenceRefs(List<EvidenceRef> evidenceRefs, Element e) thro
 	 * Writes datanode {@link DataNode} information.
 	 *
 	 * @param dataNodes the list of datanodes.
-	 * @param root      the root element.
+	 * @param out       the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeDataNodes(List<DataNode> dataNodes, Element root) throws ConverterException {
+	protected void writeDataNodes(List<DataNode> dataNodes, Sink out) throws ConverterException {
 		if (!dataNodes.isEmpty()) {
-			Element dns = new Element("DataNodes", root.getNamespace());
-			List<Element> dnList = new ArrayList<Element>();
+			out.start("DataNodes");
 			for (DataNode dataNode : dataNodes) {
-				Element dn = new Element("DataNode", root.getNamespace());
-				writeXref(dataNode.getXref(), dn, false);
-				writeStates(dataNode.getStates(), dn);
-				writeShapedElement(dataNode, dn);
-				// write jdom attributes
-				dn.setAttribute("textLabel", dataNode.getTextLabel());
-				dn.setAttribute("type", dataNode.getType().getName());
-				writeGroupRef(dataNode.getGroupRef(), dn);
-				writeAliasRef(dataNode.getAliasRef(), dn);
-				if (dn != null) {
-					dnList.add(dn);
-				}
-			}
-			if (dnList != null && dnList.isEmpty() == false) {
-				dns.addContent(dnList);
-				root.addContent(dns);
+				out.start("DataNode");
+				writeElementId(dataNode.getElementId(), out);
+				out.attribute("textLabel", dataNode.getTextLabel());
+				out.attribute("type", dataNode.getType().getName());
+				writeGroupRef(dataNode.getGroupRef(), out);
+				writeAliasRef(dataNode.getAliasRef(), out);
+				writeXref(dataNode.getXref(), out, false);
+				writeStates(dataNode.getStates(), out);
+				writeShapedElement(dataNode, "DataNode", out);
+				out.end();
 			}
+			out.end();
 		}
 	}
 
@@ -437,13 +540,13 @@ protected void writeDataNodes(List<DataNode> dataNodes, Element root) throws Con
 	 * {@link #writeDataNodes}.
 	 *
 	 * @param aliasRef the group for which data node is an alias.
-	 * @param e        the parent jdom element.
+	 * @param out      the sink, with the data node element open.
 	 */
-	protected void writeAliasRef(Group aliasRef, Element e) {
+	protected void writeAliasRef(Group aliasRef, Sink out) throws ConverterException {
 		if (aliasRef != null) {
 			String aliasRefStr = aliasRef.getElementId();
 			if (aliasRefStr != null && !aliasRefStr.equals("")) {
-				e.setAttribute("aliasRef", aliasRefStr);
+				out.attribute("aliasRef", aliasRefStr);
 			}
 		}
 	}
@@ -452,28 +555,22 @@ protected void writeAliasRef(Group aliasRef, Element e) {
 	 * Writes state {@link State} information.
 	 *
 	 * @param states the list of states.
-	 * @param dn     the parent data node element.
+	 * @param out    the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeStates(List<State> states, Element dn) throws ConverterException {
+	protected void writeStates(List<State> states, Sink out) throws ConverterException {
 		if (!states.isEmpty()) {
-			Element sts = new Element("States", dn.getNamespace());
-			List<Element> stList = new ArrayList<Element>();
+			out.start("States");
 			for (State state : states) {
-				Element st = new Element("State", dn.getNamespace());
-				writeXref(state.getXref(), st, false);
-				writeShapedElement(state, st);
-				// write jdom attributes
-				st.setAttribute("textLabel", state.getTextLabel() == null ? "" : state.getTextLabel());
-				st.setAttribute("type", state.getType().getName());
-				if (st != null) {
-					stList.add(st);
-				}
-			}
-			if (stList != null && stList.isEmpty() == false) {
-				sts.addContent(stList);
-				dn.addContent(sts);
+				out.start("State");
+				writeElementId(state.getElementId(), out);
+				out.attribute("textLabel", state.getTextLabel() == null ? "" : state.getTextLabel());
+				out.attribute("type", state.getType().getName());
+				writeXref(state.getXref(), out, false);
+				writeShapedElement(state, "State", out);
+				out.end();
 			}
+			out.end();
 		}
 	}
 
@@ -481,25 +578,21 @@ protected void writeStates(List<State> states, Element dn) throws ConverterExcep
 	 * Writes interaction {@link Interaction} information.
 	 *
 	 * @param interactions the list of interactions.
-	 * @param root         the root element;
+	 * @param out          the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeInteractions(List<Interaction> interactions, Element root) throws ConverterException {
+	protected void writeInteractions(List<Interaction> interactions, Sink out) throws ConverterException {
 		if (!interactions.isEmpty()) {
-			Element ias = new Element("Interactions", root.getNamespace());
-			List<Element> iaList = new ArrayList<Element>();
+			out.start("Interactions");
 			for (Interaction interaction : interactions) {
-				Element ia = new Element("Interaction", root.getNamespace());
-				writeXref(interaction.getXref(), ia, false);
-				writeLineElement(interaction, ia);
-				if (ia != null) {
-					iaList.add(ia);
-				}
-			}
-			if (iaList != null && iaList.isEmpty() == false) {
-				ias.addContent(iaList);
-				root.addContent(ias);
+				out.start("Interaction");
+				writeElementId(interaction.getElementId(), out);
+				writeGroupRef(interaction.getGroupRef(), out);
+				writeXref(interaction.getXref(), out, false);
+				writeLineElement(interaction, "Interaction", out);
+				out.end();
 			}
+			out.end();
 		}
 	}
 
@@ -507,81 +600,71 @@ protected void writeInteractions(List<Interaction> interactions, Element root) t
 	 * Writes graphical line {@link GraphicalLine} information.
 	 *
 	 * @param graphicalLines the list of graphical lines.
-	 * @param root           the root element.
+	 * @param out            the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeGraphicalLines(List<GraphicalLine> graphicalLines, Element root) throws ConverterException {
+	protected void writeGraphicalLines(List<GraphicalLine> graphicalLines, Sink out) throws ConverterException {
 		if (!graphicalLines.isEmpty()) {
-			Element glns = new Element("GraphicalLines", root.getNamespace());
-			List<Element> glnList = new ArrayList<Element>();
+			out.start("GraphicalLines");
 			for (GraphicalLine graphicalLine : graphicalLines) {
-				Element gln = new Element("GraphicalLine", root.getNamespace());
-				writeLineElement(graphicalLine, gln);
-				if (gln != null) {
-					glnList.add(gln);
-				}
-			}
-			if (glnList != null && glnList.isEmpty() == false) {
-				glns.addContent(glnList);
-				root.addContent(glns);
+				out.start("GraphicalLine");
+				writeElementId(graphicalLine.getElementId(), out);
+				writeGroupRef(graphicalLine.getGroupRef(), out);
+				writeLineElement(graphicalLine, "GraphicalLine", out);
+				out.end();
 			}
+			out.end();
 		}
 	}
 
 	/**
-	 * Writes line element {@link LineElement} information for interactions or
-	 * graphicalLines.
+	 * Writes the child elements of a line element {@link LineElement}. The
+	 * attributes are written by the caller.
 	 *
 	 * @param lineElement the interaction or graphicalLine.
-	 * @param ln          the line element.
+	 * @param name        the element name.
+	 * @param out         the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeLineElement(LineElement lineElement, Element ln) throws ConverterException {
-		Element wyps = new Element("Waypoints", ln.getNamespace());
-		ln.addContent(wyps);
-		writePoints(lineElement, wyps);
-		writeAnchors(lineElement.getAnchors(), wyps);
-		Element gfx = new Element("Graphics", ln.getNamespace());
-		ln.addContent(gfx);
-		writeLineStyleProperty(lineElement, gfx);
-		writeElementInfo(lineElement, ln);
-		writeGroupRef(lineElement.getGroupRef(), ln);
+	protected void writeLineElement(LineElement lineElement, String name, Sink out) throws ConverterException {
+		out.start("Waypoints");
+		writePoints(lineElement, out);
+		writeAnchors(lineElement.getAnchors(), out);
+		out.end();
+		out.start("Graphics");
+		writeLineStyleProperty(lineElement, out);
+		out.end();
+		writeElementInfo(lineElement, name, out);
 	}
 
 	/**
 	 * Writes point {@link LinePoint} information.
 	 *
 	 * @param lineElement the line element.
-	 * @param wyps   the parent element.
+	 * @param out         the sink.
 	 * @throws ConverterException
 	 */
-	protected void writePoints(LineElement lineElement, Element wyps) throws ConverterException {
-		List<Element> ptList = new ArrayList<Element>();
+	protected void writePoints(LineElement lineElement, Sink out) throws ConverterException {
 		List<LinePoint> points = lineElement.getLinePoints();
 		for (int i = 0; i < points.size(); i++) {
 			LinePoint point = points.get(i);
-			Element pt = new Element("Point", wyps.getNamespace());
-			writeElementId(point.getElementId(), pt);
+			out.start("Point");
+			writeElementId(point.getElementId(), out);
 			// if start or end point, write arrowhead type.
 			if (i == 0) {
-				pt.setAttribute("arrowHead", lineElement.getStartArrowHeadType().getName());
+				out.attribute("arrowHead", lineElement.getStartArrowHeadType().getName());
 			} else if (i == points.size() - 1) {
-				pt.setAttribute("arrowHead", lineElement.getEndArrowHeadType().getName());
+				out.attribute("arrowHead", lineElement.getEndArrowHeadType().getName());
 			} else { // otherwise arrowHeadType = Undirected
-				pt.setAttribute("arrowHead", ArrowHeadType.UNDIRECTED.getName());
+				out.attribute("arrowHead", ArrowHeadType.UNDIRECTED.getName());
 			}
-			pt.setAttribute("x", Double.toString(point.getX()));
-			pt.setAttribute("y", Double.toString(point.getY()));
-			if (writeElementRef(point.getElementRef(), pt)) {
-				pt.setAttribute("relX", Double.toString(point.getRelX()));
-				pt.setAttribute("relY", Double.toString(point.getRelY()));
+			out.attribute("x", Double.toString(point.getX()));
+			out.attribute("y", Double.toString(point.getY()));
+			if (writeElementRef(point.getElementRef(), out)) {
+				out.attribute("relX", Double.toString(point.getRelX()));
+				out.attribute("relY", Double.toString(point.getRelY()));
 			}
-			if (pt != null) {
-				ptList.add(pt);
-			}
-		}
-		if (ptList != null && ptList.isEmpty() == false) {
-			wyps.addContent(ptList);
+			out.end();
 		}
 	}
 
@@ -589,15 +672,15 @@ protected void writePoints(LineElement lineElement, Element wyps) throws Convert
 	 * Writes elementRef property information. Returns boolean if elementRef is
 	 * written. Used in {@link #writePoints}.
 	 *
-	 * @param elementRef the elementRef.
-	 * @param e          the parent jdom element.
+	 * @param elementRef the pathway element to which the point refers.
+	 * @param out        the sink, with the point element open.
 	 * @return true if elementRef exists and is successfully written.
 	 */
-	protected boolean writeElementRef(LinkableTo elementRef, Element e) {
+	protected boolean writeElementRef(LinkableTo elementRef, Sink out) throws ConverterException {
 		if (elementRef != null) {
 			String elementRefStr = elementRef.getElementId();
 			if (elementRefStr != null && !elementRefStr.equals("")) {
-				e.setAttribute("elementRef", elementRefStr);
+				out.attribute("elementRef", elementRefStr);
 			}
 			return true;
 		}
@@ -608,24 +691,16 @@ protected boolean writeElementRef(LinkableTo elementRef, Element e) {
 	 * Writes anchor {@link Anchor} information.
 	 *
 	 * @param anchors the list of anchors.
-	 * @param wyps    the parent element.
+	 * @param out     the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeAnchors(List<Anchor> anchors, Element wyps) throws ConverterException {
-		if (!anchors.isEmpty()) {
-			List<Element> anList = new ArrayList<Element>();
-			for (Anchor anchor : anchors) {
-				Element an = new Element("Anchor", wyps.getNamespace());
-				writeElementId(anchor.getElementId(), an);
-				an.setAttribute("position", Double.toString(anchor.getPosition()));
-				an.setAttribute("shapeType", anchor.getShapeType().getName());
-				if (an != null) {
-					anList.add(an);
-				}
-			}
-			if (anList != null && anList.isEmpty() == false) {
-				wyps.addContent(anList);
-			}
+	protected void writeAnchors(List<Anchor> anchors, Sink out) throws ConverterException {
+		for (Anchor anchor : anchors) {
+			out.start("Anchor");
+			writeElementId(anchor.getElementId(), out);
+			out.attribute("position", Double.toString(anchor.getPosition()));
+			out.attribute("shapeType", anchor.getShapeType().getName());
+			out.end();
 		}
 	}
 
@@ -633,30 +708,24 @@ protected void writeAnchors(List<Anchor> anchors, Element wyps) throws Converter
 	 * Writes label {@link Label} information.
 	 *
 	 * @param labels the list of labels.
-	 * @param root   the root element.
+	 * @param out    the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeLabels(List<Label> labels, Element root) throws ConverterException {
+	protected void writeLabels(List<Label> labels, Sink out) throws ConverterException {
 		if (!labels.isEmpty()) {
-			Element lbs = new Element("Labels", root.getNamespace());
-			List<Element> lbList = new ArrayList<Element>();
+			out.start("Labels");
 			for (Label label : labels) {
-				Element lb = new Element("Label", root.getNamespace());
-				writeShapedElement(label, lb);
-				// write jdom attributes
-				lb.setAttribute("textLabel", label.getTextLabel());
+				out.start("Label");
+				writeElementId(label.getElementId(), out);
+				out.attribute("textLabel", label.getTextLabel());
 				if (label.getHref() != null) {
-					lb.setAttribute("href", label.getHref());
+					out.attribute("href", label.getHref());
 				}
-				writeGroupRef(label.getGroupRef(), lb);
-				if (lb != null) {
-					lbList.add(lb);
-				}
-			}
-			if (lbList != null && lbList.isEmpty() == false) {
-				lbs.addContent(lbList);
-				root.addContent(lbs);
+				writeGroupRef(label.getGroupRef(), out);
+				writeShapedElement(label, "Label", out);
+				out.end();
 			}
+			out.end();
 		}
 	}
 
@@ -664,29 +733,23 @@ protected void writeLabels(List<Label> labels, Element root) throws ConverterExc
 	 * Writes shape {@link Shape} information.
 	 *
 	 * @param shapes the list of shapes.
-	 * @param root   the root element.
+	 * @param out    the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeShapes(List<Shape> shapes, Element root) throws ConverterException {
+	protected void writeShapes(List<Shape> shapes, Sink out) throws ConverterException {
 		if (!shapes.isEmpty()) {
-			Element shps = new Element("Shapes", root.getNamespace());
-			List<Element> shpList = new ArrayList<Element>();
+			out.start("Shapes");
 			for (Shape shape : shapes) {
-				Element shp = new Element("Shape", root.getNamespace());
-				writeShapedElement(shape, shp);
-				// write jdom attributes
+				out.start("Shape");
+				writeElementId(shape.getElementId(), out);
 				if (shape.getTextLabel() != null) {
-					shp.setAttribute("textLabel", shape.getTextLabel());
+					out.attribute("textLabel", shape.getTextLabel());
 				}
-				writeGroupRef(shape.getGroupRef(), shp);
-				if (shp != null) {
-					shpList.add(shp);
-				}
-			}
-			if (shpList != null && shpList.isEmpty() == false) {
-				shps.addContent(shpList);
-				root.addContent(shps);
+				writeGroupRef(shape.getGroupRef(), out);
+				writeShapedElement(shape, "Shape", out);
+				out.end();
 			}
+			out.end();
 		}
 	}
 
@@ -694,32 +757,26 @@ protected void writeShapes(List<Shape> shapes, Element root) throws ConverterExc
 	 * Writes group {@link Group} information.
 	 *
 	 * @param groups the list of groups.
-	 * @param root   the root element.
+	 * @param out    the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeGroups(List<Group> groups, Element root) throws ConverterException {
+	protected void writeGroups(List<Group> groups, Sink out) throws ConverterException {
 		if (!groups.isEmpty()) {
-			Element grps = new Element("Groups", root.getNamespace());
-			List<Element> grpList = new ArrayList<Element>();
+			out.start("Groups");
 			for (Group group : groups) {
-				Element grp = new Element("Group", root.getNamespace());
-				writeXref(group.getXref(), grp, false);
-				writeShapedElement(group, grp);
-				// write jdom attributes TODO textLabel
+				out.start("Group");
+				writeElementId(group.getElementId(), out);
 				String textLabel = group.getTextLabel();
 				if (textLabel != null && !Utils.stringEquals(textLabel, "")) {
-					grp.setAttribute("textLabel", group.getTextLabel());
-				}
-				grp.setAttribute("type", group.getType().getName());
-				writeGroupRef(group.getGroupRef(), grp);
-				if (grp != null) {
-					grpList.add(grp);
+					out.attribute("textLabel", textLabel);
 				}
+				out.attribute("type", group.getType().getName());
+				writeGroupRef(group.getGroupRef(), out);
+				writeXref(group.getXref(), out, false);
+				writeShapedElement(group, "Group", out);
+				out.end();
 			}
-			if (grpList != null && grpList.isEmpty() == false) {
-				grps.addContent(grpList);
-				root.addContent(grps);
-			}
+			out.end();
 		}
 	}
 
@@ -727,28 +784,22 @@ protected void writeGroups(List<Group> groups, Element root) throws ConverterExc
 	 * Writes annotation {@link Annotation} information.
 	 *
 	 * @param annotations the list of annotations.
-	 * @param root        the root element.
+	 * @param out         the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeAnnotations(List<Annotation> annotations, Element root) throws ConverterException {
+	protected void writeAnnotations(List<Annotation> annotations, Sink out) throws ConverterException {
 		if (!annotations.isEmpty()) {
-			Element annts = new Element("Annotations", root.getNamespace());
-			List<Element> anntList = new ArrayList<Element>();
+			out.start("Annotations");
 			for (Annotation annotation : annotations) {
-				Element annt = new Element("Annotation", root.getNamespace());
-				writeElementId(annotation.getElementId(), annt);
-				annt.setAttribute("value", annotation.getValue());
-				annt.setAttribute("type", annotation.getType().getName());
-				writeXref(annotation.getXref(), annt, false);
-				writeUrl(annotation.getUrlLink(), annt);
-				if (annt != null) {
-					anntList.add(annt);
-				}
-			}
-			if (anntList != null && anntList.isEmpty() == false) {
-				annts.addContent(anntList);
-				root.addContent(annts);
+				out.start("Annotation");
+				writeElementId(annotation.getElementId(), out);
+				out.attribute("value", annotation.getValue());
+				out.attribute("type", annotation.getType().getName());
+				writeXref(annotation.getXref(), out, false);
+				writeUrl(annotation.getUrlLink(), out);
+				out.end();
 			}
+			out.end();
 		}
 	}
 
@@ -756,26 +807,20 @@ protected void writeAnnotations(List<Annotation> annotations, Element root) thro
 	 * Writes citation {@link Citation} information.
 	 *
 	 * @param citations the list of citations.
-	 * @param root      the root element.
+	 * @param out       the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeCitations(List<Citation> citations, Element root) throws ConverterException {
+	protected void writeCitations(List<Citation> citations, Sink out) throws ConverterException {
 		if (!citations.isEmpty()) {
-			Element cits = new Element("Citations", root.getNamespace());
-			List<Element> citList = new ArrayList<Element>();
+			out.start("Citations");
 			for (Citation citation : citations) {
-				Element cit = new Element("Citation", root.getNamespace());
-				writeElementId(citation.getElementId(), cit);
-				writeXref(citation.getXref(), cit, false);
-				writeUrl(citation.getUrlLink(), cit);
-				if (cit != null) {
-					citList.add(cit);
-				}
-			}
-			if (citList != null && citList.isEmpty() == false) {
-				cits.addContent(citList);
-				root.addContent(cits);
+				out.start("Citation");
+				writeElementId(citation.getElementId(), out);
+				writeXref(citation.getXref(), out, false);
+				writeUrl(citation.getUrlLink(), out);
+				out.end();
 			}
+			out.end();
 		}
 	}
 
@@ -783,29 +828,23 @@ protected void writeCitations(List<Citation> citations, Element root) throws Con
 	 * Writes evidence {@link Evidence} information.
 	 *
 	 * @param evidences the list of evidences.
-	 * @param root      the root element.
+	 * @param out       the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeEvidences(List<Evidence> evidences, Element root) throws ConverterException {
+	protected void writeEvidences(List<Evidence> evidences, Sink out) throws ConverterException {
 		if (!evidences.isEmpty()) {
-			Element evids = new Element("Evidences", root.getNamespace());
-			List<Element> evidList = new ArrayList<Element>();
+			out.start("Evidences");
 			for (Evidence evidence : evidences) {
-				Element evid = new Element("Evidence", root.getNamespace());
-				writeElementId(evidence.getElementId(), evid);
-				writeXref(evidence.getXref(), evid, true);
-				writeUrl(evidence.getUrlLink(), evid);
+				out.start("Evidence");
+				writeElementId(evidence.getElementId(), out);
 				if (evidence.getValue() != null) {
-					evid.setAttribute("value", evidence.getValue());
+					out.attribute("value", evidence.getValue());
 				}
-				if (evid != null) {
-					evidList.add(evid);
-				}
-			}
-			if (evidList != null && evidList.isEmpty() == false) {
-				evids.addContent(evidList);
-				root.addContent(evids);
+				writeXref(evidence.getXref(), out, true);
+				writeUrl(evidence.getUrlLink(), out);
+				out.end();
 			}
+			out.end();
 		}
 	}
 
@@ -813,11 +852,11 @@ protected void writeEvidences(List<Evidence> evidences, Element root) throws Con
 	 * Writes elementId {@link PathwayObject} property information.
 	 *
 	 * @param elementId the elementId.
-	 * @param e         the parent element.
+	 * @param out       the sink.
 	 */
-	protected void writeElementId(String elementId, Element e) {
+	protected void writeElementId(String elementId, Sink out) throws ConverterException {
 		if (elementId != null && !elementId.equals("")) {
-			e.setAttribute("elementId", elementId);
+			out.attribute("elementId", elementId);
 		}
 	}
 
@@ -825,109 +864,111 @@ protected void writeElementId(String elementId, Element e) {
 	 * Writes groupRef property information.
 	 *
 	 * @param groupRef the groupRef.
-	 * @param e        the parent element.
+	 * @param out      the sink.
 	 */
-	protected void writeGroupRef(Group groupRef, Element e) {
+	protected void writeGroupRef(Group groupRef, Sink out) throws ConverterException {
 		if (groupRef != null) {
 			String groupRefStr = groupRef.getElementId();
 			if (groupRefStr != null && !groupRefStr.equals("")) {
-				e.setAttribute("groupRef", groupRefStr);
+				out.attribute("groupRef", groupRefStr);
 			}
 		}
 	}
 
 	/**
-	 * Writes shapedElement {@link ShapedElement} information for datanodes, labels,
-	 * shapes, or groups.
+	 * Writes the child elements of a shapedElement {@link ShapedElement}. The
+	 * attributes are written by the caller.
 	 *
 	 * @param shapedElement the datanode, label, shape, or group.
-	 * @param se            the shape jdom element.
+	 * @param name          the element name.
+	 * @param out           the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeShapedElement(ShapedElement shapedElement, Element se) throws ConverterException {
-		Element gfx = new Element("Graphics", se.getNamespace());
-		se.addContent(gfx);
-		writeRectProperty(shapedElement, gfx);
-		writeFontProperty(shapedElement, gfx);
-		writeShapeStyleProperty(shapedElement, gfx);
-		writeElementInfo(shapedElement, se);
+	protected void writeShapedElement(ShapedElement shapedElement, String name, Sink out) throws ConverterException {
+		out.start("Graphics");
+		writeRectProperty(shapedElement, out);
+		writeFontProperty(shapedElement, out);
+		writeShapeStyleProperty(shapedElement, out);
+		out.end();
+		writeElementInfo(shapedElement, name, out);
 	}
 
 	/**
-	 * Writes elementId, comment group {comment, dynamic property, annotationRef,
-	 * citationRef) and evidenceRef {@link PathwayElement} information for
+	 * Writes comment group (comment, dynamic property, annotationRef, citationRef
+	 * and evidenceRef) {@link PathwayElement} information. The elementId is written
+	 * by the caller.
 	 *
 	 * @param elementInfo the pathway element.
-	 * @param e           the parent element.
+	 * @param name        the element name.
+	 * @param out         the sink.
 	 * @throws ConverterException
 	 */
-	protected void writeElementInfo(PathwayElement elementInfo, Element e) throws ConverterException {
-		writeElementId(elementInfo.getElementId(), e);
-		writeComments(elementInfo.getComments(), e);
-		writeDynamicProperties(elementInfo.getDynamicProperties(), e);
-		writeAnnotationRefs(elementInfo.getAnnotationRefs(), e);
-		writeCitationRefs(elementInfo.getCitationRefs(), e);
-		writeEvidenceRefs(elementInfo.getEvidenceRefs(), e);
+	protected void writeElementInfo(PathwayElement elementInfo, String name, Sink out) throws ConverterException {
+		writeComments(elementInfo.getComments(), out);
+		writeDynamicProperties(elementInfo.getDynamicProperties(), name, out);
+		writeAnnotationRefs(elementInfo.getAnnotationRefs(), out);
+		writeCitationRefs(elementInfo.getCitationRefs(), out);
+		writeEvidenceRefs(elementInfo.getEvidenceRefs(), out);
 	}
 
 	/**
 	 * Writes rect property information.
 	 *
 	 * @param shapedElement the shaped pathway element.
-	 * @param gfx           the parent graphics element.
+	 * @param out           the sink, with the graphics element open.
 	 * @throws ConverterException
 	 */
-	protected void writeRectProperty(ShapedElement shapedElement, Element gfx) throws ConverterException {
+	protected void writeRectProperty(ShapedElement shapedElement, Sink out) throws ConverterException {
 		if (shapedElement.getClass() == State.class) {
-			gfx.setAttribute("relX", Double.toString(((State) shapedElement).getRelX()));
-			gfx.setAttribute("relY", Double.toString(((State) shapedElement).getRelY()));
+			out.attribute("relX", Double.toString(((State) shapedElement).getRelX()));
+			out.attribute("relY", Double.toString(((State) shapedElement).getRelY()));
 		} else {
-			gfx.setAttribute("centerX", Double.toString(shapedElement.getCenterX()));
-			gfx.setAttribute("centerY", Double.toString(shapedElement.getCenterY()));
+			out.attribute("centerX", Double.toString(shapedElement.getCenterX()));
+			out.attribute("centerY", Double.toString(shapedElement.getCenterY()));
 		}
-		gfx.setAttribute("width", Double.toString(shapedElement.getWidth()));
-		gfx.setAttribute("height", Double.toString(shapedElement.getHeight()));
+		out.attribute("width", Double.toString(shapedElement.getWidth()));
+		out.attribute("height", Double.toString(shapedElement.getHeight()));
 	}
 
 	/**
 	 * Writes font property information.
 	 *
 	 * @param shapedElement the shaped pathway element.
-	 * @param gfx           the parent graphics element.
+	 * @param out           the sink, with the graphics element open.
 	 * @throws ConverterException
 	 */
-	protected void writeFontProperty(ShapedElement shapedElement, Element gfx) throws ConverterException {
-		gfx.setAttribute("textColor", ColorUtils.colorToHex(shapedElement.getTextColor(), false));
-		gfx.setAttribute("fontName", shapedElement.getFontName() == null ? "Arial" : shapedElement.getFontName());
-		gfx.setAttribute("fontWeight", shapedElement.getFontWeight() ? "Bold" : "Normal");
-		gfx.setAttribute("fontStyle", shapedElement.getFontStyle() ? "Italic" : "Normal");
-		gfx.setAttribute("fontDecoration", shapedElement.getFontDecoration() ? "Underline" : "Normal");
-		gfx.setAttribute("fontStrikethru", shapedElement.getFontStrikethru() ? "Strikethru" : "Normal");
-		gfx.setAttribute("fontSize", Integer.toString((int) shapedElement.getFontSize()));
-		gfx.setAttribute("hAlign", shapedElement.getHAlign().getName());
-		gfx.setAttribute("vAlign", shapedElement.getVAlign().getName());
+	protected void writeFontProperty(ShapedElement shapedElement, Sink out) throws ConverterException {
+		out.attribute("textColor", ColorUtils.colorToHex(shapedElement.getTextColor(), false));
+		out.attribute("fontName", shapedElement.getFontName() == null ? "Arial" : shapedElement.getFontName());
+		out.attribute("fontWeight", shapedElement.getFontWeight() ? "Bold" : "Normal");
+		out.attribute("fontStyle", shapedElement.getFontStyle() ? "Italic" : "Normal");
+		out.attribute("fontDecoration", shapedElement.getFontDecoration() ? "Underline" : "Normal");
+		out.attribute("fontStrikethru", shapedElement.getFontStrikethru() ? "Strikethru" : "Normal");
+		out.attribute("fontSize", Integer.toString((int) shapedElement.getFontSize()));
+		out.attribute("hAlign", shapedElement.getHAlign().getName());
+		out.attribute("vAlign", shapedElement.getVAlign().getName());
 	}
 
 	/**
 	 * Writes shape style property information.
 	 *
 	 * @param shapedElement the shaped pathway element.
-	 * @param gfx           the parent graphics element.
+	 * @param out           the sink, with the graphics element open.
 	 * @throws ConverterException
 	 */
-	protected void writeShapeStyleProperty(ShapedElement shapedElement, Element gfx) throws ConverterException {
-		gfx.setAttribute("borderColor", ColorUtils.colorToHex(shapedElement.getBorderColor(), false));
-		gfx.setAttribute("borderStyle", shapedElement.getBorderStyle().getName());
-		gfx.setAttribute("borderWidth", String.valueOf(shapedElement.getBorderWidth()));
-		gfx.setAttribute("fillColor", ColorUtils.colorToHex(shapedElement.getFillColor(), false));
-		gfx.setAttribute("shapeType", shapedElement.getShapeType().getName());
+	protected void writeShapeStyleProperty(ShapedElement shapedElement, Sink out) throws ConverterException {
+		out.attribute("borderColor", ColorUtils.colorToHex(shapedElement.getBorderColor(), false));
+		out.attribute("borderStyle", shapedElement.getBorderStyle().getName());
+		out.attribute("borderWidth", String.valueOf(shapedElement.getBorderWidth()));
+		out.attribute("fillColor", ColorUtils.colorToHex(shapedElement.getFillColor(), false));
+		out.attribute("shapeType", shapedElement.getShapeType().getName());
 		// do not write z-order for states
 		if (shapedElement.getClass() != State.class) {
-			gfx.setAttribute("zOrder", String.valueOf(shapedElement.getZOrder()));
+			out.attribute("zOrder", String.valueOf(shapedElement.getZOrder()));
 		}
 		double rotation = shapedElement.getRotation();
 		if (rotation != 0) {
-			gfx.setAttribute("rotation", Double.toString(rotation));
+			out.attribute("rotation", Double.toString(rotation));
 		}
 	}
 
@@ -935,14 +976,14 @@ protected void writeShapeStyleProperty(ShapedElement shapedElement, Element gfx)
 	 * Writes line style property information.
 	 *
 	 * @param lineElement the line pathway element.
-	 * @param gfx         the parent graphics element.
+	 * @param out         the sink, with the graphics element open.
 	 * @throws ConverterException
 	 */
-	protected void writeLineStyleProperty(LineElement lineElement, Element gfx) throws ConverterException {
-		gfx.setAttribute("lineColor", ColorUtils.colorToHex(lineElement.getLineColor(), false));
-		gfx.setAttribute("lineStyle", lineElement.getLineStyle().getName());
-		gfx.setAttribute("lineWidth", String.valueOf(lineElement.getLineWidth()));
-		gfx.setAttribute("connectorType", lineElement.getConnectorType().getName());
-		gfx.setAttribute("zOrder", String.valueOf(lineElement.getZOrder()));
+	protected void writeLineStyleProperty(LineElement lineElement, Sink out) throws ConverterException {
+		out.attribute("lineColor", ColorUtils.colorToHex(lineElement.getLineColor(), false));
+		out.attribute("lineStyle", lineElement.getLineStyle().getName());
+		out.attribute("lineWidth", String.valueOf(lineElement.getLineWidth()));
+		out.attribute("connectorType", lineElement.getConnectorType().getName());
+		out.attribute("zOrder", String.valueOf(lineElement.getZOrder()));
 	}
 }
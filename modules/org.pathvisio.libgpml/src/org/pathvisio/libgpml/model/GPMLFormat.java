@@ -23,8 +23,10 @@
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
 
-import javax.swing.JOptionPane;
+import javax.xml.validation.ValidatorHandler;
 
 import org.bridgedb.bio.DataSourceTxt;
 import org.jdom2.Document;
@@ -32,11 +34,18 @@
 import org.jdom2.JDOMException;
 import org.jdom2.Namespace;
 import org.jdom2.input.SAXBuilder;
+import org.jdom2.input.sax.SAXHandler;
 import org.pathvisio.libgpml.debug.Logger;
 import org.pathvisio.libgpml.io.AbstractPathwayModelFormat;
 import org.pathvisio.libgpml.io.ConverterException;
 import org.pathvisio.libgpml.util.RootElementFinder;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLFilterImpl;
 
 /**
  * Class responsible for interaction with Gpml format. Contains all
@@ -48,17 +57,24 @@
  * <li>Static read methods, both current and previous gpml formats can be read.
  * <li>Pathways are saved/written in the current gpml format.
  * <li>Export allows writing to the previous gpml format.
+ * <li>GPML2021 is read in a single pass by {@link GPML2021StreamReader}, other
+ * formats are read through a JDOM tree. See {@link #setStreamingEnabled}.
  * </ol>
  *
  * @author unknown, finterly
  */
 public class GPMLFormat extends AbstractPathwayModelFormat {
 
-	static public final GPML2021Writer GPML2021 = GPML2021Writer.GPML2021WRITER;
+	static public final GPML2021Writer GPML2021 = GPML2021StreamWriter.GPML2021STREAMWRITER;
 	static public final GPML2013aWriter GPML2013a = GPML2013aWriter.GPML2013aWRITER;
 
 	private GPMLFormatWriter writer;
 
+	/**
+	 * If true, GPML2021 is read without building a JDOM tree.
+	 */
+	private static boolean streamingEnabled = true;
+
 	// ================================================================================
 	// Constructors and Initialize
 	// ================================================================================
@@ -86,8 +102,9 @@ public GPMLFormat(GPMLFormatWriter writer) {
 	 */
 	@Override
 	public PathwayModel doImport(File file) throws ConverterException {
+		clearWarnings();
 		PathwayModel pathwayModel = new PathwayModel();
-		readFromXml(pathwayModel, file, true); // always validate
+		readFromXml(pathwayModel, file, true, getWarnings()); // always validate
 		pathwayModel.clearChangedFlag();
 		return pathwayModel;
 	}
@@ -174,13 +191,37 @@ public void writeToXml(PathwayModel pathwayModel, OutputStream out, boolean vali
 	 * @throws ConverterException
 	 */
 	static public void readFromXml(PathwayModel pathwayModel, File file, boolean validate) throws ConverterException {
+		readFromXml(pathwayModel, file, validate, null);
+	}
+
+	/**
+	 * Reads the JDOM document from the file specified, and adds warnings about the
+	 * file to the given list, e.g. when the file was written in an older GPML
+	 * version.
+	 *
+	 * @param pathwayModel the pathway model.
+	 * @param file         the file from which the JDOM document should be read.
+	 * @param validate     if true, validate the dom structure during/after reading.
+	 * @param warnings     the list to add warnings to, or null to log them.
+	 * @throws ConverterException
+	 */
+	static public void readFromXml(PathwayModel pathwayModel, File file, boolean validate, List<String> warnings)
+			throws ConverterException {
 		InputStream in;
 		try {
 			in = new FileInputStream(file);
 		} catch (FileNotFoundException e) {
 			throw new ConverterException(e);
 		}
-		readFromXmlImpl(pathwayModel, new InputSource(in), validate);
+		try {
+			readFromXmlImpl(pathwayModel, new InputSource(in), validate, warnings);
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+				Logger.log.error("Unable to close " + file, e);
+			}
+		}
 	}
 
 	/**
@@ -193,7 +234,7 @@ static public void readFromXml(PathwayModel pathwayModel, File file, boolean val
 	 */
 	static public void readFromXml(PathwayModel pathwayModel, InputStream in, boolean validate)
 			throws ConverterException {
-		readFromXmlImpl(pathwayModel, new InputSource(in), validate);
+		readFromXmlImpl(pathwayModel, new InputSource(in), validate, null);
 	}
 
 	/**
@@ -205,7 +246,26 @@ static public void readFromXml(PathwayModel pathwayModel, InputStream in, boolea
 	 * @throws ConverterException
 	 */
 	static public void readFromXml(PathwayModel pathwayModel, Reader in, boolean validate) throws ConverterException {
-		readFromXmlImpl(pathwayModel, new InputSource(in), validate);
+		readFromXmlImpl(pathwayModel, new InputSource(in), validate, null);
+	}
+
+	/**
+	 * Returns true if GPML2021 is read with {@link GPML2021StreamReader}.
+	 *
+	 * @return true if streaming is enabled.
+	 */
+	public static boolean isStreamingEnabled() {
+		return streamingEnabled;
+	}
+
+	/**
+	 * Sets whether GPML2021 is read with {@link GPML2021StreamReader}. If false,
+	 * all formats are read by building a JDOM tree first.
+	 *
+	 * @param v the boolean to set.
+	 */
+	public static void setStreamingEnabled(boolean v) {
+		streamingEnabled = v;
 	}
 
 	/**
@@ -226,21 +286,99 @@ public static GPMLFormatReader getReaderForNamespace(Namespace ns) {
 	}
 
 	/**
-	 * Reads a pathway model from given input source.
+	 * Reads a pathway model from given input source, in a single transaction of
+	 * the pathway model, see {@link PathwayModel#beginTransaction()}.
 	 *
 	 * @param pathwayModel the pathway model.
 	 * @param is           the file from which the JDOM document should be read.
 	 * @param validate     if true, validate the dom structure during/after reading.
+	 * @param warnings     the list to add warnings to, or null to log them.
 	 * @throws ConverterException
 	 */
-	private static void readFromXmlImpl(PathwayModel pathwayModel, InputSource is, boolean validate)
-			throws ConverterException {
+	private static void readFromXmlImpl(PathwayModel pathwayModel, InputSource is, boolean validate,
+			List<String> warnings) throws ConverterException {
+		pathwayModel.beginTransaction();
+		try {
+			readFromSource(pathwayModel, is, validate, warnings);
+		} finally {
+			pathwayModel.commitTransaction();
+		}
+	}
+
+	/**
+	 * Reads a pathway model from given input source. The namespace of the root
+	 * element decides how the rest of the document is read: GPML2021 is streamed
+	 * directly into the pathway model, other formats are built into a JDOM tree
+	 * first.
+	 *
+	 * @param pathwayModel the pathway model.
+	 * @param is           the file from which the JDOM document should be read.
+	 * @param validate     if true, validate the dom structure during/after reading.
+	 * @param warnings     the list to add warnings to, or null to log them.
+	 * @throws ConverterException
+	 */
+	private static void readFromSource(PathwayModel pathwayModel, InputSource is, boolean validate,
+			List<String> warnings) throws ConverterException {
+		if (!streamingEnabled) {
+			readFromXmlJdom(pathwayModel, is, validate, warnings);
+			return;
+		}
+		ReaderDispatcher dispatcher = new ReaderDispatcher(pathwayModel, validate);
+		try {
+			XMLReader xr = GPML2021StreamReader.newXMLReader();
+			xr.setContentHandler(dispatcher);
+			xr.parse(is);
+		} catch (SAXException e) {
+			throw GPML2021StreamReader.toConverterException(e);
+		} catch (IOException e) {
+			throw new ConverterException(e);
+		}
+		// streamed, the pathway model is already filled
+		if (dispatcher.jdomHandler == null) {
+			Logger.log.trace("Streamed GPML2021");
+			return;
+		}
+		readFromDocument(pathwayModel, dispatcher.jdomHandler.getDocument(), validate && !dispatcher.validated,
+				warnings);
+	}
+
+	/**
+	 * Reads a pathway model from given input source by building a JDOM tree first.
+	 *
+	 * @param pathwayModel the pathway model.
+	 * @param is           the file from which the JDOM document should be read.
+	 * @param validate     if true, validate the dom structure after reading.
+	 * @param warnings     the list to add warnings to, or null to log them.
+	 * @throws ConverterException
+	 */
+	private static void readFromXmlJdom(PathwayModel pathwayModel, InputSource is, boolean validate,
+			List<String> warnings) throws ConverterException {
 		// Start XML processing
 		SAXBuilder builder = new SAXBuilder(); // no validation when reading the xml file, validation later.
 		try {
 			Logger.log.trace("Build JDOM tree");
 			// build jdom tree
 			Document doc = builder.build(is);
+			readFromDocument(pathwayModel, doc, validate, warnings);
+		} catch (JDOMException e) {
+			throw new ConverterException(e);
+		} catch (IOException e) {
+			throw new ConverterException(e);
+		}
+	}
+
+	/**
+	 * Reads a pathway model from given JDOM document.
+	 *
+	 * @param pathwayModel the pathway model.
+	 * @param doc          the JDOM document.
+	 * @param validate     if true, validate the dom structure.
+	 * @param warnings     the list to add warnings to, or null to log them.
+	 * @throws ConverterException
+	 */
+	private static void readFromDocument(PathwayModel pathwayModel, Document doc, boolean validate,
+			List<String> warnings) throws ConverterException {
+		try {
 			// copy the pathway information to a VPathway
 			Element root = doc.getRootElement();
 			if (!root.getName().equals("Pathway")) {
@@ -263,19 +401,116 @@ private static void readFromXmlImpl(PathwayModel pathwayModel, InputSource is, b
 			format.readFromRoot(pathwayModel, root);
 			// warning message if opening older GPML
 			if (!(format instanceof GPML2021Reader)) {
-				JOptionPane.showMessageDialog(null,
-						"This pathway was written in an older Gpml version.\nSave will automatically update it to GPML2021.",
-						"Warning", JOptionPane.WARNING_MESSAGE);
+				String msg = "This pathway was written in an older Gpml version.\nSave will automatically update it to GPML2021.";
+				if (warnings == null) {
+					Logger.log.warn(msg);
+				} else {
+					warnings.add(msg);
+				}
 			}
-		} catch (JDOMException e) {
-			throw new ConverterException(e);
-		} catch (IOException e) {
-			throw new ConverterException(e);
 		} catch (Exception e) {
 			throw new ConverterException(e);
 		}
 	}
 
+	/**
+	 * SAX filter which looks at the namespace of the root element, and then passes
+	 * the whole document either to {@link GPML2021StreamReader} or to a JDOM
+	 * {@link SAXHandler}. Events before the root element are buffered and replayed.
+	 * If validation is on, the events are validated on the way, for any known
+	 * GPML version.
+	 */
+	private static class ReaderDispatcher extends XMLFilterImpl {
+
+		private final PathwayModel pathwayModel;
+		private final boolean validate;
+		private final List<String[]> prefixMappings = new ArrayList<String[]>();
+		private Locator locator;
+		private boolean dispatched = false;
+		SAXHandler jdomHandler;
+		boolean validated = false;
+
+		ReaderDispatcher(PathwayModel pathwayModel, boolean validate) {
+			this.pathwayModel = pathwayModel;
+			this.validate = validate;
+		}
+
+		@Override
+		public void setDocumentLocator(Locator locator) {
+			this.locator = locator;
+		}
+
+		@Override
+		public void startDocument() throws SAXException {
+			// replayed when dispatched
+		}
+
+		@Override
+		public void startPrefixMapping(String prefix, String uri) throws SAXException {
+			if (dispatched) {
+				super.startPrefixMapping(prefix, uri);
+			} else {
+				prefixMappings.add(new String[] { prefix, uri });
+			}
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+			if (!dispatched) {
+				dispatch(uri);
+			}
+			super.startElement(uri, localName, qName, atts);
+		}
+
+		/**
+		 * Chooses the content handler for the given root namespace.
+		 *
+		 * @param uri the namespace uri of the root element.
+		 * @throws SAXException
+		 */
+		private void dispatch(String uri) throws SAXException {
+			ContentHandler handler;
+			GPML2021StreamReader format = GPML2021StreamReader.GPML2021STREAMREADER;
+			if (format.getGpmlNamespace().getURI().equals(uri)) {
+				Logger.log.info("Recognized format " + uri);
+				handler = format.createContentHandler(pathwayModel);
+				if (validate) {
+					try {
+						ValidatorHandler vh = format.getSchema().newValidatorHandler();
+						vh.setContentHandler(handler);
+						handler = vh;
+					} catch (ConverterException e) {
+						throw new SAXException(e);
+					}
+				}
+			} else {
+				jdomHandler = new SAXHandler();
+				handler = jdomHandler;
+				GPMLFormatReader reader = getReaderForNamespace(Namespace.getNamespace(uri));
+				if (validate && reader != null) {
+					// validate while the tree is built, instead of in a second pass
+					try {
+						ValidatorHandler vh = reader.getSchema().newValidatorHandler();
+						vh.setContentHandler(handler);
+						handler = vh;
+						validated = true;
+					} catch (ConverterException e) {
+						throw new SAXException(e);
+					}
+				}
+			}
+			setContentHandler(handler);
+			dispatched = true;
+			if (locator != null) {
+				handler.setDocumentLocator(locator);
+			}
+			handler.startDocument();
+			for (String[] mapping : prefixMappings) {
+				handler.startPrefixMapping(mapping[0], mapping[1]);
+			}
+		}
+	}
+
 	/**
 	 * Returns true if file type is correct.
 	 * 
@@ -19,6 +19,8 @@
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.XMLConstants;
 import javax.xml.transform.stream.StreamSource;
@@ -126,6 +128,37 @@ protected void updateGroups(PathwayModel pathwayModel) throws ConverterException
 		}
 	}
 
+	/**
+	 * Returns the pathway model to write, with empty groups removed and group
+	 * dimensions updated, see {@link #updateGroups}. A read-only pathway model,
+	 * see {@link PathwayModel#isReadOnly()}, already has updated group
+	 * dimensions, so it is written as it is unless it has empty groups, in which
+	 * case a copy is updated and written instead.
+	 * 
+	 * NB: Executed before writing.
+	 *
+	 * @param pathwayModel the pathway model.
+	 * @return the pathway model to write.
+	 * @throws ConverterException
+	 */
+	protected PathwayModel updateGroupsForWriting(PathwayModel pathwayModel) throws ConverterException {
+		if (pathwayModel.isReadOnly()) {
+			boolean hasEmptyGroups = false;
+			for (Group group : pathwayModel.getGroups()) {
+				if (group.getPathwayElements().isEmpty()) {
+					hasEmptyGroups = true;
+					break;
+				}
+			}
+			if (!hasEmptyGroups) {
+				return pathwayModel;
+			}
+			pathwayModel = pathwayModel.clone();
+		}
+		updateGroups(pathwayModel);
+		return pathwayModel;
+	}
+
 	/**
 	 * Refreshes line elements.
 	 * 
@@ -134,7 +167,7 @@ protected void updateGroups(PathwayModel pathwayModel) throws ConverterException
 	 */
 	protected static void refreshLineElements(PathwayModel pathwayModel) throws ConverterException {
 		for (LineElement pe : pathwayModel.getLineElements()) {
-			pe.getConnectorShape().recalculateShape(pe);
+			pe.recalculateConnectorShape();
 		}
 	}
 
@@ -142,35 +175,54 @@ protected static void refreshLineElements(PathwayModel pathwayModel) throws Conv
 	// Validate Method
 	// ================================================================================
 	/**
-	 * Validates a JDOM document against the xml-schema definition specified by
-	 * 'xsdFile.'
+	 * Compiled schemas by xsd file. A {@link Schema} is immutable and thread-safe,
+	 * so it is shared by all readers and writers of the same GPML version.
+	 */
+	private static final Map<String, Schema> SCHEMAS = new ConcurrentHashMap<String, Schema>();
+
+	/**
+	 * Returns the compiled xml-schema definition specified by 'xsdFile.' The
+	 * schema is compiled the first time it is needed, and then reused.
 	 *
-	 * @param doc the document to validate
+	 * @return the compiled schema.
+	 * @throws ConverterException if the xsd is not in the classpath or could not
+	 *                            be parsed.
 	 */
-	public void validateDocument(Document doc) throws ConverterException {
+	public Schema getSchema() throws ConverterException {
+		Schema schema = SCHEMAS.get(xsdFile);
+		if (schema == null) {
+			long start = System.currentTimeMillis();
+			schema = newSchema();
+			Logger.log.trace("Compiled xml schema definition '" + xsdFile + "' in "
+					+ (System.currentTimeMillis() - start) + " ms");
+			// another thread may have compiled it in the meantime, keep one of them
+			Schema previous = SCHEMAS.putIfAbsent(xsdFile, schema);
+			if (previous != null) {
+				schema = previous;
+			}
+		}
+		return schema;
+	}
+
+	/**
+	 * Compiles the xml-schema definition specified by 'xsdFile.' Use
+	 * {@link #getSchema()} instead, unless a new copy is needed.
+	 *
+	 * @return the compiled schema.
+	 * @throws ConverterException if the xsd is not in the classpath or could not
+	 *                            be parsed.
+	 */
+	public Schema newSchema() throws ConverterException {
 		ClassLoader cl = PathwayModel.class.getClassLoader();
 		InputStream is = cl.getResourceAsStream(xsdFile);
 		if (is != null) {
-			Schema schema;
 			try {
 				SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
 				StreamSource ss = new StreamSource(is);
-				schema = factory.newSchema(ss);
-				ValidatorHandler vh = schema.newValidatorHandler();
-				SAXOutputter so = new SAXOutputter(vh);
-				so.output(doc);
-				// if no errors, the file is valid according to the gpml xml schema
-				Logger.log
-						.info("Document is valid according to the xml schema definition '" + xsdFile.toString() + "'");
+				return factory.newSchema(ss);
 			} catch (SAXException se) {
 				Logger.log.error("Could not parse the xml-schema definition", se);
 				throw new ConverterException(se);
-			} catch (JDOMException je) {
-				Logger.log.error("Document is invalid according to the xml-schema definition!: " + je.getMessage(), je);
-				XMLOutputter xmlcode = new XMLOutputter(Format.getPrettyFormat());
-
-				Logger.log.error("The invalid XML code:\n" + xmlcode.outputString(doc));
-				throw new ConverterException(je);
 			}
 		} else {
 			Logger.log.error("Document is not validated because the xml schema definition '" + xsdFile
@@ -180,4 +232,38 @@ public void validateDocument(Document doc) throws ConverterException {
 		}
 	}
 
+	/**
+	 * Validates a JDOM document against the xml-schema definition specified by
+	 * 'xsdFile.'
+	 *
+	 * @param doc the document to validate
+	 */
+	public void validateDocument(Document doc) throws ConverterException {
+		Schema schema = getSchema();
+		try {
+			long start = System.currentTimeMillis();
+			ValidatorHandler vh = schema.newValidatorHandler();
+			SAXOutputter so = new SAXOutputter(vh);
+			so.output(doc);
+			// if no errors, the file is valid according to the gpml xml schema
+			logValid(System.currentTimeMillis() - start);
+		} catch (JDOMException je) {
+			Logger.log.error("Document is invalid according to the xml-schema definition!: " + je.getMessage(), je);
+			XMLOutputter xmlcode = new XMLOutputter(Format.getPrettyFormat());
+
+			Logger.log.error("The invalid XML code:\n" + xmlcode.outputString(doc));
+			throw new ConverterException(je);
+		}
+	}
+
+	/**
+	 * Logs that a document is valid, and how long validation took.
+	 *
+	 * @param millis the time spent validating, in milliseconds.
+	 */
+	protected void logValid(long millis) {
+		Logger.log.info("Document is valid according to the xml schema definition '" + xsdFile + "', validated in "
+				+ millis + " ms");
+	}
+
 }
\ No newline at end of file
@@ -16,6 +16,8 @@
  ******************************************************************************/
 package org.pathvisio.libgpml.model;
 
+import javax.xml.validation.Schema;
+
 import org.jdom2.Document;
 import org.jdom2.Namespace;
 import org.pathvisio.libgpml.io.ConverterException;
@@ -37,6 +39,12 @@ public interface GPMLFormatVersion {
 	 */
 	String getSchemaFile();
 
+	/**
+	 * Returns the compiled xml-schema definition specified by 'xsdFile'. The
+	 * schema is compiled once and shared.
+	 */
+	Schema getSchema() throws ConverterException;
+
 	/**
 	 * Validates a JDOM document against the xml-schema definition specified by
 	 * 'xsdFile'
@@ -58,6 +58,7 @@ public ObjectType getObjectType() {
 	 * @param src the source pathway element.
 	 */
 	public void copyValuesFrom(State src) {
+		checkWritable();
 		super.copyValuesFrom(src);
 		fireObjectModifiedEvent(PathwayObjectEvent.createAllPropertiesEvent(this));
 	}
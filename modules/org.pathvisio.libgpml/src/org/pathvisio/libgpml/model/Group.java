@@ -110,6 +110,7 @@ public boolean hasPathwayElement(Groupable pathwayElement) {
 	 * @param pathwayElement the given pathwayElement to add.
 	 */
 	public void addPathwayElement(Groupable pathwayElement) {
+		checkWritable();
 		if (pathwayElement == null) {
 			throw new IllegalArgumentException("Cannot add invalid pathway element to group " + getElementId());
 		}
@@ -141,6 +142,7 @@ public void addPathwayElement(Groupable pathwayElement) {
 	 * </ol>
 	 */
 	public void updateDimensions() {
+		checkWritable();
 		// if newly created group (size 1 or smaller)
 		// or if width or height not yet updated (zero)
 		if (pathwayElements.size() <= 1 || getWidth() == 0 || getHeight() == 0) {
@@ -166,6 +168,7 @@ public void updateDimensions() {
 	 * @param pathwayElement the given pathwayElement to remove.
 	 */
 	public void removePathwayElement(Groupable pathwayElement) {
+		checkWritable();
 		if (pathwayElement != null) {
 			pathwayElement.unsetGroupRef();
 			pathwayElements.remove(pathwayElement);
@@ -183,6 +186,7 @@ public void removePathwayElement(Groupable pathwayElement) {
 	 * @param pathwayElements the given list of pathwayElement to add.
 	 */
 	public void addPathwayElements(List<? extends Groupable> pathwayElements) {
+		checkWritable();
 		for (Groupable pathwayElement : pathwayElements) {
 			addPathwayElement(pathwayElement);
 		}
@@ -193,6 +197,7 @@ public void addPathwayElements(List<? extends Groupable> pathwayElements) {
 	 * Removes all pathway elements from the pathwayElements list.
 	 */
 	public void removePathwayElements() {
+		checkWritable();
 		for (int i = pathwayElements.size() - 1; i >= 0; i--) {
 			removePathwayElement(pathwayElements.get(i));
 		}
@@ -213,6 +218,7 @@ public GroupType getType() {
 	 * @param v the type to set for this group, e.g. complex.
 	 */
 	public void setType(GroupType v) {
+		checkWritable();
 		if (type != v && v != null) {
 			type = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.GROUPTYPE));
@@ -237,6 +243,7 @@ public String getTextLabel() {
 	 */
 	@Override
 	public void setTextLabel(String v) {
+		checkWritable();
 		if (v != null && !Utils.stringEquals(textLabel, v)) {
 			textLabel = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.TEXTLABEL));
@@ -260,6 +267,7 @@ public Xref getXref() {
 	 */
 	@Override
 	public void setXref(Xref v) {
+		checkWritable();
 		if (v != null) {
 			xref = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.XREF));
@@ -274,6 +282,7 @@ public void setXref(Xref v) {
 	 * Creates and returns an Alias data node for this group.
 	 */
 	public DataNode addAlias(String textLabel) {
+		checkWritable();
 		if (pathwayModel != null) {
 			DataNode alias = new DataNode(textLabel, DataNodeType.ALIAS, null, this);
 			pathwayModel.addDataNode(alias);
@@ -316,6 +325,7 @@ protected void terminate() {
 	 */
 	@Override
 	public void setRotation(Double v) {
+		checkWritable();
 		// rotation not allowed
 		super.setRotation(0.0);
 	}
@@ -404,6 +414,7 @@ public Rectangle2D getMinBounds(boolean rotated) {
 	 * @param src the source pathway element.
 	 */
 	public void copyValuesFrom(Group src) {
+		checkWritable();
 		super.copyValuesFrom(src);
 		textLabel = src.textLabel;
 		type = src.type;
@@ -479,6 +490,7 @@ public Object getStaticProperty(StaticProperty key) {
 	 */
 	@Override
 	public void setStaticProperty(StaticProperty key, Object value) {
+		checkWritable();
 		super.setStaticProperty(key, value);
 		switch (key) {
 		case GROUPTYPE:
@@ -82,6 +82,7 @@ public Xref getXref() {
 	 */
 	@Override
 	public void setXref(Xref v) {
+		checkWritable();
 		if (v != null) {
 			xref = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.XREF));
@@ -97,6 +98,7 @@ public void setXref(Xref v) {
 	 * @param src the source pathway element.
 	 */
 	public void copyValuesFrom(Interaction src) {
+		checkWritable();
 		super.copyValuesFrom(src);
 		xref = src.xref;
 		fireObjectModifiedEvent(PathwayObjectEvent.createAllPropertiesEvent(this));
@@ -162,6 +164,7 @@ public Object getStaticProperty(StaticProperty key) {
 	 */
 	@Override
 	public void setStaticProperty(StaticProperty key, Object value) {
+		checkWritable();
 		super.setStaticProperty(key, value);
 		switch (key) {
 		case XREF:
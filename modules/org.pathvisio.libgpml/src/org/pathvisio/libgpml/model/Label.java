@@ -77,6 +77,7 @@ public String getTextLabel() {
 	 */
 	@Override
 	public void setTextLabel(String v) {
+		checkWritable();
 		String value = (v == null) ? "" : v;
 		if (!Utils.stringEquals(textLabel, value)) {
 			textLabel = value;
@@ -99,6 +100,7 @@ public String getHref() {
 	 * @param v the hyperlink reference to a url.
 	 */
 	public void setHref(String v) {
+		checkWritable();
 		if (v != null && !Utils.stringEquals(href, v)) {
 			href = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.HREF));
@@ -128,6 +130,7 @@ protected void terminate() {
 	 * @param src the source pathway element.
 	 */
 	public void copyValuesFrom(Label src) {
+		checkWritable();
 		super.copyValuesFrom(src);
 		textLabel = src.textLabel;
 		href = src.href;
@@ -198,6 +201,7 @@ public Object getStaticProperty(StaticProperty key) {
 	 */
 	@Override
 	public void setStaticProperty(StaticProperty key, Object value) {
+		checkWritable();
 		super.setStaticProperty(key, value);
 		switch (key) {
 		case TEXTLABEL:
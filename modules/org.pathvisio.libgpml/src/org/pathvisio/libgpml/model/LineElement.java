@@ -33,6 +33,7 @@
 import org.pathvisio.libgpml.model.connector.ConnectorShape.WayPoint;
 import org.pathvisio.libgpml.model.connector.ConnectorShapeFactory;
 import org.pathvisio.libgpml.model.connector.ElbowConnectorShape;
+import org.pathvisio.libgpml.model.connector.RoutingCache;
 import org.pathvisio.libgpml.model.type.AnchorShapeType;
 import org.pathvisio.libgpml.model.type.ArrowHeadType;
 import org.pathvisio.libgpml.model.type.ConnectorType;
@@ -102,6 +103,7 @@ public ArrowHeadType getStartArrowHeadType() {
 	 * @param value the arrow head type to set.
 	 */
 	public void setStartArrowHeadType(ArrowHeadType value) {
+		checkWritable();
 		if (startArrowHeadType != value && value != null) {
 			startArrowHeadType = value;
 			fireObjectModifiedEvent(
@@ -126,6 +128,7 @@ public ArrowHeadType getEndArrowHeadType() {
 	 * @param value the arrow head type to set.
 	 */
 	public void setEndArrowHeadType(ArrowHeadType value) {
+		checkWritable();
 		if (endArrowHeadType != value && value != null) {
 			endArrowHeadType = value;
 			fireObjectModifiedEvent(
@@ -164,6 +167,7 @@ public boolean hasGroupRef() {
 	 */
 	@Override
 	public void setGroupRefTo(Group v) {
+		checkWritable();
 		if (v == null)
 			throw new IllegalArgumentException("Invalid group.");
 		if (v.getPathwayModel() != pathwayModel) {
@@ -193,6 +197,7 @@ private void setGroupRef(Group v) {
 	 */
 	@Override
 	public void unsetGroupRef() {
+		checkWritable();
 		if (hasGroupRef()) {
 			Group groupRef = getGroupRef();
 			setGroupRef(null);
@@ -223,6 +228,7 @@ public List<LinePoint> getLinePoints() {
 	 * @param points the list of points to set.
 	 */
 	public void setLinePoints(List<LinePoint> points) {
+		checkWritable();
 		if (points != null) {
 			if (points.size() < 2) {
 				throw new IllegalArgumentException("Points array should at least have two elements for "
@@ -319,6 +325,7 @@ public boolean hasAnchor(Anchor anchor) {
 	 * @param anchor the anchor to be added.
 	 */
 	public void addAnchor(Anchor anchor) {
+		checkWritable();
 		if (anchor != null && !hasAnchor(anchor)) {
 			assert (anchor.getLineElement() == this);
 			// add anchor to same pathway model as line if applicable
@@ -339,6 +346,7 @@ public void addAnchor(Anchor anchor) {
 	 * @param anchorShapeType the shape type of the anchor.
 	 */
 	public Anchor addAnchor(double position, AnchorShapeType anchorShapeType) {
+		checkWritable();
 		Anchor anchor = new Anchor(position, anchorShapeType);
 		addAnchor(anchor);
 		return anchor;
@@ -356,6 +364,7 @@ public Anchor addAnchor(double position, AnchorShapeType anchorShapeType) {
 	 * @param anchorShapeType the shape type of the anchor.
 	 */
 	public Anchor addAnchor(String elementId, double position, AnchorShapeType anchorShapeType) {
+		checkWritable();
 		Anchor anchor = new Anchor(position, anchorShapeType);
 		anchor.setElementId(elementId);
 		addAnchor(anchor);
@@ -369,6 +378,7 @@ public Anchor addAnchor(String elementId, double position, AnchorShapeType ancho
 	 * @param anchor the anchor to be removed.
 	 */
 	public void removeAnchor(Anchor anchor) {
+		checkWritable();
 		assert (anchor != null && hasAnchor(anchor));
 		if (pathwayModel != null)
 			pathwayModel.removePathwayObject(anchor);
@@ -411,6 +421,7 @@ public Color getLineColor() {
 	 * @throws IllegalArgumentException if color null.
 	 */
 	public void setLineColor(Color v) {
+		checkWritable();
 		if (v == null) {
 			throw new IllegalArgumentException();
 		}
@@ -440,6 +451,7 @@ public LineStyleType getLineStyle() {
 	 * @throws IllegalArgumentException if lineStyle null.
 	 */
 	public void setLineStyle(LineStyleType v) {
+		checkWritable();
 		if (v == null) {
 			throw new IllegalArgumentException();
 		}
@@ -465,6 +477,7 @@ public double getLineWidth() {
 	 * @throws IllegalArgumentException if lineWidth is a negative value.
 	 */
 	public void setLineWidth(double v) {
+		checkWritable();
 		if (v < 0) {
 			throw new IllegalArgumentException();
 		}
@@ -498,6 +511,7 @@ public ConnectorType getConnectorType() {
 	 * @throws IllegalArgumentException if ConnectorType null.
 	 */
 	public void setConnectorType(ConnectorType v) {
+		checkWritable();
 		if (v == null) {
 			throw new IllegalArgumentException();
 		}
@@ -524,6 +538,7 @@ public int getZOrder() {
 	 */
 	@Override
 	public void setZOrder(int v) {
+		checkWritable();
 		if (zOrder != v) {
 			zOrder = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.ZORDER));
@@ -548,6 +563,7 @@ public LinePoint getStartLinePoint() {
 	 * @param linePoint the given line point.
 	 */
 	public void setStartLinePoint(LinePoint linePoint) {
+		checkWritable();
 		getStartLinePoint().moveTo(linePoint);
 	}
 
@@ -566,6 +582,7 @@ public LinePoint getEndLinePoint() {
 	 * @param linePoint the given line point.
 	 */
 	public void setEndLinePoint(LinePoint linePoint) {
+		checkWritable();
 		getEndLinePoint().moveTo(linePoint);
 	}
 
@@ -584,6 +601,7 @@ public double getStartLinePointX() {
 	 * @param v the value to set.
 	 */
 	public void setStartLinePointX(double v) {
+		checkWritable();
 		getStartLinePoint().setX(v);
 	}
 
@@ -602,6 +620,7 @@ public double getStartLinePointY() {
 	 * @param v the value to set.
 	 */
 	public void setStartLinePointY(double v) {
+		checkWritable();
 		getStartLinePoint().setY(v);
 	}
 
@@ -620,6 +639,7 @@ public double getEndLinePointX() {
 	 * @param v the value to set.
 	 */
 	public void setEndLinePointX(double v) {
+		checkWritable();
 		getEndLinePoint().setX(v);
 	}
 
@@ -638,6 +658,7 @@ public double getEndLinePointY() {
 	 * @param v the value to set.
 	 */
 	public void setEndLinePointY(double v) {
+		checkWritable();
 		getEndLinePoint().setY(v);
 	}
 
@@ -656,6 +677,7 @@ public LinkableTo getStartElementRef() {
 	 * @param elementRef to link to.
 	 */
 	public void setStartElementRef(LinkableTo elementRef) {
+		checkWritable();
 		getStartLinePoint().linkTo(elementRef);
 	}
 
@@ -674,6 +696,7 @@ public LinkableTo getEndElementRef() {
 	 * @param elementRef to link to.
 	 */
 	public void setEndElementRef(LinkableTo elementRef) {
+		checkWritable();
 		getEndLinePoint().linkTo(elementRef);
 
 	}
@@ -745,6 +768,7 @@ public double getCenterX() {
 	 */
 	@Override
 	public void setCenterX(double v) {
+		checkWritable();
 		double dx = v - getCenterX();
 		setStartLinePointX(getStartLinePointX() + dx);
 		setEndLinePointX(getEndLinePointX() + dx);
@@ -767,6 +791,7 @@ public double getCenterY() {
 	 */
 	@Override
 	public void setCenterY(double v) {
+		checkWritable();
 		double dy = v - getCenterY();
 		setStartLinePointY(getStartLinePointY() + dy);
 		setEndLinePointY(getEndLinePointY() + dy);
@@ -810,6 +835,7 @@ public double getLeft() {
 	 */
 	@Override
 	public void setLeft(double v) {
+		checkWritable();
 		if (getDirectionX() > 0) {
 			setStartLinePointX(v);
 		} else {
@@ -833,6 +859,7 @@ public double getTop() {
 	 */
 	@Override
 	public void setTop(double v) {
+		checkWritable();
 		if (getDirectionY() > 0) {
 			setStartLinePointY(v);
 		} else {
@@ -896,24 +923,76 @@ public Point2D toRelativeCoordinate(Point2D mp) {
 	// Connector Methods
 	// ================================================================================
 	ConnectorShape shape;
+	private final RoutingCache routing = new RoutingCache();
 
 	/**
 	 * The Connector Shape for this line - the connector shape can calculate a Shape
 	 * based on the connector type (straight, elbow or curved) and possibly way
 	 * points
+	 * <p>
+	 * The shape is recalculated when needed, i.e. when the start, end, sides or
+	 * waypoints have changed since the last calculation, see {@link RoutingCache}.
 	 */
 	public ConnectorShape getConnectorShape() {
+		routing.validate(getShape(), this);
+		return shape;
+	}
+
+	/**
+	 * Recalculates the connector shape if the start, end, sides or waypoints have
+	 * changed since the last calculation.
+	 *
+	 * @return true if the shape was recalculated.
+	 */
+	public boolean updateConnectorShape() {
+		return routing.validate(getShape(), this);
+	}
+
+	/**
+	 * Returns a number which changes every time the connector shape is
+	 * recalculated.
+	 *
+	 * @return the version of the connector shape.
+	 */
+	public int getConnectorShapeVersion() {
+		return routing.getVersion();
+	}
+
+	/**
+	 * Recalculates the connector shape, whether or not the start, end, sides or
+	 * waypoints have changed.
+	 */
+	public void recalculateConnectorShape() {
+		routing.recalculate(getShape(), this);
+	}
+
+	/**
+	 * Returns the connector shape without recalculating it.
+	 */
+	private ConnectorShape getShape() {
 		String type = getConnectorType().getName();
 
 		// Recreate the ConnectorShape when it's null or when the type
 		// doesn't match the implementing class
 		if (shape == null || !shape.getClass().equals(ConnectorShapeFactory.getImplementingClass(type))) {
 			shape = ConnectorShapeFactory.createConnectorShape(getConnectorType().getName());
-			shape.recalculateShape(this);
+			routing.invalidate();
 		}
 		return shape;
 	}
 
+	/**
+	 * Marks the connector shape as possibly out of date, for any change to this
+	 * line element or its points, before firing the event.
+	 * 
+	 * @param e the pathway object event.
+	 */
+	@Override
+	public void fireObjectModifiedEvent(PathwayObjectEvent e) {
+		routing.markMaybeStale();
+		super.fireObjectModifiedEvent(e);
+	}
+
 	/**
 	 * Calculate on which side of a PathwayElement (SIDE_NORTH, SIDE_EAST,
 	 * SIDE_SOUTH or SIDE_WEST) the start of this line is connected to.
@@ -1042,6 +1121,7 @@ private int getClockwisePerpendicularSide(int side) {
 	}
 
 	public void adjustWayPointPreferences(WayPoint[] waypoints) {
+		checkWritable();
 		List<LinePoint> mpoints = linePoints;
 		for (int i = 0; i < waypoints.length; i++) {
 			WayPoint wp = waypoints[i];
@@ -1051,9 +1131,12 @@ public void adjustWayPointPreferences(WayPoint[] waypoints) {
 				mp.moveTo(wp.getX(), wp.getY());
 			}
 		}
+		// the waypoints now match the shape, no need to route again
+		routing.update(this);
 	}
 
 	public void resetWayPointPreferences() {
+		checkWritable();
 		List<LinePoint> mps = linePoints;
 		while (mps.size() > 2) {
 			mps.remove(mps.size() - 2);
@@ -1207,6 +1290,7 @@ protected void terminate() {
 	 * @param src the source pathway element.
 	 */
 	public void copyValuesFrom(LineElement src) {
+		checkWritable();
 		super.copyValuesFrom(src);
 		groupRef = src.groupRef;
 		// copy line points
@@ -1320,6 +1404,7 @@ public Object getStaticProperty(StaticProperty key) {
 	 */
 	@Override
 	public void setStaticProperty(StaticProperty key, Object value) {
+		checkWritable();
 		super.setStaticProperty(key, value);
 		switch (key) {
 		case GROUPREF:
@@ -1514,6 +1599,7 @@ public double getX() {
 		 * @param v the coordinate value to set for x.
 		 */
 		public void setX(double v) {
+			checkWritable();
 			if (v != getX()) {
 				moveBy(v - getX(), 0);
 			}
@@ -1542,6 +1628,7 @@ public double getY() {
 		 * @param v the coordinate value to set for y.
 		 */
 		public void setY(double v) {
+			checkWritable();
 			if (v != getY()) {
 				moveBy(0, v - getY());
 			}
@@ -1710,6 +1797,7 @@ public Point2D toRelativeCoordinate(Point2D p) {
 		 * @param elementRef the linkableTo pathway element or anchor to link to.
 		 */
 		public void linkTo(LinkableTo elementRef) {
+			checkWritable();
 			if (elementRef != null) {
 				Point2D rel = elementRef.toRelativeCoordinate(toPoint2D());
 				linkTo(elementRef, rel.getX(), rel.getY());
@@ -1727,6 +1815,7 @@ public void linkTo(LinkableTo elementRef) {
 		 */
 		@Override
 		public void linkTo(LinkableTo elementRef, double relX, double relY) {
+			checkWritable();
 			setElementRef(elementRef);
 			setRelativePosition(relX, relY);
 		}
@@ -1739,6 +1828,7 @@ public void linkTo(LinkableTo elementRef, double relX, double relY) {
 		 */
 		@Override
 		public void unlink() {
+			checkWritable();
 			if (elementRef != null) {
 				if (pathwayModel != null) {
 					Point2D abs = getAbsolute();
@@ -1761,6 +1851,7 @@ public void unlink() {
 		 * @param relY the relative y coordinate.
 		 */
 		public void setRelativePosition(double relX, double relY) {
+			checkWritable();
 			moveTo(getX(), getY());
 			setRelX(relX);
 			setRelY(relY);
@@ -1777,6 +1868,7 @@ public void setRelativePosition(double relX, double relY) {
 		 * @param deltaY the value to move y coordinate by.
 		 */
 		public void moveBy(double deltaX, double deltaY) {
+			checkWritable();
 			x = getX() + deltaX;
 			y = getY() + deltaY;
 			LineElement.this
@@ -1790,6 +1882,7 @@ public void moveBy(double deltaX, double deltaY) {
 		 * @param vy the value to move y coordinate to.
 		 */
 		public void moveTo(double vx, double vy) {
+			checkWritable();
 			x = vx;
 			y = vy;
 			LineElement.this
@@ -1803,6 +1896,7 @@ public void moveTo(double vx, double vy) {
 		 * @param linePoint the linePoint to move to.
 		 */
 		public void moveTo(LinePoint linePoint) {
+			checkWritable();
 			setX(linePoint.getX());
 			setY(linePoint.getY());
 			setRelX(linePoint.getRelX());
@@ -1816,6 +1910,7 @@ public void moveTo(LinePoint linePoint) {
 		 */
 		@Override
 		public void refeeChanged() {
+			checkWritable();
 			LineElement.this
 					.fireObjectModifiedEvent(PathwayObjectEvent.createCoordinatePropertyEvent(LineElement.this));
 		}
@@ -1845,6 +1940,7 @@ public int getZOrder() {
 		 */
 		@Override
 		public void setZOrder(int v) {
+			checkWritable();
 			// do nothing
 		}
 
@@ -1919,6 +2015,7 @@ public double getPosition() {
 		 * @param v the position of the anchor to set.
 		 */
 		public void setPosition(double v) {
+			checkWritable();
 			if (v < 0 || v > 1) {
 				throw new IllegalArgumentException("Invalid position value '" + v + "' must be between 0 and 1");
 			}
@@ -1950,6 +2047,7 @@ public AnchorShapeType getShapeType() {
 		 * @throws IllegalArgumentException if shapeType null.
 		 */
 		public void setShapeType(AnchorShapeType v) {
+			checkWritable();
 			if (v == null) {
 				shapeType = AnchorShapeType.NONE;
 			}
@@ -1984,6 +2082,7 @@ public int getZOrder() {
 		 */
 		@Override
 		public void setZOrder(int v) {
+			checkWritable();
 			// do nothing
 		}
 
@@ -2001,6 +2100,7 @@ public Set<LinkableFrom> getLinkableFroms() {
 		 * {@link LinkableTo} pathway element.
 		 */
 		public void unsetAllLinkableFroms() {
+			checkWritable();
 			for (LinkableFrom linePoint : getLinkableFroms()) {
 				((LinePoint) linePoint).unlink();
 			}
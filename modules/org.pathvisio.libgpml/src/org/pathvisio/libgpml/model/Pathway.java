@@ -99,6 +99,7 @@ public String getTitle() {
 	 * @param v the title to set.
 	 */
 	public void setTitle(String v) {
+		checkWritable();
 		if (v == null) {
 			throw new IllegalArgumentException();
 		}
@@ -124,6 +125,7 @@ public double getBoardWidth() {
 	 * @param v the board width to set.
 	 */
 	public void setBoardWidth(double v) {
+		checkWritable();
 		if (v < 0) {
 			throw new IllegalArgumentException("Tried to set dimension < 0: " + v);
 		} else {
@@ -147,6 +149,7 @@ public double getBoardHeight() {
 	 * @param v the board height to set.
 	 */
 	public void setBoardHeight(double v) {
+		checkWritable();
 		if (v < 0) {
 			throw new IllegalArgumentException("Tried to set dimension < 0: " + v);
 		} else {
@@ -172,6 +175,7 @@ public Color getBackgroundColor() {
 	 * @param v the background color to set.
 	 */
 	public void setBackgroundColor(Color v) {
+		checkWritable();
 		backgroundColor = v;
 	}
 
@@ -190,6 +194,7 @@ public List<Author> getAuthors() {
 	 * @param author the author to add.
 	 */
 	public Author addAuthor(Author author) {
+		checkWritable();
 		if (author != null) {
 			authors.add(author);
 		}
@@ -202,6 +207,7 @@ public Author addAuthor(Author author) {
 	 * @param name the name of author.
 	 */
 	public Author addAuthor(String name) {
+		checkWritable();
 		Author author = new Author(name);
 		addAuthor(author);
 		return author;
@@ -213,6 +219,7 @@ public Author addAuthor(String name) {
 	 * @param author the author to remove.
 	 */
 	public void removeAuthor(Author author) {
+		checkWritable();
 		if (author != null && authors.contains(author)) {
 			authors.remove(author);
 		}
@@ -233,6 +240,7 @@ public String getDescription() {
 	 * @param v the description to set.
 	 */
 	public void setDescription(String v) {
+		checkWritable();
 		if (v != null) {
 			description = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.DESCRIPTION));
@@ -256,6 +264,7 @@ public String getOrganism() {
 	 * @param v the organism to set.
 	 */
 	public void setOrganism(String v) {
+		checkWritable();
 		if (!Utils.stringEquals(organism, v)) {
 			organism = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.ORGANISM));
@@ -277,6 +286,7 @@ public String getSource() {
 	 * @param v the source to set.
 	 */
 	public void setSource(String v) {
+		checkWritable();
 		if (!Utils.stringEquals(source, v)) {
 			source = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.SOURCE));
@@ -298,6 +308,7 @@ public String getVersion() {
 	 * @param v the version to set.
 	 */
 	public void setVersion(String v) {
+		checkWritable();
 		if (!Utils.stringEquals(version, v)) {
 			version = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.VERSION));
@@ -319,6 +330,7 @@ public String getLicense() {
 	 * @param v the license to set.
 	 */
 	public void setLicense(String v) {
+		checkWritable();
 		if (!Utils.stringEquals(license, v)) {
 			license = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.LICENSE));
@@ -342,6 +354,7 @@ public Xref getXref() {
 	 */
 	@Override
 	public void setXref(Xref v) {
+		checkWritable();
 		if (v != null) {
 			xref = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.XREF));
@@ -359,6 +372,7 @@ public void setXref(Xref v) {
 	 * @param src
 	 */
 	public void copyValuesFrom(Pathway src) {
+		checkWritable();
 		super.copyValuesFrom(src);
 		title = src.title;
 		boardWidth = src.boardWidth;
@@ -472,6 +486,7 @@ public Object getStaticProperty(StaticProperty key) {
 	 */
 	@Override
 	public void setStaticProperty(StaticProperty key, Object value) {
+		checkWritable();
 		super.setStaticProperty(key, value);
 		switch (key) { 
 		case TITLE:
@@ -572,6 +587,7 @@ public String getName() {
 		 * @param v the name of this author.
 		 */
 		public void setName(String v) {
+			checkWritable();
 			if (!Utils.stringEquals(name, v)) {
 				name = v;
 				fireObjectModifiedEvent(
@@ -594,6 +610,7 @@ public String getUsername() {
 		 * @param v the username of this author.
 		 */
 		public void setUsername(String v) {
+			checkWritable();
 			if (!Utils.stringEquals(username, v)) {
 				username = v;
 				fireObjectModifiedEvent(
@@ -616,6 +633,7 @@ public int getOrder() {
 		 * @param v the authorship order.
 		 */
 		public void setOrder(int v) {
+			checkWritable();
 			if (order != v) {
 				order = v;
 				fireObjectModifiedEvent(
@@ -638,6 +656,7 @@ public Xref getXref() {
 		 * @param v the xref of the author.
 		 */
 		public void setXref(Xref v) {
+			checkWritable();
 			if (v != null) {
 				xref = v;
 				fireObjectModifiedEvent(
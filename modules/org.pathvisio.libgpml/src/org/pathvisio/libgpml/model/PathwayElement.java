@@ -88,6 +88,7 @@ public List<Comment> getComments() {
 	 * @param comment the comment to be added.
 	 */
 	public void addComment(Comment comment) {
+		checkWritable();
 		comments.add(comment);
 		fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.COMMENT));
 	}
@@ -101,6 +102,7 @@ public void addComment(Comment comment) {
 	 * @return the created comment.
 	 */
 	public Comment addComment(String commentText, String source) {
+		checkWritable();
 		Comment comment = new Comment(commentText, source);
 		addComment(comment);
 		return comment;
@@ -112,6 +114,7 @@ public Comment addComment(String commentText, String source) {
 	 * @param comment the comment to be removed.
 	 */
 	public void removeComment(Comment comment) {
+		checkWritable();
 		comments.remove(comment);
 		fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.COMMENT));
 	}
@@ -122,6 +125,7 @@ public void removeComment(Comment comment) {
 	 * @param value the given comment list.
 	 */
 	public void setComments(List<Comment> value) {
+		checkWritable();
 		if (comments != value) {
 			comments = value;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.COMMENT));
@@ -179,6 +183,7 @@ public String getDynamicProperty(String key) {
 	 * @param value the value of a key value pair.
 	 */
 	public void setDynamicProperty(String key, String value) {
+		checkWritable();
 		if (value == null)
 			dynamicProperties.remove(key);
 		else
@@ -220,6 +225,7 @@ public boolean hasAnnotationRef(AnnotationRef annotationRef) {
 	 */
 	@Override
 	public AnnotationRef addAnnotation(Annotation annotation) {
+		checkWritable();
 		// add annotation to pathway model if applicable
 		if (pathwayModel != null && !pathwayModel.getAnnotations().contains(annotation)) {
 			annotation = pathwayModel.addAnnotation(annotation);
@@ -249,6 +255,7 @@ public AnnotationRef addAnnotation(Annotation annotation) {
 	 */
 	@Override
 	public AnnotationRef addAnnotation(String value, AnnotationType type, Xref xref, String urlLink) {
+		checkWritable();
 		Annotation annotation = new Annotation(value, type, xref, urlLink);
 		// adds annotation to pathway model, creates and adds annotationRef
 		return addAnnotation(annotation);
@@ -269,6 +276,7 @@ public AnnotationRef addAnnotation(String value, AnnotationType type, Xref xref,
 	 */
 	@Override
 	public AnnotationRef addAnnotation(String elementId, String value, AnnotationType type, Xref xref, String urlLink) {
+		checkWritable();
 		Annotation annotation = new Annotation(value, type, xref, urlLink);
 		annotation.setElementId(elementId);
 		// adds annotation to pathway model, creates and adds annotationRef
@@ -283,6 +291,7 @@ public AnnotationRef addAnnotation(String elementId, String value, AnnotationTyp
 	 */
 	@Override
 	public void removeAnnotationRef(AnnotationRef annotationRef) {
+		checkWritable();
 		if (annotationRef != null) {
 			annotationRefs.remove(annotationRef);
 			annotationRef.terminate();
@@ -295,6 +304,7 @@ public void removeAnnotationRef(AnnotationRef annotationRef) {
 	 */
 	@Override
 	public void removeAnnotationRefs() {
+		checkWritable();
 		for (int i = annotationRefs.size() - 1; i >= 0; i--) {
 			removeAnnotationRef(annotationRefs.get(i));
 		}
@@ -331,6 +341,7 @@ public boolean hasCitationRef(CitationRef citationRef) {
 	 */
 	@Override
 	public CitationRef addCitation(Citation citation) {
+		checkWritable();
 		// add citation to pathway model if applicable
 		if (pathwayModel != null && !pathwayModel.getCitations().contains(citation)) {
 			citation = pathwayModel.addCitation(citation);
@@ -357,6 +368,7 @@ public CitationRef addCitation(Citation citation) {
 	 */
 	@Override
 	public CitationRef addCitation(Xref xref, String urlLink) {
+		checkWritable();
 		Citation citation = new Citation(xref, urlLink);
 		// adds citation to pathway model, creates and adds citationRef
 		return addCitation(citation);
@@ -375,6 +387,7 @@ public CitationRef addCitation(Xref xref, String urlLink) {
 	 */
 	@Override
 	public CitationRef addCitation(String elementId, Xref xref, String urlLink) {
+		checkWritable();
 		Citation citation = new Citation(xref, urlLink);
 		// set elementId
 		citation.setElementId(elementId);
@@ -390,6 +403,7 @@ public CitationRef addCitation(String elementId, Xref xref, String urlLink) {
 	 */
 	@Override
 	public void removeCitationRef(CitationRef citationRef) {
+		checkWritable();
 		if (citationRef != null && hasCitationRef(citationRef)) {
 			citationRefs.remove(citationRef);
 			citationRef.terminate();
@@ -402,6 +416,7 @@ public void removeCitationRef(CitationRef citationRef) {
 	 */
 	@Override
 	public void removeCitationRefs() {
+		checkWritable();
 		for (int i = citationRefs.size() - 1; i >= 0; i--) {
 			removeCitationRef(citationRefs.get(i));
 		}
@@ -438,6 +453,7 @@ public boolean hasEvidenceRef(EvidenceRef evidenceRef) {
 	 */
 	@Override
 	public EvidenceRef addEvidence(Evidence evidence) {
+		checkWritable();
 		// add evidence to pathway model if applicable
 		if (pathwayModel != null && !pathwayModel.getEvidences().contains(evidence)) {
 			evidence = pathwayModel.addEvidence(evidence);
@@ -465,6 +481,7 @@ public EvidenceRef addEvidence(Evidence evidence) {
 	 */
 	@Override
 	public EvidenceRef addEvidence(String value, Xref xref, String urlLink) {
+		checkWritable();
 		Evidence evidence = new Evidence(value, xref, urlLink);
 		// adds evidence to pathway model, creates and adds evidenceRef
 		return addEvidence(evidence);
@@ -484,6 +501,7 @@ public EvidenceRef addEvidence(String value, Xref xref, String urlLink) {
 	 */
 	@Override
 	public EvidenceRef addEvidence(String elementId, String value, Xref xref, String urlLink) {
+		checkWritable();
 		Evidence evidence = new Evidence(value, xref, urlLink);
 		// set elementId
 		evidence.setElementId(elementId);
@@ -499,6 +517,7 @@ public EvidenceRef addEvidence(String elementId, String value, Xref xref, String
 	 */
 	@Override
 	public void removeEvidenceRef(EvidenceRef evidenceRef) {
+		checkWritable();
 		if (evidenceRef != null && hasEvidenceRef(evidenceRef)) {
 			evidenceRefs.remove(evidenceRef);
 			evidenceRef.terminate();
@@ -511,6 +530,7 @@ public void removeEvidenceRef(EvidenceRef evidenceRef) {
 	 */
 	@Override
 	public void removeEvidenceRefs() {
+		checkWritable();
 		for (int i = evidenceRefs.size() - 1; i >= 0; i--) {
 			removeEvidenceRef(evidenceRefs.get(i));
 		}
@@ -547,6 +567,7 @@ protected void terminate() {
 	 * @param src the source pathway element.
 	 */
 	public void copyValuesFrom(PathwayElement src) {
+		checkWritable();
 		dynamicProperties = new TreeMap<String, String>(src.dynamicProperties); // create copy
 		comments = new ArrayList<Comment>();
 		for (Comment c : src.comments) {
@@ -679,6 +700,7 @@ public Object getPropertyEx(Object key) {
 	 */
 	@Override
 	public void setPropertyEx(Object key, Object value) {
+		checkWritable();
 		if (key instanceof StaticProperty) {
 			setStaticProperty((StaticProperty) key, value);
 		} else if (key instanceof String) {
@@ -729,6 +751,7 @@ public Object getStaticProperty(StaticProperty key) {
 	 */
 	@Override
 	public void setStaticProperty(StaticProperty key, Object value) {
+		checkWritable();
 		super.setStaticProperty(key, value);
 		switch (key) {
 		case COMMENT:
@@ -813,6 +836,7 @@ public String getCommentText() {
 		 * @param v the text of this comment.
 		 */
 		public void setCommentText(String v) {
+			checkWritable();
 			if (v != null && !Utils.stringEquals(commentText, v)) {
 				commentText = v;
 				fireObjectModifiedEvent(
@@ -836,6 +860,7 @@ public String getSource() {
 		 * @param v the source of this comment.
 		 */
 		public void setSource(String v) {
+			checkWritable();
 			if (v != null && !Utils.stringEquals(source, v)) {
 				source = v;
 				fireObjectModifiedEvent(
@@ -943,6 +968,7 @@ public boolean hasAnnotation() {
 		 * @param annotation the given source annotation to set.
 		 */
 		public void setAnnotationTo(Annotation annotation) {
+			checkWritable();
 			if (annotation == null)
 				throw new IllegalArgumentException("Invalid annotation.");
 			if (hasAnnotation())
@@ -966,6 +992,7 @@ private void setAnnotation(Annotation v) {
 		 * annotationRef from the source annotation.
 		 */
 		protected void unsetAnnotation() {
+			checkWritable();
 			if (hasAnnotation()) {
 				Annotation annotation = getAnnotation();
 				setAnnotation(null);
@@ -1002,6 +1029,7 @@ public boolean hasAnnotatable() {
 		 * @param annotatable the given target annotatable to set.
 		 */
 		protected void setAnnotatableTo(Annotatable annotatable) {
+			checkWritable();
 			if (annotatable == null)
 				throw new IllegalArgumentException("Invalid annotatable.");
 			if (hasAnnotatable())
@@ -1024,6 +1052,7 @@ private void setAnnotatable(Annotatable v) {
 		 * not used directly.
 		 */
 		protected void unsetAnnotatable() {
+			checkWritable();
 			if (hasAnnotatable()) {
 				Annotatable annotatable = getAnnotatable();
 				setAnnotatable(null);
@@ -1066,6 +1095,7 @@ public boolean hasCitationRef(CitationRef citationRef) {
 		 */
 		@Override
 		public CitationRef addCitation(Citation citation) {
+			checkWritable();
 			// add citation to pathway model if applicable
 			if (pathwayModel != null && !pathwayModel.getCitations().contains(citation)) {
 				citation = pathwayModel.addCitation(citation);
@@ -1093,6 +1123,7 @@ public CitationRef addCitation(Citation citation) {
 		 */
 		@Override
 		public CitationRef addCitation(Xref xref, String urlLink) {
+			checkWritable();
 			Citation citation = new Citation(xref, urlLink);
 			// creates and adds citationRef
 			return addCitation(citation);
@@ -1111,6 +1142,7 @@ public CitationRef addCitation(Xref xref, String urlLink) {
 		 */
 		@Override
 		public CitationRef addCitation(String elementId, Xref xref, String urlLink) {
+			checkWritable();
 			Citation citation = new Citation(xref, urlLink);
 			// set elementId
 			citation.setElementId(elementId);
@@ -1126,6 +1158,7 @@ public CitationRef addCitation(String elementId, Xref xref, String urlLink) {
 		 */
 		@Override
 		public void removeCitationRef(CitationRef citationRef) {
+			checkWritable();
 			if (citationRef != null && hasCitationRef(citationRef)) {
 				citationRefs.remove(citationRef);
 				citationRef.terminate();
@@ -1139,6 +1172,7 @@ public void removeCitationRef(CitationRef citationRef) {
 		 */
 		@Override
 		public void removeCitationRefs() {
+			checkWritable();
 			for (int i = citationRefs.size() - 1; i >= 0; i--) {
 				removeCitationRef(citationRefs.get(i));
 			}
@@ -1178,6 +1212,7 @@ public boolean hasEvidenceRef(EvidenceRef evidenceRef) {
 		 */
 		@Override
 		public EvidenceRef addEvidence(Evidence evidence) {
+			checkWritable();
 			// add evidence to pathway model if applicable
 			if (pathwayModel != null && !pathwayModel.getEvidences().contains(evidence)) {
 				evidence = pathwayModel.addEvidence(evidence);
@@ -1206,6 +1241,7 @@ public EvidenceRef addEvidence(Evidence evidence) {
 		 */
 		@Override
 		public EvidenceRef addEvidence(String value, Xref xref, String urlLink) {
+			checkWritable();
 			Evidence evidence = new Evidence(value, xref, urlLink);
 			// creates and adds evidenceRef
 			return addEvidence(evidence);
@@ -1225,6 +1261,7 @@ public EvidenceRef addEvidence(String value, Xref xref, String urlLink) {
 		 */
 		@Override
 		public EvidenceRef addEvidence(String elementId, String value, Xref xref, String urlLink) {
+			checkWritable();
 			Evidence evidence = new Evidence(value, xref, urlLink);
 			// set elementId
 			evidence.setElementId(elementId);
@@ -1240,6 +1277,7 @@ public EvidenceRef addEvidence(String elementId, String value, Xref xref, String
 		 */
 		@Override
 		public void removeEvidenceRef(EvidenceRef evidenceRef) {
+			checkWritable();
 			if (evidenceRef != null && hasEvidenceRef(evidenceRef)) {
 				evidenceRefs.remove(evidenceRef);
 				evidenceRef.terminate();
@@ -1253,6 +1291,7 @@ public void removeEvidenceRef(EvidenceRef evidenceRef) {
 		 */
 		@Override
 		public void removeEvidenceRefs() {
+			checkWritable();
 			for (int i = evidenceRefs.size() - 1; i >= 0; i--) {
 				removeEvidenceRef(evidenceRefs.get(i));
 			}
@@ -1373,6 +1412,7 @@ public boolean hasCitation() {
 		 * @param citation the given source citation to set.
 		 */
 		public void setCitationTo(Citation citation) {
+			checkWritable();
 			if (citation == null)
 				throw new IllegalArgumentException("Invalid citation.");
 			if (hasCitation())
@@ -1396,6 +1436,7 @@ private void setCitation(Citation v) {
 		 * from the source citation.
 		 */
 		public void unsetCitation() {
+			checkWritable();
 			if (hasCitation()) {
 				Citation citation = getCitation();
 				setCitation(null);
@@ -1431,6 +1472,7 @@ public boolean hasCitable() {
 		 * @param citable the given target citable to set.
 		 */
 		protected void setCitableTo(Citable citable) {
+			checkWritable();
 			if (citable == null)
 				throw new IllegalArgumentException("Invalid citable.");
 			if (hasCitable())
@@ -1453,6 +1495,7 @@ private void setCitable(Citable v) {
 		 * used directly.
 		 */
 		protected void unsetCitable() {
+			checkWritable();
 			if (hasCitable()) {
 				Citable citable = getCitable();
 				setCitable(null);
@@ -1495,6 +1538,7 @@ public boolean hasAnnotationRef(AnnotationRef annotationRef) {
 		 */
 		@Override
 		public AnnotationRef addAnnotation(Annotation annotation) {
+			checkWritable();
 			// add annotation to pathway model if applicable
 			if (pathwayModel != null && !pathwayModel.getAnnotations().contains(annotation)) {
 				annotation = pathwayModel.addAnnotation(annotation);
@@ -1525,6 +1569,7 @@ public AnnotationRef addAnnotation(Annotation annotation) {
 		 */
 		@Override
 		public AnnotationRef addAnnotation(String value, AnnotationType type, Xref xref, String urlLink) {
+			checkWritable();
 			Annotation annotation = new Annotation(value, type, xref, urlLink);
 			// creates and adds annotationRef
 			return addAnnotation(annotation);
@@ -1560,6 +1605,7 @@ public AnnotationRef addAnnotation(String elementId, String value, AnnotationTyp
 		 */
 		@Override
 		public void removeAnnotationRef(AnnotationRef annotationRef) {
+			checkWritable();
 			if (annotationRef != null) {
 				annotationRefs.remove(annotationRef);
 				annotationRef.terminate();
@@ -1573,6 +1619,7 @@ public void removeAnnotationRef(AnnotationRef annotationRef) {
 		 */
 		@Override
 		public void removeAnnotationRefs() {
+			checkWritable();
 			for (int i = annotationRefs.size() - 1; i >= 0; i--) {
 				removeAnnotationRef(annotationRefs.get(i));
 			}
@@ -1678,6 +1725,7 @@ public boolean hasEvidence() {
 		 * @param evidence the given source evidence to set.
 		 */
 		public void setEvidenceTo(Evidence evidence) {
+			checkWritable();
 			if (evidence == null)
 				throw new IllegalArgumentException("Invalid evidence.");
 			if (hasEvidence())
@@ -1701,6 +1749,7 @@ private void setEvidence(Evidence v) {
 		 * from the source evidence.
 		 */
 		public void unsetEvidence() {
+			checkWritable();
 			if (hasEvidence()) {
 				Evidence evidence = getEvidence();
 				setEvidence(null);
@@ -1737,6 +1786,7 @@ public boolean hasEvidenceable() {
 		 * @param evidenceable the given target evidenceable to set.
 		 */
 		protected void setEvidenceableTo(Evidenceable evidenceable) {
+			checkWritable();
 			if (evidenceable == null)
 				throw new IllegalArgumentException("Invalid evidenceable.");
 			if (hasEvidenceable())
@@ -1759,6 +1809,7 @@ private void setEvidenceable(Evidenceable v) {
 		 * not used directly.
 		 */
 		protected void unsetEvidenceable() {
+			checkWritable();
 			if (hasEvidenceable()) {
 				Evidenceable evidenceable = getEvidenceable();
 				setEvidenceable(null);
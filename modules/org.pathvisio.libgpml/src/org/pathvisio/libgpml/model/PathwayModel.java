@@ -19,6 +19,7 @@
 import java.io.File;
 import java.io.InputStream;
 import java.io.Reader;
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -26,6 +27,7 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -71,6 +73,12 @@ public class PathwayModel {
 	private List<Annotation> annotations;
 	private List<Citation> citations;
 	private List<Evidence> evidences;
+	// equality keys of annotations, citations and evidences, for finding an equal
+	// one when adding, see Annotation#equalityKey()
+	private Map<Object, Annotation> annotationIndex;
+	private Map<Object, Citation> citationIndex;
+	private Map<Object, Evidence> evidenceIndex;
+	private Map<PathwayObject, Object> indexedKeys;
 
 	// ================================================================================
 	// Constructors
@@ -94,6 +102,10 @@ public PathwayModel() {
 		this.annotations = new ArrayList<Annotation>();
 		this.citations = new ArrayList<Citation>();
 		this.evidences = new ArrayList<Evidence>();
+		this.annotationIndex = new HashMap<Object, Annotation>();
+		this.citationIndex = new HashMap<Object, Citation>();
+		this.evidenceIndex = new HashMap<Object, Evidence>();
+		this.indexedKeys = new HashMap<PathwayObject, Object>();
 	}
 
 	// ================================================================================
@@ -117,6 +129,7 @@ public Pathway getPathway() {
 	 * @param newP the new pathway info.
 	 */
 	protected void replacePathway(Pathway newP) {
+		checkWritable();
 		Pathway oldP = pathway;
 		removeOldPathway(oldP);
 		setNewPathway(newP);
@@ -233,7 +246,8 @@ public List<PathwayObject> getPathwayObjects() {
 	 * @return true if pathway model has given pathway object, false otherwise.
 	 */
 	public boolean hasPathwayObject(PathwayObject pathwayObject) {
-		return this.getPathwayObjects().contains(pathwayObject);
+		// lookup by elementId, this is called for every coordinate of a line point
+		return pathwayObject != null && elementIdToPathwayObject.get(pathwayObject.getElementId()) == pathwayObject;
 	}
 
 	/**
@@ -256,6 +270,7 @@ public Set<String> getElementIds() {
 	 * @throws IllegalArgumentException if elementId is not unique.
 	 */
 	public void addElementId(String elementId, PathwayObject pathwayObject) {
+		checkWritable();
 		if (pathwayObject == null || elementId == null) {
 			throw new IllegalArgumentException("unique elementId can't be null");
 		}
@@ -272,6 +287,7 @@ public void addElementId(String elementId, PathwayObject pathwayObject) {
 	 * @param elementId the elementId key.
 	 */
 	protected void removeElementId(String elementId) {
+		checkWritable();
 		elementIdToPathwayObject.remove(elementId);
 	}
 
@@ -322,6 +338,7 @@ public Set<LinkableFrom> getReferringLinkableFroms(LinkableTo elementRef) {
 	 * @param linePoint  the linePoint with given elementRef.
 	 */
 	protected void addElementRef(LinkableTo elementRef, LinkableFrom linePoint) {
+		checkWritable();
 		Utils.multimapPut(elementRefToLinePoints, elementRef, linePoint);
 	}
 
@@ -332,6 +349,7 @@ protected void addElementRef(LinkableTo elementRef, LinkableFrom linePoint) {
 	 * @param linePoint  the linePoint with given elementRef.
 	 */
 	protected void removeElementRef(LinkableTo elementRef, LinkableFrom linePoint) {
+		checkWritable();
 		if (!elementRefToLinePoints.containsKey(elementRef)) {
 			throw new IllegalArgumentException();
 		}
@@ -402,6 +420,7 @@ protected boolean hasLinkedAlias(Group aliasRef, DataNode alias) {
 	 * @throws IllegalArgumentException if elementRef or dataNode are null.
 	 */
 	protected void linkAlias(Group aliasRef, DataNode alias) {
+		checkWritable();
 		if (aliasRef == null || alias == null)
 			throw new IllegalArgumentException("AliasRef and alias must be valid.");
 		Set<DataNode> aliases = aliasRefToAliases.get(aliasRef);
@@ -426,6 +445,7 @@ protected void linkAlias(Group aliasRef, DataNode alias) {
 	 * @param alias    the datanode which has an aliasRef.
 	 */
 	protected void unlinkAlias(Group aliasRef, DataNode alias) {
+		checkWritable();
 		if (alias == null || aliasRef == null) {
 			throw new IllegalArgumentException("AliasRef and alias must be valid.");
 		}
@@ -445,6 +465,7 @@ protected void unlinkAlias(Group aliasRef, DataNode alias) {
 	 * @param aliasRef the aliasRef key.
 	 */
 	protected void removeAliasRef(Group aliasRef) {
+		checkWritable();
 		if (hasAliasRef(aliasRef)) {
 			Set<DataNode> aliases = aliasRefToAliases.get(aliasRef);
 			for (DataNode alias : aliases) {
@@ -473,6 +494,7 @@ public List<DataNode> getDataNodes() {
 	 * @param dataNode the data node to be added.
 	 */
 	public void addDataNode(DataNode dataNode) {
+		checkWritable();
 		addPathwayObject(dataNode);
 		dataNodes.add(dataNode);
 	}
@@ -484,6 +506,7 @@ public void addDataNode(DataNode dataNode) {
 	 * @param dataNode the data node to be removed.
 	 */
 	public void removeDataNode(DataNode dataNode) {
+		checkWritable();
 		dataNodes.remove(dataNode);
 		removePathwayObject(dataNode);
 	}
@@ -504,6 +527,7 @@ public List<Interaction> getInteractions() {
 	 * @param interaction the interaction to be added.
 	 */
 	public void addInteraction(Interaction interaction) {
+		checkWritable();
 		addPathwayObject(interaction);
 		interactions.add(interaction);
 	}
@@ -515,6 +539,7 @@ public void addInteraction(Interaction interaction) {
 	 * @param interaction the interaction to be removed.
 	 */
 	public void removeInteraction(Interaction interaction) {
+		checkWritable();
 		interactions.remove(interaction);
 		removePathwayObject(interaction);
 
@@ -536,6 +561,7 @@ public List<GraphicalLine> getGraphicalLines() {
 	 * @param graphicalLine the graphicalLine to be added.
 	 */
 	public void addGraphicalLine(GraphicalLine graphicalLine) {
+		checkWritable();
 		addPathwayObject(graphicalLine);
 		graphicalLines.add(graphicalLine);
 	}
@@ -547,6 +573,7 @@ public void addGraphicalLine(GraphicalLine graphicalLine) {
 	 * @param graphicalLine the graphicalLine to be removed.
 	 */
 	public void removeGraphicalLine(GraphicalLine graphicalLine) {
+		checkWritable();
 		graphicalLines.remove(graphicalLine);
 		removePathwayObject(graphicalLine);
 
@@ -568,6 +595,7 @@ public List<Label> getLabels() {
 	 * @param label the label to be added.
 	 */
 	public void addLabel(Label label) {
+		checkWritable();
 		labels.add(label);
 		addPathwayObject(label);
 	}
@@ -578,6 +606,7 @@ public void addLabel(Label label) {
 	 * @param label the label to be removed.
 	 */
 	public void removeLabel(Label label) {
+		checkWritable();
 		labels.remove(label);
 		removePathwayObject(label);
 
@@ -599,6 +628,7 @@ public List<Shape> getShapes() {
 	 * @param shape the shape to be added.
 	 */
 	public void addShape(Shape shape) {
+		checkWritable();
 		addPathwayObject(shape);
 		shapes.add(shape);
 	}
@@ -609,6 +639,7 @@ public void addShape(Shape shape) {
 	 * @param shape the shape to be removed.
 	 */
 	public void removeShape(Shape shape) {
+		checkWritable();
 		shapes.remove(shape);
 		removePathwayObject(shape);
 
@@ -630,6 +661,7 @@ public List<Group> getGroups() {
 	 * @param group the group to be added.
 	 */
 	public void addGroup(Group group) {
+		checkWritable();
 		addPathwayObject(group);
 		groups.add(group);
 	}
@@ -641,6 +673,7 @@ public void addGroup(Group group) {
 	 * @param group the group to be removed.
 	 */
 	public void removeGroup(Group group) {
+		checkWritable();
 		groups.remove(group);
 		removePathwayObject(group);
 	}
@@ -668,6 +701,7 @@ public List<Annotation> getAnnotations() {
 	 *         equivalent annotation.
 	 */
 	protected Annotation addAnnotation(Annotation annotation) {
+		checkWritable();
 		Annotation annotationExisting = hasEqualAnnotation(annotation);
 		if (annotationExisting != null) {
 			Logger.log.trace("Annotation not added, information equivalent to " + annotationExisting.getElementId());
@@ -675,6 +709,7 @@ protected Annotation addAnnotation(Annotation annotation) {
 		} else {
 			addPathwayObject(annotation);
 			annotations.add(annotation);
+			addToIndex(annotationIndex, annotation, annotation.equalityKey());
 			return annotation;
 		}
 	}
@@ -687,12 +722,7 @@ protected Annotation addAnnotation(Annotation annotation) {
 	 *         equivalent annotation exists for given citation.
 	 */
 	private Annotation hasEqualAnnotation(Annotation annotation) {
-		for (Annotation annotationExisting : annotations) {
-			if (annotation.equalsAnnotation(annotationExisting)) {
-				return annotationExisting;
-			}
-		}
-		return null;
+		return annotationIndex.get(annotation.equalityKey());
 	}
 
 	/**
@@ -702,7 +732,9 @@ private Annotation hasEqualAnnotation(Annotation annotation) {
 	 * @param annotation the annotation to be removed.
 	 */
 	public void removeAnnotation(Annotation annotation) {
+		checkWritable();
 		annotations.remove(annotation);
+		removeFromIndex(annotationIndex, annotations, annotation);
 		removePathwayObject(annotation);
 	}
 
@@ -726,6 +758,7 @@ public List<Citation> getCitations() {
 	 *         citation.
 	 */
 	protected Citation addCitation(Citation citation) {
+		checkWritable();
 		if (citation != null) {
 			Citation citationExisting = hasEqualCitation(citation);
 			if (citationExisting != null) {
@@ -734,6 +767,7 @@ protected Citation addCitation(Citation citation) {
 			} else {
 				addPathwayObject(citation);
 				citations.add(citation);
+				addToIndex(citationIndex, citation, citation.equalityKey());
 				return citation;
 			}
 		} else {
@@ -749,12 +783,7 @@ protected Citation addCitation(Citation citation) {
 	 *         equivalent citation exists for given citation.
 	 */
 	private Citation hasEqualCitation(Citation citation) {
-		for (Citation citationExisting : citations) {
-			if (citation.equalsCitation(citationExisting)) {
-				return citationExisting;
-			}
-		}
-		return null;
+		return citationIndex.get(citation.equalityKey());
 	}
 
 	/**
@@ -763,7 +792,9 @@ private Citation hasEqualCitation(Citation citation) {
 	 * @param citation the citation to be removed.
 	 */
 	public void removeCitation(Citation citation) {
+		checkWritable();
 		citations.remove(citation);
+		removeFromIndex(citationIndex, citations, citation);
 		removePathwayObject(citation);
 	}
 
@@ -785,6 +816,7 @@ public List<Evidence> getEvidences() {
 	 * @param evidence the evidence to be added.
 	 */
 	protected Evidence addEvidence(Evidence evidence) {
+		checkWritable();
 		Evidence evidenceExisting = hasEqualEvidence(evidence);
 		if (evidenceExisting != null) {
 			Logger.log.trace("Evidence not added, information equivalent to " + evidenceExisting.getElementId());
@@ -792,6 +824,7 @@ protected Evidence addEvidence(Evidence evidence) {
 		} else {
 			addPathwayObject(evidence);
 			evidences.add(evidence);
+			addToIndex(evidenceIndex, evidence, evidence.equalityKey());
 			return evidence;
 		}
 	}
@@ -804,12 +837,7 @@ protected Evidence addEvidence(Evidence evidence) {
 	 *         equivalent citation exists for given citation.
 	 */
 	private Evidence hasEqualEvidence(Evidence evidence) {
-		for (Evidence evidenceExisting : evidences) {
-			if (evidence.equalsEvidence(evidenceExisting)) {
-				return evidenceExisting;
-			}
-		}
-		return null;
+		return evidenceIndex.get(evidence.equalityKey());
 	}
 
 	/**
@@ -818,10 +846,82 @@ private Evidence hasEqualEvidence(Evidence evidence) {
 	 * @param evidence the evidence to be removed.
 	 */
 	public void removeEvidence(Evidence evidence) {
+		checkWritable();
 		evidences.remove(evidence);
+		removeFromIndex(evidenceIndex, evidences, evidence);
 		removePathwayObject(evidence);
 	}
 
+	/**
+	 * Adds the given annotation, citation or evidence to the given index. If the
+	 * index already has an equal one, e.g. because a property was changed, the
+	 * existing one is kept.
+	 *
+	 * @param index the index.
+	 * @param o     the annotation, citation or evidence.
+	 * @param key   the equality key of o.
+	 */
+	private <T extends PathwayObject> void addToIndex(Map<Object, T> index, T o, Object key) {
+		indexedKeys.put(o, key);
+		if (!index.containsKey(key)) {
+			index.put(key, o);
+		}
+	}
+
+	/**
+	 * Removes the given annotation, citation or evidence from the given index. If
+	 * an equal one is left in the list, it takes its place in the index.
+	 *
+	 * @param index the index.
+	 * @param list  the list of annotations, citations or evidences, without o.
+	 * @param o     the annotation, citation or evidence.
+	 */
+	private <T extends PathwayObject> void removeFromIndex(Map<Object, T> index, List<T> list, T o) {
+		Object key = indexedKeys.remove(o);
+		if (key != null && index.get(key) == o) {
+			index.remove(key);
+			for (T other : list) {
+				if (key.equals(indexedKeys.get(other))) {
+					index.put(key, other);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Updates the index if the given object is an annotation, citation or
+	 * evidence.
+	 *
+	 * @param o the modified pathway object.
+	 */
+	private void updateIndex(PathwayObject o) {
+		if (o instanceof Annotation) {
+			updateIndex(annotationIndex, annotations, (Annotation) o, ((Annotation) o).equalityKey());
+		} else if (o instanceof Citation) {
+			updateIndex(citationIndex, citations, (Citation) o, ((Citation) o).equalityKey());
+		} else if (o instanceof Evidence) {
+			updateIndex(evidenceIndex, evidences, (Evidence) o, ((Evidence) o).equalityKey());
+		}
+	}
+
+	/**
+	 * Updates the index when a property of an annotation, citation or evidence
+	 * has changed.
+	 *
+	 * @param index the index.
+	 * @param list  the list of annotations, citations or evidences.
+	 * @param o     the modified annotation, citation or evidence.
+	 * @param key   the new equality key of o.
+	 */
+	private <T extends PathwayObject> void updateIndex(Map<Object, T> index, List<T> list, T o, Object key) {
+		Object oldKey = indexedKeys.get(o);
+		if (oldKey != null && !oldKey.equals(key)) {
+			removeFromIndex(index, list, o);
+			addToIndex(index, o, key);
+		}
+	}
+
 	// ================================================================================
 	// General PathwayObject Add/Remove Methods
 	// ================================================================================
@@ -837,6 +937,7 @@ public void removeEvidence(Evidence evidence) {
 	 * @param o the pathway object to add.
 	 */
 	protected void addPathwayObject(PathwayObject o) {
+		checkWritable();
 		if (o == null) {
 			throw new IllegalArgumentException("Cannot add invalid pathway object to pathway model");
 		}
@@ -871,6 +972,7 @@ protected void addPathwayObject(PathwayObject o) {
 	 * @param o the pathway object to remove.
 	 */
 	protected void removePathwayObject(PathwayObject o) {
+		checkWritable();
 		if (o == null) {
 			throw new IllegalArgumentException("Cannot remove invalid pathway object");
 		}
@@ -889,6 +991,7 @@ protected void removePathwayObject(PathwayObject o) {
 	 * @param o the pathway object to add
 	 */
 	public void add(PathwayObject o) {
+		checkWritable();
 		assert (o != null);
 		switch (o.getObjectType()) {
 		case PATHWAY:
@@ -933,6 +1036,7 @@ public void add(PathwayObject o) {
 	 * @param o the pathway object to remove
 	 */
 	public void remove(PathwayObject o) {
+		checkWritable();
 		assert (o.pathwayModel == this);
 		switch (o.getObjectType()) {
 		case DATANODE:
@@ -1119,7 +1223,7 @@ public PathwayModel clone() {
 		}
 		// refresh connector shapes
 		for (LineElement o : result.getLineElements()) {
-			o.getConnectorShape().recalculateShape(o);
+			o.recalculateConnectorShape();
 		}
 		result.changed = changed;
 		if (sourceFile != null) {
@@ -1132,6 +1236,67 @@ public PathwayModel clone() {
 		return result;
 	}
 
+	// ================================================================================
+	// Snapshot Methods
+	// ================================================================================
+	private SoftReference<PathwayModel> snapshot = null;
+	private long snapshotCount = -1;
+	private boolean readOnly = false;
+
+	/**
+	 * Returns a read-only copy of this pathway model as it is now, which can be
+	 * read on another thread while this pathway model is edited, e.g. to export
+	 * or autosave it.
+	 * <p>
+	 * Snapshots are copy-on-write: the copy is shared by all callers until this
+	 * pathway model is modified, so taking a snapshot of an unmodified pathway
+	 * model, e.g. for an export right after an autosave, doesn't copy it again.
+	 * <p>
+	 * A snapshot can't be modified, see {@link #isReadOnly()}, so it can be
+	 * written and drawn by several threads at once. The bounds of its groups and
+	 * the shapes of its connectors are updated before it is shared, as writers
+	 * and views would otherwise update them. This method must be called on the
+	 * thread that edits this pathway model.
+	 *
+	 * @return the snapshot.
+	 */
+	public PathwayModel snapshot() {
+		PathwayModel result = snapshot == null ? null : snapshot.get();
+		if (result == null || snapshotCount != modificationCount) {
+			result = clone();
+			for (Group group : result.getGroups()) {
+				if (!group.getPathwayElements().isEmpty()) {
+					group.updateDimensions();
+				}
+			}
+			for (LineElement line : result.getLineElements()) {
+				line.updateConnectorShape();
+			}
+			result.readOnly = true;
+			snapshot = new SoftReference<PathwayModel>(result);
+			snapshotCount = modificationCount;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns true if this pathway model is a snapshot, see {@link #snapshot()}.
+	 * Modifying a read-only pathway model throws an {@link IllegalStateException}
+	 * before anything is changed. It never fires events, so listeners added to it
+	 * are not kept.
+	 *
+	 * @return true if read-only.
+	 */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	void checkWritable() {
+		if (readOnly) {
+			throw new IllegalStateException("A snapshot of a pathway model can't be modified, modify a clone instead");
+		}
+	}
+
 	// ================================================================================
 	// Read Write Methods
 	// ================================================================================
@@ -1147,6 +1312,7 @@ public File getSourceFile() {
 	}
 
 	public void setSourceFile(File file) {
+		checkWritable();
 		sourceFile = file;
 	}
 
@@ -1167,20 +1333,36 @@ public void writeToXml(File file, boolean validate) throws ConverterException {
 	}
 
 	public void readFromXml(Reader in, boolean validate) throws ConverterException {
+		checkWritable();
 		GPMLFormat.readFromXml(this, in, validate);
 		setSourceFile(null);
 		clearChangedFlag();
 	}
 
 	public void readFromXml(InputStream in, boolean validate) throws ConverterException {
+		checkWritable();
 		GPMLFormat.readFromXml(this, in, validate);
 		setSourceFile(null);
 		clearChangedFlag();
 	}
 
 	public void readFromXml(File file, boolean validate) throws ConverterException {
+		readFromXml(file, validate, null);
+	}
+
+	/**
+	 * Reads this pathway model from the given file.
+	 *
+	 * @param file     the file to read.
+	 * @param validate if true, validate the dom structure during/after reading.
+	 * @param warnings the list to add warnings about the file to, or null to log
+	 *                 them.
+	 * @throws ConverterException
+	 */
+	public void readFromXml(File file, boolean validate, List<String> warnings) throws ConverterException {
+		checkWritable();
 		Logger.log.info("Start reading the XML file: " + file);
-		GPMLFormat.readFromXml(this, file, validate);
+		GPMLFormat.readFromXml(this, file, validate, warnings);
 		setSourceFile(file);
 		clearChangedFlag();
 	}
@@ -1202,6 +1384,8 @@ public void readFromXml(File file, boolean validate) throws ConverterException {
 	// FireEvent and Listener Methods
 	// ================================================================================
 	private boolean changed = true;
+	private long modificationCount = 0;
+	private long obstacleModificationCount = 0;
 
 	/**
 	 * The "changed" flag tracks if the Pathway has been changed since the file was
@@ -1217,6 +1401,7 @@ public boolean hasChanged() {
 	 * you just saved it.
 	 */
 	public void clearChangedFlag() {
+		checkWritable();
 		if (changed) {
 			changed = false;
 			fireStatusFlagEvent(new StatusFlagEvent(changed));
@@ -1224,10 +1409,45 @@ public void clearChangedFlag() {
 		}
 	}
 
+	/**
+	 * Returns the number of edit operations on this pathway model. Unlike the
+	 * "changed" flag, the count is never reset, so it can be used to tell if the
+	 * pathway model has been edited since an earlier point in time.
+	 *
+	 * @return the modification count.
+	 */
+	public long getModificationCount() {
+		return modificationCount;
+	}
+
+	/**
+	 * Returns the number of changes to the bounds of the data nodes and labels of
+	 * this pathway model, including adding and removing them. Connectors which
+	 * route around data nodes and labels use it to tell if they have to look at
+	 * their positions again; edits of other properties or other elements do not
+	 * change the count.
+	 *
+	 * @return the obstacle modification count.
+	 */
+	public long getObstacleModificationCount() {
+		return obstacleModificationCount;
+	}
+
+	/**
+	 * To be called when the bounds of the given pathway object change, or when it
+	 * is added or removed.
+	 */
+	private void markObstacleChanged(PathwayObject o) {
+		if (o instanceof DataNode || o instanceof Label) {
+			obstacleModificationCount++;
+		}
+	}
+
 	/**
 	 * To be called after each edit operation
 	 */
 	private void markChanged() {
+		modificationCount++;
 		if (!changed) {
 			changed = true;
 			fireStatusFlagEvent(new StatusFlagEvent(changed));
@@ -1235,6 +1455,88 @@ private void markChanged() {
 		}
 	}
 
+	// ================================================================================
+	// Transaction Methods
+	// ================================================================================
+	private int transactionDepth = 0;
+	private Map<PathwayObject, PathwayObjectEvent> pendingEvents = new LinkedHashMap<PathwayObject, PathwayObjectEvent>();
+
+	/**
+	 * Starts a transaction. Until the transaction is committed, object modified
+	 * events of pathway objects in this pathway model are not sent to
+	 * {@link PathwayObjectListener}s, but kept and merged per object. A bulk change
+	 * then causes a single event per object, and connectors, states and groups are
+	 * updated once per object instead of once per change.
+	 * <p>
+	 * The changed flag and the lookup of equal annotations, citations and
+	 * evidences are updated right away. Events of the {@link PathwayModelListener}s,
+	 * such as added and deleted objects, are not delayed.
+	 * <p>
+	 * Transactions can be nested, the events are sent when the outermost
+	 * transaction is committed. Every call must be followed by a call to
+	 * {@link #commitTransaction()}, usually in a finally block.
+	 */
+	public void beginTransaction() {
+		checkWritable();
+		transactionDepth++;
+	}
+
+	/**
+	 * Ends a transaction started with {@link #beginTransaction()}. When the
+	 * outermost transaction ends, the merged events are sent in the order in which
+	 * the objects were first modified.
+	 *
+	 * @throws IllegalStateException if there is no transaction.
+	 */
+	public void commitTransaction() {
+		checkWritable();
+		if (transactionDepth == 0) {
+			throw new IllegalStateException("No transaction to commit");
+		}
+		transactionDepth--;
+		if (transactionDepth == 0) {
+			// events caused by the sent events are sent right away, not added here
+			List<Map.Entry<PathwayObject, PathwayObjectEvent>> events = new ArrayList<Map.Entry<PathwayObject, PathwayObjectEvent>>(
+					pendingEvents.entrySet());
+			pendingEvents.clear();
+			for (Map.Entry<PathwayObject, PathwayObjectEvent> entry : events) {
+				entry.getKey().dispatchObjectModifiedEvent(entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Returns true if a transaction has been started and not yet committed.
+	 *
+	 * @return true if in a transaction.
+	 */
+	public boolean isInTransaction() {
+		return transactionDepth > 0;
+	}
+
+	/**
+	 * Keeps the given event until the transaction is committed, merged with
+	 * earlier events of the same object.
+	 *
+	 * @param o the pathway object which fires the event.
+	 * @param e the pathway object event.
+	 * @return true if the event is kept, false if there is no transaction and the
+	 *         event should be sent right away.
+	 */
+	boolean deferEvent(PathwayObject o, PathwayObjectEvent e) {
+		if (transactionDepth == 0) {
+			return false;
+		}
+		markChanged();
+		updateIndex(e.getModifiedPathwayObject());
+		if (e.isCoordinateChange()) {
+			markObstacleChanged(e.getModifiedPathwayObject());
+		}
+		PathwayObjectEvent pending = pendingEvents.get(o);
+		pendingEvents.put(o, pending == null ? e : PathwayObjectEvent.merge(pending, e));
+		return true;
+	}
+
 	/**
 	 * Used by children of this Pathway to notify the parent of modifications. A
 	 * coordinate change could trigger dependent objects such as states, groups and
@@ -1244,8 +1546,10 @@ private void markChanged() {
 	 */
 	void childModified(PathwayObjectEvent e) {
 		markChanged();
+		updateIndex(e.getModifiedPathwayObject());
 		if (e.isCoordinateChange()) {
 			PathwayObject elt = e.getModifiedPathwayObject();
+			markObstacleChanged(elt);
 			if (elt instanceof LinkableTo) {
 				for (LinkableFrom refc : getReferringLinkableFroms((LinkableTo) elt)) {
 					refc.refeeChanged();
@@ -1377,6 +1681,9 @@ public void transferStatusFlagListeners(PathwayModel dest) {
 	 * @param v the pathway model listener to add.
 	 */
 	public void addListener(PathwayModelListener v) {
+		// a snapshot never changes, so its listeners are not kept
+		if (readOnly)
+			return;
 		if (!listeners.contains(v))
 			listeners.add(v);
 	}
@@ -1397,7 +1704,9 @@ public void removeListener(PathwayModelListener v) {
 	 * @param e the pathway model event.
 	 */
 	public void fireObjectModifiedEvent(PathwayModelEvent e) {
+		checkWritable();
 		markChanged();
+		markObstacleChanged(e.getAffectedData());
 		for (PathwayModelListener g : listeners) {
 			g.pathwayModified(e);
 		}
@@ -135,6 +135,7 @@ public String getElementId() {
 	 * @param v the unique pathway element identifier.
 	 */
 	protected void setElementId(String v) {
+		checkWritable();
 		if (v != null) {
 			if (pathwayModel != null && pathwayModel.getElementIds().contains(v)) {
 				throw new IllegalArgumentException("elementId '" + v + "' is not unique");
@@ -152,6 +153,7 @@ protected void setElementId(String v) {
 	 * model.
 	 */
 	protected String setGeneratedElementId() {
+		checkWritable();
 		setElementId(pathwayModel.getUniqueElementId());
 		return elementId;
 	}
@@ -166,6 +168,19 @@ protected void terminate() {
 		this.elementId = null;
 	}
 
+	/**
+	 * Checks that this pathway object can be modified. To be called at the start
+	 * of each method which modifies it, before anything is changed.
+	 *
+	 * @throws IllegalStateException if this object is part of a snapshot, see
+	 *                               {@link PathwayModel#snapshot()}.
+	 */
+	protected void checkWritable() {
+		if (pathwayModel != null) {
+			pathwayModel.checkWritable();
+		}
+	}
+
 	// ================================================================================
 	// FireEvent and Listener Methods
 	// ================================================================================
@@ -197,6 +212,11 @@ public Set<PathwayObjectListener> getListeners() {
 	 * @param v the pathway object listener to add.
 	 */
 	public void addListener(PathwayObjectListener v) {
+		// an object of a snapshot never changes, so its listeners are not kept, see
+		// PathwayModel#snapshot()
+		if (pathwayModel != null && pathwayModel.isReadOnly()) {
+			return;
+		}
 		if (!listeners.contains(v)) {
 			listeners.add(v);
 		}
@@ -221,6 +241,18 @@ public void fireObjectModifiedEvent(PathwayObjectEvent e) {
 			noFire -= 1;
 			return;
 		}
+		if (pathwayModel != null && pathwayModel.deferEvent(this, e)) {
+			return;
+		}
+		dispatchObjectModifiedEvent(e);
+	}
+
+	/**
+	 * Sends the object modified event to the pathway model and the listeners.
+	 * 
+	 * @param e the pathway object event.
+	 */
+	void dispatchObjectModifiedEvent(PathwayObjectEvent e) {
 		if (pathwayModel != null) {
 			pathwayModel.childModified(e);
 		}
@@ -276,6 +308,7 @@ public Object getPropertyEx(Object key) {
 	 * @param value the value for the property to set.
 	 */
 	public void setPropertyEx(Object key, Object value) {
+		checkWritable();
 		if (key instanceof StaticProperty) {
 			setStaticProperty((StaticProperty) key, value);
 		} else {
@@ -314,6 +347,7 @@ public Object getStaticProperty(StaticProperty key) {
 	 * @param value the static property value.
 	 */
 	public void setStaticProperty(StaticProperty key, Object value) {
+		checkWritable();
 		if (!getStaticPropertyKeys().contains(key))
 			throw new IllegalArgumentException(
 					"Property " + key.name() + " is not allowed for objects of type " + getObjectType());
@@ -16,6 +16,8 @@
  ******************************************************************************/
 package org.pathvisio.libgpml.model;
 
+import java.util.Objects;
+
 import org.pathvisio.libgpml.prop.Property;
 
 /**
@@ -78,6 +80,23 @@ protected static PathwayObjectEvent createCoordinatePropertyEvent(PathwayObject
 		return new PathwayObjectEvent(pathwayObject, null, true);
 	}
 
+	/**
+	 * Merges two events for the same pathway object into one event, which
+	 * affects all properties and coordinates affected by either event.
+	 *
+	 * @param a the earlier event.
+	 * @param b the later event.
+	 * @return the merged event.
+	 */
+	static PathwayObjectEvent merge(PathwayObjectEvent a, PathwayObjectEvent b) {
+		if (a.coordinateChange == b.coordinateChange && Objects.equals(a.property, b.property)) {
+			return a;
+		}
+		// a coordinate event has no property, so it may affect any property
+		Object property = a.property != null && a.property.equals(b.property) ? a.property : null;
+		return new PathwayObjectEvent(a.pwElement, property, a.coordinateChange || b.coordinateChange);
+	}
+
 	/**
 	 * Constructor.
 	 *
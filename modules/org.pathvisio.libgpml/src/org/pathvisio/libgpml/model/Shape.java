@@ -72,6 +72,7 @@ public String getTextLabel() {
 	 */
 	@Override
 	public void setTextLabel(String v) {
+		checkWritable();
 		if (v != null && !Utils.stringEquals(textLabel, v)) {
 			textLabel = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.TEXTLABEL));
@@ -100,6 +101,7 @@ protected void terminate() {
 	 * @param src the source pathway element.
 	 */
 	public void copyValuesFrom(Shape src) {
+		checkWritable();
 		super.copyValuesFrom(src);
 		textLabel = src.textLabel;
 		fireObjectModifiedEvent(PathwayObjectEvent.createAllPropertiesEvent(this));
@@ -165,6 +167,7 @@ public Object getStaticProperty(StaticProperty key) {
 	 */
 	@Override
 	public void setStaticProperty(StaticProperty key, Object value) {
+		checkWritable();
 		super.setStaticProperty(key, value);
 		switch (key) {
 		case TEXTLABEL:
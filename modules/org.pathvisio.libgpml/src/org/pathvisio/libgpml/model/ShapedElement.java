@@ -132,6 +132,7 @@ public boolean hasGroupRef() {
 	 */
 	@Override
 	public void setGroupRefTo(Group v) {
+		checkWritable();
 		if (v == null)
 			throw new IllegalArgumentException("Invalid group.");
 		if (v.getPathwayModel() != pathwayModel) {
@@ -161,6 +162,7 @@ private void setGroupRef(Group v) {
 	 */
 	@Override
 	public void unsetGroupRef() {
+		checkWritable();
 		if (hasGroupRef()) {
 			Group groupRef = getGroupRef();
 			setGroupRef(null);
@@ -191,6 +193,7 @@ public double getCenterX() {
 	 */
 	@Override
 	public void setCenterX(double v) {
+		checkWritable();
 		if (centerX != v) {
 			if (v < 0) {
 				Logger.log.trace("Warning: negative x coordinate " + String.valueOf(v));
@@ -217,6 +220,7 @@ public double getCenterY() {
 	 */
 	@Override
 	public void setCenterY(double v) {
+		checkWritable();
 		if (centerY != v) {
 			if (v < 0) {
 				Logger.log.trace("Warning: negative y coordinate " + String.valueOf(v));
@@ -243,6 +247,7 @@ public double getWidth() {
 	 * @throws IllegalArgumentException if width is a negative value.
 	 */
 	public void setWidth(double v) {
+		checkWritable();
 		if (v < 0) {
 			throw new IllegalArgumentException("Tried to set dimension < 0: " + v);
 		}
@@ -269,6 +274,7 @@ public double getHeight() {
 	 * @throws IllegalArgumentException if height is a negative value.
 	 */
 	public void setHeight(double v) {
+		checkWritable();
 		if (v < 0) {
 			throw new IllegalArgumentException("Tried to set dimension < 0: " + v);
 		}
@@ -301,6 +307,7 @@ public Color getTextColor() {
 	 * @throws IllegalArgumentException if color null.
 	 */
 	public void setTextColor(Color v) {
+		checkWritable();
 		if (v == null) {
 			throw new IllegalArgumentException();
 		} else {
@@ -330,6 +337,7 @@ public String getFontName() {
 	 * @throws IllegalArgumentException if given fontName is null.
 	 */
 	public void setFontName(String v) {
+		checkWritable();
 		if (v == null) {
 			throw new IllegalArgumentException();
 		}
@@ -357,6 +365,7 @@ public boolean getFontWeight() {
 	 *          normal.
 	 */
 	public void setFontWeight(boolean v) {
+		checkWritable();
 		if (fontWeight != v) {
 			fontWeight = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.FONTWEIGHT));
@@ -382,6 +391,7 @@ public boolean getFontStyle() {
 	 *          typographic style is normal.
 	 */
 	public void setFontStyle(boolean v) {
+		checkWritable();
 		if (fontStyle != v) {
 			fontStyle = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.FONTSTYLE));
@@ -406,6 +416,7 @@ public boolean getFontDecoration() {
 	 *          typographic style is normal.
 	 */
 	public void setFontDecoration(boolean v) {
+		checkWritable();
 		if (fontDecoration != v) {
 			fontDecoration = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.FONTDECORATION));
@@ -429,6 +440,7 @@ public boolean getFontStrikethru() {
 	 *          typographic style is normal.
 	 */
 	public void setFontStrikethru(boolean v) {
+		checkWritable();
 		if (fontStrikethru != v) {
 			fontStrikethru = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.FONTSTRIKETHRU));
@@ -457,6 +469,7 @@ public double getFontSize() {
 	 * @throws IllegalArgumentException if fontSize is a negative value.
 	 */
 	public void setFontSize(double v) {
+		checkWritable();
 		if (v < 0) {
 			throw new IllegalArgumentException("Tried to set font size < 0: " + v);
 		}
@@ -486,6 +499,7 @@ public HAlignType getHAlign() {
 	 * @param v the horizontal alignment value of displayed text.
 	 */
 	public void setHAlign(HAlignType v) {
+		checkWritable();
 		if (v != null && hAlign != v) {
 			hAlign = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.HALIGN));
@@ -512,6 +526,7 @@ public VAlignType getVAlign() {
 	 *
 	 */
 	public void setVAlign(VAlignType v) {
+		checkWritable();
 		if (v != null && vAlign != v) {
 			vAlign = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.VALIGN));
@@ -541,6 +556,7 @@ public Color getBorderColor() {
 	 * @throws IllegalArgumentException if color null.
 	 */
 	public void setBorderColor(Color v) {
+		checkWritable();
 		if (v == null) {
 			throw new IllegalArgumentException();
 		}
@@ -569,6 +585,7 @@ public LineStyleType getBorderStyle() {
 	 * @param v the style of a border.
 	 */
 	public void setBorderStyle(LineStyleType v) {
+		checkWritable();
 		if (v != null && borderStyle != v) {
 			borderStyle = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.BORDERSTYLE));
@@ -591,6 +608,7 @@ public double getBorderWidth() {
 	 * @throws IllegalArgumentException if borderWidth is a negative value.
 	 */
 	public void setBorderWidth(double v) {
+		checkWritable();
 		if (v < 0) {
 			throw new IllegalArgumentException();
 		}
@@ -618,6 +636,7 @@ public Color getFillColor() {
 	 * @throws IllegalArgumentException if fillColor null.
 	 */
 	public void setFillColor(Color v) {
+		checkWritable();
 		if (v == null) {
 			throw new IllegalArgumentException();
 		}
@@ -655,6 +674,7 @@ public IShape getShapeType() {
 	 * @throws IllegalArgumentException if shapeType null.
 	 */
 	public void setShapeType(IShape v) {
+		checkWritable();
 		if (v == null) {
 			throw new IllegalArgumentException();
 		}
@@ -681,6 +701,7 @@ public int getZOrder() {
 	 */
 	@Override
 	public void setZOrder(int v) {
+		checkWritable();
 		if (zOrder != v) {
 			zOrder = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.ZORDER));
@@ -702,6 +723,7 @@ public double getRotation() {
 	 * @param v the rotation of this shaped pathway element.
 	 */
 	public void setRotation(Double v) {
+		checkWritable();
 		if (rotation != v) {
 			rotation = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createCoordinatePropertyEvent(this));
@@ -726,6 +748,7 @@ public Set<LinkableFrom> getLinkableFroms() {
 	 * {@link LinkableTo} pathway element.
 	 */
 	public void unsetAllLinkableFroms() {
+		checkWritable();
 		for (LinkableFrom linePoint : getLinkableFroms()) {
 			((LinePoint) linePoint).unlink();
 		}
@@ -788,6 +811,7 @@ public double getLeft() {
 	 */
 	@Override
 	public void setLeft(double v) {
+		checkWritable();
 		centerX = v + width / 2;
 		fireObjectModifiedEvent(PathwayObjectEvent.createCoordinatePropertyEvent(this));
 	}
@@ -809,6 +833,7 @@ public double getTop() {
 	 */
 	@Override
 	public void setTop(double v) {
+		checkWritable();
 		centerY = v + height / 2;
 		fireObjectModifiedEvent(PathwayObjectEvent.createCoordinatePropertyEvent(this));
 	}
@@ -875,6 +900,7 @@ public Point2D toRelativeCoordinate(Point2D p) {
 	 * @param src the source pathway element.
 	 */
 	public void copyValuesFrom(ShapedElement src) {
+		checkWritable();
 		super.copyValuesFrom(src);
 		centerX = src.centerX;
 		centerY = src.centerY;
@@ -1013,6 +1039,7 @@ public Object getStaticProperty(StaticProperty key) {
 	 */
 	@Override
 	public void setStaticProperty(StaticProperty key, Object value) {
+		checkWritable();
 		super.setStaticProperty(key, value);
 		switch (key) {
 		case GROUPREF:
@@ -39,6 +39,7 @@ public abstract class ConnectorShapeFactory {
 		shapes.put(ConnectorType.ELBOW.getName(), ElbowConnectorShape.class);
 		shapes.put(ConnectorType.CURVED.getName(), CurvedConnectorShape.class);
 		shapes.put(ConnectorType.SEGMENTED.getName(), FreeConnectorShape.class);
+		shapes.put(ConnectorType.ORTHOGONAL.getName(), OrthogonalConnectorShape.class);
 	}
 
 	public static void registerShape(String name, Class<? extends ConnectorShape> shapeClass) {
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.model.connector;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.Label;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.ShapedElement;
+
+/**
+ * Spatial index over the bounds of the data nodes and labels of a pathway
+ * model, the obstacles for {@link OrthogonalConnectorShape}. Shapes and groups
+ * are not obstacles, as they usually contain other elements.
+ * <p>
+ * The model is divided into square cells, and each obstacle is listed in every
+ * cell its bounds overlap. The index of a pathway model is shared by all its
+ * connectors, and built again when a data node or label has been moved,
+ * resized, added or removed, see
+ * {@link PathwayModel#getObstacleModificationCount()}.
+ */
+class ObstacleIndex {
+
+	/** width and height of a cell, in model coordinates */
+	static final double CELL_SIZE = 256;
+
+	private static final Map<PathwayModel, ObstacleIndex> cache = new WeakHashMap<PathwayModel, ObstacleIndex>();
+
+	private final long modificationCount;
+	private final Map<Long, List<Rectangle2D>> cells = new HashMap<Long, List<Rectangle2D>>();
+	private final Rectangle2D bounds = new Rectangle2D.Double();
+
+	/**
+	 * Returns the up-to-date index of the given pathway model.
+	 *
+	 * @param p the pathway model.
+	 * @return the index.
+	 */
+	static ObstacleIndex get(PathwayModel p) {
+		synchronized (cache) {
+			ObstacleIndex index = cache.get(p);
+			if (index == null || index.modificationCount != p.getObstacleModificationCount()) {
+				index = new ObstacleIndex(p);
+				cache.put(p, index);
+			}
+			return index;
+		}
+	}
+
+	private ObstacleIndex(PathwayModel p) {
+		modificationCount = p.getObstacleModificationCount();
+		List<ShapedElement> elements = new ArrayList<ShapedElement>(p.getDataNodes());
+		elements.addAll(p.getLabels());
+		boolean first = true;
+		for (ShapedElement e : elements) {
+			if (!(e instanceof DataNode || e instanceof Label)) {
+				continue;
+			}
+			Rectangle2D r = e.getRotatedBounds();
+			if (r.isEmpty() || !isFinite(r)) {
+				continue;
+			}
+			if (first) {
+				bounds.setRect(r);
+				first = false;
+			} else {
+				bounds.add(r);
+			}
+			for (int x = cell(r.getMinX()); x <= cell(r.getMaxX()); x++) {
+				for (int y = cell(r.getMinY()); y <= cell(r.getMaxY()); y++) {
+					Long key = key(x, y);
+					List<Rectangle2D> list = cells.get(key);
+					if (list == null) {
+						list = new ArrayList<Rectangle2D>();
+						cells.put(key, list);
+					}
+					list.add(r);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the obstacles which overlap the given area.
+	 *
+	 * @param area the area, in model coordinates.
+	 * @return the bounds of the obstacles.
+	 */
+	List<Rectangle2D> query(Rectangle2D area) {
+		Set<Rectangle2D> seen = Collections.newSetFromMap(new IdentityHashMap<Rectangle2D, Boolean>());
+		List<Rectangle2D> result = new ArrayList<Rectangle2D>();
+		Rectangle2D a = area.createIntersection(bounds);
+		if (a.isEmpty()) {
+			return result;
+		}
+		for (int x = cell(a.getMinX()); x <= cell(a.getMaxX()); x++) {
+			for (int y = cell(a.getMinY()); y <= cell(a.getMaxY()); y++) {
+				List<Rectangle2D> list = cells.get(key(x, y));
+				if (list == null) {
+					continue;
+				}
+				for (Rectangle2D r : list) {
+					if (r.intersects(area) && seen.add(r)) {
+						result.add(r);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the union of the bounds of all obstacles.
+	 *
+	 * @return the bounds.
+	 */
+	Rectangle2D getBounds() {
+		return bounds;
+	}
+
+	private static boolean isFinite(Rectangle2D r) {
+		return Double.isFinite(r.getX()) && Double.isFinite(r.getY()) && Double.isFinite(r.getWidth())
+				&& Double.isFinite(r.getHeight());
+	}
+
+	private static int cell(double v) {
+		return (int) Math.floor(v / CELL_SIZE);
+	}
+
+	private static Long key(int x, int y) {
+		return ((long) x << 32) | (y & 0xffffffffL);
+	}
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.model.connector;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.pathvisio.libgpml.model.PathwayElement;
+import org.pathvisio.libgpml.model.PathwayModel;
+
+/**
+ * ConnectorShape implementation for the orthogonal connector, which only has
+ * horizontal and vertical segments, like the elbow connector, but goes around
+ * the data nodes and labels of the pathway.
+ * <p>
+ * When only one end of the line has moved since the last routing, the part of
+ * the old route near the other end is kept if it is still free, so the line
+ * doesn't jump around while a node is dragged.
+ * <p>
+ * The route is calculated again when the line itself changes, or when a data
+ * node or label of the pathway has been moved, resized, added or removed, see
+ * {@link RoutingCache}.
+ */
+public class OrthogonalConnectorShape extends SegmentedConnector {
+
+	// inputs and result of the last routing
+	private Point2D lastStart = null;
+	private Point2D lastEnd = null;
+	private int lastStartSide = -1;
+	private int lastEndSide = -1;
+	private List<Point2D> lastRoute = null;
+
+	/**
+	 * Forces the connector to redraw it's path. The cache for segments, waypoints
+	 * and shape.
+	 *
+	 * @param restrictions the ConnectorRestrictions that provides the start, end
+	 *                     and preferred waypoints
+	 */
+	@Override
+	public void recalculateShape(ConnectorRestrictions restrictions) {
+		Point2D start = restrictions.getStartPoint2D();
+		Point2D end = restrictions.getEndPoint2D();
+		int startSide = restrictions.getStartSide();
+		int endSide = restrictions.getEndSide();
+
+		ObstacleIndex index = null;
+		if (restrictions instanceof PathwayElement) {
+			PathwayModel p = ((PathwayElement) restrictions).getPathwayModel();
+			if (p != null) {
+				index = ObstacleIndex.get(p);
+			}
+		}
+		OrthogonalRouter router = new OrthogonalRouter(index);
+
+		List<Point2D> route = null;
+		if (lastRoute != null) {
+			boolean sameStart = start.equals(lastStart) && startSide == lastStartSide;
+			boolean sameEnd = end.equals(lastEnd) && endSide == lastEndSide;
+			if (sameStart && !sameEnd) {
+				route = router.reroute(prefix(lastRoute), startSide, end, endSide);
+			} else if (sameEnd && !sameStart) {
+				List<Point2D> reversed = new ArrayList<Point2D>(lastRoute);
+				Collections.reverse(reversed);
+				route = router.reroute(prefix(reversed), endSide, start, startSide);
+				if (route != null) {
+					Collections.reverse(route);
+				}
+			}
+		}
+		if (route == null) {
+			route = router.route(start, startSide, end, endSide);
+		}
+
+		lastStart = start;
+		lastEnd = end;
+		lastStartSide = startSide;
+		lastEndSide = endSide;
+		lastRoute = route;
+
+		Segment[] segments;
+		if (route.size() < 2) {
+			segments = new Segment[] { new Segment(start, end) };
+		} else {
+			segments = new Segment[route.size() - 1];
+			for (int i = 0; i < segments.length; i++) {
+				segments[i] = new Segment(route.get(i), route.get(i + 1));
+			}
+		}
+		setSegments(segments);
+		setWayPoints(new WayPoint[0]);
+		setShape(calculateShape(segments));
+	}
+
+	/**
+	 * Returns the part of a route that can be kept when the end has moved: the
+	 * route without the end point, the stub before it and the last bend.
+	 */
+	private static List<Point2D> prefix(List<Point2D> route) {
+		int n = Math.max(2, route.size() - 3);
+		return new ArrayList<Point2D>(route.subList(0, Math.min(n, route.size())));
+	}
+
+	/**
+	 * The route is calculated from the start and end point only, so the connector
+	 * has no waypoints.
+	 *
+	 * @param restrictions the connector restriction.
+	 * @return true if there are no preferred waypoints.
+	 */
+	@Override
+	public boolean hasValidWaypoints(ConnectorRestrictions restrictions) {
+		return restrictions.getWayPointPreferences().length == 0;
+	}
+}
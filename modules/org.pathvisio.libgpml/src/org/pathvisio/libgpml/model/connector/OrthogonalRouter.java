@@ -0,0 +1,520 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.model.connector;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds orthogonal routes around obstacles, for
+ * {@link OrthogonalConnectorShape}.
+ * <p>
+ * The area around the start and end of the route is divided into a grid by the
+ * edges of the obstacles in that area, and the shortest route with the fewest
+ * bends along the lines of the grid is found with A*. Only the obstacles near
+ * the route are looked at; if no route is found, the area is made larger.
+ * <p>
+ * Directions are the SIDE_* constants of {@link ConnectorRestrictions}, so the
+ * side of a line end is also the direction in which the line leaves it.
+ */
+class OrthogonalRouter {
+
+	/** space kept free around obstacles */
+	static final double MARGIN = 10;
+
+	/** length of the first and last segment, from the side of the node */
+	static final double STUB = 20;
+
+	/** space around the start and end of the route that is searched first */
+	static final double WINDOW_MARGIN = 100;
+
+	/** cost of a bend, in the same unit as the length of the route */
+	static final double BEND_COST = 30;
+
+	/** grids with more nodes are not searched */
+	static final int MAX_GRID_NODES = 250000;
+
+	private static final int[] DX = { 0, 1, 0, -1 };
+	private static final int[] DY = { -1, 0, 1, 0 };
+
+	private final ObstacleIndex index;
+
+	/**
+	 * @param index the obstacles, or null if there are none.
+	 */
+	OrthogonalRouter(ObstacleIndex index) {
+		this.index = index;
+	}
+
+	static int opposite(int dir) {
+		return (dir + 2) % 4;
+	}
+
+	static Point2D stub(Point2D p, int side) {
+		return new Point2D.Double(p.getX() + STUB * DX[side], p.getY() + STUB * DY[side]);
+	}
+
+	/**
+	 * Finds a route from the start to the end point. The route always leaves the
+	 * start point in the direction of the start side, and arrives at the end point
+	 * from the direction of the end side.
+	 *
+	 * @return the corners of the route, including start and end point.
+	 */
+	List<Point2D> route(Point2D start, int startSide, Point2D end, int endSide) {
+		Point2D s1 = stub(start, startSide);
+		Point2D e1 = stub(end, endSide);
+		if (index != null) {
+			Rectangle2D window = window(s1, e1);
+			for (int attempt = 0; attempt < 3; attempt++) {
+				List<Point2D> path = search(s1, startSide, e1, opposite(endSide), window, obstacles(window, s1, e1));
+				if (path != null) {
+					return complete(start, path, end);
+				}
+				if (attempt == 0) {
+					double grow = Math.max(window.getWidth(), window.getHeight());
+					window = grow(window, grow);
+				} else {
+					window.add(grow(index.getBounds(), MARGIN + WINDOW_MARGIN));
+				}
+			}
+		}
+		return complete(start, simpleRoute(s1, startSide, e1), end);
+	}
+
+	/**
+	 * Finds a route from a point on an existing route to the end point, see
+	 * {@link #route}. The given part of the existing route is kept if it is still
+	 * free of obstacles, and the new part of the route is not much longer than a
+	 * new route would be.
+	 *
+	 * @param prefix   the part of the existing route to keep, starting at the start
+	 *                 point.
+	 * @param startDir the direction in which the route leaves the start point.
+	 * @return the corners of the route, or null if the existing route can't be
+	 *         reused.
+	 */
+	List<Point2D> reroute(List<Point2D> prefix, int startDir, Point2D end, int endSide) {
+		if (index == null || prefix.size() < 2) {
+			return null;
+		}
+		Point2D from = prefix.get(prefix.size() - 1);
+		Point2D before = prefix.get(prefix.size() - 2);
+		int fromDir = prefix.size() == 2 ? startDir : direction(before, from);
+		if (fromDir < 0) {
+			return null;
+		}
+		Point2D e1 = stub(end, endSide);
+		Rectangle2D window = window(from, e1);
+		for (int i = 1; i < prefix.size() - 1; i++) {
+			window.add(prefix.get(i));
+		}
+		List<Rectangle2D> obstacles = obstacles(window, from, e1);
+		// the first segment starts on the side of the start node, so it is not
+		// checked
+		for (int i = 1; i < prefix.size() - 1; i++) {
+			for (Rectangle2D r : obstacles) {
+				if (crosses(prefix.get(i), prefix.get(i + 1), r)) {
+					return null;
+				}
+			}
+		}
+		List<Point2D> path = search(from, fromDir, e1, opposite(endSide), window, obstacles);
+		if (path == null) {
+			return null;
+		}
+		List<Point2D> result = new ArrayList<Point2D>(prefix.subList(0, prefix.size() - 1));
+		result.addAll(path);
+		result.add(end);
+		Point2D s1 = prefix.get(1);
+		double limit = 1.5 * manhattan(s1, e1) + 4 * MARGIN;
+		if (length(result.subList(1, result.size() - 1)) > limit) {
+			return null;
+		}
+		return simplify(result);
+	}
+
+	private static List<Point2D> complete(Point2D start, List<Point2D> path, Point2D end) {
+		List<Point2D> result = new ArrayList<Point2D>(path.size() + 2);
+		result.add(start);
+		result.addAll(path);
+		result.add(end);
+		return simplify(result);
+	}
+
+	/**
+	 * Z-shaped route through the middle, for when no route around the obstacles
+	 * can be found.
+	 */
+	private static List<Point2D> simpleRoute(Point2D s1, int startSide, Point2D e1) {
+		List<Point2D> result = new ArrayList<Point2D>();
+		result.add(s1);
+		if (startSide == ConnectorRestrictions.SIDE_EAST || startSide == ConnectorRestrictions.SIDE_WEST) {
+			double mx = (s1.getX() + e1.getX()) / 2;
+			result.add(new Point2D.Double(mx, s1.getY()));
+			result.add(new Point2D.Double(mx, e1.getY()));
+		} else {
+			double my = (s1.getY() + e1.getY()) / 2;
+			result.add(new Point2D.Double(s1.getX(), my));
+			result.add(new Point2D.Double(e1.getX(), my));
+		}
+		result.add(e1);
+		return result;
+	}
+
+	/**
+	 * Returns the obstacles in the window, made larger by the margin. Obstacles
+	 * that contain the start or end of the search are left out, so there is
+	 * always a way out.
+	 */
+	private List<Rectangle2D> obstacles(Rectangle2D window, Point2D from, Point2D to) {
+		List<Rectangle2D> result = new ArrayList<Rectangle2D>();
+		for (Rectangle2D r : index.query(grow(window, MARGIN))) {
+			Rectangle2D o = grow(r, MARGIN);
+			if (!inside(from, o) && !inside(to, o)) {
+				result.add(o);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * A* search over the grid formed by the obstacle edges in the window.
+	 *
+	 * @param fromDir the direction of the route arriving at from.
+	 * @param toDir   the direction of the route leaving to.
+	 * @return the corners of the route, or null if there is none.
+	 */
+	private static List<Point2D> search(Point2D from, int fromDir, Point2D to, int toDir, Rectangle2D window,
+			List<Rectangle2D> obstacles) {
+		List<Rectangle2D> clipped = new ArrayList<Rectangle2D>(obstacles.size());
+		double[] xs = new double[obstacles.size() * 2 + 4];
+		double[] ys = new double[obstacles.size() * 2 + 4];
+		int n = 0;
+		for (Rectangle2D o : obstacles) {
+			Rectangle2D c = o.createIntersection(window);
+			if (c.isEmpty()) {
+				continue;
+			}
+			clipped.add(c);
+			xs[n] = c.getMinX();
+			ys[n++] = c.getMinY();
+			xs[n] = c.getMaxX();
+			ys[n++] = c.getMaxY();
+		}
+		xs[n] = window.getMinX();
+		ys[n++] = window.getMinY();
+		xs[n] = window.getMaxX();
+		ys[n++] = window.getMaxY();
+		xs[n] = from.getX();
+		ys[n++] = from.getY();
+		xs[n] = to.getX();
+		ys[n++] = to.getY();
+		xs = unique(xs, n);
+		ys = unique(ys, n);
+		int nx = xs.length;
+		int ny = ys.length;
+		if ((long) nx * ny > MAX_GRID_NODES) {
+			return null;
+		}
+
+		boolean[] blocked = new boolean[(nx - 1) * (ny - 1)];
+		for (Rectangle2D c : clipped) {
+			int i0 = Arrays.binarySearch(xs, c.getMinX());
+			int i1 = Arrays.binarySearch(xs, c.getMaxX());
+			int j0 = Arrays.binarySearch(ys, c.getMinY());
+			int j1 = Arrays.binarySearch(ys, c.getMaxY());
+			for (int j = j0; j < j1; j++) {
+				for (int i = i0; i < i1; i++) {
+					blocked[i + j * (nx - 1)] = true;
+				}
+			}
+		}
+		Grid grid = new Grid(xs, ys, blocked);
+
+		int start = Arrays.binarySearch(xs, from.getX()) + Arrays.binarySearch(ys, from.getY()) * nx;
+		int goal = Arrays.binarySearch(xs, to.getX()) + Arrays.binarySearch(ys, to.getY()) * nx;
+		int states = nx * ny * 4;
+		double[] g = new double[states];
+		Arrays.fill(g, Double.POSITIVE_INFINITY);
+		int[] prev = new int[states];
+		Heap open = new Heap();
+		int s = start * 4 + fromDir;
+		g[s] = 0;
+		prev[s] = -1;
+		open.push(s, grid.distance(start, goal));
+		double best = Double.POSITIVE_INFINITY;
+		int bestState = -1;
+		while (!open.isEmpty()) {
+			double f = open.peekKey();
+			s = open.pop();
+			if (f >= best) {
+				break;
+			}
+			int node = s / 4;
+			int dir = s % 4;
+			if (f > g[s] + grid.distance(node, goal)) {
+				continue; // already visited at a lower cost
+			}
+			if (node == goal && dir != opposite(toDir)) {
+				double cost = g[s] + (dir == toDir ? 0 : BEND_COST);
+				if (cost < best) {
+					best = cost;
+					bestState = s;
+				}
+			}
+			for (int d = 0; d < 4; d++) {
+				if (d == opposite(dir)) {
+					continue;
+				}
+				int next = grid.neighbour(node, d);
+				if (next < 0) {
+					continue;
+				}
+				int t = next * 4 + d;
+				double cost = g[s] + grid.distance(node, next) + (d == dir ? 0 : BEND_COST);
+				if (cost < g[t]) {
+					g[t] = cost;
+					prev[t] = s;
+					open.push(t, cost + grid.distance(next, goal));
+				}
+			}
+		}
+		if (bestState < 0) {
+			return null;
+		}
+		List<Point2D> path = new ArrayList<Point2D>();
+		for (s = bestState; s >= 0; s = prev[s]) {
+			path.add(grid.point(s / 4));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * Removes duplicate points and points in the middle of a straight line.
+	 */
+	static List<Point2D> simplify(List<Point2D> points) {
+		List<Point2D> result = new ArrayList<Point2D>(points.size());
+		for (Point2D p : points) {
+			if (!result.isEmpty() && result.get(result.size() - 1).equals(p)) {
+				continue;
+			}
+			if (result.size() >= 2) {
+				Point2D a = result.get(result.size() - 2);
+				Point2D b = result.get(result.size() - 1);
+				if ((a.getX() == b.getX() && b.getX() == p.getX()) || (a.getY() == b.getY() && b.getY() == p.getY())) {
+					result.remove(result.size() - 1);
+				}
+			}
+			result.add(p);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the direction from a to b, or -1 if the line from a to b is not
+	 *         horizontal or vertical.
+	 */
+	static int direction(Point2D a, Point2D b) {
+		if (a.getX() == b.getX()) {
+			if (b.getY() < a.getY()) {
+				return ConnectorRestrictions.SIDE_NORTH;
+			} else if (b.getY() > a.getY()) {
+				return ConnectorRestrictions.SIDE_SOUTH;
+			}
+		} else if (a.getY() == b.getY()) {
+			return b.getX() > a.getX() ? ConnectorRestrictions.SIDE_EAST : ConnectorRestrictions.SIDE_WEST;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return true if the point is inside the rectangle, and not on its edge.
+	 */
+	private static boolean inside(Point2D p, Rectangle2D r) {
+		return p.getX() > r.getMinX() && p.getX() < r.getMaxX() && p.getY() > r.getMinY() && p.getY() < r.getMaxY();
+	}
+
+	/**
+	 * @return true if the horizontal or vertical line from a to b goes through the
+	 *         inside of the rectangle.
+	 */
+	static boolean crosses(Point2D a, Point2D b, Rectangle2D r) {
+		double minX = Math.min(a.getX(), b.getX());
+		double maxX = Math.max(a.getX(), b.getX());
+		double minY = Math.min(a.getY(), b.getY());
+		double maxY = Math.max(a.getY(), b.getY());
+		if (minY == maxY) {
+			return minY > r.getMinY() && minY < r.getMaxY() && maxX > r.getMinX() && minX < r.getMaxX();
+		} else {
+			return minX > r.getMinX() && minX < r.getMaxX() && maxY > r.getMinY() && minY < r.getMaxY();
+		}
+	}
+
+	static double length(List<Point2D> points) {
+		double result = 0;
+		for (int i = 1; i < points.size(); i++) {
+			result += manhattan(points.get(i - 1), points.get(i));
+		}
+		return result;
+	}
+
+	private static double manhattan(Point2D a, Point2D b) {
+		return Math.abs(a.getX() - b.getX()) + Math.abs(a.getY() - b.getY());
+	}
+
+	private static Rectangle2D window(Point2D a, Point2D b) {
+		Rectangle2D r = new Rectangle2D.Double(a.getX(), a.getY(), 0, 0);
+		r.add(b);
+		return grow(r, WINDOW_MARGIN);
+	}
+
+	private static Rectangle2D grow(Rectangle2D r, double d) {
+		return new Rectangle2D.Double(r.getX() - d, r.getY() - d, r.getWidth() + 2 * d, r.getHeight() + 2 * d);
+	}
+
+	private static double[] unique(double[] values, int n) {
+		Arrays.sort(values, 0, n);
+		int m = 0;
+		for (int i = 0; i < n; i++) {
+			if (m == 0 || values[i] != values[m - 1]) {
+				values[m++] = values[i];
+			}
+		}
+		return Arrays.copyOf(values, m);
+	}
+
+	/**
+	 * The nodes of the grid are numbered row by row. An edge between two nodes is
+	 * blocked if the cells on both sides of it are inside an obstacle; edges along
+	 * the side of an obstacle are free.
+	 */
+	private static class Grid {
+		private final double[] xs;
+		private final double[] ys;
+		private final boolean[] blocked;
+
+		Grid(double[] xs, double[] ys, boolean[] blocked) {
+			this.xs = xs;
+			this.ys = ys;
+			this.blocked = blocked;
+		}
+
+		private boolean isBlocked(int i, int j) {
+			if (i < 0 || j < 0 || i >= xs.length - 1 || j >= ys.length - 1) {
+				return true;
+			}
+			return blocked[i + j * (xs.length - 1)];
+		}
+
+		/**
+		 * @return the neighbouring node in the given direction, or -1 if there is
+		 *         none or the edge to it is blocked.
+		 */
+		int neighbour(int node, int dir) {
+			int nx = xs.length;
+			int i = node % nx;
+			int j = node / nx;
+			switch (dir) {
+			case ConnectorRestrictions.SIDE_NORTH:
+				return j > 0 && !(isBlocked(i - 1, j - 1) && isBlocked(i, j - 1)) ? node - nx : -1;
+			case ConnectorRestrictions.SIDE_SOUTH:
+				return j < ys.length - 1 && !(isBlocked(i - 1, j) && isBlocked(i, j)) ? node + nx : -1;
+			case ConnectorRestrictions.SIDE_WEST:
+				return i > 0 && !(isBlocked(i - 1, j - 1) && isBlocked(i - 1, j)) ? node - 1 : -1;
+			default:
+				return i < nx - 1 && !(isBlocked(i, j - 1) && isBlocked(i, j)) ? node + 1 : -1;
+			}
+		}
+
+		double distance(int a, int b) {
+			int nx = xs.length;
+			return Math.abs(xs[a % nx] - xs[b % nx]) + Math.abs(ys[a / nx] - ys[b / nx]);
+		}
+
+		Point2D point(int node) {
+			return new Point2D.Double(xs[node % xs.length], ys[node / xs.length]);
+		}
+	}
+
+	/**
+	 * Binary min-heap of states, ordered by a double key.
+	 */
+	private static class Heap {
+		private int[] values = new int[64];
+		private double[] keys = new double[64];
+		private int size = 0;
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		double peekKey() {
+			return keys[0];
+		}
+
+		void push(int value, double key) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+				keys = Arrays.copyOf(keys, size * 2);
+			}
+			int i = size++;
+			while (i > 0) {
+				int parent = (i - 1) / 2;
+				if (keys[parent] <= key) {
+					break;
+				}
+				values[i] = values[parent];
+				keys[i] = keys[parent];
+				i = parent;
+			}
+			values[i] = value;
+			keys[i] = key;
+		}
+
+		int pop() {
+			int result = values[0];
+			size--;
+			int value = values[size];
+			double key = keys[size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && keys[child + 1] < keys[child]) {
+					child++;
+				}
+				if (keys[child] >= key) {
+					break;
+				}
+				values[i] = values[child];
+				keys[i] = keys[child];
+				i = child;
+			}
+			values[i] = value;
+			keys[i] = key;
+			return result;
+		}
+	}
+}
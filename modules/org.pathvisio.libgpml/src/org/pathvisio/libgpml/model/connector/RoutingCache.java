@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.model.connector;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.pathvisio.libgpml.model.PathwayElement;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.connector.ConnectorShape.WayPoint;
+
+/**
+ * Remembers the inputs of the last routing of a {@link ConnectorShape}: start
+ * and end point, start and end side and the preferred waypoints. The shape is
+ * only recalculated when one of these has changed, so changes to e.g. the color
+ * or width of a line don't cause routing. An {@link OrthogonalConnectorShape}
+ * also depends on the data nodes and labels it goes around, so for these the
+ * {@link PathwayModel#getObstacleModificationCount()} is an input as well: a
+ * node moved onto the line causes the line to be routed again.
+ * <p>
+ * The owner of the connector calls {@link #markMaybeStale()} for every change,
+ * which is cheap. The inputs are only compared when the shape is needed, so a
+ * number of changes between two paints cause at most one routing.
+ * <p>
+ * The number of routings and skipped routings of all caches is counted, see
+ * {@link #getRecalculationCount()}.
+ */
+public class RoutingCache {
+
+	private static final AtomicLong recalculations = new AtomicLong();
+	private static final AtomicLong skipped = new AtomicLong();
+
+	private double[] key = null;
+	private long obstacles = -1;
+	private boolean maybeStale = true;
+	private int version = 0;
+
+	/**
+	 * Marks that the inputs of the connector may have changed.
+	 */
+	public void markMaybeStale() {
+		maybeStale = true;
+	}
+
+	/**
+	 * Forgets the inputs of the last routing, e.g. because a new shape was
+	 * created. The next call to {@link #validate} always recalculates the shape.
+	 */
+	public void invalidate() {
+		key = null;
+		maybeStale = true;
+	}
+
+	/**
+	 * Recalculates the shape if its inputs have changed since the last routing.
+	 *
+	 * @param shape        the connector shape.
+	 * @param restrictions the start, end and preferred waypoints of the connector.
+	 * @return true if the shape was recalculated.
+	 */
+	public boolean validate(ConnectorShape shape, ConnectorRestrictions restrictions) {
+		long o = obstaclesOf(shape, restrictions);
+		if (!maybeStale && o == obstacles) {
+			return false;
+		}
+		maybeStale = false;
+		double[] k = keyOf(restrictions);
+		if (o == obstacles && Arrays.equals(k, key)) {
+			skipped.incrementAndGet();
+			return false;
+		}
+		key = k;
+		obstacles = o;
+		shape.recalculateShape(restrictions);
+		version++;
+		recalculations.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Recalculates the shape, whether or not its inputs have changed.
+	 *
+	 * @param shape        the connector shape.
+	 * @param restrictions the start, end and preferred waypoints of the connector.
+	 */
+	public void recalculate(ConnectorShape shape, ConnectorRestrictions restrictions) {
+		key = keyOf(restrictions);
+		obstacles = obstaclesOf(shape, restrictions);
+		maybeStale = false;
+		shape.recalculateShape(restrictions);
+		version++;
+		recalculations.incrementAndGet();
+	}
+
+	/**
+	 * Returns a number which changes every time the shape is recalculated, so
+	 * users of the shape can tell if it has changed since they last looked.
+	 *
+	 * @return the version of the shape.
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Remembers the current inputs without recalculating the shape. To be called
+	 * when the inputs are changed to match the shape, e.g. when the preferred
+	 * waypoints are moved to the waypoints of the shape.
+	 *
+	 * @param restrictions the start, end and preferred waypoints of the connector.
+	 */
+	public void update(ConnectorRestrictions restrictions) {
+		key = keyOf(restrictions);
+		maybeStale = false;
+	}
+
+	/**
+	 * Returns the obstacle modification count of the pathway model of the
+	 * connector if the shape goes around obstacles, or -1 if it doesn't.
+	 */
+	private static long obstaclesOf(ConnectorShape shape, ConnectorRestrictions restrictions) {
+		if (shape instanceof OrthogonalConnectorShape && restrictions instanceof PathwayElement) {
+			PathwayModel p = ((PathwayElement) restrictions).getPathwayModel();
+			if (p != null) {
+				return p.getObstacleModificationCount();
+			}
+		}
+		return -1;
+	}
+
+	private static double[] keyOf(ConnectorRestrictions restrictions) {
+		WayPoint[] waypoints = restrictions.getWayPointPreferences();
+		double[] k = new double[6 + 2 * waypoints.length];
+		Point2D start = restrictions.getStartPoint2D();
+		Point2D end = restrictions.getEndPoint2D();
+		k[0] = restrictions.getStartSide();
+		k[1] = restrictions.getEndSide();
+		k[2] = start.getX();
+		k[3] = start.getY();
+		k[4] = end.getX();
+		k[5] = end.getY();
+		for (int i = 0; i < waypoints.length; i++) {
+			k[6 + 2 * i] = waypoints[i].getX();
+			k[7 + 2 * i] = waypoints[i].getY();
+		}
+		return k;
+	}
+
+	/**
+	 * Returns the number of times a shape was recalculated by any routing cache.
+	 *
+	 * @return the number of recalculations.
+	 */
+	public static long getRecalculationCount() {
+		return recalculations.get();
+	}
+
+	/**
+	 * Returns the number of times a possible change turned out not to affect the
+	 * shape, so the recalculation was skipped.
+	 *
+	 * @return the number of skipped recalculations.
+	 */
+	public static long getSkippedCount() {
+		return skipped.get();
+	}
+
+	/**
+	 * Resets the recalculation counts to zero.
+	 */
+	public static void resetCounts() {
+		recalculations.set(0);
+		skipped.set(0);
+	}
+}
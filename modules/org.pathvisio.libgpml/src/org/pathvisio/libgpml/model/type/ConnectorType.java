@@ -35,6 +35,7 @@ public class ConnectorType {
 	public static final ConnectorType ELBOW = new ConnectorType("Elbow");
 	public static final ConnectorType CURVED = new ConnectorType("Curved");
 	public static final ConnectorType SEGMENTED = new ConnectorType("Segmented"); // has waypoints
+	public static final ConnectorType ORTHOGONAL = new ConnectorType("Orthogonal"); // avoids data nodes
 
 	private String name;
 
@@ -16,6 +16,7 @@
  ******************************************************************************/
 package org.pathvisio.libgpml.util;
 
+import java.util.Arrays;
 import java.util.Objects;
 
 import org.bridgedb.DataSource;
@@ -156,6 +157,21 @@ public static String getXrefDataSourceStrGPML2013a(DataSource dataSource) {
 		return null;
 	}
 
+	/**
+	 * Returns a key for hashing xrefs, consistent with
+	 * {@link #equivalentXrefs(Xref, Xref)}: two xrefs have equal keys if and only
+	 * if they are equivalent.
+	 * 
+	 * @param xref the xref, may be null.
+	 * @return the key, or null if the xref is null.
+	 */
+	public static Object equivalenceKey(Xref xref) {
+		if (xref == null) {
+			return null;
+		}
+		return Arrays.asList(xref.getId(), xref.getDataSource());
+	}
+
 	/**
 	 * This method checks whether two {@link Xref}(s) are equal in value. Returns
 	 * true if the given Xrefs are equal, false otherwise.
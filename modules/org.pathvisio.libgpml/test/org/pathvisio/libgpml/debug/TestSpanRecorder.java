@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.debug;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import org.pathvisio.libgpml.debug.SpanRecorder.Span;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that spans are recorded as a tree per thread, and dumped as text and
+ * JSON.
+ */
+public class TestSpanRecorder extends TestCase {
+
+	private SpanRecorder recorder;
+
+	public void setUp() {
+		recorder = new SpanRecorder();
+	}
+
+	public void tearDown() {
+		System.clearProperty(SpanRecorder.PROPERTY_LAUNCHER_STEPS);
+	}
+
+	public void testNesting() throws InterruptedException {
+		try (Span outer = recorder.begin("outer")) {
+			try (Span inner = recorder.begin("inner")) {
+				Thread.sleep(5);
+			}
+			Thread other = new Thread("other") {
+				public void run() {
+					recorder.begin("other thread").close();
+				}
+			};
+			other.start();
+			other.join();
+			recorder.begin("second").close();
+		}
+		recorder.begin("after").close();
+
+		List<Span> roots = recorder.getRoots();
+		assertEquals(3, roots.size());
+		assertEquals("outer", roots.get(0).getName());
+		assertEquals("other thread", roots.get(1).getName());
+		assertEquals("after", roots.get(2).getName());
+		List<Span> children = roots.get(0).getChildren();
+		assertEquals(2, children.size());
+		assertEquals("inner", children.get(0).getName());
+		assertEquals("second", children.get(1).getName());
+		assertTrue(children.get(0).getDuration() >= 5);
+		assertTrue(roots.get(0).getDuration() >= children.get(0).getDuration());
+	}
+
+	public void testJson() {
+		Span open = recorder.begin("open \"quoted\"");
+		recorder.begin("child").close();
+		String json = recorder.toJson();
+		assertTrue(json, json.startsWith("{\"spans\":[{\"name\":\"open \\\"quoted\\\"\",\"thread\":"));
+		assertTrue(json, json.contains("\"duration\":-1,\"children\":[{\"name\":\"child\""));
+		assertTrue(json, json.endsWith("\"children\":[]}]}]}"));
+		open.close();
+		assertFalse(recorder.toJson().contains("-1"));
+	}
+
+	public void testLauncherSteps() {
+		System.setProperty(SpanRecorder.PROPERTY_LAUNCHER_STEPS,
+				"10\t30\tstart framework\tmain\n30\t45\tinstall derby.jar\tBundle loader 1\n");
+		recorder.begin("bundle").close();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		recorder.print(new PrintStream(bytes, true));
+		String[] lines = bytes.toString().split("\\r?\\n");
+		assertEquals(4, lines.length);
+		assertTrue(lines[1], lines[1].matches(" +10 +20  launcher: start framework \\[main\\]"));
+		assertTrue(lines[2], lines[2].contains("launcher: install derby.jar [Bundle loader 1]"));
+		assertTrue(lines[3], lines[3].contains("bundle ["));
+		assertTrue(recorder.toJson().contains("{\"name\":\"launcher: start framework\",\"thread\":\"main\","
+				+ "\"begin\":10,\"duration\":20,\"children\":[]}"));
+	}
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bridgedb.DataSource;
+import org.bridgedb.Xref;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.GPML2021Writer;
+import org.pathvisio.libgpml.model.GPMLFormat;
+import org.pathvisio.libgpml.model.Group;
+import org.pathvisio.libgpml.model.Interaction;
+import org.pathvisio.libgpml.model.Label;
+import org.pathvisio.libgpml.model.LineElement.Anchor;
+import org.pathvisio.libgpml.model.LineElement.LinePoint;
+import org.pathvisio.libgpml.model.PathwayElement.AnnotationRef;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.type.AnnotationType;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.model.type.GroupType;
+import org.pathvisio.libgpml.model.type.StateType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that the streaming GPML2021 reader gives the same pathway model as the
+ * JDOM reader. Both readers are compared for speed by GpmlReadBenchmark in
+ * org.pathvisio.benchmark.
+ */
+public class TestGPML2021StreamReader extends TestCase {
+
+	private static final int NODES = 1000;
+
+	private File file;
+
+	/**
+	 * Writes a large GPML2021 file with forward references to groups, aliases,
+	 * anchors and annotations.
+	 *
+	 * @throws IOException
+	 * @throws ConverterException
+	 */
+	@Before
+	public void setUp() throws IOException, ConverterException {
+		// initializes data sources
+		GPMLFormat.setStreamingEnabled(true);
+		DataSource ds = DataSource.getExistingBySystemCode("L");
+		PathwayModel p = new PathwayModel();
+		p.getPathway().setTitle("Stream reader test");
+		p.getPathway().addComment("pathway comment", "test");
+		List<DataNode> nodes = new ArrayList<DataNode>();
+		List<Interaction> interactions = new ArrayList<Interaction>();
+		for (int i = 0; i < NODES; i++) {
+			DataNode d = new DataNode("d" + i, DataNodeType.GENEPRODUCT);
+			p.addDataNode(d);
+			d.setCenterX(50 * (i % 100) + 20);
+			d.setCenterY(50 * (i / 100) + 20);
+			d.setWidth(40);
+			d.setHeight(20);
+			d.setXref(new Xref("" + i, ds));
+			d.setDynamicProperty("key", "value" + i);
+			if (i % 10 == 0) {
+				d.addState("p", StateType.PROTEIN_MODIFICATION, 1.0, 1.0);
+				AnnotationRef ar = d.addAnnotation("annotation" + (i % 30), AnnotationType.ONTOLOGY, null, null);
+				ar.addCitation(null, "https://pathvisio.org/" + (i % 20));
+			}
+			nodes.add(d);
+			if (i > 0) {
+				Interaction ia = new Interaction();
+				p.addInteraction(ia);
+				List<LinePoint> points = new ArrayList<LinePoint>();
+				points.add(ia.new LinePoint(0, 0));
+				points.add(ia.new LinePoint(1, 1));
+				ia.setLinePoints(points);
+				ia.getStartLinePoint().linkTo(nodes.get(i - 1), 1.0, 0.0);
+				ia.getEndLinePoint().linkTo(d, -1.0, 0.0);
+				if (i % 5 == 0) {
+					ia.addEvidence("evidence", new Xref("e" + (i % 7), ds), null);
+				}
+				interactions.add(ia);
+			}
+		}
+		// nested groups, inner group refers to outer group written after it
+		Group inner = new Group(GroupType.COMPLEX);
+		p.addGroup(inner);
+		Group outer = new Group(GroupType.GROUP);
+		p.addGroup(outer);
+		for (int i = 0; i < 10; i++) {
+			inner.addPathwayElement(nodes.get(i));
+		}
+		outer.addPathwayElement(inner);
+		outer.addPathwayElement(nodes.get(10));
+		DataNode alias = new DataNode("alias", DataNodeType.ALIAS);
+		p.addDataNode(alias);
+		alias.setCenterX(10);
+		alias.setCenterY(10);
+		alias.setWidth(10);
+		alias.setHeight(10);
+		alias.setAliasRef(outer);
+		// interaction linked to an anchor of a later interaction
+		Anchor anchor = interactions.get(interactions.size() - 1).addAnchor(0.5, null);
+		interactions.get(0).getEndLinePoint().linkTo(anchor, 0.0, 0.0);
+		Label label = new Label("label");
+		p.addLabel(label);
+		label.setCenterX(5);
+		label.setCenterY(5);
+		label.setWidth(10);
+		label.setHeight(10);
+		label.setGroupRefTo(outer);
+
+		file = File.createTempFile("testStreamReader_", ".gpml");
+		GPML2021Writer.GPML2021WRITER.writeToXml(p, file, true);
+	}
+
+	@After
+	public void tearDown() {
+		GPMLFormat.setStreamingEnabled(true);
+		file.delete();
+	}
+
+	/**
+	 * Reads the file with both readers and compares the written results.
+	 *
+	 * @throws ConverterException
+	 */
+	@Test
+	public void testSameAsJdom() throws ConverterException {
+		PathwayModel streamed = read(true);
+		PathwayModel jdom = read(false);
+		assertEquals(jdom.getDataNodes().size(), streamed.getDataNodes().size());
+		assertEquals(jdom.getAnnotations().size(), streamed.getAnnotations().size());
+		assertEquals(write(jdom), write(streamed));
+	}
+
+	private PathwayModel read(boolean streaming) throws ConverterException {
+		GPMLFormat.setStreamingEnabled(streaming);
+		PathwayModel p = new PathwayModel();
+		p.readFromXml(file, true);
+		return p;
+	}
+
+	private String write(PathwayModel p) throws ConverterException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GPML2021Writer.GPML2021WRITER.writeToXml(p, out, false);
+		return out.toString();
+	}
+
+}
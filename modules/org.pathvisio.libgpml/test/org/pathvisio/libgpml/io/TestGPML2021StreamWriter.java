@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jdom2.JDOMException;
+import org.jdom2.input.SAXBuilder;
+import org.junit.Test;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.GPML2013aReader;
+import org.pathvisio.libgpml.model.GPML2021StreamReader;
+import org.pathvisio.libgpml.model.GPML2021StreamWriter;
+import org.pathvisio.libgpml.model.GPML2021Writer;
+import org.pathvisio.libgpml.model.GraphicalLine;
+import org.pathvisio.libgpml.model.LineElement.LinePoint;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.model.type.StateType;
+import org.xml.sax.InputSource;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that the streaming GPML2021 writer writes exactly the same bytes as the
+ * JDOM writer.
+ */
+public class TestGPML2021StreamWriter extends TestCase {
+
+	private static final String TRICKY = "  a & b < c > d \"e\" 'f'\tg\nh\r\ni \u00e9 \ud83d\ude00  ";
+
+	/**
+	 * Compares both writers for an example pathway read from GPML2013a.
+	 *
+	 * @throws ConverterException
+	 * @throws IOException
+	 * @throws JDOMException
+	 */
+	@Test
+	public void testExample() throws ConverterException, JDOMException, IOException {
+		assertSameOutput(readExample());
+	}
+
+	/**
+	 * Compares both writers for text and attributes which need escaping or
+	 * trimming.
+	 *
+	 * @throws ConverterException
+	 */
+	@Test
+	public void testEscaping() throws ConverterException {
+		assertSameOutput(createTricky());
+	}
+
+	/**
+	 * Validating in a separate pass gives the same output as validating while
+	 * writing, and both use the same compiled schema.
+	 *
+	 * @throws ConverterException
+	 * @throws IOException
+	 * @throws JDOMException
+	 */
+	@Test
+	public void testValidateBeforeWriting() throws ConverterException, JDOMException, IOException {
+		GPML2021StreamWriter writer = GPML2021StreamWriter.GPML2021STREAMWRITER;
+		ByteArrayOutputStream original = new ByteArrayOutputStream();
+		writer.writeToXml(readExample(), original, false);
+		PathwayModel p1 = new PathwayModel();
+		PathwayModel p2 = new PathwayModel();
+		GPML2021StreamReader.GPML2021STREAMREADER.readFromXml(p1,
+				new InputSource(new ByteArrayInputStream(original.toByteArray())), false);
+		GPML2021StreamReader.GPML2021STREAMREADER.readFromXml(p2,
+				new InputSource(new ByteArrayInputStream(original.toByteArray())), false);
+
+		ByteArrayOutputStream streaming = new ByteArrayOutputStream();
+		writer.writeToXml(p1, streaming, true);
+		writer.setValidateWhileWriting(false);
+		try {
+			ByteArrayOutputStream separate = new ByteArrayOutputStream();
+			writer.writeToXml(p2, separate, true);
+			assertTrue(Arrays.equals(streaming.toByteArray(), separate.toByteArray()));
+		} finally {
+			writer.setValidateWhileWriting(true);
+		}
+		assertSame(writer.getSchema(), GPML2021StreamReader.GPML2021STREAMREADER.getSchema());
+	}
+
+	/**
+	 * An invalid pathway model is rejected while it is written, and leaves an
+	 * existing file untouched.
+	 *
+	 * @throws ConverterException
+	 * @throws IOException
+	 */
+	@Test
+	public void testInvalidFile() throws ConverterException, IOException {
+		GPML2021StreamWriter writer = GPML2021StreamWriter.GPML2021STREAMWRITER;
+		assertTrue(writer.isValidateWhileWriting());
+		File dir = File.createTempFile("stream-writer", "");
+		dir.delete();
+		dir.mkdir();
+		File file = new File(dir, "pathway.gpml");
+		try {
+			writer.writeToXml(createTricky(), file, true);
+			byte[] valid = Files.readAllBytes(file.toPath());
+
+			PathwayModel invalid = new PathwayModel();
+			DataNode d = new DataNode("infinite", DataNodeType.GENEPRODUCT);
+			invalid.addDataNode(d);
+			// written as "Infinity", which is not an xsd:float
+			d.setCenterX(Double.POSITIVE_INFINITY);
+			try {
+				writer.writeToXml(invalid, file, true);
+				fail("Expected ConverterException");
+			} catch (ConverterException expected) {
+			}
+			assertTrue(Arrays.equals(valid, Files.readAllBytes(file.toPath())));
+			assertEquals(1, dir.list().length);
+		} finally {
+			for (File f : dir.listFiles()) {
+				f.delete();
+			}
+			dir.delete();
+		}
+	}
+
+	private PathwayModel readExample() throws ConverterException, JDOMException, IOException {
+		URL url = Thread.currentThread().getContextClassLoader().getResource("example-v2013a.xml");
+		PathwayModel p = new PathwayModel();
+		GPML2013aReader.GPML2013aREADER.readFromRoot(p, new SAXBuilder().build(url).getRootElement());
+		return p;
+	}
+
+	private PathwayModel createTricky() {
+		PathwayModel p = new PathwayModel();
+		p.getPathway().setTitle(TRICKY);
+		p.getPathway().setDescription(TRICKY);
+		p.getPathway().addComment("   ", null);
+		p.getPathway().addComment(TRICKY, TRICKY);
+		DataNode d = new DataNode(TRICKY, DataNodeType.GENEPRODUCT);
+		p.addDataNode(d);
+		d.setDynamicProperty(TRICKY, TRICKY);
+		d.addState(TRICKY, StateType.PROTEIN_MODIFICATION, 1.0, 1.0);
+		GraphicalLine l = new GraphicalLine();
+		p.addGraphicalLine(l);
+		List<LinePoint> points = new ArrayList<LinePoint>();
+		points.add(l.new LinePoint(0, 0));
+		points.add(l.new LinePoint(5, 5));
+		points.add(l.new LinePoint(10, 10));
+		l.setLinePoints(points);
+		l.getEndLinePoint().linkTo(d, 1.0, 0.0);
+		return p;
+	}
+
+	/**
+	 * Writes the pathway model once, and reads it back into two pathway models
+	 * with the same element ids. Writing updates group dimensions, so each writer
+	 * gets its own copy.
+	 */
+	private void assertSameOutput(PathwayModel p) throws ConverterException {
+		ByteArrayOutputStream original = new ByteArrayOutputStream();
+		GPML2021Writer.GPML2021WRITER.writeToXml(p, original, false);
+		PathwayModel p1 = new PathwayModel();
+		PathwayModel p2 = new PathwayModel();
+		GPML2021StreamReader.GPML2021STREAMREADER.readFromXml(p1,
+				new InputSource(new ByteArrayInputStream(original.toByteArray())), false);
+		GPML2021StreamReader.GPML2021STREAMREADER.readFromXml(p2,
+				new InputSource(new ByteArrayInputStream(original.toByteArray())), false);
+
+		ByteArrayOutputStream jdom = new ByteArrayOutputStream();
+		GPML2021Writer.GPML2021WRITER.writeToXml(p1, jdom, false);
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		GPML2021StreamWriter.GPML2021STREAMWRITER.writeToXml(p2, stream, true);
+		assertEquals(jdom.toString(), stream.toString());
+		assertTrue(Arrays.equals(jdom.toByteArray(), stream.toByteArray()));
+	}
+
+}
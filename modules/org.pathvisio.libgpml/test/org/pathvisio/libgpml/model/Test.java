@@ -26,6 +26,7 @@
 import org.bridgedb.bio.DataSourceTxt;
 import org.pathvisio.libgpml.model.GraphLink.LinkableTo;
 import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.prop.StaticProperty;
 
 import junit.framework.TestCase;
 
@@ -152,6 +153,35 @@ public void testFields() {
 //		assertEquals("Something other than 'World7'", o2.getPropertyEx("Hello7"));
 //	}
 
+	public void testTransaction() {
+		data.clearChangedFlag();
+		data.beginTransaction();
+		data.beginTransaction();
+		o.setCenterX(1.0);
+		o.setCenterY(2.0);
+		data.commitTransaction();
+		o.setTextLabel("label");
+		assertTrue(data.isInTransaction());
+		assertEquals("events are kept until the transaction is committed", 0, receivedElementEvents.size());
+		assertTrue("changed flag is set right away", data.hasChanged());
+		data.commitTransaction();
+		assertFalse(data.isInTransaction());
+
+		// coordinate change and text label change are merged in a single event
+		assertEquals(1, receivedElementEvents.size());
+		PathwayObjectEvent e = receivedElementEvents.get(0);
+		assertSame(o, e.getModifiedPathwayObject());
+		assertTrue(e.isCoordinateChange());
+		assertTrue(e.affectsProperty(StaticProperty.TEXTLABEL));
+		assertEquals(2.0, o.getCenterY(), 0.0001);
+
+		try {
+			data.commitTransaction();
+			fail("Commit without transaction should throw exception");
+		} catch (IllegalStateException ex) {
+		}
+	}
+
 	public void testColor() {
 		try {
 			o.setTextColor(null);
@@ -70,4 +70,24 @@ public void testDuplicateAnnotation() {
 		assertEquals(ar1.getAnnotation(), ar3.getAnnotation());
 	}
 
+	/**
+	 * Tests that duplicates are found after a property change and after removal.
+	 */
+	@Test
+	public void testDuplicateAfterChange() {
+		// null and empty url link are equal
+		assertEquals(a, d1.addAnnotation("value", AnnotationType.ONTOLOGY, null, "").getAnnotation());
+
+		a2.setValue("value3");
+		assertEquals(a2, d1.addAnnotation("value3", AnnotationType.ONTOLOGY, null, null).getAnnotation());
+		AnnotationRef ar3 = d1.addAnnotation("value2", AnnotationType.ONTOLOGY, null, null);
+		assertNotSame(a2, ar3.getAnnotation());
+
+		// a and a2 are now equal, a stays in the index until it is removed
+		a2.setValue("value");
+		assertEquals(a, d1.addAnnotation("value", AnnotationType.ONTOLOGY, null, null).getAnnotation());
+		p.removeAnnotation(a);
+		assertEquals(a2, d1.addAnnotation("value", AnnotationType.ONTOLOGY, null, null).getAnnotation());
+	}
+
 }
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.pathvisio.libgpml.io.ConverterException;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.model.type.GroupType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that snapshots of a pathway model are shared until it is modified, and
+ * can be written but not modified themselves.
+ */
+public class TestSnapshot extends TestCase {
+
+	private PathwayModel p;
+	private DataNode d;
+
+	public void setUp() {
+		p = new PathwayModel();
+		d = new DataNode("before", DataNodeType.GENEPRODUCT);
+		p.add(d);
+	}
+
+	public void testShared() {
+		PathwayModel s1 = p.snapshot();
+		assertNotSame(p, s1);
+		assertSame(s1, p.snapshot());
+
+		d.setTextLabel("after");
+		PathwayModel s2 = p.snapshot();
+		assertNotSame(s1, s2);
+		// the first snapshot is not changed by the edit
+		assertEquals("before", s1.getDataNodes().get(0).getTextLabel());
+		assertEquals("after", s2.getDataNodes().get(0).getTextLabel());
+	}
+
+	public void testEmptyGroups() {
+		Group empty = new Group(GroupType.GROUP);
+		p.add(empty);
+		Group g = new Group(GroupType.GROUP);
+		p.add(g);
+		g.addPathwayElement(d);
+		PathwayModel s = p.snapshot();
+		assertEquals(2, s.getGroups().size());
+		// undo restores a copy of the snapshot
+		assertEquals(2, s.clone().getGroups().size());
+	}
+
+	public void testReadOnly() {
+		PathwayModel s = p.snapshot();
+		assertTrue(s.isReadOnly());
+		assertFalse(p.isReadOnly());
+		long count = s.getModificationCount();
+		DataNode node = s.getDataNodes().get(0);
+		try {
+			node.setTextLabel("changed");
+			fail("Expected IllegalStateException");
+		} catch (IllegalStateException expected) {
+		}
+		try {
+			node.setCenterX(node.getCenterX() + 10);
+			fail("Expected IllegalStateException");
+		} catch (IllegalStateException expected) {
+		}
+		try {
+			s.add(new DataNode("added", DataNodeType.GENEPRODUCT));
+			fail("Expected IllegalStateException");
+		} catch (IllegalStateException expected) {
+		}
+		// nothing is changed before the exception is thrown
+		assertEquals("before", node.getTextLabel());
+		assertEquals(d.getCenterX(), node.getCenterX());
+		assertEquals(1, s.getDataNodes().size());
+		assertEquals(count, s.getModificationCount());
+
+		// a snapshot never changes, so its listeners are not kept
+		s.addListener(new PathwayModelListener() {
+			public void pathwayModified(PathwayModelEvent e) {
+			}
+		});
+		node.addListener(new PathwayObjectListener() {
+			public void gmmlObjectModified(PathwayObjectEvent e) {
+			}
+		});
+		assertTrue(node.getListeners().isEmpty());
+
+		PathwayModel copy = s.clone();
+		assertFalse(copy.isReadOnly());
+		copy.getDataNodes().get(0).setTextLabel("changed");
+	}
+
+	/**
+	 * A snapshot is written as it is, with the group bounds of the pathway model
+	 * after writing.
+	 */
+	public void testWrite() throws ConverterException {
+		Group g = new Group(GroupType.GROUP);
+		p.add(g);
+		g.addPathwayElement(d);
+		d.setCenterX(200);
+		PathwayModel s = p.snapshot();
+		long count = s.getModificationCount();
+
+		PathwayModel written = write(s);
+		assertEquals(count, s.getModificationCount());
+		write(p);
+		Group w = written.getGroups().get(0);
+		assertEquals(g.getCenterX(), w.getCenterX());
+		assertEquals(g.getWidth(), w.getWidth());
+
+		// empty groups are not written
+		p.add(new Group(GroupType.GROUP));
+		s = p.snapshot();
+		assertEquals(1, write(s).getGroups().size());
+		assertEquals(2, s.getGroups().size());
+	}
+
+	private static PathwayModel write(PathwayModel pathwayModel) throws ConverterException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new GPMLFormat(GPMLFormat.GPML2021).writeToXml(pathwayModel, out, true);
+		PathwayModel result = new PathwayModel();
+		result.readFromXml(new ByteArrayInputStream(out.toByteArray()), true);
+		return result;
+	}
+}
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.model.connector;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.Interaction;
+import org.pathvisio.libgpml.model.Label;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.connector.ConnectorShape.Segment;
+import org.pathvisio.libgpml.model.type.ConnectorType;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the routing of orthogonal connectors around data nodes.
+ */
+public class TestOrthogonalConnector extends TestCase {
+
+	private PathwayModel p;
+
+	public void setUp() {
+		p = new PathwayModel();
+	}
+
+	private DataNode addNode(double x, double y) {
+		DataNode node = new DataNode("node", DataNodeType.GENEPRODUCT);
+		node.setCenterX(x);
+		node.setCenterY(y);
+		node.setWidth(80);
+		node.setHeight(20);
+		p.addDataNode(node);
+		return node;
+	}
+
+	private Interaction connect(DataNode start, DataNode end) {
+		Interaction line = new Interaction();
+		p.addInteraction(line);
+		line.setConnectorType(ConnectorType.ORTHOGONAL);
+		line.getStartLinePoint().linkTo(start, 1.0, 0.0);
+		line.getEndLinePoint().linkTo(end, -1.0, 0.0);
+		return line;
+	}
+
+	/**
+	 * Checks that the route is orthogonal, connects the ends of the line and
+	 * doesn't go through any of the given nodes.
+	 */
+	private void assertRoute(Interaction line, DataNode... obstacles) {
+		Segment[] segments = line.getConnectorShape().getSegments();
+		assertEquals(line.getStartPoint2D(), segments[0].getMStart());
+		assertEquals(line.getEndPoint2D(), segments[segments.length - 1].getMEnd());
+		for (int i = 0; i < segments.length; i++) {
+			Point2D a = segments[i].getMStart();
+			Point2D b = segments[i].getMEnd();
+			assertTrue(a.getX() == b.getX() || a.getY() == b.getY());
+			if (i > 0) {
+				assertEquals(segments[i - 1].getMEnd(), a);
+			}
+			for (DataNode node : obstacles) {
+				Rectangle2D r = node.getBounds();
+				assertFalse("segment " + a + " - " + b + " crosses " + r, OrthogonalRouter.crosses(a, b, r));
+			}
+		}
+	}
+
+	public void testType() {
+		assertEquals(ConnectorType.ORTHOGONAL, ConnectorType.fromName("Orthogonal"));
+		assertEquals(OrthogonalConnectorShape.class,
+				ConnectorShapeFactory.getImplementingClass(ConnectorType.ORTHOGONAL.getName()));
+	}
+
+	public void testAvoidNode() {
+		DataNode a = addNode(100, 100);
+		DataNode b = addNode(500, 100);
+		DataNode blocker = addNode(300, 100);
+		blocker.setHeight(200);
+		Interaction line = connect(a, b);
+		assertRoute(line, a, b, blocker);
+		// without the blocker, the line is straight
+		p.remove(blocker);
+		assertEquals(1, line.getConnectorShape().getSegments().length);
+		// a node moved onto the line is avoided
+		DataNode moved = addNode(300, 400);
+		moved.setHeight(200);
+		assertEquals(1, line.getConnectorShape().getSegments().length);
+		moved.setCenterY(100);
+		assertRoute(line, a, b, moved);
+	}
+
+	public void testMoveEnd() {
+		DataNode a = addNode(100, 100);
+		DataNode b = addNode(500, 300);
+		DataNode blocker = addNode(300, 200);
+		blocker.setWidth(100);
+		blocker.setHeight(300);
+		Interaction line = connect(a, b);
+		assertRoute(line, a, b, blocker);
+		for (int i = 0; i < 10; i++) {
+			b.setCenterY(b.getCenterY() + 15);
+			assertRoute(line, a, b, blocker);
+		}
+	}
+
+	/**
+	 * The obstacle index is only built again when a data node or label moves or
+	 * is added or removed, not for other edits.
+	 */
+	public void testObstacleIndex() {
+		DataNode a = addNode(100, 100);
+		DataNode b = addNode(500, 300);
+		Interaction line = connect(a, b);
+		ObstacleIndex index = ObstacleIndex.get(p);
+		a.setTextLabel("renamed");
+		a.setTextColor(Color.RED);
+		line.setLineColor(Color.BLUE);
+		line.getEndLinePoint().unlink();
+		line.getEndLinePoint().setX(700);
+		assertSame(index, ObstacleIndex.get(p));
+
+		a.setCenterX(120);
+		assertNotSame(index, index = ObstacleIndex.get(p));
+		Label label = new Label("label");
+		p.addLabel(label);
+		assertNotSame(index, index = ObstacleIndex.get(p));
+		p.remove(label);
+		assertNotSame(index, ObstacleIndex.get(p));
+	}
+
+	public void testLargePathway() {
+		DataNode[][] grid = new DataNode[70][70];
+		for (int i = 0; i < grid.length; i++) {
+			for (int j = 0; j < grid[i].length; j++) {
+				grid[i][j] = addNode(i * 150, j * 60);
+			}
+		}
+		Interaction line = connect(grid[10][10], grid[20][30]);
+		assertRoute(line, grid[15][10], grid[15][20], grid[20][20]);
+	}
+}
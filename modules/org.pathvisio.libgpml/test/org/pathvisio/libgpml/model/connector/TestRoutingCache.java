@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.model.connector;
+
+import java.awt.Color;
+
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.Interaction;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.type.ConnectorType;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that connectors are only routed again when their geometry changes.
+ */
+public class TestRoutingCache extends TestCase {
+
+	private PathwayModel p;
+	private DataNode node;
+	private Interaction line;
+
+	public void setUp() {
+		p = new PathwayModel();
+		node = new DataNode("node", DataNodeType.GENEPRODUCT);
+		node.setCenterX(100);
+		node.setCenterY(100);
+		node.setWidth(80);
+		node.setHeight(20);
+		p.addDataNode(node);
+		line = new Interaction();
+		p.addInteraction(line);
+		line.setConnectorType(ConnectorType.ELBOW);
+		line.getStartLinePoint().linkTo(node, 1.0, 0.0);
+		line.setEndLinePointX(300);
+		line.setEndLinePointY(200);
+		line.getConnectorShape();
+		RoutingCache.resetCounts();
+	}
+
+	public void testRouteOnlyOnGeometryChange() {
+		int version = line.getConnectorShapeVersion();
+
+		// color and width don't affect the route
+		line.setLineColor(Color.RED);
+		line.setLineWidth(2);
+		line.getConnectorShape();
+		assertEquals(0, RoutingCache.getRecalculationCount());
+		assertEquals(1, RoutingCache.getSkippedCount());
+		assertEquals(version, line.getConnectorShapeVersion());
+
+		// several changes before the shape is needed cause a single routing
+		node.setCenterX(120);
+		node.setCenterY(110);
+		line.setEndLinePointX(320);
+		assertEquals(0, RoutingCache.getRecalculationCount());
+		ConnectorShape shape = line.getConnectorShape();
+		line.getConnectorShape();
+		assertEquals(1, RoutingCache.getRecalculationCount());
+		assertTrue(version != line.getConnectorShapeVersion());
+		assertEquals(160.0, shape.getSegments()[0].getMStart().getX(), 0.01);
+		assertEquals(110.0, shape.getSegments()[0].getMStart().getY(), 0.01);
+	}
+
+	public void testConnectorTypeChange() {
+		line.setConnectorType(ConnectorType.STRAIGHT);
+		assertTrue(line.getConnectorShape() instanceof StraightConnectorShape);
+		assertEquals(1, RoutingCache.getRecalculationCount());
+	}
+
+	/**
+	 * Only orthogonal lines go around other nodes, so only these are routed again
+	 * when another node moves.
+	 */
+	public void testObstacles() {
+		DataNode other = new DataNode("other", DataNodeType.GENEPRODUCT);
+		other.setCenterX(500);
+		other.setCenterY(500);
+		other.setWidth(80);
+		other.setHeight(20);
+		p.addDataNode(other);
+		other.setCenterX(520);
+		line.getConnectorShape();
+		assertEquals(0, RoutingCache.getRecalculationCount());
+
+		line.setConnectorType(ConnectorType.ORTHOGONAL);
+		line.getConnectorShape();
+		assertEquals(1, RoutingCache.getRecalculationCount());
+		line.getConnectorShape();
+		assertEquals(1, RoutingCache.getRecalculationCount());
+		other.setCenterX(540);
+		line.getConnectorShape();
+		assertEquals(2, RoutingCache.getRecalculationCount());
+	}
+}
@@ -20,7 +20,6 @@
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -37,7 +36,6 @@
 import javax.swing.SwingWorker;
 
 import org.apache.felix.bundlerepository.Reason;
-import org.apache.felix.bundlerepository.Repository;
 import org.apache.felix.bundlerepository.RepositoryAdmin;
 import org.apache.felix.bundlerepository.Resolver;
 import org.apache.felix.bundlerepository.Resource;
@@ -55,12 +53,14 @@
 import org.pathvisio.desktop.plugin.PluginRepoPreference;
 import org.pathvisio.gui.ProgressDialog;
 import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.libgpml.debug.SpanRecorder;
+import org.pathvisio.libgpml.debug.SpanRecorder.Span;
 import org.pathvisio.pluginmanager.impl.data.BundleVersion;
 import org.pathvisio.pluginmanager.impl.data.Category;
 import org.pathvisio.pluginmanager.impl.data.PVBundle;
 import org.pathvisio.pluginmanager.impl.data.PVRepository;
 import org.pathvisio.pluginmanager.impl.dialogs.PluginManagerDialog;
-import org.pathvisio.pluginmanager.impl.io.RepoXmlReader;
+import org.pathvisio.pluginmanager.impl.io.RepoIndexCache;
 
 /**
  * Implementation of the IPluginManager interface functionality to install
@@ -86,6 +86,9 @@ public class PluginManager implements IPluginManager {
 
 	public static final String ARG_PROPERTY_WPID = "wp.id";
 
+	/** dir in the bundle dir with the cached index of the online repository */
+	private static final String INDEX_CACHE_DIR = "online-index";
+
 	public PluginManager(BundleContext context) {
 		this.context = context;
 		onlineRepos = new ArrayList<PVRepository>();
@@ -96,80 +99,97 @@ public PluginManager(BundleContext context) {
 	}
 
 	public void init(PvDesktop desktop) {
-		this.desktop = desktop;
+		try (Span span = SpanRecorder.getInstance().begin("PluginManager.init")) {
+			this.desktop = desktop;
 
-		// initialize local repository
-		localHandler.init(GlobalPreference.getBundleDir());
+			// initialize local repository
+			localHandler.init(GlobalPreference.getBundleDir());
 
-		// do not save bundles that could not get started
-		localHandler.clean(problems);
+			// do not save bundles that could not get started
+			localHandler.clean(problems);
 
-		// initializes running plugins
-		initPlugins();
+			// initializes running plugins
+			initPlugins();
 
-		// initialize online repositories
-		final ServiceReference ref = context.getServiceReference(RepositoryAdmin.class.getName());
-		repoAdmin = (RepositoryAdmin) context.getService(ref);
+			// initialize online repositories
+			final ServiceReference ref = context.getServiceReference(RepositoryAdmin.class.getName());
+			repoAdmin = (RepositoryAdmin) context.getService(ref);
 
-		if (ref != null) {
-			SwingWorker<Void, Map<Repository, URL>> worker = new SwingWorker<Void, Map<Repository, URL>>() {
-				boolean atLeastOneSuccess = false;
-				Throwable connectionException;
+			if (ref != null) {
+				SwingWorker<Void, List<PVRepository>> worker = new SwingWorker<Void, List<PVRepository>>() {
+					boolean atLeastOneSuccess = false;
+					Throwable connectionException;
 
-				@Override
-				protected Void doInBackground() throws Exception {
+					@Override
+					protected Void doInBackground() throws Exception {
 
-					URL url = new URL(PreferenceManager.getCurrent().get(PluginRepoPreference.ONLINE_REPO_URL));
-					try {
-						Repository repo = repoAdmin.addRepository(url);
-						Map<Repository, URL> map = new HashMap<Repository, URL>();
-						map.put(repo, url);
-						publish(map);
-						atLeastOneSuccess = true;
-					} catch (Exception e) {
-						Logger.log.error("Could not initialize repository " + url + "\t" + e.getMessage());
-						connectionException = e;
+						URL url = new URL(PreferenceManager.getCurrent().get(PluginRepoPreference.ONLINE_REPO_URL));
+						RepoIndexCache cache = new RepoIndexCache(
+								new File(GlobalPreference.getBundleDir(), INDEX_CACHE_DIR), Utils.getXMLURL(url));
+
+						// show the plugins of the last connection at once, and
+						// replace them when the index turns out to be changed
+						List<PVRepository> cached = cache.readCached();
+						if (cached != null) {
+							Logger.log.info("Initialize cached repository index of " + url);
+							publish(cached);
+						}
+						try {
+							List<PVRepository> repositories = cache.refresh();
+							if (repositories != null) {
+								Logger.log.info("Initialize repository index of " + url);
+								publish(repositories);
+							} else if (cached == null) {
+								throw new IOException("Could not read cached repository index of " + url);
+							}
+							// needed to resolve the dependencies of plugins that are installed
+							repoAdmin.addRepository(url);
+							atLeastOneSuccess = true;
+						} catch (Exception e) {
+							Logger.log.error("Could not initialize repository " + url + "\t" + e.getMessage());
+							connectionException = e;
+						}
+						return null;
 					}
-					return null;
-				}
 
-				@Override
-				protected void process(List<Map<Repository, URL>> result) {
-					for (Map<Repository, URL> repo : result) {
-						for (Repository r : repo.keySet()) {
-							setUpOnlineRepo(r, repo.get(r));
+					@Override
+					protected void process(List<List<PVRepository>> result) {
+						// only the latest index counts
+						setUpOnlineRepos(result.get(result.size() - 1));
+						if (dlg != null) {
+							dlg.updateData();
 						}
 					}
-				}
 
-				@Override
-				protected void done() {
-					if (atLeastOneSuccess) {
-						status = PluginManagerStatus.CONNECTION_COMPLETED_SUCCESSFULLY;
-
-						// check if WP plugin needs to be installed
-						String str = System.getProperty(ARG_PROPERTY_WPID);
-						if (str != null && !runningPlugins.containsKey("org.pathvisio.wpclient")) {
-							for (BundleVersion plugin : getAvailablePlugins()) {
-								if (plugin.getSymbolicName().equals("org.pathvisio.wpclient")) {
-									installPluginFromRepo(plugin);
+					@Override
+					protected void done() {
+						if (atLeastOneSuccess) {
+							status = PluginManagerStatus.CONNECTION_COMPLETED_SUCCESSFULLY;
+
+							// check if WP plugin needs to be installed
+							String str = System.getProperty(ARG_PROPERTY_WPID);
+							if (str != null && !runningPlugins.containsKey("org.pathvisio.wpclient")) {
+								for (BundleVersion plugin : getAvailablePlugins()) {
+									if (plugin.getSymbolicName().equals("org.pathvisio.wpclient")) {
+										installPluginFromRepo(plugin);
+									}
 								}
 							}
+						} else {
+							status = PluginManagerStatus.CONNECTION_COMPLETED_FAILURE;
+							savedConnectionException = connectionException;
 						}
-					} else {
-						status = PluginManagerStatus.CONNECTION_COMPLETED_FAILURE;
-						savedConnectionException = connectionException;
-					}
 
-					if (dlg != null) {
-						dlg.updateData();
+						if (dlg != null) {
+							dlg.updateData();
+						}
 					}
-				}
 
-			};
-			worker.execute();
-		} else {
-			Logger.log.error("Could not initialize online repositories.");
+				};
+				worker.execute();
+			} else {
+				Logger.log.error("Could not initialize online repositories.");
+			}
 		}
 	}
 
@@ -187,7 +207,10 @@ private void initPlugins() {
 
 						ServiceReference ref = context.getServiceReference(PvDesktop.class.getName());
 						checkTmpBundles(refs[i]);
-						plugin.init((PvDesktop) context.getService(ref));
+						try (Span span = SpanRecorder.getInstance()
+								.begin("init plugin " + refs[i].getBundle().getSymbolicName())) {
+							plugin.init((PvDesktop) context.getService(ref));
+						}
 						runningPlugins.put(refs[i].getBundle().getSymbolicName(), plugin);
 					} else {
 						Logger.log.info("Plugin " + refs[i].getBundle().getSymbolicName() + " is running.");
@@ -224,42 +247,24 @@ private void checkTmpBundles(ServiceReference serviceReference) {
 	}
 
 	/**
-	 * initializes the online repository information comes from the pathvisio.xml
-	 * file in the repository such an XML file can contain more than one repository
+	 * initializes the online repository information, which comes from the
+	 * pathvisio.xml file in the repository or from its cached copy. Such an XML
+	 * file can contain more than one repository. Replaces the repositories of an
+	 * earlier copy.
 	 */
-	private void setUpOnlineRepo(Repository repo, URL url) {
-		if (repo != null) {
-			Logger.log.info("Initialize repository " + url);
-
-			List<PVRepository> repositories = readPluginInfo(url);
-			if (repositories != null) {
-				for (PVRepository r : repositories) {
-					// set to installed if bundle is present in local repository
-					for (BundleVersion version : r.getBundleVersions()) {
-						if (localHandler.containsBundle(version.getSymbolicName()) != null) {
-							version.getBundle().setInstalled(true);
-						}
-					}
+	private void setUpOnlineRepos(List<PVRepository> repositories) {
+		for (PVRepository r : repositories) {
+			// set to installed if bundle is present in local repository
+			for (BundleVersion version : r.getBundleVersions()) {
+				if (localHandler.containsBundle(version.getSymbolicName()) != null) {
+					version.getBundle().setInstalled(true);
 				}
-				// a database can contain more than one repository
-				// all of them will be added separately
-				onlineRepos.addAll(repositories);
 			}
 		}
-	}
-
-	/**
-	 * currently the pathvisio.xml file is created through a mysql dump
-	 */
-	private List<PVRepository> readPluginInfo(URL url) {
-		try {
-			RepoXmlReader reader = new RepoXmlReader();
-			List<PVRepository> repositories = reader.parseFile(Utils.getXMLURL(url));
-			return repositories;
-		} catch (MalformedURLException e) {
-			Logger.log.error("Could not initialize repository " + url + "\t" + e.getMessage());
-		}
-		return null;
+		// a database can contain more than one repository
+		// all of them will be added separately
+		onlineRepos.clear();
+		onlineRepos.addAll(repositories);
 	}
 
 	/**
@@ -750,9 +755,15 @@ public String getStatusMessage() {
 		switch (status) {
 		case BUSY:
 			msg = "Attempting to connect to online repository, please wait...";
+			if (!onlineRepos.isEmpty()) {
+				msg += " The plugins of the last connection are shown meanwhile.";
+			}
 			break;
 		case CONNECTION_COMPLETED_FAILURE:
 			msg = "PathVisio was not able to connect to the online plugin repository.";
+			if (!onlineRepos.isEmpty()) {
+				msg += " The plugins of the last connection are shown.";
+			}
 			if (savedConnectionException != null) {
 				// create a user-friendly exception message
 				Throwable t = savedConnectionException;
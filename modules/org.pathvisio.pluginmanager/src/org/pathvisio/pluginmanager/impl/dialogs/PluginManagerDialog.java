@@ -100,8 +100,9 @@ private Component getContentPanel() {
 		pane.add("Errors", errorPanel);
 		StatusPanel statusPanel = new StatusPanel(manager);
 		pane.add("Status", statusPanel);
-		if (manager.getStatus().equals(PluginManagerStatus.CONNECTION_COMPLETED_FAILURE) 
-				|| manager.getStatus().equals(PluginManagerStatus.BUSY)) {
+		// the available plugins are shown from the cached index if there is one
+		if ((manager.getStatus().equals(PluginManagerStatus.CONNECTION_COMPLETED_FAILURE) 
+				|| manager.getStatus().equals(PluginManagerStatus.BUSY)) && manager.getOnlineRepos().isEmpty()) {
 			pane.setSelectedComponent(statusPanel);
 		}
 		
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.pluginmanager.impl.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Properties;
+
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.pluginmanager.impl.data.PVRepository;
+
+/**
+ * Keeps a copy of the index of an online plugin repository (its pathvisio.xml
+ * file) on disk, so that the available plugins can be shown at once, without
+ * waiting for the network, and also when PathVisio is offline.
+ * <p>
+ * The copy is revalidated with a conditional request: the ETag and
+ * Last-Modified of the last download are sent along, and the index is only
+ * downloaded again if the server reports that it changed. Other urls, like
+ * file: urls, are compared by their modification time, so a local directory
+ * can stand in for the online repository, e.g. for testing.
+ */
+public class RepoIndexCache {
+
+	/** connect and read timeout in milliseconds */
+	public static final int TIMEOUT = 15000;
+
+	private static final String ETAG = "etag";
+	private static final String LAST_MODIFIED = "last-modified";
+	private static final String MODIFIED_TIME = "modified-time";
+
+	private final URL url;
+	private final File file;
+	private final File infoFile;
+
+	/**
+	 * @param dir the dir to keep the copy in. The copies of different urls can be
+	 *            kept in the same dir.
+	 * @param url the url of the index, i.e. of the pathvisio.xml file.
+	 */
+	public RepoIndexCache(File dir, URL url) {
+		this.url = url;
+		String name = "index-" + Integer.toHexString(url.toString().hashCode());
+		file = new File(dir, name + ".xml");
+		infoFile = new File(dir, name + ".properties");
+	}
+
+	/**
+	 * Reads the copy on disk. A copy that can't be read is deleted, together with
+	 * its revalidation info, so that the next {@link #refresh()} downloads the
+	 * index again.
+	 *
+	 * @return the repositories of the copy on disk, or null if there is no copy
+	 *         yet, or if it can't be read.
+	 */
+	public List<PVRepository> readCached() {
+		if (!file.exists()) {
+			return null;
+		}
+		List<PVRepository> repositories = new RepoXmlReader().parseFile(file);
+		if (repositories == null) {
+			Logger.log.warn("Deleting unreadable copy of repository index " + url);
+			file.delete();
+			infoFile.delete();
+		}
+		return repositories;
+	}
+
+	/**
+	 * Downloads the index if it changed since the last download, and replaces the
+	 * copy on disk. The copy is only replaced if the downloaded index can be
+	 * read. If the copy on disk can't be read, the index is always downloaded.
+	 *
+	 * @return the repositories of the downloaded index, or null if the copy on
+	 *         disk is up to date.
+	 * @throws IOException if the index can't be downloaded or read.
+	 */
+	public List<PVRepository> refresh() throws IOException {
+		boolean cached = readCached() != null;
+		Properties info = readInfo();
+		URLConnection connection = url.openConnection();
+		connection.setConnectTimeout(TIMEOUT);
+		connection.setReadTimeout(TIMEOUT);
+		connection.setUseCaches(false);
+		if (connection instanceof HttpURLConnection) {
+			HttpURLConnection http = (HttpURLConnection) connection;
+			if (cached && info.getProperty(ETAG) != null) {
+				http.setRequestProperty("If-None-Match", info.getProperty(ETAG));
+			}
+			if (cached && info.getProperty(LAST_MODIFIED) != null) {
+				http.setRequestProperty("If-Modified-Since", info.getProperty(LAST_MODIFIED));
+			}
+			int code = http.getResponseCode();
+			if (code == HttpURLConnection.HTTP_NOT_MODIFIED && cached) {
+				http.disconnect();
+				Logger.log.info("Repository index " + url + " not modified");
+				return null;
+			}
+			if (code != HttpURLConnection.HTTP_OK) {
+				http.disconnect();
+				throw new IOException("Server returned " + code + " for " + url);
+			}
+		} else {
+			long modified = connection.getLastModified();
+			if (cached && modified != 0 && Long.toString(modified).equals(info.getProperty(MODIFIED_TIME))) {
+				connection.getInputStream().close();
+				Logger.log.info("Repository index " + url + " not modified");
+				return null;
+			}
+		}
+
+		// download next to the copy, and only replace the copy if it can be read
+		file.getParentFile().mkdirs();
+		File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+		try (InputStream in = connection.getInputStream()) {
+			Files.copy(in, tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		List<PVRepository> repositories = new RepoXmlReader().parseFile(tmp);
+		if (repositories == null) {
+			tmp.delete();
+			throw new IOException("Could not read repository index " + url);
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+		info.clear();
+		if (connection.getHeaderField("ETag") != null) {
+			info.setProperty(ETAG, connection.getHeaderField("ETag"));
+		}
+		if (connection.getHeaderField("Last-Modified") != null) {
+			info.setProperty(LAST_MODIFIED, connection.getHeaderField("Last-Modified"));
+		}
+		info.setProperty(MODIFIED_TIME, Long.toString(connection.getLastModified()));
+		writeInfo(info);
+		return repositories;
+	}
+
+	private Properties readInfo() {
+		Properties info = new Properties();
+		if (infoFile.exists()) {
+			try (InputStream in = new FileInputStream(infoFile)) {
+				info.load(in);
+			} catch (IOException ex) {
+				Logger.log.warn("Could not read " + infoFile + "\t" + ex.getMessage());
+			}
+		}
+		return info;
+	}
+
+	private void writeInfo(Properties info) {
+		try (OutputStream out = new FileOutputStream(infoFile)) {
+			info.store(out, "Revalidation info of " + url);
+		} catch (IOException ex) {
+			Logger.log.warn("Could not write " + infoFile + "\t" + ex.getMessage());
+		}
+	}
+}
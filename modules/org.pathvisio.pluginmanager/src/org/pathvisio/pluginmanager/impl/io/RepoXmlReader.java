@@ -16,6 +16,7 @@
  ******************************************************************************/
 package org.pathvisio.pluginmanager.impl.io;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -28,6 +29,7 @@
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.input.SAXBuilder;
+import org.pathvisio.libgpml.debug.Logger;
 import org.pathvisio.pluginmanager.impl.Utils;
 import org.pathvisio.pluginmanager.impl.data.Affiliation;
 import org.pathvisio.pluginmanager.impl.data.BundleAuthor;
@@ -63,104 +65,15 @@ public RepoXmlReader() {
 		profileMap = new HashMap<String, Profile>();
 	}
 	
-	@SuppressWarnings("unchecked")
+	/**
+	 * Reads the pathvisio.xml file in the same directory as the given url.
+	 * Returns null if it can't be read.
+	 */
 	public List<PVRepository> parseFile(URL url) {
-		
 		try {
 			URL pathVisioXml = Utils.getXMLURL(url);
 			SAXBuilder parser = new SAXBuilder();
-			Document doc = parser.build(pathVisioXml);
-			Element root = doc.getRootElement();
-			Element db = root.getChild("database");
-			if(db != null) {
-				List<Element> list = db.getChildren("table_data");
-				
-				for(Element e : list) {
-					String table = e.getAttributeValue("name");
-					
-					// read repo data
-					if(table.equals("repository")) {
-						List<Element> l = e.getChildren("row");
-						for(Element row : l) {
-							readRepository(row);
-						}
-					}
-					// read bundle data
-					else if(table.equals("bundle")) {
-						List<Element> l = e.getChildren("row");
-						for(Element row : l) {
-							readBundleData(row);
-						}
-					}
-					// read affiliation
-					else if (table.equals("affiliation")) {
-						List<Element> l = e.getChildren("row");
-						for(Element row : l) {
-							readAffiliation(row);
-						}
-					}
-					//read categories
-					else if (table.equals("category")) {
-						List<Element> l = e.getChildren("row");
-						for(Element row : l) {
-							readCategories(row);
-						}
-					}
-					//read developers
-					else if (table.equals("developer")) {
-						List<Element> l = e.getChildren("row");
-						for(Element row : l) {
-							readDevelopers(row);
-						}
-					}
-					// read bundle version
-					else if (table.equals("bundle_version")) {
-						List<Element> l = e.getChildren("row");
-						for(Element row : l) {
-							readBundleVersionData(row);
-						}
-					} 
-					// read bundle categories
-					else if (table.equals("bundle_categories")) {
-						List<Element> l = e.getChildren("row");
-						for(Element row : l) {
-							addPluginCategories(row);
-						}
-					} 
-					// read bundle authors
-					else if (table.equals("bundle_version_author")) {
-						List<Element> l = e.getChildren("row");
-						for(Element row : l) {
-							addPluginAuthors(row);
-						}
-					} 
-					// read profile categories
-					else if (table.equals("profile_categories")) {
-						List<Element> l = e.getChildren("row");
-						for(Element row : l) {
-							addProfileCategories(row);
-						}
-					} 
-					// read repository bundles
-					else if (table.equals("repository_bundles")) {
-						List<Element> l = e.getChildren("row");
-						for(Element row : l) {
-							addRepoBundles(row);
-						}
-					} 
-				}
-			}
-			
-			List<PVRepository> list = new ArrayList<PVRepository>();
-			for(String key : repoMap.keySet()) {
-				list.add(repoMap.get(key));
-				for(BundleVersion version : repoMap.get(key).getBundleVersions()) {
-					version.getBundle().setSource(repoMap.get(key).getUrl());
-				}
-			}
-
-			cleanUp();
-			return list;
+			return read(parser.build(pathVisioXml));
 		} catch (MalformedURLException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -173,6 +86,117 @@ else if (table.equals("repository_bundles")) {
 		}
 		return null;
 	}
+
+	/**
+	 * Reads a repository file, e.g. a cached copy of pathvisio.xml, see
+	 * {@link RepoIndexCache}. Returns null if it can't be read.
+	 */
+	public List<PVRepository> parseFile(File file) {
+		try {
+			SAXBuilder parser = new SAXBuilder();
+			return read(parser.build(file));
+		} catch (IOException e) {
+			Logger.log.error("Could not read repository file " + file + "\t" + e.getMessage());
+		} catch (JDOMException e) {
+			Logger.log.error("Could not read repository file " + file + "\t" + e.getMessage());
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<PVRepository> read(Document doc) {
+		Element root = doc.getRootElement();
+		Element db = root.getChild("database");
+		if(db != null) {
+			List<Element> list = db.getChildren("table_data");
+			
+			for(Element e : list) {
+				String table = e.getAttributeValue("name");
+				
+				// read repo data
+				if(table.equals("repository")) {
+					List<Element> l = e.getChildren("row");
+					for(Element row : l) {
+						readRepository(row);
+					}
+				}
+				// read bundle data
+				else if(table.equals("bundle")) {
+					List<Element> l = e.getChildren("row");
+					for(Element row : l) {
+						readBundleData(row);
+					}
+				}
+				// read affiliation
+				else if (table.equals("affiliation")) {
+					List<Element> l = e.getChildren("row");
+					for(Element row : l) {
+						readAffiliation(row);
+					}
+				}
+				//read categories
+				else if (table.equals("category")) {
+					List<Element> l = e.getChildren("row");
+					for(Element row : l) {
+						readCategories(row);
+					}
+				}
+				//read developers
+				else if (table.equals("developer")) {
+					List<Element> l = e.getChildren("row");
+					for(Element row : l) {
+						readDevelopers(row);
+					}
+				}
+				// read bundle version
+				else if (table.equals("bundle_version")) {
+					List<Element> l = e.getChildren("row");
+					for(Element row : l) {
+						readBundleVersionData(row);
+					}
+				} 
+				// read bundle categories
+				else if (table.equals("bundle_categories")) {
+					List<Element> l = e.getChildren("row");
+					for(Element row : l) {
+						addPluginCategories(row);
+					}
+				} 
+				// read bundle authors
+				else if (table.equals("bundle_version_author")) {
+					List<Element> l = e.getChildren("row");
+					for(Element row : l) {
+						addPluginAuthors(row);
+					}
+				} 
+				// read profile categories
+				else if (table.equals("profile_categories")) {
+					List<Element> l = e.getChildren("row");
+					for(Element row : l) {
+						addProfileCategories(row);
+					}
+				} 
+				// read repository bundles
+				else if (table.equals("repository_bundles")) {
+					List<Element> l = e.getChildren("row");
+					for(Element row : l) {
+						addRepoBundles(row);
+					}
+				} 
+			}
+		}
+		
+		List<PVRepository> list = new ArrayList<PVRepository>();
+		for(String key : repoMap.keySet()) {
+			list.add(repoMap.get(key));
+			for(BundleVersion version : repoMap.get(key).getBundleVersions()) {
+				version.getBundle().setSource(repoMap.get(key).getUrl());
+			}
+		}
+
+		cleanUp();
+		return list;
+	}
 	
 	private void cleanUp() {
 		bundleMap.clear();
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.pluginmanager.impl.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.pathvisio.pluginmanager.impl.data.PVRepository;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the copy of a repository index on disk, with a file: url standing in
+ * for the online repository.
+ */
+public class TestRepoIndexCache extends TestCase {
+
+	private File dir;
+	private File index;
+	private File cacheDir;
+	private RepoIndexCache cache;
+
+	public void setUp() throws IOException {
+		dir = File.createTempFile("repo-index", "");
+		dir.delete();
+		dir.mkdir();
+		index = new File(dir, "pathvisio.xml");
+		writeIndex("First repository");
+		cacheDir = new File(dir, "cache");
+		cache = new RepoIndexCache(cacheDir, index.toURI().toURL());
+	}
+
+	public void tearDown() {
+		delete(dir);
+	}
+
+	public void testRefresh() throws IOException {
+		assertNull(cache.readCached());
+		assertEquals("First repository", name(cache.refresh()));
+		assertEquals("First repository", name(cache.readCached()));
+
+		// unchanged
+		assertNull(cache.refresh());
+
+		writeIndex("Second repository");
+		index.setLastModified(index.lastModified() + 10000);
+		assertEquals("Second repository", name(cache.refresh()));
+		assertEquals("Second repository", name(cache.readCached()));
+	}
+
+	/**
+	 * A copy that can't be read must be downloaded again, even though the index
+	 * did not change.
+	 */
+	public void testUnreadableCopy() throws IOException {
+		assertNotNull(cache.refresh());
+		File copy = copy();
+		write(copy, "<pathvisio><data");
+
+		assertEquals("First repository", name(cache.refresh()));
+		assertEquals("First repository", name(cache.readCached()));
+
+		write(copy, "");
+		assertNull(cache.readCached());
+		assertFalse(copy.exists());
+		assertEquals("First repository", name(cache.refresh()));
+	}
+
+	/**
+	 * An index that can't be read must not replace the copy.
+	 */
+	public void testUnreadableIndex() throws IOException {
+		assertNotNull(cache.refresh());
+		write(index, "<pathvisio><data");
+		index.setLastModified(index.lastModified() + 10000);
+		try {
+			cache.refresh();
+			fail("Expected IOException");
+		} catch (IOException expected) {
+		}
+		assertEquals("First repository", name(cache.readCached()));
+	}
+
+	private File copy() {
+		File[] files = cacheDir.listFiles();
+		for (File f : files) {
+			if (f.getName().endsWith(".xml")) {
+				return f;
+			}
+		}
+		fail("No copy in " + cacheDir);
+		return null;
+	}
+
+	private String name(List<PVRepository> repositories) {
+		assertNotNull(repositories);
+		assertEquals(1, repositories.size());
+		return repositories.get(0).getName();
+	}
+
+	private void writeIndex(String name) throws IOException {
+		write(index, "<pathvisio><database name=\"pathvisio\"><table_data name=\"repository\"><row>"
+				+ "<field name=\"repository_id\">1</field>" + "<field name=\"name\">" + name + "</field>"
+				+ "<field name=\"url\">" + dir.toURI() + "</field>" + "</row></table_data></database></pathvisio>");
+	}
+
+	private static void write(File file, String s) throws IOException {
+		try (OutputStream out = new FileOutputStream(file)) {
+			out.write(s.getBytes("UTF-8"));
+		}
+	}
+
+	private static void delete(File f) {
+		File[] children = f.listFiles();
+		if (children != null) {
+			for (File c : children) {
+				delete(c);
+			}
+		}
+		f.delete();
+	}
+}
@@ -0,0 +1,8 @@
+#!/bin/bash
+
+CLASSPATH=\
+../modules/org.pathvisio.libgpml.jar:\
+../modules/org.pathvisio.core.jar:\
+../lib/*
+
+java -Djava.awt.headless=true -Dfile.encoding=UTF-8 -classpath "$CLASSPATH" org.pathvisio.core.util.BatchConverter "$@"